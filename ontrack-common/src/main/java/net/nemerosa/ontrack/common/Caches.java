@@ -4,4 +4,14 @@ public interface Caches {
 
     String SETTINGS = "SETTINGS";
 
+    /**
+     * Accounts with their resolved ACL, indexed by account ID
+     */
+    String ACCOUNT_ACL = "ACCOUNT_ACL";
+
+    /**
+     * Recently verified credentials
+     */
+    String CREDENTIALS = "CREDENTIALS";
+
 }
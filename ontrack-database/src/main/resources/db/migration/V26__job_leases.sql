@@ -0,0 +1,10 @@
+-- 26. Job leases, for running each job on only one node of a cluster
+
+CREATE TABLE JOB_LEASES (
+  JOBKEY  VARCHAR(400) NOT NULL,
+  NODE    VARCHAR(200) NOT NULL,
+  EXPIRES TIMESTAMP    NOT NULL,
+  CONSTRAINT JOB_LEASES_PK PRIMARY KEY (JOBKEY)
+);
+
+CREATE INDEX JOB_LEASES_IX_NODE ON JOB_LEASES (NODE);
@@ -0,0 +1,14 @@
+-- 27. Search index stored in PostgreSQL
+
+CREATE TABLE SEARCH_INDEX (
+  INDEXNAME VARCHAR(200) NOT NULL,
+  ID        VARCHAR(400) NOT NULL,
+  FIELDS    JSONB        NOT NULL,
+  KEYWORDS  TEXT         NOT NULL,
+  DOCUMENT  TSVECTOR     NOT NULL,
+  CONSTRAINT SEARCH_INDEX_PK PRIMARY KEY (INDEXNAME, ID)
+);
+
+CREATE INDEX SEARCH_INDEX_IX_DOCUMENT ON SEARCH_INDEX USING gin (DOCUMENT);
+-- The trigram index on the keywords is created at startup by the PostgreSQL search engine,
+-- since the pg_trgm extension may need a superuser (see SearchIndexRepository.enablePartialMatching)
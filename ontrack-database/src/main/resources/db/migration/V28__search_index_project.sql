@@ -0,0 +1,5 @@
+-- 28. Project of the items in the search index
+
+ALTER TABLE SEARCH_INDEX ADD COLUMN PROJECT_ID INTEGER;
+
+CREATE INDEX SEARCH_INDEX_IX_PROJECT ON SEARCH_INDEX (PROJECT_ID);
@@ -0,0 +1,14 @@
+-- 29. Sections of the Git change logs, shared between the nodes
+
+CREATE TABLE GIT_CHANGE_LOG_CACHE (
+  REPOSITORY  VARCHAR(600) NOT NULL,
+  COMMIT_FROM VARCHAR(200) NOT NULL,
+  COMMIT_TO   VARCHAR(200) NOT NULL,
+  SECTION     VARCHAR(40)  NOT NULL,
+  CONTENT     TEXT         NOT NULL,
+  SIZE        INTEGER      NOT NULL,
+  ACCESSED    TIMESTAMP    NOT NULL,
+  CONSTRAINT GIT_CHANGE_LOG_CACHE_PK PRIMARY KEY (REPOSITORY, COMMIT_FROM, COMMIT_TO, SECTION)
+);
+
+CREATE INDEX GIT_CHANGE_LOG_CACHE_IX_ACCESSED ON GIT_CHANGE_LOG_CACHE (ACCESSED);
@@ -0,0 +1,15 @@
+-- 30. Composite indexes for the build filters
+
+-- Promotion runs by build and level, and last build per level
+CREATE INDEX IF NOT EXISTS PROMOTION_RUNS_IX_BUILD_LEVEL ON PROMOTION_RUNS (BUILDID, PROMOTIONLEVELID);
+CREATE INDEX IF NOT EXISTS PROMOTION_RUNS_IX_LEVEL_BUILD ON PROMOTION_RUNS (PROMOTIONLEVELID, BUILDID DESC);
+
+-- Last validation run per build and stamp, and last build per stamp
+CREATE INDEX IF NOT EXISTS VALIDATION_RUNS_IX_BUILD_STAMP ON VALIDATION_RUNS (BUILDID, VALIDATIONSTAMPID, ID DESC);
+CREATE INDEX IF NOT EXISTS VALIDATION_RUNS_IX_STAMP_BUILD ON VALIDATION_RUNS (VALIDATIONSTAMPID, BUILDID DESC);
+
+-- Last status of a validation run
+CREATE INDEX IF NOT EXISTS VALIDATION_RUN_STATUSES_IX_RUN_ID ON VALIDATION_RUN_STATUSES (VALIDATIONRUNID, ID DESC);
+
+-- Build links in both directions (BUILD_LINKS_UQ covers BUILDID, TARGETBUILDID)
+CREATE INDEX IF NOT EXISTS BUILD_LINKS_IX_TARGET_BUILD ON BUILD_LINKS (TARGETBUILDID, BUILDID);
@@ -0,0 +1,24 @@
+-- 31. Last validation run and status per build and validation stamp
+
+CREATE TABLE BUILD_VALIDATION_STATE (
+  BUILDID               INTEGER     NOT NULL,
+  VALIDATIONSTAMPID     INTEGER     NOT NULL,
+  VALIDATIONRUNID       INTEGER     NOT NULL,
+  VALIDATIONRUNSTATUSID VARCHAR(40),
+  CONSTRAINT BUILD_VALIDATION_STATE_PK PRIMARY KEY (BUILDID, VALIDATIONSTAMPID),
+  CONSTRAINT BUILD_VALIDATION_STATE_FK_BUILD FOREIGN KEY (BUILDID) REFERENCES BUILDS (ID) ON DELETE CASCADE,
+  CONSTRAINT BUILD_VALIDATION_STATE_FK_VALIDATION_STAMP FOREIGN KEY (VALIDATIONSTAMPID) REFERENCES VALIDATION_STAMPS (ID) ON DELETE CASCADE,
+  CONSTRAINT BUILD_VALIDATION_STATE_FK_VALIDATION_RUN FOREIGN KEY (VALIDATIONRUNID) REFERENCES VALIDATION_RUNS (ID) ON DELETE CASCADE
+);
+
+CREATE INDEX BUILD_VALIDATION_STATE_IX_STAMP_STATUS ON BUILD_VALIDATION_STATE (VALIDATIONSTAMPID, VALIDATIONRUNSTATUSID, BUILDID DESC);
+
+INSERT INTO BUILD_VALIDATION_STATE (BUILDID, VALIDATIONSTAMPID, VALIDATIONRUNID, VALIDATIONRUNSTATUSID)
+  SELECT VR.BUILDID, VR.VALIDATIONSTAMPID, VR.ID, (
+    SELECT VST.VALIDATIONRUNSTATUSID FROM VALIDATION_RUN_STATUSES VST
+    WHERE VST.VALIDATIONRUNID = VR.ID
+    ORDER BY VST.CREATION DESC, VST.ID DESC
+    LIMIT 1
+  )
+  FROM VALIDATION_RUNS VR
+  WHERE VR.ID IN (SELECT MAX(ID) FROM VALIDATION_RUNS GROUP BY BUILDID, VALIDATIONSTAMPID);
@@ -0,0 +1,3 @@
+-- 32. Last build per branch
+
+CREATE INDEX IF NOT EXISTS BUILDS_IX_BRANCH_ID ON BUILDS (BRANCHID, ID DESC);
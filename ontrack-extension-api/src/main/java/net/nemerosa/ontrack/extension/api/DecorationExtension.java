@@ -1,10 +1,16 @@
 package net.nemerosa.ontrack.extension.api;
 
 import net.nemerosa.ontrack.model.extension.Extension;
+import net.nemerosa.ontrack.model.structure.Decoration;
 import net.nemerosa.ontrack.model.structure.Decorator;
+import net.nemerosa.ontrack.model.structure.ProjectEntity;
 import net.nemerosa.ontrack.model.structure.ProjectEntityType;
 
+import java.time.Duration;
 import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public interface DecorationExtension<T> extends Extension, Decorator<T> {
 
@@ -15,4 +21,43 @@ public interface DecorationExtension<T> extends Extension, Decorator<T> {
      */
     EnumSet<ProjectEntityType> getScope();
 
+    /**
+     * Gets the decorations for several entities at once. By default, the entities
+     * are decorated one by one.
+     *
+     * @param entities Entities to decorate, all in the scope of this decorator
+     * @return Decorations indexed by entity
+     */
+    default Map<ProjectEntity, List<Decoration<T>>> getDecorations(List<? extends ProjectEntity> entities) {
+        Map<ProjectEntity, List<Decoration<T>>> result = new LinkedHashMap<>();
+        for (ProjectEntity entity : entities) {
+            result.put(entity, getDecorations(entity));
+        }
+        return result;
+    }
+
+    /**
+     * Duration during which the decorations of an entity are kept in cache. They are
+     * removed from the cache as soon as an event is posted about this entity.
+     * <p>
+     * By default, the decorations are not cached. They must not be cached when they
+     * depend on the current user.
+     *
+     * @return Duration of the cache, {@link Duration#ZERO} to disable it
+     */
+    default Duration getCacheDuration() {
+        return Duration.ZERO;
+    }
+
+    /**
+     * Is this decorator calling a remote system? If so, the decorations are computed
+     * in the background, and left out if they are not available within the time budget
+     * set in the configuration.
+     *
+     * @return <code>true</code> if this decorator relies on a remote system
+     */
+    default boolean isRemote() {
+        return false;
+    }
+
 }
@@ -8,9 +8,12 @@ import net.nemerosa.ontrack.model.support.OntrackConfigProperties
 import org.elasticsearch.action.DocWriteRequest
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest
 import org.elasticsearch.action.admin.indices.refresh.RefreshRequest
+import org.elasticsearch.action.bulk.BackoffPolicy
+import org.elasticsearch.action.bulk.BulkProcessor
 import org.elasticsearch.action.bulk.BulkRequest
+import org.elasticsearch.action.bulk.BulkResponse
 import org.elasticsearch.action.delete.DeleteRequest
-import org.elasticsearch.action.get.GetRequest
+import org.elasticsearch.action.get.MultiGetRequest
 import org.elasticsearch.action.index.IndexRequest
 import org.elasticsearch.action.search.SearchRequest
 import org.elasticsearch.client.RequestOptions
@@ -18,12 +21,18 @@ import org.elasticsearch.client.RestHighLevelClient
 import org.elasticsearch.client.indices.CreateIndexRequest
 import org.elasticsearch.client.indices.GetIndexRequest
 import org.elasticsearch.client.indices.PutMappingRequest
+import org.elasticsearch.common.unit.ByteSizeUnit
+import org.elasticsearch.common.unit.ByteSizeValue
+import org.elasticsearch.common.unit.TimeValue
 import org.elasticsearch.search.builder.SearchSourceBuilder
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
 import org.springframework.stereotype.Service
 import org.springframework.transaction.annotation.Transactional
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
 @Service
 @Transactional
@@ -47,16 +56,33 @@ class ElasticSearchIndexService(
     override fun <T : SearchItem> index(indexer: SearchIndexer<T>) {
         val batchSize = indexer.indexBatch ?: ontrackConfigProperties.search.index.batch
         logger.debug("Full indexation for ${indexer.indexName} with batch size = $batchSize")
-        val buffer = mutableListOf<T>()
-        indexer.indexAll { item ->
-            buffer.add(item)
-            if (buffer.size == batchSize) {
-                index(indexer, buffer)
-                buffer.clear()
+        // Bulk requests are sent in the background while the items are collected
+        val listener = IndexationBulkListener(indexer.indexName)
+        val processor = BulkProcessor.builder(
+                { request, bulkListener -> client.bulkAsync(request, RequestOptions.DEFAULT, bulkListener) },
+                listener
+        )
+                .setBulkActions(batchSize)
+                .setBulkSize(ByteSizeValue(ontrackConfigProperties.search.index.bulkSize.toLong(), ByteSizeUnit.MB))
+                .setConcurrentRequests(ontrackConfigProperties.search.index.bulkConcurrency)
+                .setBackoffPolicy(BackoffPolicy.exponentialBackoff(TimeValue.timeValueMillis(100), 5))
+                .build()
+        var completed = false
+        try {
+            indexer.indexAll { item ->
+                processor.add(IndexRequest(indexer.indexName).id(item.id).source(item.indexedFields))
+            }
+        } finally {
+            // Sends the remaining items and waits for all the bulk requests to complete
+            completed = processor.awaitClose(1, TimeUnit.HOURS)
+            if (!completed) {
+                logger.error("[elasticsearch][index][${indexer.indexName}] Timeout while waiting for the indexation to complete")
             }
         }
-        // Remaining items
-        index(indexer, buffer)
+        logger.info("[elasticsearch][index][${indexer.indexName}] Indexation done, items=${listener.items.get()},failures=${listener.failures.get()}")
+        if (completed && listener.failures.get() == 0) {
+            indexer.indexDone()
+        }
         // Refreshes the index
         immediateRefreshIfRequested(indexer)
     }
@@ -87,10 +113,12 @@ class ElasticSearchIndexService(
 
     /**
      * Converts a generic mapping into an ElasticSearch mapping.
+     *
+     * The ID of the project of the items is always indexed, to filter the searches.
      */
     private fun mappingToMap(mapping: SearchIndexMapping): Map<String, Any> {
         return mapOf(
-                "properties" to mapping.fields
+                "properties" to mapOf<String, Any>(SEARCH_PROJECT_ID_FIELD to mapOf("type" to "long")) + mapping.fields
                         .filter { it.types.isNotEmpty() }
                         .associate { fieldMapping ->
                             // Property mapping
@@ -130,6 +158,7 @@ class ElasticSearchIndexService(
         client.indices().delete(DeleteIndexRequest(indexer.indexName), RequestOptions.DEFAULT)
         // Re-creates the index
         initIndex(indexer)
+        indexer.indexReset()
         // Re-index if requested
         if (reindex) {
             index(indexer)
@@ -140,19 +169,6 @@ class ElasticSearchIndexService(
         return true
     }
 
-    private fun <T : SearchItem> index(indexer: SearchIndexer<T>, items: List<T>) {
-        // Bulk indexation of the items
-        val bulk = items.fold(BulkRequest(indexer.indexName)) { acc, item ->
-            acc.add(IndexRequest().id(item.id).source(item.fields))
-        }
-        if (bulk.numberOfActions() > 0) {
-            // Launching the indexation of this batch
-            client.bulk(bulk, RequestOptions.DEFAULT)
-            // Refreshes the index
-            immediateRefreshIfRequested(indexer)
-        }
-    }
-
     private fun <T : SearchItem> immediateRefreshIfRequested(indexer: SearchIndexer<T>) {
         if (ontrackConfigProperties.search.index.immediate) {
             refreshIndex(indexer)
@@ -164,7 +180,7 @@ class ElasticSearchIndexService(
     override fun <T : SearchItem> createSearchIndex(indexer: SearchIndexer<T>, item: T) {
         logger.debug("Create index ${indexer.indexName}")
         client.index(
-                IndexRequest(indexer.indexName).id(item.id).source(item.fields),
+                IndexRequest(indexer.indexName).id(item.id).source(item.indexedFields),
                 RequestOptions.DEFAULT
         )
         // Refreshes the index
@@ -174,7 +190,7 @@ class ElasticSearchIndexService(
     override fun <T : SearchItem> updateSearchIndex(indexer: SearchIndexer<T>, item: T) {
         logger.debug("Update index ${indexer.indexName}")
         client.index(
-                IndexRequest(indexer.indexName).id(item.id).source(item.fields),
+                IndexRequest(indexer.indexName).id(item.id).source(item.indexedFields),
                 RequestOptions.DEFAULT
         )
     }
@@ -191,9 +207,11 @@ class ElasticSearchIndexService(
 
     override fun <T : SearchItem> batchSearchIndex(indexer: SearchIndexer<T>, items: Collection<T>, mode: BatchIndexMode): BatchIndexResults {
         logger.debug("[search][batch-index] index=${indexer.indexName},items=${items.size},mode=$mode")
+        // Gets the existing items in one request
+        val existing = existingIds(indexer, items)
         // Building the list of actions to take
         val bulk = items.fold(BatchSearchIndexBulk(indexer.indexName)) { acc, item ->
-            val action = batchSearchIndexAction(indexer, item, mode)
+            val action = batchSearchIndexAction(indexer, item, mode, item.id in existing)
             if (ontrackConfigProperties.search.index.logging && logger.isDebugEnabled) {
                 if (action.action != null) {
                     logger.debug("[search][batch-index] index=${indexer.indexName},item=${item.id},mode=$mode,action=${action.action::class.java.simpleName}")
@@ -226,7 +244,7 @@ class ElasticSearchIndexService(
             // Processing the hits as JSON nodes
             val hits = response.hits.hits
             hits.forEach { hit ->
-                handler(hit.sourceAsMap.asJson())
+                handler((hit.sourceAsMap - SEARCH_PROJECT_ID_FIELD).asJson())
             }
             // Next page if hits' count >= size
             next = hits.size >= size
@@ -234,19 +252,37 @@ class ElasticSearchIndexService(
         }
     }
 
-    private fun <T : SearchItem> batchSearchIndexAction(indexer: SearchIndexer<T>, item: T, mode: BatchIndexMode): BatchSearchIndexAction {
-        // Gets the existing item using its ID
-        val response = client.get(GetRequest(indexer.indexName).id(item.id), RequestOptions.DEFAULT)
+    /**
+     * Gets the IDs of the items which are already indexed, using one multi-get request.
+     */
+    private fun <T : SearchItem> existingIds(indexer: SearchIndexer<T>, items: Collection<T>): Set<String> =
+            if (items.isEmpty()) {
+                emptySet()
+            } else {
+                val request = items.fold(MultiGetRequest()) { acc, item ->
+                    acc.add(
+                            MultiGetRequest.Item(indexer.indexName, item.id)
+                                    .fetchSourceContext(FetchSourceContext.DO_NOT_FETCH_SOURCE)
+                    )
+                }
+                val response = client.mget(request, RequestOptions.DEFAULT)
+                response.responses
+                        .filter { !it.isFailed && it.response.isExists }
+                        .map { it.id }
+                        .toSet()
+            }
+
+    private fun <T : SearchItem> batchSearchIndexAction(indexer: SearchIndexer<T>, item: T, mode: BatchIndexMode, exists: Boolean): BatchSearchIndexAction {
         // If item exists
-        return if (response.isExists) {
+        return if (exists) {
             when (mode) {
                 BatchIndexMode.KEEP -> BatchSearchIndexAction(null, BatchIndexResults.KEEP)
-                BatchIndexMode.UPDATE -> BatchSearchIndexAction(IndexRequest(indexer.indexName).id(item.id).source(item.fields), BatchIndexResults.UPDATE)
+                BatchIndexMode.UPDATE -> BatchSearchIndexAction(IndexRequest(indexer.indexName).id(item.id).source(item.indexedFields), BatchIndexResults.UPDATE)
             }
         }
         // If not existing
         else {
-            BatchSearchIndexAction(IndexRequest(indexer.indexName).id(item.id).source(item.fields), BatchIndexResults.ADD)
+            BatchSearchIndexAction(IndexRequest(indexer.indexName).id(item.id).source(item.indexedFields), BatchIndexResults.ADD)
         }
     }
 
@@ -271,4 +307,29 @@ class ElasticSearchIndexService(
             val results: BatchIndexResults
     )
 
+    private inner class IndexationBulkListener(
+            private val indexName: String
+    ) : BulkProcessor.Listener {
+
+        val items = AtomicInteger()
+        val failures = AtomicInteger()
+
+        override fun beforeBulk(executionId: Long, request: BulkRequest) {
+            logger.debug("[elasticsearch][index][$indexName] Bulk $executionId, items=${request.numberOfActions()}")
+        }
+
+        override fun afterBulk(executionId: Long, request: BulkRequest, response: BulkResponse) {
+            items.addAndGet(request.numberOfActions())
+            if (response.hasFailures()) {
+                failures.addAndGet(response.items.count { it.isFailed })
+                logger.warn("[elasticsearch][index][$indexName] Bulk $executionId failures: ${response.buildFailureMessage()}")
+            }
+        }
+
+        override fun afterBulk(executionId: Long, request: BulkRequest, failure: Throwable) {
+            failures.addAndGet(request.numberOfActions())
+            logger.error("[elasticsearch][index][$indexName] Bulk $executionId failed", failure)
+        }
+    }
+
 }
@@ -1,21 +1,12 @@
 package net.nemerosa.ontrack.extension.elastic
 
-import kotlinx.coroutines.future.await
-import kotlinx.coroutines.joinAll
-import kotlinx.coroutines.launch
-import kotlinx.coroutines.runBlocking
-import kotlinx.coroutines.withTimeout
-import net.nemerosa.ontrack.extension.elastic.ElasticSearchJobs.indexationAllJobKey
-import net.nemerosa.ontrack.extension.elastic.ElasticSearchJobs.indexationJobType
-import net.nemerosa.ontrack.job.*
+import net.nemerosa.ontrack.job.JobScheduler
 import net.nemerosa.ontrack.model.structure.SearchIndexService
 import net.nemerosa.ontrack.model.structure.SearchIndexer
-import net.nemerosa.ontrack.model.structure.SearchItem
-import net.nemerosa.ontrack.model.support.JobProvider
+import net.nemerosa.ontrack.model.support.AbstractSearchIndexationJobs
 import net.nemerosa.ontrack.model.support.OntrackConfigProperties
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
 import org.springframework.stereotype.Component
-import java.util.concurrent.TimeUnit
 
 /**
  * One job per type of search.
@@ -26,67 +17,12 @@ import java.util.concurrent.TimeUnit
         havingValue = ElasticSearchConfigProperties.SEARCH_ENGINE_ELASTICSEARCH
 )
 class ElasticSearchIndexationJobs(
-        private val searchIndexers: List<SearchIndexer<*>>,
-        private val elasticSearchService: SearchIndexService,
-        private val jobScheduler: JobScheduler
-) : JobProvider {
-
-
-    override fun getStartingJobs(): Collection<JobRegistration> =
-            searchIndexers.filter { indexer ->
-                !indexer.isIndexationDisabled
-            }.map { indexer ->
-                createIndexationJobRegistration(indexer)
-            } + createGlobalIndexationJob()
-
-    private fun createGlobalIndexationJob() = JobRegistration(
-            schedule = Schedule.NONE,
-            job = object : Job {
-                override fun isDisabled(): Boolean = false
-
-                override fun getKey(): JobKey = indexationAllJobKey
-
-                override fun getDescription(): String = "All re-indexations"
-
-                override fun getTask() = JobRun { listener ->
-                    listener.message("Launching all indexations")
-                    runBlocking {
-                        val jobs = searchIndexers.filter { indexer ->
-                            !indexer.isIndexationDisabled
-                        }.mapNotNull { indexer ->
-                            val key = indexationJobType.getKey(indexer.indexerId)
-                            jobScheduler.fireImmediately(key).orElse(null)
-                        }.map { stage ->
-                            launch {
-                                stage.await()
-                            }
-                        }
-                        // Waits for all jobs to complete
-                        withTimeout(TimeUnit.HOURS.toMillis(1)) {
-                            jobs.joinAll()
-                        }
-                    }
-                }
-            }
-    )
-
-    private fun <T : SearchItem> createIndexationJobRegistration(searchIndexer: SearchIndexer<T>) = JobRegistration(
-            job = createIndexationJob(searchIndexer),
-            schedule = searchIndexer.indexerSchedule
-    )
-
-    private fun <T : SearchItem> createIndexationJob(indexer: SearchIndexer<T>) = object : Job {
-        override fun isDisabled(): Boolean = false
-
-        override fun getKey(): JobKey =
-                indexationJobType.getKey(indexer.indexerId)
-
-        override fun getDescription(): String = indexer.indexerName
-
-        override fun getTask() = JobRun { listener ->
-            listener.message("Launching indexation for ${indexer.indexerName}")
-            elasticSearchService.index(indexer)
-        }
-    }
-
-}
\ No newline at end of file
+        searchIndexers: List<SearchIndexer<*>>,
+        elasticSearchService: SearchIndexService,
+        jobScheduler: JobScheduler
+) : AbstractSearchIndexationJobs(
+        searchIndexers,
+        elasticSearchService,
+        jobScheduler,
+        ElasticSearchJobs.jobCategory
+)
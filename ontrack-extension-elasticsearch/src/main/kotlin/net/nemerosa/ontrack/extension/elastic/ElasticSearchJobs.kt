@@ -6,8 +6,4 @@ object ElasticSearchJobs {
 
     val jobCategory = JobCategory("elasticsearch", "ElasticSearch")
 
-    val indexationJobType = jobCategory.getType("indexation").withName("Search indexation")
-
-    val indexationAllJobKey = indexationJobType.getKey("all")
-
-}
\ No newline at end of file
+}
@@ -6,7 +6,10 @@ import net.nemerosa.ontrack.model.structure.*
 import net.nemerosa.ontrack.model.support.OntrackConfigProperties
 import org.elasticsearch.client.RequestOptions
 import org.elasticsearch.client.RestHighLevelClient
+import org.elasticsearch.index.query.BoolQueryBuilder
+import org.elasticsearch.index.query.ExistsQueryBuilder
 import org.elasticsearch.index.query.MultiMatchQueryBuilder
+import org.elasticsearch.index.query.TermsQueryBuilder
 import org.elasticsearch.search.builder.SearchSourceBuilder
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
 import org.springframework.stereotype.Service
@@ -23,7 +26,8 @@ typealias ESSearchRequest = org.elasticsearch.action.search.SearchRequest
 class ElasticSearchServiceImpl(
         private val client: RestHighLevelClient,
         private val searchIndexers: List<SearchIndexer<*>>,
-        private val searchIndexService: SearchIndexService
+        private val searchIndexService: SearchIndexService,
+        private val structureService: StructureService
 ) : SearchService {
 
     val indexers: Map<String, SearchIndexer<*>> by lazy {
@@ -35,9 +39,19 @@ class ElasticSearchServiceImpl(
     }
 
     override fun paginatedSearch(request: SearchRequest): SearchResults {
+        val query = MultiMatchQueryBuilder(request.token).type(MultiMatchQueryBuilder.Type.BEST_FIELDS)
+        // Restricting the search to the projects the user can see
+        val securedQuery = structureService.viewableProjectIds?.let { projectIds ->
+            BoolQueryBuilder().must(query).filter(
+                    BoolQueryBuilder()
+                            .should(TermsQueryBuilder(SEARCH_PROJECT_ID_FIELD, projectIds))
+                            // Items without any project
+                            .should(BoolQueryBuilder().mustNot(ExistsQueryBuilder(SEARCH_PROJECT_ID_FIELD)))
+            )
+        } ?: query
         val esRequest = ESSearchRequest().source(
                 SearchSourceBuilder().query(
-                        MultiMatchQueryBuilder(request.token).type(MultiMatchQueryBuilder.Type.BEST_FIELDS)
+                        securedQuery
                 ).from(
                         request.offset
                 ).size(
@@ -62,7 +76,7 @@ class ElasticSearchServiceImpl(
                     it.index,
                     it.id,
                     it.score.toDouble(),
-                    it.sourceAsMap
+                    it.sourceAsMap - SEARCH_PROJECT_ID_FIELD
             )
         }
 
@@ -6,9 +6,14 @@ import net.nemerosa.ontrack.model.events.EventListener;
 import net.nemerosa.ontrack.model.security.SecurityService;
 import net.nemerosa.ontrack.model.structure.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -16,19 +21,29 @@ import java.util.stream.Collectors;
 /**
  * When a new validation run is created with a Passed status, or when a promotion is granted, we check all auto promoted promotion levels
  * to know if each of their validation stamps is now passed.
+ * <p>
+ * The auto promotion properties of a branch are cached, and the checks are done against a
+ * {@linkplain BuildStatusSnapshot snapshot} of the status of the build.
  */
 @Component
 public class AutoPromotionEventListener implements EventListener {
 
+    /**
+     * Cache for the auto promotion properties, indexed by branch ID.
+     */
+    public static final String CACHE_AUTO_PROMOTION_PROPERTIES = "autoPromotionProperties";
+
     private final StructureService structureService;
     private final PropertyService propertyService;
     private final SecurityService securityService;
+    private final CacheManager cacheManager;
 
     @Autowired
-    public AutoPromotionEventListener(StructureService structureService, PropertyService propertyService, SecurityService securityService) {
+    public AutoPromotionEventListener(StructureService structureService, PropertyService propertyService, SecurityService securityService, CacheManager cacheManager) {
         this.structureService = structureService;
         this.propertyService = propertyService;
         this.securityService = securityService;
+        this.cacheManager = cacheManager;
     }
 
     @Override
@@ -41,6 +56,12 @@ public class AutoPromotionEventListener implements EventListener {
             onNewPromotionRun(event);
         } else if (event.getEventType() == EventFactory.DELETE_PROMOTION_LEVEL) {
             onDeletePromotionLevel(event);
+        } else if (event.getEventType() == EventFactory.NEW_PROMOTION_LEVEL) {
+            evictAutoPromotionProperties(event.getEntity(ProjectEntityType.BRANCH));
+        } else if (event.getEventType() == EventFactory.PROPERTY_CHANGE || event.getEventType() == EventFactory.PROPERTY_DELETE) {
+            event.<PromotionLevel>getOptionalEntity(ProjectEntityType.PROMOTION_LEVEL).ifPresent(
+                    promotionLevel -> evictAutoPromotionProperties(promotionLevel.getBranch())
+            );
         }
     }
 
@@ -49,6 +70,7 @@ public class AutoPromotionEventListener implements EventListener {
         int validationStampId = event.getIntValue("validation_stamp_id");
         // Branch
         Branch branch = event.getEntity(ProjectEntityType.BRANCH);
+        evictAutoPromotionProperties(branch);
         // Gets all promotion levels for this branch
         List<PromotionLevel> promotionLevels = structureService.getPromotionLevelListForBranch(branch.getId());
         // Checks all promotion levels
@@ -60,6 +82,7 @@ public class AutoPromotionEventListener implements EventListener {
         int promotionLevelId = event.getIntValue("promotion_level_id");
         // Branch
         Branch branch = event.getEntity(ProjectEntityType.BRANCH);
+        evictAutoPromotionProperties(branch);
         // Gets all promotion levels for this branch
         List<PromotionLevel> promotionLevels = structureService.getPromotionLevelListForBranch(branch.getId());
         // Checks all promotion levels
@@ -133,73 +156,92 @@ public class AutoPromotionEventListener implements EventListener {
         Build build = event.getEntity(ProjectEntityType.BUILD);
         // Gets all promotion levels for this branch
         List<PromotionLevel> promotionLevels = structureService.getPromotionLevelListForBranch(branch.getId());
-        // Gets all validation stamps for this branch
-        List<ValidationStamp> validationStamps = structureService.getValidationStampListForBranch(branch.getId());
         // Gets the promotion levels which have an auto promotion property
-        promotionLevels.forEach(promotionLevel -> checkPromotionLevel(build, promotionLevel, promotionLevels, validationStamps));
+        Map<Integer, AutoPromotionProperty> properties = getAutoPromotionProperties(branch, promotionLevels);
+        if (!properties.isEmpty()) {
+            // Gets all validation stamps for this branch
+            List<ValidationStamp> validationStamps = structureService.getValidationStampListForBranch(branch.getId());
+            // Status of the build
+            BuildStatusSnapshot snapshot = structureService.getBuildStatusSnapshot(build);
+            for (PromotionLevel promotionLevel : promotionLevels) {
+                AutoPromotionProperty property = properties.get(promotionLevel.id());
+                if (property != null && checkPromotionLevel(snapshot, promotionLevel, property, promotionLevels, validationStamps)) {
+                    // The build status has changed, including by the promotions granted in turn
+                    snapshot = structureService.getBuildStatusSnapshot(build);
+                }
+            }
+        }
     }
 
-    private void checkPromotionLevel(Build build, PromotionLevel promotionLevel, List<PromotionLevel> promotionLevels, List<ValidationStamp> validationStamps) {
-        Optional<AutoPromotionProperty> oProperty = propertyService.getProperty(promotionLevel, AutoPromotionPropertyType.class).option();
-        if (oProperty.isPresent()) {
-            AutoPromotionProperty property = oProperty.get();
-            // Chek to be done only if the promotion level is not attributed yet
-            List<PromotionRun> runs = structureService.getPromotionRunsForBuildAndPromotionLevel(build, promotionLevel);
-            if (runs.isEmpty()) {
-                // Checks the status of each validation stamp
-                boolean allVSPassed = validationStamps.stream()
-                        // Keeps only the ones selectable for the autopromotion property
-                        .filter(property::contains)
-                        // They must all pass
-                        .allMatch(validationStamp -> isValidationStampPassed(build, validationStamp));
-                // Checks that all needed promotions are granted
-                boolean allPLPassed = promotionLevels.stream()
-                        // Keeps only the ones selectable for the autopromotion property
-                        .filter(property::contains)
-                        // They must all be granted
-                        .allMatch(pl -> isPromotionLevelGranted(build, pl));
-                // Promotion is needed
-                if (allVSPassed && allPLPassed) {
-                    // Promotes
-                    // Makes sure to raise the auth level because the one
-                    // having made a validation might not be granted to
-                    // creation a promotion
-                    securityService.asAdmin(() ->
-                            structureService.newPromotionRun(
-                                    PromotionRun.of(
-                                            build,
-                                            promotionLevel,
-                                            securityService.getCurrentSignature(),
-                                            "Auto promotion"
-                                    )
-                            )
-                    );
-                }
+    /**
+     * Promotes the build if needed.
+     *
+     * @return <code>true</code> if the build has been promoted
+     */
+    private boolean checkPromotionLevel(BuildStatusSnapshot snapshot, PromotionLevel promotionLevel, AutoPromotionProperty property, List<PromotionLevel> promotionLevels, List<ValidationStamp> validationStamps) {
+        // Chek to be done only if the promotion level is not attributed yet
+        if (!snapshot.isPromoted(promotionLevel)) {
+            // Checks the status of each validation stamp
+            boolean allVSPassed = validationStamps.stream()
+                    // Keeps only the ones selectable for the autopromotion property
+                    .filter(property::contains)
+                    // They must all pass
+                    .allMatch(snapshot::isPassed);
+            // Checks that all needed promotions are granted
+            boolean allPLPassed = promotionLevels.stream()
+                    // Keeps only the ones selectable for the autopromotion property
+                    .filter(property::contains)
+                    // They must all be granted
+                    .allMatch(snapshot::isPromoted);
+            // Promotion is needed
+            if (allVSPassed && allPLPassed) {
+                // Promotes
+                // Makes sure to raise the auth level because the one
+                // having made a validation might not be granted to
+                // creation a promotion
+                securityService.asAdmin(() ->
+                        structureService.newPromotionRun(
+                                PromotionRun.of(
+                                        snapshot.getBuild(),
+                                        promotionLevel,
+                                        securityService.getCurrentSignature(),
+                                        "Auto promotion"
+                                )
+                        )
+                );
+                return true;
             }
         }
+        return false;
     }
 
-    private boolean isValidationStampPassed(Build build, ValidationStamp validationStamp) {
-        List<ValidationRun> runs = structureService.getValidationRunsForBuildAndValidationStamp(
-                build.getId(),
-                validationStamp.getId(),
-                0,
-                1
-        );
-        if (runs.isEmpty()) {
-            return false;
+    /**
+     * Gets the auto promotion properties of a branch, indexed by promotion level ID.
+     */
+    private Map<Integer, AutoPromotionProperty> getAutoPromotionProperties(Branch branch, List<PromotionLevel> promotionLevels) {
+        Cache cache = cacheManager.getCache(CACHE_AUTO_PROMOTION_PROPERTIES);
+        if (cache != null) {
+            return cache.get(String.valueOf(branch.id()), () -> loadAutoPromotionProperties(promotionLevels));
         } else {
-            ValidationRun run = runs.get(0);
-            return Objects.equals(
-                    run.getLastStatus().getStatusID(),
-                    ValidationRunStatusID.STATUS_PASSED
-            );
+            return loadAutoPromotionProperties(promotionLevels);
         }
     }
 
-    private boolean isPromotionLevelGranted(Build build, PromotionLevel promotionLevel) {
-        List<PromotionRun> runs = structureService.getPromotionRunsForBuildAndPromotionLevel(build, promotionLevel);
-        return !runs.isEmpty();
+    private Map<Integer, AutoPromotionProperty> loadAutoPromotionProperties(List<PromotionLevel> promotionLevels) {
+        Map<Integer, AutoPromotionProperty> properties = new HashMap<>();
+        promotionLevels.forEach(promotionLevel ->
+                propertyService.getProperty(promotionLevel, AutoPromotionPropertyType.class).option().ifPresent(
+                        property -> properties.put(promotionLevel.id(), property)
+                )
+        );
+        return Collections.unmodifiableMap(properties);
+    }
+
+    private void evictAutoPromotionProperties(Branch branch) {
+        Cache cache = cacheManager.getCache(CACHE_AUTO_PROMOTION_PROPERTIES);
+        if (cache != null) {
+            cache.evict(String.valueOf(branch.id()));
+        }
     }
 
 }
@@ -21,19 +21,50 @@ class BuildLinkDecorationExtension(
 
     override fun getScope(): EnumSet<ProjectEntityType> = EnumSet.of(ProjectEntityType.BUILD)
 
-    override fun getDecorations(entity: ProjectEntity): List<Decoration<BuildLinkDecorationList>> {
-        // Gets the main build links of the source project
-        val labels = mainBuildLinksService.getMainBuildLinksConfig(entity.project).labels
-        // Gets the links from
-        val links = structureService.getBuildLinksFrom(entity as Build)
-        // Main links
-        val mainLinks = links.filter { target ->
-            labels.isEmpty() || mainBuildLinksFilterService.isMainBuidLink(target, labels)
+    override fun getDecorations(entity: ProjectEntity): List<Decoration<BuildLinkDecorationList>> =
+            getDecorations(listOf(entity))[entity] ?: emptyList()
+
+    /**
+     * Links, promotions of the linked builds and main links configurations are loaded once for all the builds.
+     *
+     * The decorations are not cached since they depend on the projects the current user can see.
+     */
+    override fun getDecorations(entities: List<ProjectEntity>): Map<ProjectEntity, List<Decoration<BuildLinkDecorationList>>> {
+        val builds = entities.map { it as Build }
+        // Gets the links from all the builds
+        val links = structureService.getBuildsUsedBy(builds)
+        // Main build links per source project
+        val labels = builds.map { it.project }.distinctBy { it.id }.associate { project ->
+            project.id to mainBuildLinksService.getMainBuildLinksConfig(project).labels
+        }
+        // Main links per source build
+        val mainLinks = builds.associate { build ->
+            val buildLabels = labels.getValue(build.project.id)
+            build.id to (links[build.id] ?: emptyList()).filter { target ->
+                buildLabels.isEmpty() || mainBuildLinksFilterService.isMainBuidLink(target, buildLabels)
+            }
+        }
+        // Promotions of all the main targets
+        val promotionRuns = structureService.getLastPromotionRunsForBuilds(
+                mainLinks.values.flatten().distinctBy { it.id }
+        )
+        // Decorations
+        return entities.associateWith { entity ->
+            val build = entity as Build
+            getDecorations(
+                    build,
+                    links[build.id] ?: emptyList(),
+                    mainLinks.getValue(build.id),
+                    promotionRuns
+            )
         }
+    }
+
+    private fun getDecorations(build: Build, links: List<Build>, mainLinks: List<Build>, promotionRuns: Map<ID, List<PromotionRun>>): List<Decoration<BuildLinkDecorationList>> {
         // Checks if there are extra links (besides the main ones)
         val extraLinks = links.isNotEmpty() && (links.size > mainLinks.size)
         val extraLink = if (extraLinks) {
-            uriBuilder.getEntityPage(entity)
+            uriBuilder.getEntityPage(build)
         } else {
             null
         }
@@ -42,7 +73,7 @@ class BuildLinkDecorationExtension(
             return emptyList()
         } else {
             // Decoration items for the main links
-            val decorations = mainLinks.map { getDecoration(it) }
+            val decorations = mainLinks.map { getDecoration(it, promotionRuns[it.id] ?: emptyList()) }
             // Global decoration
             return listOf(
                     Decoration.of(
@@ -56,9 +87,7 @@ class BuildLinkDecorationExtension(
         }
     }
 
-    protected fun getDecoration(build: Build): BuildLinkDecoration {
-        // Gets the list of promotion runs for this build
-        val promotionRuns = structureService.getLastPromotionRunsForBuild(build.id)
+    protected fun getDecoration(build: Build, promotionRuns: List<PromotionRun>): BuildLinkDecoration {
         // Gets the label to use for the decoration
         val label = buildDisplayNameService.getBuildDisplayName(build)
         // Decoration
@@ -145,14 +145,16 @@ class BuildLinkSearchItem(
         val fromBuildId: Int,
         val targetBuildId: Int,
         val targetProject: String,
-        val targetBuild: String
+        val targetBuild: String,
+        override val projectId: Int? = null
 ) : SearchItem {
 
     constructor(from: Build, to: Build, targetBuildName: String = to.name) : this(
             fromBuildId = from.id(),
             targetBuildId = to.id(),
             targetProject = to.project.name,
-            targetBuild = targetBuildName
+            targetBuild = targetBuildName,
+            projectId = from.project.id()
     )
 
     override val id: String = "$fromBuildId::$targetBuildId"
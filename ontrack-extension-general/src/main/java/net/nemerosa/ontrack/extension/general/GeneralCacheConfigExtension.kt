@@ -0,0 +1,14 @@
+package net.nemerosa.ontrack.extension.general
+
+import net.nemerosa.ontrack.extension.api.CacheConfigExtension
+import org.springframework.stereotype.Component
+
+/**
+ * Configuration of caching for the general module
+ */
+@Component
+class GeneralCacheConfigExtension : CacheConfigExtension {
+    override val caches: Map<String, String> = mapOf(
+            AutoPromotionEventListener.CACHE_AUTO_PROMOTION_PROPERTIES to "maximumSize=1000,expireAfterWrite=1h,recordStats"
+    )
+}
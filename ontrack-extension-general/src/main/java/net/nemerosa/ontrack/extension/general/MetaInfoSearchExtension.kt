@@ -99,7 +99,8 @@ class MetaInfoSearchExtension(
             processor(
                     MetaInfoSearchItem(
                             entityId = entityId,
-                            property = property
+                            property = property,
+                            projectId = entityId.type.getFindEntityFn(structureService).apply(ID.of(entityId.id))?.projectId()
                     )
             )
         }
@@ -144,20 +145,23 @@ const val META_INFO_SEARCH_INDEX = "meta-info-properties"
 class MetaInfoSearchItem(
         val items: Map<String, String>,
         val entityType: ProjectEntityType,
-        val entityId: Int
+        val entityId: Int,
+        override val projectId: Int? = null
 ) : SearchItem {
 
     constructor(entity: ProjectEntity, property: MetaInfoProperty) : this(
             entityId = ProjectEntityID(entity.projectEntityType, entity.id()),
-            property = property
+            property = property,
+            projectId = entity.projectId()
     )
 
-    constructor(entityId: ProjectEntityID, property: MetaInfoProperty) : this(
+    constructor(entityId: ProjectEntityID, property: MetaInfoProperty, projectId: Int? = null) : this(
             items = property.items.map {
                 it.name to (it.value ?: "")
             }.associate { it },
             entityType = entityId.type,
-            entityId = entityId.id
+            entityId = entityId.id,
+            projectId = projectId
     )
 
     val keys = items.map { (name, value) -> "$name$META_INFO_SEPARATOR$value" }
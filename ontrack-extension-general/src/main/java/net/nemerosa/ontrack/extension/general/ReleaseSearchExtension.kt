@@ -69,7 +69,8 @@ class ReleaseSearchExtension(
                     ReleaseSearchItem(
                             release = property.name,
                             entityType = entityId.type,
-                            entityId = entityId.id
+                            entityId = entityId.id,
+                            projectId = entityId.type.getFindEntityFn(structureService).apply(ID.of(entityId.id))?.projectId()
                     )
             )
         }
@@ -107,13 +108,15 @@ const val RELEASE_SEARCH_INDEX = "releases"
 data class ReleaseSearchItem(
         val release: String,
         val entityType: ProjectEntityType,
-        val entityId: Int
+        val entityId: Int,
+        override val projectId: Int? = null
 ) : SearchItem {
 
     constructor(entity: ProjectEntity, property: ReleaseProperty) : this(
             release = property.name,
             entityType = entity.projectEntityType,
-            entityId = entity.id()
+            entityId = entity.id(),
+            projectId = entity.projectId()
     )
 
     override val id: String = "$entityType::$entityId"
@@ -7,9 +7,8 @@ import org.apache.commons.lang3.Validate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.Collections;
-import java.util.EnumSet;
-import java.util.List;
+import java.time.Duration;
+import java.util.*;
 
 @Component
 public class ValidationStampWeatherDecorationExtension extends AbstractExtension implements DecorationExtension<ValidationStampWeatherDecoration> {
@@ -27,14 +26,44 @@ public class ValidationStampWeatherDecorationExtension extends AbstractExtension
         return EnumSet.of(ProjectEntityType.VALIDATION_STAMP);
     }
 
+    /**
+     * The weather only changes when new runs or statuses are created, and the corresponding
+     * events remove the decorations from the cache.
+     */
+    @Override
+    public Duration getCacheDuration() {
+        return Duration.ofMinutes(1);
+    }
+
     @Override
     public List<Decoration<ValidationStampWeatherDecoration>> getDecorations(ProjectEntity entity) {
+        return getDecorations(Collections.singletonList(entity)).get(entity);
+    }
+
+    @Override
+    public Map<ProjectEntity, List<Decoration<ValidationStampWeatherDecoration>>> getDecorations(List<? extends ProjectEntity> entities) {
         // Argument check
-        Validate.isTrue(entity instanceof ValidationStamp, "Expecting validation stamp");
-        // List of last five runs for this validation stamp
-        List<ValidationRun> runs = structureService.getValidationRunsForValidationStamp((ValidationStamp) entity, 0, 5);
-        // Keeps only the ones which are not passed
-        long notPassed = runs.stream().filter(run -> !run.isPassed()).count();
+        List<ValidationStamp> validationStamps = new ArrayList<>();
+        for (ProjectEntity entity : entities) {
+            Validate.isTrue(entity instanceof ValidationStamp, "Expecting validation stamp");
+            validationStamps.add((ValidationStamp) entity);
+        }
+        // Statuses of the last five runs for all the validation stamps
+        Map<ID, List<ValidationRunStatusID>> statuses = structureService.getLastValidationRunStatusesForValidationStamps(validationStamps, 5);
+        // Decorations
+        Map<ProjectEntity, List<Decoration<ValidationStampWeatherDecoration>>> result = new LinkedHashMap<>();
+        for (ValidationStamp validationStamp : validationStamps) {
+            // Keeps only the ones which are not passed
+            long notPassed = statuses.getOrDefault(validationStamp.getId(), Collections.emptyList()).stream()
+                    .filter(status -> !status.isPassed())
+                    .count();
+            result.put(validationStamp, Collections.singletonList(Decoration.of(this, getWeather(notPassed))));
+        }
+        // OK
+        return result;
+    }
+
+    private ValidationStampWeatherDecoration getWeather(long notPassed) {
         // Result
         ValidationStampWeatherDecoration decoration;
         if (notPassed == 0) {
@@ -64,7 +93,7 @@ public class ValidationStampWeatherDecorationExtension extends AbstractExtension
             );
         }
         // OK
-        return Collections.singletonList(Decoration.of(this, decoration));
+        return decoration;
     }
 
 }
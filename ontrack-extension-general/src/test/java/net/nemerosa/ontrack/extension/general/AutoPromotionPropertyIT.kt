@@ -70,6 +70,48 @@ class AutoPromotionPropertyIT : AbstractDSLTestSupport() {
         }
     }
 
+    /**
+     * This test checks that a change of the auto promotion configuration is taken into account
+     * for the next validations.
+     */
+    @Test
+    fun `Auto promotion - configuration change`() {
+        project {
+            branch {
+                val vs1 = validationStamp("VS1")
+                val vs2 = validationStamp("VS2")
+                val promotionLevel = promotionLevel("PL")
+                // Both validation stamps are needed
+                setProperty(
+                        promotionLevel,
+                        AutoPromotionPropertyType::class.java,
+                        AutoPromotionProperty(listOf(vs1, vs2), "", "", emptyList())
+                )
+                build("1") {
+                    validate(vs1)
+                    // Not promoted yet
+                    asUser().withView(branch).call {
+                        assertTrue(structureService.getPromotionRunsForBuild(id).isEmpty())
+                    }
+                    // Only the first validation stamp is needed now
+                    setProperty(
+                            promotionLevel,
+                            AutoPromotionPropertyType::class.java,
+                            AutoPromotionProperty(listOf(vs1), "", "", emptyList())
+                    )
+                    validate(vs1)
+                    // Promoted
+                    asUser().withView(branch).call {
+                        assertEquals(
+                                listOf("PL"),
+                                structureService.getPromotionRunsForBuild(id).map { it.promotionLevel.name }
+                        )
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * This test checks that whenever a validation stamp, which was part of an auto promotion configuration,
      * is deleted, it is automatically removed from the auto promotion configuration.
@@ -62,12 +62,14 @@ const val GIT_BRANCH_SEARCH_INDEX = "git-branch"
 
 class GitBranchSearchItem(
         val branchId: Int,
-        val gitBranch: String
+        val gitBranch: String,
+        override val projectId: Int? = null
 ) : SearchItem {
 
     constructor(branch: Branch, branchConfig: GitBranchConfiguration) : this(
             branchId = branch.id(),
-            gitBranch = branchConfig.branch
+            gitBranch = branchConfig.branch,
+            projectId = branch.project.id()
     )
 
     override val id: String = branchId.toString()
@@ -2,6 +2,7 @@ package net.nemerosa.ontrack.extension.git
 
 import com.fasterxml.jackson.databind.JsonNode
 import net.nemerosa.ontrack.common.asMap
+import net.nemerosa.ontrack.common.getOrNull
 import net.nemerosa.ontrack.extension.api.SearchExtension
 import net.nemerosa.ontrack.extension.git.model.GitConfiguration
 import net.nemerosa.ontrack.extension.git.service.GitService
@@ -14,15 +15,23 @@ import net.nemerosa.ontrack.model.security.ProjectView
 import net.nemerosa.ontrack.model.security.SecurityService
 import net.nemerosa.ontrack.model.structure.*
 import net.nemerosa.ontrack.model.support.OntrackConfigProperties
+import net.nemerosa.ontrack.model.support.StorageService
 import net.nemerosa.ontrack.ui.controller.URIBuilder
 import net.nemerosa.ontrack.ui.support.AbstractSearchProvider
+import org.apache.commons.lang3.concurrent.BasicThreadFactory
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 import org.springframework.stereotype.Component
 import org.springframework.web.servlet.mvc.method.annotation.MvcUriComponentsBuilder
 import java.util.*
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.BlockingQueue
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicReference
 import java.util.function.BiConsumer
 import java.util.regex.Pattern
+import kotlin.math.max
+import kotlin.math.min
 
 @Component
 class GitCommitSearchExtension(
@@ -31,20 +40,31 @@ class GitCommitSearchExtension(
         private val uriBuilder: URIBuilder,
         private val securityService: SecurityService,
         private val structureService: StructureService,
-        gitSearchConfigProperties: GitSearchConfigProperties,
+        private val gitSearchConfigProperties: GitSearchConfigProperties,
         private val ontrackConfigProperties: OntrackConfigProperties,
-        private val gitIssueSearchExtension: GitIssueSearchExtension
+        private val gitIssueSearchExtension: GitIssueSearchExtension,
+        private val storageService: StorageService
 ) : AbstractExtension(extensionFeature), SearchExtension, SearchIndexer<GitCommitSearchItem> {
 
     companion object {
         const val GIT_COMMIT_SEARCH_RESULT_TYPE = "git-commit"
         const val GIT_COMMIT_SEARCH_RESULT_DATA_PROJECT = "project"
+
+        /**
+         * Store for the tips of the repositories at the end of their last indexation
+         */
+        private val TIPS_STORE = "${GitCommitSearchExtension::class.java.name}.tips"
     }
 
     private val logger: Logger = LoggerFactory.getLogger(GitCommitSearchExtension::class.java)
 
     private val shaPattern = Pattern.compile("[a-f0-9]{40}|[a-f0-9]{7}")
 
+    /**
+     * New tips per repository, read by the last indexation and not stored yet
+     */
+    private val indexedTips = AtomicReference<Map<String, Set<String>>?>()
+
     override val searchResultType = SearchResultType(
             extensionFeature.featureDescription,
             GIT_COMMIT_SEARCH_RESULT_TYPE,
@@ -111,41 +131,167 @@ class GitCommitSearchExtension(
 
     override fun indexAll(processor: (GitCommitSearchItem) -> Unit) {
         logger.info("[search][indexation][git-commits] Indexing all Git commits")
-        val traceCommits = ontrackConfigProperties.search.index.logging &&
-                ontrackConfigProperties.search.index.tracing &&
-                logger.isDebugEnabled
+        indexedTips.set(null)
+        // Repositories to index
+        val repositories = mutableListOf<Pair<Project, GitConfiguration>>()
         gitService.forEachConfiguredProject(BiConsumer { project, gitConfiguration ->
+            repositories += project to gitConfiguration
+        })
+        // New tips per repository
+        val tips = mutableMapOf<String, Set<String>>()
+        if (repositories.isNotEmpty()) {
+            val properties = gitSearchConfigProperties.commits
+            // Commits & issues read from the repositories
+            val queue = ArrayBlockingQueue<GitCommitIndexationEvent>(max(1, properties.queue))
+            // Reading the repositories in parallel
+            val executor = Executors.newFixedThreadPool(
+                    max(1, min(properties.parallelism, repositories.size)),
+                    BasicThreadFactory.Builder()
+                            .daemon(true)
+                            .namingPattern("git-commit-indexation-%s")
+                            .build()
+            )
+            try {
+                repositories.forEach { (project, gitConfiguration) ->
+                    executor.execute { readCommits(project, gitConfiguration, queue) }
+                }
+                // Indexing in this thread until all repositories have been read
+                var remaining = repositories.size
+                while (remaining > 0) {
+                    when (val event = queue.take()) {
+                        is GitCommitIndexationEvent.Commit -> processor(event.item)
+                        is GitCommitIndexationEvent.IssueKeys -> gitIssueSearchExtension.processIssueKeys(
+                                event.project,
+                                event.issueConfig,
+                                event.keys
+                        )
+                        is GitCommitIndexationEvent.Done -> {
+                            remaining--
+                            if (event.tips != null) {
+                                tips[event.key] = event.tips
+                            }
+                        }
+                    }
+                }
+            } finally {
+                executor.shutdownNow()
+            }
+        }
+        // The new tips are stored once all the commits have been indexed
+        indexedTips.set(tips)
+        // Removes the tips of the repositories which are no longer configured
+        val keys = repositories.map { (project, gitConfiguration) -> tipsKey(project, gitConfiguration) }.toSet()
+        storageService.getKeys(TIPS_STORE).filter { it !in keys }.forEach { key ->
+            storageService.delete(TIPS_STORE, key)
+        }
+    }
+
+    /**
+     * Stores the new tips, now that all the commits read since the previous ones have been indexed.
+     */
+    override fun indexDone() {
+        indexedTips.getAndSet(null)?.forEach { (key, repositoryTips) ->
+            storageService.store(TIPS_STORE, key, GitCommitIndexationTips(repositoryTips.toList()))
+        }
+    }
+
+    /**
+     * Reads the new commits of a repository and sends them to the [queue], followed by
+     * a [GitCommitIndexationEvent.Done] event, whatever the outcome of the reading.
+     */
+    private fun readCommits(project: Project, gitConfiguration: GitConfiguration, queue: BlockingQueue<GitCommitIndexationEvent>) {
+        val key = tipsKey(project, gitConfiguration)
+        var tips: Set<String>? = null
+        try {
             logger.info("[search][indexation][git-commits] project=${project.name}")
-            val issueConfig: ConfiguredIssueService? = gitConfiguration.configuredIssueService.orElse(null)
-            val projectIssueKeys = mutableSetOf<String>()
             if (gitService.isRepositorySynched(gitConfiguration)) {
-                logger.info("[search][indexation][git-commits] project=${project.name} Git repository is synched. Indexing all commits...")
+                val issueConfig: ConfiguredIssueService? = gitConfiguration.configuredIssueService.orElse(null)
+                // Tips of the previous indexation
+                val since = storageService.retrieve(TIPS_STORE, key, GitCommitIndexationTips::class.java)
+                        .getOrNull()
+                        ?.tips
+                        ?: emptyList()
+                logger.info("[search][indexation][git-commits] project=${project.name} Git repository is synched. Indexing commits since ${since.size} tips...")
+                val traceCommits = ontrackConfigProperties.search.index.logging &&
+                        ontrackConfigProperties.search.index.tracing &&
+                        logger.isDebugEnabled
+                val batchSize = ontrackConfigProperties.search.index.batch
+                val projectIssueKeys = mutableSetOf<String>()
+                val pendingIssueKeys = mutableSetOf<String>()
                 var commitCount = 0
-                gitService.forEachCommit(gitConfiguration) { commit: GitCommit ->
+                val newTips = gitService.forEachCommitSince(gitConfiguration, since) { commit: GitCommit ->
                     commitCount++
                     // Logging
                     if (traceCommits) {
                         logger.info("[search][indexation][git-commits] project=${project.name} commit=${commit.shortId} message=${commit.shortMessage}")
                     }
                     // Indexation of the message
-                    val item = GitCommitSearchItem(project, gitConfiguration, commit)
-                    processor(item)
-                    // Gets the list of issues
+                    queue.put(GitCommitIndexationEvent.Commit(GitCommitSearchItem(project, gitConfiguration, commit)))
+                    // Gets the list of issues, sending them by batch
                     if (issueConfig != null) {
-                        val keys = issueConfig.extractIssueKeysFromMessage(commit.fullMessage)
-                        projectIssueKeys.addAll(keys)
+                        issueConfig.extractIssueKeysFromMessage(commit.fullMessage)
+                                .filterTo(pendingIssueKeys) { projectIssueKeys.add(it) }
+                        if (pendingIssueKeys.size >= batchSize) {
+                            queue.put(GitCommitIndexationEvent.IssueKeys(project, issueConfig, pendingIssueKeys.toSet()))
+                            pendingIssueKeys.clear()
+                        }
                     }
                 }
-                logger.info("[search][indexation][git-commits] project=${project.name} count=$commitCount commits indexed.")
+                // Remaining issues
+                if (issueConfig != null && pendingIssueKeys.isNotEmpty()) {
+                    queue.put(GitCommitIndexationEvent.IssueKeys(project, issueConfig, pendingIssueKeys.toSet()))
+                }
+                logger.info("[search][indexation][git-commits] project=${project.name} count=$commitCount commits indexed, issues=${projectIssueKeys.size} Git issues have been found.")
+                tips = newTips
             } else {
                 logger.info("[search][indexation][git-commits] project=${project.name} Git repository is not synched. Not indexing any commit.")
             }
-            // Processing of issues
-            if (issueConfig != null && projectIssueKeys.isNotEmpty()) {
-                logger.info("[search][indexation][git-commits] project=${project.name} issues=${projectIssueKeys.size} Git issues have been found.")
-                gitIssueSearchExtension.processIssueKeys(project, issueConfig, projectIssueKeys)
+        } catch (_: InterruptedException) {
+            // Indexation has been aborted
+            Thread.currentThread().interrupt()
+        } catch (any: Exception) {
+            logger.error("[search][indexation][git-commits] project=${project.name} Cannot index the Git commits", any)
+        } finally {
+            // Not waiting for the indexation thread when aborted, but always telling it otherwise,
+            // even after an error, so that it does not wait forever
+            if (!Thread.currentThread().isInterrupted) {
+                queue.put(GitCommitIndexationEvent.Done(key, tips))
             }
-        })
+        }
+    }
+
+    /**
+     * Forgets about the tips of the previous indexations.
+     */
+    override fun indexReset() {
+        storageService.getKeys(TIPS_STORE).forEach { key ->
+            storageService.delete(TIPS_STORE, key)
+        }
+    }
+
+    private fun tipsKey(project: Project, gitConfiguration: GitConfiguration) =
+            "${project.id()}::${gitConfiguration.name}"
+
+    /**
+     * Data sent by the threads reading the repositories to the indexation thread.
+     */
+    private sealed class GitCommitIndexationEvent {
+
+        class Commit(val item: GitCommitSearchItem) : GitCommitIndexationEvent()
+
+        class IssueKeys(
+                val project: Project,
+                val issueConfig: ConfiguredIssueService,
+                val keys: Set<String>
+        ) : GitCommitIndexationEvent()
+
+        /**
+         * Repository has been read.
+         *
+         * @property key Key of the repository
+         * @property tips New tips of the repository, `null` if it could not be read
+         */
+        class Done(val key: String, val tips: Set<String>?) : GitCommitIndexationEvent()
     }
 
     override fun toSearchResult(id: String, score: Double, source: JsonNode): SearchResult? {
@@ -181,7 +327,7 @@ class GitCommitSearchExtension(
 const val GIT_COMMIT_SEARCH_INDEX = "git-commit"
 
 class GitCommitSearchItem(
-        val projectId: Int,
+        override val projectId: Int,
         val gitType: String,
         val gitName: String,
         val commit: String,
@@ -211,4 +357,13 @@ class GitCommitSearchItem(
             this::commitShort,
             this::commitMessage
     )
-}
\ No newline at end of file
+}
+
+/**
+ * Tips of a Git repository at the end of its last indexation.
+ *
+ * @property tips IDs of the commits
+ */
+class GitCommitIndexationTips(
+        val tips: List<String>
+)
@@ -0,0 +1,65 @@
+package net.nemerosa.ontrack.extension.git
+
+import org.springframework.boot.context.properties.ConfigurationProperties
+import org.springframework.boot.convert.DurationUnit
+import org.springframework.stereotype.Component
+import java.time.Duration
+import java.time.temporal.ChronoUnit
+
+/**
+ * Configuration properties for the Git extension.
+ */
+@Component
+@ConfigurationProperties(prefix = GitConfigProperties.GIT_PROPERTY_PREFIX)
+class GitConfigProperties {
+
+    companion object {
+        /**
+         * Prefix for Git configuration properties
+         */
+        const val GIT_PROPERTY_PREFIX = "ontrack.extension.git"
+    }
+
+    /**
+     * Sharing the objects of all the repositories in one store
+     */
+    var sharedObjectStore: Boolean = true
+
+    /**
+     * Maximum number of remotes being fetched at the same time
+     */
+    var fetchConcurrency: Int = 4
+
+    /**
+     * Change log configuration properties
+     */
+    var changeLog = GitChangeLogConfigProperties()
+
+    /**
+     * Change log configuration properties
+     */
+    class GitChangeLogConfigProperties {
+        /**
+         * Maximum number of items (commits, issues and files) of the change logs kept in memory
+         */
+        var memoryItems: Long = 100_000
+
+        /**
+         * Time a change log is kept in memory after its last access. The issues are kept
+         * for this time after they have been loaded.
+         */
+        @DurationUnit(ChronoUnit.MINUTES)
+        var memoryTtl: Duration = Duration.ofHours(1)
+
+        /**
+         * Maximum size of the change logs stored in the database, in MB
+         */
+        var storedSize: Long = 100
+
+        /**
+         * Number of threads computing the change logs in the background
+         */
+        var threads: Int = 2
+    }
+
+}
@@ -162,6 +162,8 @@ class GitController(
         val changeLog = gitService.changeLog(request)
         // Stores in cache
         logCache.put(changeLog.uuid, changeLog)
+        // Computes its sections in the background
+        gitService.prefetchChangeLog(changeLog)
         // OK
         return changeLog
     }
@@ -192,7 +192,7 @@ const val GIT_ISSUE_SEARCH_INDEX = "git-issues"
  * Item being indexed for searches on Git issues.
  */
 class GitIssueSearchItem(
-        val projectId: Int,
+        override val projectId: Int,
         val key: String,
         val displayKey: String
 ) : SearchItem {
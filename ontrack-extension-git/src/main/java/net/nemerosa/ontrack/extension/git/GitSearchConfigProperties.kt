@@ -39,6 +39,16 @@ class GitSearchConfigProperties {
          */
         var scheduled: Boolean = true
 
+        /**
+         * Number of repositories being indexed in parallel
+         */
+        var parallelism: Int = 2
+
+        /**
+         * Maximum number of commits waiting to be indexed
+         */
+        var queue: Int = 1000
+
         /**
          * Converting the [schedule] property to a job [Schedule]
          */
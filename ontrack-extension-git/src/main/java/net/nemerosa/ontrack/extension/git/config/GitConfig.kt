@@ -1,7 +1,9 @@
 package net.nemerosa.ontrack.extension.git.config
 
+import net.nemerosa.ontrack.extension.git.GitConfigProperties
 import net.nemerosa.ontrack.git.GitRepositoryClientFactory
 import net.nemerosa.ontrack.git.support.GitRepositoryClientFactoryImpl
+import net.nemerosa.ontrack.git.support.GitSharedObjectStore
 import net.nemerosa.ontrack.model.support.EnvService
 import org.springframework.cache.CacheManager
 import org.springframework.context.annotation.Bean
@@ -10,12 +12,21 @@ import org.springframework.context.annotation.Configuration
 @Configuration
 class GitConfig(
         private val envService: EnvService,
-        private val cacheManager: CacheManager
+        private val cacheManager: CacheManager,
+        private val gitConfigProperties: GitConfigProperties
 ) {
     @Bean
     fun gitRepositoryClientFactory(): GitRepositoryClientFactory {
         val repositories = envService.getWorkingDir("git", "repositories")
-        return GitRepositoryClientFactoryImpl(repositories, cacheManager)
+        val sharedObjectStore = if (gitConfigProperties.sharedObjectStore) {
+            GitSharedObjectStore(
+                    envService.getWorkingDir("git", "objects"),
+                    gitConfigProperties.fetchConcurrency
+            )
+        } else {
+            null
+        }
+        return GitRepositoryClientFactoryImpl(repositories, cacheManager, sharedObjectStore)
     }
 
 }
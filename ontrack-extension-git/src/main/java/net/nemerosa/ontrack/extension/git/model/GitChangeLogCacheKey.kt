@@ -0,0 +1,50 @@
+package net.nemerosa.ontrack.extension.git.model
+
+import net.nemerosa.ontrack.json.ObjectMapperFactory
+import java.security.MessageDigest
+
+/**
+ * Identification of a change log, independently of the builds it has been requested for.
+ *
+ * @property repository Identifier of the repository and of its issue service, including a hash of the
+ * settings the sections depend on
+ * @property from Commit the change log starts from
+ * @property to Commit the change log ends at
+ */
+data class GitChangeLogCacheKey(
+        val repository: String,
+        val from: String,
+        val to: String
+) {
+    companion object {
+
+        private val mapper = ObjectMapperFactory.create()
+
+        /**
+         * Key for a change log between two commits of a configured repository.
+         *
+         * The links of the commits and files, and the annotations of the messages, are computed from the
+         * configuration. Any change of those settings gives another key, so that the sections computed
+         * with the previous settings are not used any longer.
+         */
+        fun of(configuration: GitConfiguration, from: String, to: String): GitChangeLogCacheKey {
+            val issueService = configuration.configuredIssueService.orElse(null)
+            val issueServiceId = issueService?.issueServiceConfigurationRepresentation?.id
+            val settings = listOf(
+                    configuration.commitLink,
+                    configuration.fileAtCommitLink,
+                    issueService?.issueServiceConfiguration?.let { mapper.writeValueAsString(it) }
+            ).joinToString("\n")
+            val digest = MessageDigest.getInstance("SHA-256").digest(settings.toByteArray(Charsets.UTF_8))
+            return GitChangeLogCacheKey(
+                    repository = listOfNotNull(
+                            configuration.gitRepository.id,
+                            issueServiceId,
+                            digest.joinToString("") { "%02x".format(it) }
+                    ).joinToString("|"),
+                    from = from,
+                    to = to
+            )
+        }
+    }
+}
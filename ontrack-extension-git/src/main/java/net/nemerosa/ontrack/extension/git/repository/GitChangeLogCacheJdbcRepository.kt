@@ -0,0 +1,71 @@
+package net.nemerosa.ontrack.extension.git.repository
+
+import net.nemerosa.ontrack.extension.git.model.GitChangeLogCacheKey
+import net.nemerosa.ontrack.repository.support.AbstractJdbcRepository
+import org.springframework.stereotype.Repository
+import javax.sql.DataSource
+
+@Repository
+class GitChangeLogCacheJdbcRepository(
+        dataSource: DataSource
+) : AbstractJdbcRepository(dataSource), GitChangeLogCacheRepository {
+
+    override fun find(key: GitChangeLogCacheKey, section: String): String? =
+            namedParameterJdbcTemplate!!.query(
+                    """
+                        SELECT CONTENT FROM GIT_CHANGE_LOG_CACHE
+                        WHERE REPOSITORY = :repository AND COMMIT_FROM = :from AND COMMIT_TO = :to AND SECTION = :section
+                    """,
+                    keyParams(key, section)
+            ) { rs, _ ->
+                rs.getString("CONTENT")
+            }.firstOrNull()
+
+    override fun touch(key: GitChangeLogCacheKey, section: String) {
+        namedParameterJdbcTemplate!!.update(
+                """
+                    UPDATE GIT_CHANGE_LOG_CACHE
+                    SET ACCESSED = CURRENT_TIMESTAMP
+                    WHERE REPOSITORY = :repository AND COMMIT_FROM = :from AND COMMIT_TO = :to AND SECTION = :section
+                """,
+                keyParams(key, section)
+        )
+    }
+
+    override fun save(key: GitChangeLogCacheKey, section: String, content: String) {
+        namedParameterJdbcTemplate!!.update(
+                """
+                    INSERT INTO GIT_CHANGE_LOG_CACHE (REPOSITORY, COMMIT_FROM, COMMIT_TO, SECTION, CONTENT, SIZE, ACCESSED)
+                    VALUES (:repository, :from, :to, :section, :content, :size, CURRENT_TIMESTAMP)
+                    ON CONFLICT (REPOSITORY, COMMIT_FROM, COMMIT_TO, SECTION) DO UPDATE
+                    SET CONTENT = EXCLUDED.CONTENT, SIZE = EXCLUDED.SIZE, ACCESSED = EXCLUDED.ACCESSED
+                """,
+                keyParams(key, section)
+                        .addValue("content", content)
+                        .addValue("size", content.length)
+        )
+    }
+
+    override fun cleanup(maxSize: Long): Int =
+            namedParameterJdbcTemplate!!.update(
+                    """
+                        DELETE FROM GIT_CHANGE_LOG_CACHE c
+                        USING (
+                            SELECT REPOSITORY, COMMIT_FROM, COMMIT_TO, SECTION,
+                                   SUM(SIZE) OVER (ORDER BY ACCESSED DESC, SIZE ASC) AS TOTAL
+                            FROM GIT_CHANGE_LOG_CACHE
+                        ) t
+                        WHERE t.TOTAL > :maxSize
+                        AND c.REPOSITORY = t.REPOSITORY AND c.COMMIT_FROM = t.COMMIT_FROM
+                        AND c.COMMIT_TO = t.COMMIT_TO AND c.SECTION = t.SECTION
+                    """,
+                    params("maxSize", maxSize)
+            )
+
+    private fun keyParams(key: GitChangeLogCacheKey, section: String) =
+            params("repository", key.repository)
+                    .addValue("from", key.from)
+                    .addValue("to", key.to)
+                    .addValue("section", section)
+
+}
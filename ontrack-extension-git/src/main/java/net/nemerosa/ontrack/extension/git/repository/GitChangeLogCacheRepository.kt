@@ -0,0 +1,44 @@
+package net.nemerosa.ontrack.extension.git.repository
+
+import net.nemerosa.ontrack.extension.git.model.GitChangeLogCacheKey
+
+/**
+ * Storage of the computed sections of the change logs.
+ */
+interface GitChangeLogCacheRepository {
+
+    /**
+     * Gets a stored section.
+     *
+     * @param key Change log
+     * @param section Name of the section
+     * @return JSON content of the section or `null` if not stored
+     */
+    fun find(key: GitChangeLogCacheKey, section: String): String?
+
+    /**
+     * Marks a stored section as accessed.
+     *
+     * @param key Change log
+     * @param section Name of the section
+     */
+    fun touch(key: GitChangeLogCacheKey, section: String)
+
+    /**
+     * Stores a section.
+     *
+     * @param key Change log
+     * @param section Name of the section
+     * @param content JSON content of the section
+     */
+    fun save(key: GitChangeLogCacheKey, section: String, content: String)
+
+    /**
+     * Removes the least recently accessed sections until their total size is below a limit.
+     *
+     * @param maxSize Maximum total size of the sections, in characters
+     * @return Number of removed sections
+     */
+    fun cleanup(maxSize: Long): Int
+
+}
@@ -0,0 +1,249 @@
+package net.nemerosa.ontrack.extension.git.service
+
+import com.fasterxml.jackson.databind.DeserializationFeature
+import com.github.benmanes.caffeine.cache.Cache
+import com.github.benmanes.caffeine.cache.Caffeine
+import com.github.benmanes.caffeine.cache.Expiry
+import net.nemerosa.ontrack.extension.git.GitConfigProperties
+import net.nemerosa.ontrack.extension.git.model.*
+import net.nemerosa.ontrack.extension.git.repository.GitChangeLogCacheRepository
+import net.nemerosa.ontrack.git.model.plot.GPlot
+import net.nemerosa.ontrack.json.ObjectMapperFactory
+import org.apache.commons.lang3.concurrent.BasicThreadFactory
+import org.slf4j.LoggerFactory
+import org.springframework.stereotype.Component
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import javax.annotation.PreDestroy
+import kotlin.math.max
+
+/**
+ * Cache for the sections of the change logs, shared by all the change logs between the same commits.
+ *
+ * The sections are kept in memory, where the number of items they contain is bounded. The commits,
+ * the issue keys and the files are also stored in the database, where their total size is bounded,
+ * so that they are computed only once for all the nodes. The issues themselves are only kept in
+ * memory, since they are not owned by Ontrack, and they expire after they have been loaded, whatever
+ * their accesses, so that their changes are eventually displayed.
+ */
+@Component
+class GitChangeLogCache(
+        private val gitChangeLogCacheRepository: GitChangeLogCacheRepository,
+        gitConfigProperties: GitConfigProperties
+) {
+
+    companion object {
+        private const val SECTION_COMMITS = "commits"
+        private const val SECTION_ISSUE_KEYS = "issue-keys"
+        private const val SECTION_ISSUES = "issues"
+        private const val SECTION_FILES = "files"
+    }
+
+    private val logger = LoggerFactory.getLogger(GitChangeLogCache::class.java)
+
+    private val properties = gitConfigProperties.changeLog
+
+    /**
+     * Lenient mapper, the stored sections contain computed fields
+     */
+    private val mapper = ObjectMapperFactory.create()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+
+    private val memory: Cache<SectionKey, Any> = Caffeine.newBuilder()
+            .maximumWeight(properties.memoryItems)
+            .weigher<SectionKey, Any> { _, value -> weight(value) }
+            .expireAfter(SectionExpiry(properties.memoryTtl.toNanos()))
+            .build()
+
+    /**
+     * Sections being computed
+     */
+    private val loadings = ConcurrentHashMap<SectionKey, CompletableFuture<Any>>()
+
+    /**
+     * Computing the change logs in the background. When all threads are busy,
+     * the change logs will be computed on demand.
+     */
+    private val executor = ThreadPoolExecutor(
+            max(1, properties.threads),
+            max(1, properties.threads),
+            0L,
+            TimeUnit.MILLISECONDS,
+            ArrayBlockingQueue(100),
+            BasicThreadFactory.Builder()
+                    .daemon(true)
+                    .namingPattern("git-change-log-%s")
+                    .build(),
+            ThreadPoolExecutor.DiscardPolicy()
+    )
+
+    @PreDestroy
+    fun shutdown() {
+        executor.shutdownNow()
+    }
+
+    /**
+     * Runs some computation of the change logs in the background.
+     */
+    fun background(task: () -> Unit) {
+        executor.execute {
+            try {
+                task()
+            } catch (any: Exception) {
+                logger.warn("[git-change-log] Cannot compute the change log in the background", any)
+            }
+        }
+    }
+
+    fun getCommits(key: GitChangeLogCacheKey, loader: () -> GitChangeLogCommits): GitChangeLogCommits =
+            get(key, SECTION_COMMITS, loader, StoredSection(
+                    write = { commits ->
+                        StoredCommits(commits.log.plot.width, commits.log.plot.height, commits.log.commits)
+                    },
+                    read = { stored: StoredCommits ->
+                        GitChangeLogCommits(GitUILog(GPlot(stored.plotWidth, stored.plotHeight), stored.commits))
+                    },
+                    type = StoredCommits::class.java
+            ))
+
+    fun getIssueKeys(key: GitChangeLogCacheKey, loader: () -> List<String>): List<String> =
+            get(key, SECTION_ISSUE_KEYS, loader, StoredSection(
+                    write = { keys -> StoredIssueKeys(keys) },
+                    read = { stored: StoredIssueKeys -> stored.keys },
+                    type = StoredIssueKeys::class.java
+            ))
+
+    fun getIssues(key: GitChangeLogCacheKey, loader: () -> GitChangeLogIssues): GitChangeLogIssues =
+            get(key, SECTION_ISSUES, loader, null)
+
+    fun getFiles(key: GitChangeLogCacheKey, loader: () -> GitChangeLogFiles): GitChangeLogFiles =
+            get(key, SECTION_FILES, loader, StoredSection(
+                    write = { files -> files },
+                    read = { stored: GitChangeLogFiles -> stored },
+                    type = GitChangeLogFiles::class.java
+            ))
+
+    private fun <T : Any, S : Any> get(
+            key: GitChangeLogCacheKey,
+            section: String,
+            loader: () -> T,
+            stored: StoredSection<T, S>?
+    ): T {
+        val sectionKey = SectionKey(key, section)
+        @Suppress("UNCHECKED_CAST")
+        val cached = memory.getIfPresent(sectionKey) as T?
+        if (cached != null) {
+            return cached
+        }
+        // Concurrent requests for the same section are computed only once. Not computing
+        // inside the memory cache, since some sections are computed from other ones.
+        val future = CompletableFuture<Any>()
+        val running = loadings.putIfAbsent(sectionKey, future)
+        if (running != null) {
+            @Suppress("UNCHECKED_CAST")
+            return join(running) as T
+        }
+        try {
+            val value = stored?.let { load(key, section, it) } ?: loader().apply {
+                stored?.let { store(key, section, it, this) }
+            }
+            memory.put(sectionKey, value)
+            future.complete(value)
+        } catch (any: Exception) {
+            future.completeExceptionally(any)
+        } finally {
+            loadings.remove(sectionKey, future)
+        }
+        @Suppress("UNCHECKED_CAST")
+        return join(future) as T
+    }
+
+    /**
+     * Removes the least recently accessed stored sections until their total size is below the limit.
+     *
+     * @return Number of removed sections
+     */
+    fun cleanup(): Int {
+        val removed = gitChangeLogCacheRepository.cleanup(properties.storedSize * 1024 * 1024)
+        if (removed > 0) {
+            logger.debug("[git-change-log] $removed stored sections have been removed")
+        }
+        return removed
+    }
+
+    private fun join(future: CompletableFuture<Any>): Any =
+            try {
+                future.get()
+            } catch (e: ExecutionException) {
+                throw e.cause ?: e
+            }
+
+    private fun <T : Any, S : Any> load(key: GitChangeLogCacheKey, section: String, stored: StoredSection<T, S>): T? =
+            gitChangeLogCacheRepository.find(key, section)?.let { content ->
+                // Not waiting for the access time to be updated
+                background { gitChangeLogCacheRepository.touch(key, section) }
+                try {
+                    stored.read(mapper.readValue(content, stored.type))
+                } catch (any: Exception) {
+                    // Format has changed, computing again
+                    logger.debug("[git-change-log] Cannot read stored section $section for $key", any)
+                    null
+                }
+            }
+
+    private fun <T : Any, S : Any> store(key: GitChangeLogCacheKey, section: String, stored: StoredSection<T, S>, value: T) {
+        gitChangeLogCacheRepository.save(key, section, mapper.writeValueAsString(stored.write(value)))
+    }
+
+    private fun weight(value: Any): Int = max(1, when (value) {
+        is GitChangeLogCommits -> value.log.commits.size
+        is GitChangeLogIssues -> value.list.sumBy { it.commits.size }
+        is GitChangeLogFiles -> value.list.size
+        is List<*> -> value.size
+        else -> 1
+    })
+
+    private data class SectionKey(
+            val key: GitChangeLogCacheKey,
+            val section: String
+    )
+
+    /**
+     * The sections expire after their last access, except the issues, which expire after their loading.
+     */
+    private class SectionExpiry(
+            private val ttl: Long
+    ) : Expiry<SectionKey, Any> {
+
+        override fun expireAfterCreate(key: SectionKey, value: Any, currentTime: Long): Long = ttl
+
+        override fun expireAfterUpdate(key: SectionKey, value: Any, currentTime: Long, currentDuration: Long): Long = ttl
+
+        override fun expireAfterRead(key: SectionKey, value: Any, currentTime: Long, currentDuration: Long): Long =
+                if (key.section == SECTION_ISSUES) currentDuration else ttl
+    }
+
+    /**
+     * Conversion between a section and its stored representation.
+     */
+    private class StoredSection<T, S>(
+            val write: (T) -> S,
+            val read: (S) -> T,
+            val type: Class<S>
+    )
+
+    private class StoredCommits(
+            val plotWidth: Int,
+            val plotHeight: Int,
+            val commits: List<GitUICommit>
+    )
+
+    private class StoredIssueKeys(
+            val keys: List<String>
+    )
+
+}
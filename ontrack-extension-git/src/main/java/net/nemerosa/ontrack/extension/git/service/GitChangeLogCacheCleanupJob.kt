@@ -0,0 +1,39 @@
+package net.nemerosa.ontrack.extension.git.service
+
+import net.nemerosa.ontrack.job.*
+import net.nemerosa.ontrack.model.support.JobProvider
+import org.springframework.stereotype.Component
+
+/**
+ * Removes the least recently accessed sections of the change logs stored in the database,
+ * when their total size goes above the limit.
+ */
+@Component
+class GitChangeLogCacheCleanupJob(
+        private val gitChangeLogCache: GitChangeLogCache
+) : JobProvider {
+
+    override fun getStartingJobs(): Collection<JobRegistration> = setOf(
+            JobRegistration(
+                    createGitChangeLogCacheCleanupJob(),
+                    Schedule.EVERY_HOUR
+            )
+    )
+
+    private fun createGitChangeLogCacheCleanupJob() = object : Job {
+
+        override fun isDisabled(): Boolean = false
+
+        override fun getKey(): JobKey = GIT_JOB_CATEGORY
+                .getType("git-change-log-cleanup").withName("Git change log cleanup")
+                .getKey("main")
+
+        override fun getDescription(): String = "Cleanup of the stored Git change logs"
+
+        override fun getTask() = JobRun { listener ->
+            val removed = gitChangeLogCache.cleanup()
+            listener.message("%d stored sections have been removed", removed)
+        }
+
+    }
+}
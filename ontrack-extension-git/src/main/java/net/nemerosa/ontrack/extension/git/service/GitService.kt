@@ -82,6 +82,12 @@ interface GitService : SCMService {
      */
     fun getChangeLogFiles(changeLog: GitChangeLog): GitChangeLogFiles
 
+    /**
+     * Computes the sections of a change log in the background, so that they are
+     * ready when requested.
+     */
+    fun prefetchChangeLog(changeLog: GitChangeLog)
+
     /**
      * Loops over each correctly configured project.
      */
@@ -218,6 +224,16 @@ interface GitService : SCMService {
      */
     fun forEachCommit(gitConfiguration: GitConfiguration, code: (GitCommit) -> Unit)
 
+    /**
+     * Loops over the commits of a configuration which are not reachable from some previous tips.
+     *
+     * @param gitConfiguration Configuration of the repository
+     * @param since Tips returned by a previous call
+     * @param code Code to run for each new commit
+     * @return Current tips of the repository
+     */
+    fun forEachCommitSince(gitConfiguration: GitConfiguration, since: Collection<String>, code: (GitCommit) -> Unit): Set<String>
+
     /**
      * Checks if the repository is ready to be used.
      */
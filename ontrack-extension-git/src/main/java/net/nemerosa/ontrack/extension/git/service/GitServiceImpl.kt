@@ -42,6 +42,7 @@ import java.util.*
 import java.util.concurrent.Future
 import java.util.function.BiConsumer
 import java.util.function.Predicate
+import java.util.function.Supplier
 import java.util.stream.Stream
 
 @Service
@@ -60,6 +61,7 @@ class GitServiceImpl(
         private val gitRepositoryHelper: GitRepositoryHelper,
         private val branchingModelService: BranchingModelService,
         private val entityDataService: EntityDataService,
+        private val gitChangeLogCache: GitChangeLogCache,
         transactionManager: PlatformTransactionManager
 ) : AbstractSCMChangeLogService<GitConfiguration, GitBuildInfo, GitChangeLogIssue>(structureService, propertyService), GitService, JobOrchestratorSupplier {
 
@@ -206,14 +208,18 @@ class GitServiceImpl(
     }
 
     override fun getChangeLogCommits(changeLog: GitChangeLog): GitChangeLogCommits {
+        val key = getChangeLogCacheKey(changeLog)
+        return gitChangeLogCache.getCommits(key) {
+            loadChangeLogCommits(changeLog, key.from, key.to)
+        }
+    }
+
+    private fun loadChangeLogCommits(changeLog: GitChangeLog, from: String, to: String): GitChangeLogCommits {
         // Gets the client
         val client = getGitRepositoryClient(changeLog.project)
-        // Gets the build boundaries
-        val buildFrom = changeLog.from.build
-        val buildTo = changeLog.to.build
         // Commit boundaries
-        var commitFrom = getCommitFromBuild(buildFrom)
-        var commitTo = getCommitFromBuild(buildTo)
+        var commitFrom = from
+        var commitTo = to
         // Gets the commits
         var log = client.graph(commitFrom, commitTo)
         // If log empty, inverts the boundaries
@@ -234,6 +240,17 @@ class GitServiceImpl(
         )
     }
 
+    /**
+     * Identifies the change log by its repository and its commit boundaries, so that its sections
+     * can be shared between all the change logs between the same commits.
+     */
+    private fun getChangeLogCacheKey(changeLog: GitChangeLog): GitChangeLogCacheKey =
+            GitChangeLogCacheKey.of(
+                    getRequiredProjectConfiguration(changeLog.project),
+                    getCommitFromBuild(changeLog.from.build),
+                    getCommitFromBuild(changeLog.to.build)
+            )
+
     protected fun getCommitFromBuild(build: Build): String {
         return getBranchConfiguration(build.branch)
                 ?.buildCommitLink
@@ -241,7 +258,12 @@ class GitServiceImpl(
                 ?: throw GitBranchNotConfiguredException(build.branch.id)
     }
 
-    override fun getChangeLogIssuesIds(changeLog: GitChangeLog): List<String> {
+    override fun getChangeLogIssuesIds(changeLog: GitChangeLog): List<String> =
+            gitChangeLogCache.getIssueKeys(getChangeLogCacheKey(changeLog)) {
+                loadChangeLogIssuesIds(changeLog)
+            }
+
+    private fun loadChangeLogIssuesIds(changeLog: GitChangeLog): List<String> {
         // Commits must have been loaded first
         val commits: GitChangeLogCommits = changeLog.loadCommits {
             getChangeLogCommits(it)
@@ -265,7 +287,12 @@ class GitServiceImpl(
         }
     }
 
-    override fun getChangeLogIssues(changeLog: GitChangeLog): GitChangeLogIssues {
+    override fun getChangeLogIssues(changeLog: GitChangeLog): GitChangeLogIssues =
+            gitChangeLogCache.getIssues(getChangeLogCacheKey(changeLog)) {
+                loadChangeLogIssues(changeLog)
+            }
+
+    private fun loadChangeLogIssues(changeLog: GitChangeLog): GitChangeLogIssues {
         // Commits must have been loaded first
         val commits: GitChangeLogCommits = changeLog.loadCommits {
             getChangeLogCommits(it)
@@ -306,16 +333,17 @@ class GitServiceImpl(
     }
 
     override fun getChangeLogFiles(changeLog: GitChangeLog): GitChangeLogFiles {
+        val key = getChangeLogCacheKey(changeLog)
+        return gitChangeLogCache.getFiles(key) {
+            loadChangeLogFiles(changeLog, key.from, key.to)
+        }
+    }
+
+    private fun loadChangeLogFiles(changeLog: GitChangeLog, commitFrom: String, commitTo: String): GitChangeLogFiles {
         // Gets the configuration
         val configuration = getRequiredProjectConfiguration(changeLog.project)
         // Gets the client for this project
         val client = gitRepositoryClientFactory.getClient(configuration.gitRepository)
-        // Gets the build boundaries
-        val buildFrom = changeLog.from.build
-        val buildTo = changeLog.to.build
-        // Commit boundaries
-        val commitFrom = getCommitFromBuild(buildFrom)
-        val commitTo = getCommitFromBuild(buildTo)
         // Diff
         val diff = client.diff(commitFrom, commitTo)
         // File change links
@@ -330,6 +358,17 @@ class GitServiceImpl(
         )
     }
 
+    override fun prefetchChangeLog(changeLog: GitChangeLog) {
+        val prefetch = securityService.runner(Supplier {
+            getChangeLogCommits(changeLog)
+            if (getRequiredProjectConfiguration(changeLog.project).configuredIssueService.isPresent) {
+                getChangeLogIssuesIds(changeLog)
+            }
+            getChangeLogFiles(changeLog)
+        })
+        gitChangeLogCache.background { prefetch.get() }
+    }
+
     override fun isPatternFound(gitConfiguration: GitConfiguration, token: String): Boolean {
         // Gets the client
         val client = gitRepositoryClientFactory.getClient(gitConfiguration.gitRepository)
@@ -351,6 +390,13 @@ class GitServiceImpl(
         gitClient.forEachCommit(code)
     }
 
+    override fun forEachCommitSince(gitConfiguration: GitConfiguration, since: Collection<String>, code: (GitCommit) -> Unit): Set<String> {
+        // Gets the client client for this configuration
+        val gitClient = gitRepositoryClientFactory.getClient(gitConfiguration.gitRepository)
+        // Looping
+        return gitClient.forEachCommitSince(since, code)
+    }
+
     override fun isRepositorySynched(gitConfiguration: GitConfiguration): Boolean {
         // Gets the client client for this configuration
         val gitClient = gitRepositoryClientFactory.getClient(gitConfiguration.gitRepository)
@@ -1,11 +1,13 @@
 package net.nemerosa.ontrack.extension.git
 
+import net.nemerosa.ontrack.extension.git.model.GitSynchronisationRequest
 import net.nemerosa.ontrack.model.structure.SearchIndexService
 import net.nemerosa.ontrack.model.structure.SearchRequest
 import net.nemerosa.ontrack.model.structure.SearchService
 import org.junit.Test
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.test.context.TestPropertySource
+import kotlin.test.assertFailsWith
 import kotlin.test.assertNotNull
 import kotlin.test.assertNull
 
@@ -79,6 +81,58 @@ class GitCommitSearchExtensionIT : AbstractGitSearchTestSupport() {
         }
     }
 
+    @Test
+    fun `Looking for new commits after an incremental indexation`() {
+        createRepo {
+            commits(5)
+        } and { repo, commits ->
+            project {
+                gitProject(repo)
+                // Indexes the first commits
+                searchIndexService.index(gitCommitSearchExtension)
+                // New commits
+                val newCommits = (6..10).associateWith { no -> repo.commit(no) }
+                // Synchronisation of the repository
+                val gitConfiguration = gitService.getProjectConfiguration(this)
+                assertNotNull(gitConfiguration) {
+                    gitService.sync(it, GitSynchronisationRequest.SYNC)?.get()
+                }
+                // Indexes the new commits only
+                searchIndexService.index(gitCommitSearchExtension)
+                // Looks for every commit
+                (commits + newCommits).forEach { (_, commit) ->
+                    val results = searchService.search(SearchRequest(commit))
+                    val title = "$name $commit"
+                    val result = results.find { it.title == title }
+                    assertNotNull(result, "Commit $commit is indexed")
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `Commits indexed again after a failed indexation`() {
+        createRepo {
+            commits(5)
+        } and { repo, commits ->
+            project {
+                gitProject(repo)
+                // Failed indexation
+                assertFailsWith<IllegalStateException> {
+                    gitCommitSearchExtension.indexAll { throw IllegalStateException("Indexation failure") }
+                }
+                // The tips of the failed indexation are not used
+                searchIndexService.index(gitCommitSearchExtension)
+                commits.forEach { (_, commit) ->
+                    val results = searchService.search(SearchRequest(commit))
+                    val title = "$name $commit"
+                    val result = results.find { it.title == title }
+                    assertNotNull(result, "Commit $commit is indexed")
+                }
+            }
+        }
+    }
+
     @Test
     fun `Looking for a commit on a project after its has been deleted`() {
         createRepo {
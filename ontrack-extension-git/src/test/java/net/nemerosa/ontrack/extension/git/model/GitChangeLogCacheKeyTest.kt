@@ -0,0 +1,49 @@
+package net.nemerosa.ontrack.extension.git.model
+
+import org.junit.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNotEquals
+
+class GitChangeLogCacheKeyTest {
+
+    @Test
+    fun `Same key for the same settings`() {
+        assertEquals(
+                GitChangeLogCacheKey.of(configuration(), "a", "b"),
+                GitChangeLogCacheKey.of(configuration(), "a", "b")
+        )
+    }
+
+    @Test
+    fun `Another key when the commit link changes`() {
+        assertNotEquals(
+                GitChangeLogCacheKey.of(configuration(), "a", "b"),
+                GitChangeLogCacheKey.of(configuration(commitLink = "https://git.nemerosa.net/commit/{commit}"), "a", "b")
+        )
+    }
+
+    @Test
+    fun `Another key when the file link changes`() {
+        assertNotEquals(
+                GitChangeLogCacheKey.of(configuration(), "a", "b"),
+                GitChangeLogCacheKey.of(configuration(fileAtCommitLink = "https://git.nemerosa.net/file/{commit}/{path}"), "a", "b")
+        )
+    }
+
+    private fun configuration(
+            commitLink: String = "https://github.com/nemerosa/ontrack/commit/{commit}",
+            fileAtCommitLink: String = "https://github.com/nemerosa/ontrack/blob/{commit}/{path}"
+    ) = BasicGitActualConfiguration.of(
+            BasicGitConfiguration(
+                    "test",
+                    "https://github.com/nemerosa/ontrack.git",
+                    null,
+                    null,
+                    commitLink,
+                    fileAtCommitLink,
+                    0,
+                    null
+            )
+    )
+
+}
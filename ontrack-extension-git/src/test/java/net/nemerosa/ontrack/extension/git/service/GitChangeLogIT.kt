@@ -2,14 +2,25 @@ package net.nemerosa.ontrack.extension.git.service
 
 import net.nemerosa.ontrack.extension.api.model.BuildDiffRequest
 import net.nemerosa.ontrack.extension.git.AbstractGitTestSupport
+import net.nemerosa.ontrack.extension.git.GitConfigProperties
+import net.nemerosa.ontrack.extension.git.model.GitChangeLogCacheKey
+import net.nemerosa.ontrack.extension.git.repository.GitChangeLogCacheRepository
 import org.junit.Test
+import org.springframework.beans.factory.annotation.Autowired
 import kotlin.test.assertEquals
+import kotlin.test.fail
 
 /**
  * Integration tests for Git support.
  */
 class GitChangeLogIT : AbstractGitTestSupport() {
 
+    @Autowired
+    private lateinit var gitChangeLogCacheRepository: GitChangeLogCacheRepository
+
+    @Autowired
+    private lateinit var gitConfigProperties: GitConfigProperties
+
     @Test
     fun `Change log issues IDs`() {
         createRepo {
@@ -171,4 +182,50 @@ class GitChangeLogIT : AbstractGitTestSupport() {
         }
     }
 
+    @Test
+    fun `Change log sections restored from the database`() {
+        createRepo {
+            commits(5)
+        } and { repo, commits: Map<Int, String> ->
+            project {
+                gitProject(repo)
+                branch {
+                    gitBranch {
+                        buildNameAsCommit(abbreviated = false)
+                    }
+                    val buildFrom = build(commits.getValue(2))
+                    val buildTo = build(commits.getValue(5))
+                    asUserWithView(this).execute {
+                        val changeLog = gitService.changeLog(BuildDiffRequest(buildFrom.id, buildTo.id))
+                        val computedCommits = gitService.getChangeLogCommits(changeLog)
+                        val computedFiles = gitService.getChangeLogFiles(changeLog)
+                        // New cache, as on another node, with an empty memory
+                        val cache = GitChangeLogCache(gitChangeLogCacheRepository, gitConfigProperties)
+                        try {
+                            val key = GitChangeLogCacheKey.of(
+                                    gitService.getProjectConfiguration(project)!!,
+                                    commits.getValue(2),
+                                    commits.getValue(5)
+                            )
+                            val restoredCommits = cache.getCommits(key) { fail("Commits must be restored") }
+                            assertEquals(
+                                    computedCommits.log.commits.map { it.id },
+                                    restoredCommits.log.commits.map { it.id }
+                            )
+                            assertEquals(computedCommits.log.plot.width, restoredCommits.log.plot.width)
+                            assertEquals(computedCommits.log.plot.height, restoredCommits.log.plot.height)
+                            val restoredFiles = cache.getFiles(key) { fail("Files must be restored") }
+                            assertEquals(
+                                    computedFiles.list.map { it.path },
+                                    restoredFiles.list.map { it.path }
+                            )
+                        } finally {
+                            cache.shutdown()
+                        }
+                    }
+                }
+            }
+        }
+    }
+
 }
@@ -55,4 +55,17 @@ class GitHubSCMCatalogProvider(
         }
     }
 
+    override fun getMatchKey(entry: SCMCatalogEntry): String? = matchKey(entry.config, entry.repository)
+
+    override fun getMatchKey(project: Project): String? {
+        val property: GitHubProjectConfigurationProperty? = propertyService.getProperty(project, GitHubProjectConfigurationPropertyType::class.java).value
+        return if (property != null) {
+            matchKey(property.configuration.name, property.repository)
+        } else {
+            null
+        }
+    }
+
+    private fun matchKey(config: String, repository: String) = "$config::$repository"
+
 }
\ No newline at end of file
@@ -11,6 +11,7 @@ dependencies {
     api(project(":ontrack-extension-support"))
     api("org.influxdb:influxdb-java")
 
+    implementation("io.micrometer:micrometer-core")
     implementation("org.slf4j:slf4j-api")
 
     testImplementation(project(":ontrack-it-utils"))
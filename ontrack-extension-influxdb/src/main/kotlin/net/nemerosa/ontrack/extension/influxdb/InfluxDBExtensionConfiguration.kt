@@ -1,11 +1,12 @@
 package net.nemerosa.ontrack.extension.influxdb
 
+import io.micrometer.core.instrument.MeterRegistry
 import net.nemerosa.ontrack.extension.influxdb.metrics.InfluxDBMetricsExportExtension
 import net.nemerosa.ontrack.extension.influxdb.runinfo.InfluxDBRunInfoListener
 import net.nemerosa.ontrack.extension.influxdb.validation.data.InfluxDBValidationRunMetricsExtension
 import net.nemerosa.ontrack.model.structure.ValidationDataTypeService
+import net.nemerosa.ontrack.model.support.EnvService
 import okhttp3.OkHttpClient
-import org.influxdb.BatchOptions
 import org.influxdb.InfluxDB
 import org.influxdb.InfluxDBFactory
 import org.slf4j.LoggerFactory
@@ -45,7 +46,7 @@ class InfluxDBExtensionConfiguration(
             influxDB.createDatabase(influxDBExtensionProperties.db)
         }
         influxDB.setLogLevel(influxDBExtensionProperties.log)
-        influxDB.enableBatch(BatchOptions.DEFAULTS)
+        // Batching is managed by the InfluxDBPointWriter
 
         return influxDB
     }
@@ -54,21 +55,34 @@ class InfluxDBExtensionConfiguration(
     @ConditionalOnBean(InfluxDB::class)
     fun influxDBExtensionHealthIndicator(influxDB: InfluxDB) = InfluxDBExtensionHealthIndicator(influxDB)
 
+    @Bean
+    @ConditionalOnBean(InfluxDB::class)
+    fun influxDBPointWriter(
+            influxDB: InfluxDB,
+            envService: EnvService,
+            meterRegistry: MeterRegistry
+    ) = InfluxDBPointWriter(
+            influxDB,
+            influxDBExtensionProperties,
+            envService.getWorkingDir("influxdb", "spill"),
+            meterRegistry
+    )
+
     @Bean
     @ConditionalOnBean(InfluxDB::class)
     @ConditionalOnProperty(prefix = INFLUXDB_EXTENSION_PROPERTIES_PREFIX, name = ["run-info"], havingValue = "true", matchIfMissing = true)
     fun influxDBMetricsExportExtension(
             influxDBExtensionFeature: InfluxDBExtensionFeature,
-            influxDB: InfluxDB
+            influxDBPointWriter: InfluxDBPointWriter
     ) = InfluxDBMetricsExportExtension(
             influxDBExtensionFeature,
-            influxDB
+            influxDBPointWriter
     )
 
     @Bean
     @ConditionalOnBean(InfluxDB::class)
     @ConditionalOnProperty(prefix = INFLUXDB_EXTENSION_PROPERTIES_PREFIX, name = ["run-info"], havingValue = "true", matchIfMissing = true)
-    fun influxDBRunInfoListener(influxDB: InfluxDB) = InfluxDBRunInfoListener(influxDB)
+    fun influxDBRunInfoListener(influxDBPointWriter: InfluxDBPointWriter) = InfluxDBRunInfoListener(influxDBPointWriter)
 
     @Bean
     @ConditionalOnBean(InfluxDB::class)
@@ -76,8 +90,8 @@ class InfluxDBExtensionConfiguration(
     fun influxDBValidationRunMetricsExtension(
             influxDBExtensionFeature: InfluxDBExtensionFeature,
             validationDataTypeService: ValidationDataTypeService,
-            influxDB: InfluxDB
-    ) = InfluxDBValidationRunMetricsExtension(influxDBExtensionFeature, validationDataTypeService, influxDB)
+            influxDBPointWriter: InfluxDBPointWriter
+    ) = InfluxDBValidationRunMetricsExtension(influxDBExtensionFeature, validationDataTypeService, influxDBPointWriter)
 
 
 }
\ No newline at end of file
@@ -17,8 +17,35 @@ class InfluxDBExtensionProperties {
     var create: Boolean = true
     var ssl = SSLProperties()
     var log = InfluxDB.LogLevel.NONE
+    var buffer = BufferProperties()
 
     class SSLProperties {
         var hostCheck: Boolean = true
     }
+
+    /**
+     * Buffering of the points before they are written into InfluxDB.
+     */
+    class BufferProperties {
+        /**
+         * If disabled, the points are written synchronously, one by one.
+         */
+        var enabled: Boolean = true
+        /**
+         * Maximum number of points waiting to be written
+         */
+        var size: Int = 10000
+        /**
+         * Maximum number of points written at once
+         */
+        var batchSize: Int = 500
+        /**
+         * Maximum time (in milliseconds) to wait for a batch to be complete
+         */
+        var lingerMs: Long = 1000
+        /**
+         * What to do with the points when the buffer is full or when InfluxDB cannot be reached
+         */
+        var overflow = BufferOverflowPolicy.DROP_OLDEST
+    }
 }
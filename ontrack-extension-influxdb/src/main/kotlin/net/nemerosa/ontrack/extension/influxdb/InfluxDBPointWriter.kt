@@ -0,0 +1,227 @@
+package net.nemerosa.ontrack.extension.influxdb
+
+import io.micrometer.core.instrument.Counter
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.Timer
+import org.influxdb.InfluxDB
+import org.influxdb.dto.BatchPoints
+import org.influxdb.dto.Point
+import org.slf4j.LoggerFactory
+import org.springframework.beans.factory.DisposableBean
+import java.io.File
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.TimeUnit
+
+/**
+ * Writes the points into InfluxDB without blocking the callers.
+ *
+ * The points are stored into a bounded buffer and written by a background thread, in batches
+ * of at most [InfluxDBExtensionProperties.BufferProperties.batchSize] points, waiting at most
+ * [InfluxDBExtensionProperties.BufferProperties.lingerMs] milliseconds for a batch to be complete.
+ *
+ * When the buffer is full, or when InfluxDB cannot be reached, the points are either dropped or
+ * spilled into a file, according to the [InfluxDBExtensionProperties.BufferProperties.overflow] policy.
+ * Spilled points are written again once the buffer has been emptied.
+ *
+ * @param spillDir Directory where to spill the points (only used by the [BufferOverflowPolicy.SPILL] policy)
+ */
+class InfluxDBPointWriter(
+        private val influxDB: InfluxDB,
+        private val influxDBExtensionProperties: InfluxDBExtensionProperties,
+        private val spillDir: File,
+        meterRegistry: MeterRegistry
+) : DisposableBean {
+
+    private val logger = LoggerFactory.getLogger(InfluxDBPointWriter::class.java)
+
+    private val bufferProperties = influxDBExtensionProperties.buffer
+
+    private val buffer = ArrayBlockingQueue<Point>(bufferProperties.size)
+
+    private val writtenCounter: Counter = meterRegistry.counter("ontrack_influxdb_points_written")
+    private val droppedCounter: Counter = meterRegistry.counter("ontrack_influxdb_points_dropped")
+    private val spilledCounter: Counter = meterRegistry.counter("ontrack_influxdb_points_spilled")
+    private val flushTimer: Timer = meterRegistry.timer("ontrack_influxdb_flush_ms")
+
+    private val spillFile = File(spillDir, "points.txt")
+    private val replayFile = File(spillDir, "points.replay.txt")
+    private val spillLock = Any()
+
+    @Volatile
+    private var running = true
+
+    private val flusher: Thread? = if (bufferProperties.enabled) {
+        logger.info("[influxdb] Buffering the points (size = ${bufferProperties.size}, batch size = ${bufferProperties.batchSize}, linger = ${bufferProperties.lingerMs} ms, overflow = ${bufferProperties.overflow})")
+        meterRegistry.gaugeCollectionSize("ontrack_influxdb_buffer_size", emptyList(), buffer)
+        Thread(this::run, "influxdb-flusher").apply {
+            isDaemon = true
+            start()
+        }
+    } else {
+        null
+    }
+
+    /**
+     * Writes a point.
+     */
+    fun write(point: Point) {
+        if (flusher == null) {
+            flush(listOf(point))
+        } else if (!buffer.offer(point)) {
+            when (bufferProperties.overflow) {
+                BufferOverflowPolicy.DROP_NEWEST -> droppedCounter.increment()
+                BufferOverflowPolicy.DROP_OLDEST -> {
+                    while (!buffer.offer(point)) {
+                        if (buffer.poll() != null) {
+                            droppedCounter.increment()
+                        }
+                    }
+                }
+                BufferOverflowPolicy.SPILL -> spill(listOf(point))
+            }
+        }
+    }
+
+    override fun destroy() {
+        if (flusher != null) {
+            running = false
+            flusher.join(TimeUnit.SECONDS.toMillis(10))
+            // Points which could not be written in time
+            val remaining = mutableListOf<Point>()
+            buffer.drainTo(remaining)
+            if (remaining.isNotEmpty()) {
+                overflow(remaining)
+            }
+        }
+    }
+
+    private fun run() {
+        while (running || buffer.isNotEmpty()) {
+            try {
+                val batch = nextBatch()
+                if (batch.isNotEmpty()) {
+                    try {
+                        flush(batch)
+                    } catch (ex: Exception) {
+                        logger.error("[influxdb] Cannot write ${batch.size} points", ex)
+                        overflow(batch)
+                    }
+                }
+                // Writing the spilled points once we have caught up
+                if (buffer.isEmpty() && bufferProperties.overflow == BufferOverflowPolicy.SPILL) {
+                    replay()
+                }
+            } catch (_: InterruptedException) {
+                return
+            } catch (ex: Exception) {
+                logger.error("[influxdb] Error in the flusher", ex)
+            }
+        }
+    }
+
+    /**
+     * Waits for a first point, and then for the rest of the batch, but no longer than the linger time.
+     */
+    private fun nextBatch(): List<Point> {
+        val batchSize = bufferProperties.batchSize
+        val linger = bufferProperties.lingerMs
+        val first = buffer.poll(linger, TimeUnit.MILLISECONDS) ?: return emptyList()
+        val batch = ArrayList<Point>(batchSize)
+        batch += first
+        val deadline = System.currentTimeMillis() + linger
+        while (batch.size < batchSize) {
+            buffer.drainTo(batch, batchSize - batch.size)
+            val remaining = deadline - System.currentTimeMillis()
+            if (batch.size >= batchSize || remaining <= 0) {
+                break
+            }
+            val next = buffer.poll(remaining, TimeUnit.MILLISECONDS) ?: break
+            batch += next
+        }
+        return batch
+    }
+
+    private fun flush(points: List<Point>) {
+        flushTimer.record(Runnable {
+            influxDB.write(
+                    BatchPoints.database(influxDBExtensionProperties.db)
+                            .points(*points.toTypedArray())
+                            .build()
+            )
+        })
+        writtenCounter.increment(points.size.toDouble())
+    }
+
+    private fun overflow(points: List<Point>) {
+        if (bufferProperties.overflow == BufferOverflowPolicy.SPILL) {
+            spill(points)
+        } else {
+            droppedCounter.increment(points.size.toDouble())
+        }
+    }
+
+    private fun spill(points: List<Point>) {
+        try {
+            synchronized(spillLock) {
+                spillDir.mkdirs()
+                spillFile.appendText(points.joinToString(separator = "") { "${it.lineProtocol()}\n" })
+            }
+            spilledCounter.increment(points.size.toDouble())
+        } catch (ex: Exception) {
+            logger.error("[influxdb] Cannot spill ${points.size} points", ex)
+            droppedCounter.increment(points.size.toDouble())
+        }
+    }
+
+    /**
+     * Writes again the spilled points. If InfluxDB cannot be reached, the points which
+     * have not been written yet are kept for the next attempt.
+     */
+    private fun replay() {
+        synchronized(spillLock) {
+            if (!replayFile.exists() && spillFile.exists()) {
+                spillFile.renameTo(replayFile)
+            }
+        }
+        if (replayFile.exists()) {
+            val lines = replayFile.readLines().filter { it.isNotBlank() }
+            var sent = 0
+            try {
+                lines.chunked(bufferProperties.batchSize).forEach { records ->
+                    flushTimer.record(Runnable {
+                        influxDB.write(influxDBExtensionProperties.db, null, InfluxDB.ConsistencyLevel.ONE, records)
+                    })
+                    writtenCounter.increment(records.size.toDouble())
+                    sent += records.size
+                }
+            } finally {
+                if (sent < lines.size) {
+                    // Only the points not written yet are replayed the next time
+                    replayFile.writeText(lines.drop(sent).joinToString(separator = "") { "$it\n" })
+                } else {
+                    replayFile.delete()
+                }
+            }
+            logger.info("[influxdb] ${lines.size} spilled points have been written")
+        }
+    }
+
+}
+
+/**
+ * What to do with the points when the buffer is full.
+ */
+enum class BufferOverflowPolicy {
+    /**
+     * The new points are dropped.
+     */
+    DROP_NEWEST,
+    /**
+     * The oldest points of the buffer are dropped to make room for the new ones.
+     */
+    DROP_OLDEST,
+    /**
+     * The new points are written into a file, to be written again later.
+     */
+    SPILL
+}
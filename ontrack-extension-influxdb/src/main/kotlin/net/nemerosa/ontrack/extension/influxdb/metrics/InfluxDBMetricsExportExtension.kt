@@ -3,21 +3,21 @@ package net.nemerosa.ontrack.extension.influxdb.metrics
 import net.nemerosa.ontrack.common.Time
 import net.nemerosa.ontrack.extension.api.MetricsExportExtension
 import net.nemerosa.ontrack.extension.influxdb.InfluxDBExtensionFeature
+import net.nemerosa.ontrack.extension.influxdb.InfluxDBPointWriter
 import net.nemerosa.ontrack.extension.support.AbstractExtension
-import org.influxdb.InfluxDB
 import org.influxdb.dto.Point
 import java.time.LocalDateTime
 import java.util.concurrent.TimeUnit
 
 class InfluxDBMetricsExportExtension(
         extensionFeature: InfluxDBExtensionFeature,
-        private val influxDB: InfluxDB
+        private val influxDBPointWriter: InfluxDBPointWriter
 ) : AbstractExtension(extensionFeature), MetricsExportExtension {
 
     override fun exportMetrics(metric: String, tags: Map<String, String>, fields: Map<String, Double>, timestamp: LocalDateTime?) {
         if (fields.isNotEmpty()) {
             val time = timestamp?.run { Time.toEpochMillis(this) } ?: System.currentTimeMillis()
-            influxDB.write(
+            influxDBPointWriter.write(
                     Point.measurement(metric)
                             // Tags
                             .tag(tags)
@@ -27,7 +27,6 @@ class InfluxDBMetricsExportExtension(
                             .time(time, TimeUnit.MILLISECONDS)
                             .build()
             )
-            influxDB.flush()
         }
     }
 
@@ -1,21 +1,21 @@
 package net.nemerosa.ontrack.extension.influxdb.runinfo
 
 import net.nemerosa.ontrack.common.Time
+import net.nemerosa.ontrack.extension.influxdb.InfluxDBPointWriter
 import net.nemerosa.ontrack.model.structure.RunInfo
 import net.nemerosa.ontrack.model.structure.RunInfoListener
 import net.nemerosa.ontrack.model.structure.RunnableEntity
-import org.influxdb.InfluxDB
 import org.influxdb.dto.Point
 import java.util.concurrent.TimeUnit
 
 class InfluxDBRunInfoListener(
-        private val influxDB: InfluxDB
+        private val influxDBPointWriter: InfluxDBPointWriter
 ) : RunInfoListener {
 
     override fun onRunInfoCreated(runnableEntity: RunnableEntity, runInfo: RunInfo) {
         val runTime = runInfo.runTime
         if (runTime != null) {
-            influxDB.write(
+            influxDBPointWriter.write(
                     Point.measurement("ontrack_value_run_info_${runnableEntity.runnableEntityType.name.toLowerCase()}_time_seconds")
                             .tag(runnableEntity.runMetricTags)
                             .addField("value", runTime)
@@ -23,7 +23,6 @@ class InfluxDBRunInfoListener(
                             .time(Time.toEpochMillis(runnableEntity.runTime), TimeUnit.MILLISECONDS)
                             .build()
             )
-            influxDB.flush()
         }
     }
 
@@ -3,19 +3,19 @@ package net.nemerosa.ontrack.extension.influxdb.validation.data
 import net.nemerosa.ontrack.common.Time
 import net.nemerosa.ontrack.extension.api.ValidationRunMetricsExtension
 import net.nemerosa.ontrack.extension.influxdb.InfluxDBExtensionFeature
+import net.nemerosa.ontrack.extension.influxdb.InfluxDBPointWriter
 import net.nemerosa.ontrack.extension.support.AbstractExtension
 import net.nemerosa.ontrack.model.structure.ValidationDataType
 import net.nemerosa.ontrack.model.structure.ValidationDataTypeService
 import net.nemerosa.ontrack.model.structure.ValidationRun
 import net.nemerosa.ontrack.model.structure.ValidationRunData
-import org.influxdb.InfluxDB
 import org.influxdb.dto.Point
 import java.util.concurrent.TimeUnit
 
 class InfluxDBValidationRunMetricsExtension(
         influxDBExtensionFeature: InfluxDBExtensionFeature,
         private val validationDataTypeService: ValidationDataTypeService,
-        private val influxDB: InfluxDB
+        private val influxDBPointWriter: InfluxDBPointWriter
 ) : AbstractExtension(influxDBExtensionFeature), ValidationRunMetricsExtension {
 
     override fun onValidationRun(validationRun: ValidationRun) {
@@ -33,7 +33,7 @@ class InfluxDBValidationRunMetricsExtension(
         if (dataType != null) {
             val metrics: Map<String, *>? = dataType.getMetrics(validationRunData.data)
             if (metrics != null && metrics.isNotEmpty()) {
-                influxDB.write(
+                influxDBPointWriter.write(
                         Point.measurement("ontrack_value_validation_data")
                                 // Tags
                                 .tag("project", validationRun.project.name)
@@ -49,7 +49,6 @@ class InfluxDBValidationRunMetricsExtension(
                                 .time(Time.toEpochMillis(validationRun.signature.time), TimeUnit.MILLISECONDS)
                                 .build()
                 )
-                influxDB.flush()
             }
         }
     }
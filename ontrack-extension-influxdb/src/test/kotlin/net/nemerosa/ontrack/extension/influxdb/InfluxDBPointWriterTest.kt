@@ -0,0 +1,225 @@
+package net.nemerosa.ontrack.extension.influxdb
+
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.anyOrNull
+import com.nhaarman.mockitokotlin2.doAnswer
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.whenever
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.influxdb.InfluxDB
+import org.influxdb.dto.BatchPoints
+import org.influxdb.dto.Point
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+import kotlin.test.fail
+
+class InfluxDBPointWriterTest {
+
+    private lateinit var influxDB: InfluxDB
+    private lateinit var spillDir: File
+    private lateinit var meterRegistry: SimpleMeterRegistry
+    private var writer: InfluxDBPointWriter? = null
+
+    /**
+     * Points written through batches
+     */
+    private val batches = mutableListOf<List<String>>()
+
+    /**
+     * Records written when replaying the spilled points
+     */
+    private val replayed = mutableListOf<String>()
+
+    @Before
+    fun before() {
+        influxDB = mock()
+        spillDir = createTempDir("ontrack-influxdb")
+        meterRegistry = SimpleMeterRegistry()
+        doAnswer { invocation ->
+            val batch = invocation.getArgument<BatchPoints>(0)
+            synchronized(batches) {
+                batches.add(batch.points.map { it.lineProtocol() })
+            }
+            null
+        }.whenever(influxDB).write(any<BatchPoints>())
+        doAnswer { invocation ->
+            val records = invocation.getArgument<List<String>>(3)
+            synchronized(replayed) {
+                replayed += records
+            }
+            null
+        }.whenever(influxDB).write(any<String>(), anyOrNull<String>(), any<InfluxDB.ConsistencyLevel>(), any<List<String>>())
+    }
+
+    @After
+    fun after() {
+        writer?.destroy()
+        spillDir.deleteRecursively()
+    }
+
+    @Test
+    fun `Points written in batches`() {
+        val writer = writer {
+            batchSize = 3
+            lingerMs = 200
+        }
+        val points = (1..7).map { point(it) }
+        points.forEach { writer.write(it) }
+        waitUntil { written().size == 7 }
+        assertEquals(points.map { it.lineProtocol() }, written())
+        synchronized(batches) {
+            assertTrue(batches.all { it.size <= 3 }, "Batches are not bigger than the batch size")
+        }
+        assertEquals(7.0, counter("ontrack_influxdb_points_written"))
+    }
+
+    @Test
+    fun `Dropping the newest points when the buffer is full`() {
+        val writer = blockedWriter(BufferOverflowPolicy.DROP_NEWEST)
+        (1..3).forEach { writer.write(point(it)) }
+        release.countDown()
+        waitUntil { written().size == 3 }
+        assertEquals(listOf(0, 1, 2).map { point(it).lineProtocol() }, written())
+        assertEquals(1.0, counter("ontrack_influxdb_points_dropped"))
+    }
+
+    @Test
+    fun `Dropping the oldest points when the buffer is full`() {
+        val writer = blockedWriter(BufferOverflowPolicy.DROP_OLDEST)
+        (1..3).forEach { writer.write(point(it)) }
+        release.countDown()
+        waitUntil { written().size == 3 }
+        assertEquals(listOf(0, 2, 3).map { point(it).lineProtocol() }, written())
+        assertEquals(1.0, counter("ontrack_influxdb_points_dropped"))
+    }
+
+    @Test
+    fun `Spilling the points which cannot be written and replaying them`() {
+        val failures = AtomicInteger()
+        doAnswer {
+            failures.incrementAndGet()
+            throw RuntimeException("Cannot reach InfluxDB")
+        }.whenever(influxDB).write(any<BatchPoints>())
+        val writer = writer {
+            batchSize = 10
+            lingerMs = 50
+            overflow = BufferOverflowPolicy.SPILL
+        }
+        val points = (1..2).map { point(it) }
+        points.forEach { writer.write(it) }
+        waitUntil { replayed().size == 2 && spillFiles().isEmpty() }
+        assertTrue(failures.get() > 0, "Batch could not be written")
+        assertEquals(points.map { it.lineProtocol() }, replayed())
+        assertEquals(2.0, counter("ontrack_influxdb_points_spilled"))
+        assertEquals(2.0, counter("ontrack_influxdb_points_written"))
+    }
+
+    @Test
+    fun `Replaying only the spilled points which have not been written yet`() {
+        val lines = (1..5).map { point(it).lineProtocol() }
+        spillDir.mkdirs()
+        File(spillDir, "points.txt").writeText(lines.joinToString(separator = "") { "$it\n" })
+        // Second chunk fails once
+        val calls = AtomicInteger()
+        doAnswer { invocation ->
+            if (calls.incrementAndGet() == 2) {
+                throw RuntimeException("Cannot reach InfluxDB")
+            }
+            val records = invocation.getArgument<List<String>>(3)
+            synchronized(replayed) {
+                replayed += records
+            }
+            null
+        }.whenever(influxDB).write(any<String>(), anyOrNull<String>(), any<InfluxDB.ConsistencyLevel>(), any<List<String>>())
+        writer {
+            batchSize = 2
+            lingerMs = 50
+            overflow = BufferOverflowPolicy.SPILL
+        }
+        waitUntil { replayed().size >= 5 && spillFiles().isEmpty() }
+        assertTrue(calls.get() > 2, "Replay has been attempted again")
+        assertEquals(lines, replayed(), "Each spilled point is written exactly once")
+        assertEquals(5.0, counter("ontrack_influxdb_points_written"))
+    }
+
+    @Test
+    fun `Points written directly when the buffer is disabled`() {
+        val writer = writer {
+            enabled = false
+        }
+        writer.write(point(1))
+        assertEquals(listOf(point(1).lineProtocol()), written())
+        assertEquals(1.0, counter("ontrack_influxdb_points_written"))
+        assertFalse(File(spillDir, "points.txt").exists())
+    }
+
+    private val blocked = CountDownLatch(1)
+    private val release = CountDownLatch(1)
+
+    /**
+     * Buffer of size 2 whose flusher is blocked while writing the first point (0)
+     */
+    private fun blockedWriter(policy: BufferOverflowPolicy): InfluxDBPointWriter {
+        doAnswer { invocation ->
+            blocked.countDown()
+            release.await(10, TimeUnit.SECONDS)
+            val batch = invocation.getArgument<BatchPoints>(0)
+            synchronized(batches) {
+                batches.add(batch.points.map { it.lineProtocol() })
+            }
+            null
+        }.whenever(influxDB).write(any<BatchPoints>())
+        val writer = writer {
+            size = 2
+            batchSize = 1
+            lingerMs = 10
+            overflow = policy
+        }
+        writer.write(point(0))
+        if (!blocked.await(10, TimeUnit.SECONDS)) {
+            fail("Flusher has not started")
+        }
+        return writer
+    }
+
+    private fun writer(code: InfluxDBExtensionProperties.BufferProperties.() -> Unit): InfluxDBPointWriter {
+        val properties = InfluxDBExtensionProperties()
+        properties.buffer.code()
+        return InfluxDBPointWriter(influxDB, properties, spillDir, meterRegistry).apply {
+            writer = this
+        }
+    }
+
+    private fun point(value: Int): Point =
+            Point.measurement("test")
+                    .addField("value", value)
+                    .time(1000L + value, TimeUnit.MILLISECONDS)
+                    .build()
+
+    private fun written(): List<String> = synchronized(batches) { batches.flatten() }
+
+    private fun replayed(): List<String> = synchronized(replayed) { replayed.toList() }
+
+    private fun spillFiles(): List<File> = spillDir.listFiles()?.toList() ?: emptyList()
+
+    private fun counter(name: String): Double = meterRegistry.counter(name).count()
+
+    private fun waitUntil(condition: () -> Boolean) {
+        val deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10)
+        while (!condition()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met in time")
+            }
+            Thread.sleep(20)
+        }
+    }
+
+}
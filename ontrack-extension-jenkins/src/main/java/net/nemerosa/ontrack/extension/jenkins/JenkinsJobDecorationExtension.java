@@ -9,6 +9,7 @@ import net.nemerosa.ontrack.model.structure.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
@@ -39,6 +40,22 @@ public class JenkinsJobDecorationExtension extends AbstractExtension implements
         );
     }
 
+    /**
+     * The state of the job is fetched from Jenkins.
+     */
+    @Override
+    public boolean isRemote() {
+        return true;
+    }
+
+    /**
+     * The state of the job is kept for a short time only, since it changes outside of Ontrack.
+     */
+    @Override
+    public Duration getCacheDuration() {
+        return Duration.ofSeconds(30);
+    }
+
     @Override
     public List<Decoration<JenkinsJob>> getDecorations(ProjectEntity entity) {
         // Gets the Jenkins Job property for this entity, if any
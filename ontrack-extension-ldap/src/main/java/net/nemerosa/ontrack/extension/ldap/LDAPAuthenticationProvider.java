@@ -30,6 +30,7 @@ public class LDAPAuthenticationProvider extends AbstractUserDetailsAuthenticatio
     private final LDAPAuthenticationSourceProvider ldapAuthenticationSourceProvider;
     private final SecurityService securityService;
     private final ApplicationLogService applicationLogService;
+    private final CredentialsCache credentialsCache;
 
     private final Map<String, AccountUserDetails> cache = new ConcurrentHashMap<>();
 
@@ -39,12 +40,22 @@ public class LDAPAuthenticationProvider extends AbstractUserDetailsAuthenticatio
             LDAPProviderFactory ldapProviderFactory,
             LDAPAuthenticationSourceProvider ldapAuthenticationSourceProvider,
             SecurityService securityService,
-            ApplicationLogService applicationLogService) {
+            ApplicationLogService applicationLogService,
+            CredentialsCache credentialsCache) {
         this.accountService = accountService;
         this.ldapProviderFactory = ldapProviderFactory;
         this.ldapAuthenticationSourceProvider = ldapAuthenticationSourceProvider;
         this.securityService = securityService;
         this.applicationLogService = applicationLogService;
+        this.credentialsCache = credentialsCache;
+    }
+
+    /**
+     * Binds to the LDAP only if the credentials have not been verified recently.
+     */
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        return credentialsCache.authenticate(LDAPAuthenticationSourceProvider.LDAP_AUTHENTICATION_SOURCE, authentication, super::authenticate);
     }
 
     protected Optional<AuthenticatedAccount> findUser(String username, UsernamePasswordAuthenticationToken authentication) {
@@ -172,6 +183,7 @@ public class LDAPAuthenticationProvider extends AbstractUserDetailsAuthenticatio
     @Override
     public void onLogout(String username) {
         cache.remove(username);
+        credentialsCache.evict(LDAPAuthenticationSourceProvider.LDAP_AUTHENTICATION_SOURCE, username);
     }
     
 }
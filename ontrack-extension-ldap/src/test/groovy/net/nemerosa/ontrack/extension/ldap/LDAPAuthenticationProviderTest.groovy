@@ -38,7 +38,8 @@ class LDAPAuthenticationProviderTest {
                 ldapProviderFactory,
                 ldapAuthenticationSourceProvider,
                 securityService,
-                applicationLogService
+                applicationLogService,
+                mock(CredentialsCache)
         )
 
         when(securityService.asAdmin(any(Supplier) as Supplier)).then(new Answer<Object>() {
@@ -21,17 +21,25 @@ class CatalogLinkServiceImpl(
     override fun computeCatalogLinks() {
         val projects = structureService.projectList
         val providers = scmCatalogProviders.associateBy { it.id }
-        val catalogEntries = scmCatalog.catalogEntries
+        // Reads the catalog only once
+        val catalogEntries = scmCatalog.catalogEntries.toList()
         val allCatalogKeys = catalogEntries.map { it.key }.toSet()
-        val leftOverKeys = catalogEntries.map { it.key }.toMutableSet()
+        val leftOverKeys = allCatalogKeys.toMutableSet()
+        // Existing links
+        val links: MutableMap<Project, String?> = projects.associateWithTo(mutableMapOf()) { project ->
+            entityDataService.retrieve(project, CatalogLinkService::class.java.name)
+        }
+        // Indexing the projects using the match keys of each provider
+        val indexes: Map<String, Lazy<Map<String, Project>>> = providers.mapValues { (_, provider) ->
+            lazy { indexProjects(provider, projects) }
+        }
         catalogEntries.forEach {
-            if (computeCatalogLink(it, projects, providers)) {
+            if (computeCatalogLink(it, projects, providers, indexes, links)) {
                 leftOverKeys.remove(it.key)
             }
         }
         // Cleanup
-        projects.forEach { project ->
-            val value = entityDataService.retrieve(project, CatalogLinkService::class.java.name)
+        links.forEach { (project, value) ->
             if (!value.isNullOrBlank() && (value in leftOverKeys || value !in allCatalogKeys)) {
                 logger.debug("Catalog entry $value --> ${project.name} is obsolete.")
                 entityDataService.delete(project, CatalogLinkService::class.java.name)
@@ -39,6 +47,21 @@ class CatalogLinkServiceImpl(
         }
     }
 
+    /**
+     * Index of the projects per match key. When several projects share the same key, the
+     * first one is kept, like when looking for the first project which [SCMCatalogProvider.matches] an entry.
+     */
+    private fun indexProjects(provider: SCMCatalogProvider, projects: List<Project>): Map<String, Project> {
+        val index = mutableMapOf<String, Project>()
+        projects.forEach { project ->
+            val key = provider.getMatchKey(project)
+            if (key != null) {
+                index.putIfAbsent(key, project)
+            }
+        }
+        return index
+    }
+
     override fun getSCMCatalogEntry(project: Project): SCMCatalogEntry? =
             entityDataService.retrieve(project, CatalogLinkService::class.java.name)
                     ?.run { scmCatalog.getCatalogEntry(this) }
@@ -58,30 +81,38 @@ class CatalogLinkServiceImpl(
     private fun computeCatalogLink(
             entry: SCMCatalogEntry,
             projects: List<Project>,
-            providers: Map<String, SCMCatalogProvider>
+            providers: Map<String, SCMCatalogProvider>,
+            indexes: Map<String, Lazy<Map<String, Project>>>,
+            links: MutableMap<Project, String?>
     ): Boolean {
         logger.debug("Catalog entry ${entry.key}")
         // Gets a provider for this entry
-        val provider = providers[entry.scm]
-        // For all projects
-        if (provider != null) {
-            projects.forEach { project ->
-                // Is that a match?
-                if (provider.matches(entry, project)) {
-                    logger.debug("Catalog entry ${entry.key} --> ${project.name}")
-                    // Stores the link
-                    entityDataService.store(
-                            project,
-                            CatalogLinkService::class.java.name,
-                            entry.key
-                    )
-                    // OK
-                    return true
-                }
+        val provider = providers[entry.scm] ?: return false
+        // Looking for the project
+        val matchKey = provider.getMatchKey(entry)
+        val project: Project? = if (matchKey != null) {
+            indexes[entry.scm]?.value?.get(matchKey)
+        } else {
+            projects.find { provider.matches(entry, it) }
+        }
+        // Link
+        return if (project != null) {
+            logger.debug("Catalog entry ${entry.key} --> ${project.name}")
+            // Stores the link if not already there
+            if (links[project] != entry.key) {
+                entityDataService.store(
+                        project,
+                        CatalogLinkService::class.java.name,
+                        entry.key
+                )
+                links[project] = entry.key
             }
+            // OK
+            true
+        } else {
+            // Not linked
+            false
         }
-        // Not linked
-        return false
     }
 
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package net.nemerosa.ontrack.extension.scm.catalog
 
 import com.fasterxml.jackson.annotation.JsonIgnore
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties
+import java.security.MessageDigest
 import java.time.LocalDateTime
 
 /**
@@ -12,7 +13,7 @@ import java.time.LocalDateTime
  * @param repository Name of the SCM repository (for example: "nemerosa/ontrack")
  * @param repositoryPage URL to the web repository page (a GitHub repository page for example)
  * @param lastActivity Timestamp for the last activity on this repository
- * @param timestamp Timestamp for the collection of the information
+ * @param timestamp Timestamp for the last collection where the information has changed
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
 data class SCMCatalogEntry(
@@ -27,6 +28,18 @@ data class SCMCatalogEntry(
     val key: String
         get() = "$scm::$config::$repository"
 
+    /**
+     * Hash of the collected information, used to detect changes between two collections.
+     * The [timestamp] is not part of it.
+     */
+    @get:JsonIgnore
+    val contentHash: String
+        get() {
+            val content = listOf(scm, config, repository, repositoryPage, lastActivity).joinToString("\n")
+            val digest = MessageDigest.getInstance("SHA-256").digest(content.toByteArray(Charsets.UTF_8))
+            return digest.joinToString("") { "%02x".format(it) }
+        }
+
     override fun compareTo(other: SCMCatalogEntry): Int =
             compareValuesBy(this, other,
                     { it.scm },
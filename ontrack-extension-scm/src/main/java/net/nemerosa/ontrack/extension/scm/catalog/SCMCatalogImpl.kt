@@ -20,6 +20,13 @@ class SCMCatalogImpl(
 
         // Gets existing keys
         val keys = storageService.getKeys(SCM_CATALOG_STORE).toMutableSet()
+        // Gets the hashes of the existing entries, to write only the ones which have changed
+        val hashes: Map<String, String> = if (keys.isEmpty()) {
+            emptyMap()
+        } else {
+            storageService.getData(SCM_CATALOG_STORE, SCMCatalogEntry::class.java).mapValues { (_, entry) -> entry.contentHash }
+        }
+        var unchanged = 0
 
         // Getting new & updated items
         scmCatalogProviders.forEach { provider ->
@@ -47,12 +54,16 @@ class SCMCatalogImpl(
                         lastActivity = source.lastActivity,
                         timestamp = Time.now()
                 )
-                // Stores the entry
-                storageService.store(
-                        SCM_CATALOG_STORE,
-                        entry.key,
-                        entry
-                )
+                // Stores the entry only if it has changed
+                if (hashes[entry.key] != entry.contentHash) {
+                    storageService.store(
+                            SCM_CATALOG_STORE,
+                            entry.key,
+                            entry
+                    )
+                } else {
+                    unchanged++
+                }
                 // Stored
                 keys.remove(entry.key)
             }
@@ -62,6 +73,7 @@ class SCMCatalogImpl(
         keys.forEach {
             storageService.delete(SCM_CATALOG_STORE, it)
         }
+        logger("SCM Catalog: $unchanged unchanged entries, ${keys.size} deleted entries")
     }
 
     override val catalogEntries: Sequence<SCMCatalogEntry>
@@ -12,4 +12,24 @@ interface SCMCatalogProvider {
      */
     fun matches(entry: SCMCatalogEntry, project: Project): Boolean
 
+    /**
+     * Gets a key identifying the repository of this catalog entry, so that entries and
+     * projects can be matched using a lookup instead of calling [matches] for each pair.
+     *
+     * An entry and a project having the same non-null match key are considered as matching. When
+     * a key is returned for an entry, [matches] is no longer used for it.
+     *
+     * @return Key or `null` if the provider can only use [matches]
+     */
+    fun getMatchKey(entry: SCMCatalogEntry): String? = null
+
+    /**
+     * Gets a key identifying the repository of this project, consistent with the key
+     * returned for the entries.
+     *
+     * @return Key or `null` if the project is not associated with a repository of this provider
+     * @see getMatchKey
+     */
+    fun getMatchKey(project: Project): String? = null
+
 }
\ No newline at end of file
@@ -48,7 +48,7 @@ class GQLTypeSCMCatalogEntry(
                     }
                     .field {
                         it.name("timestamp")
-                                .description("Collection timestamp")
+                                .description("Timestamp of the last collection where the entry has changed")
                                 .type(GQLScalarLocalDateTime.INSTANCE)
                     }
                     .field {
@@ -57,6 +57,57 @@ class CatalogLinkServiceTest {
         )
     }
 
+    @Test
+    fun `Linked project using match keys`() {
+        // List of projects
+        val other = Project(ID.of(2), "OTHER", "Other project", false, Signature.of("test"))
+        whenever(structureService.projectList).thenReturn(listOf(other, project))
+        // Catalog entries
+        val entry = entry()
+        whenever(scmCatalog.catalogEntries).thenReturn(sequenceOf(entry))
+        // Match keys
+        whenever(scmCatalogProvider.getMatchKey(entry)).thenReturn("key")
+        whenever(scmCatalogProvider.getMatchKey(project)).thenReturn("key")
+        whenever(scmCatalogProvider.getMatchKey(other)).thenReturn("other-key")
+        // Collection of links
+        catalogLinkService.computeCatalogLinks()
+        // Checks that link is stored
+        verify(entityDataService).store(
+                project,
+                CatalogLinkService::class.java.name,
+                entry.key
+        )
+        verify(entityDataService, never()).store(
+                eq(other),
+                eq(CatalogLinkService::class.java.name),
+                any<String>()
+        )
+        // Matching project by project is not used
+        verify(scmCatalogProvider, never()).matches(any(), any())
+    }
+
+    @Test
+    fun `Existing link is not stored again`() {
+        // List of projects
+        whenever(structureService.projectList).thenReturn(listOf(project))
+        // Catalog entries
+        val entry = entry()
+        whenever(scmCatalog.catalogEntries).thenReturn(sequenceOf(entry))
+        // Matching
+        whenever(scmCatalogProvider.matches(entry, project)).thenReturn(true)
+        // Existing key
+        whenever(entityDataService.retrieve(project, CatalogLinkService::class.java.name)).thenReturn(entry.key)
+        // Collection of links
+        catalogLinkService.computeCatalogLinks()
+        // Checks that link is neither stored nor deleted
+        verify(entityDataService, never()).store(
+                eq(project),
+                eq(CatalogLinkService::class.java.name),
+                any<String>()
+        )
+        verify(entityDataService, never()).delete(project, CatalogLinkService::class.java.name)
+    }
+
     @Test
     fun `No link because project does not match entry`() {
         // List of projects
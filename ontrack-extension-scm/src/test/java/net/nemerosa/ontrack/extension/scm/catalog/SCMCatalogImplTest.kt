@@ -6,6 +6,7 @@ import net.nemerosa.ontrack.model.support.ApplicationLogService
 import net.nemerosa.ontrack.model.support.StorageService
 import org.junit.Before
 import org.junit.Test
+import java.time.LocalDateTime
 import java.util.*
 import kotlin.test.assertEquals
 import kotlin.test.assertNotNull
@@ -125,6 +126,40 @@ class SCMCatalogImplTest {
         verify(storageService).delete("scm-catalog", "scm::config::project/repo2")
     }
 
+    @Test
+    fun `Registering entries does not rewrite unchanged entries`() {
+        val lastActivity = Time.now()
+        val provider: SCMCatalogProvider = mock()
+        whenever(provider.id).thenReturn("scm")
+        whenever(provider.entries).thenReturn(listOf(
+                source("project/repo1", lastActivity),
+                source("project/repo2", lastActivity.plusDays(1))
+        ))
+
+        val catalog = SCMCatalogImpl(storageService, listOf(provider), applicationLogService)
+        whenever(storageService.getKeys("scm-catalog")).thenReturn(listOf("scm::config::project/repo1", "scm::config::project/repo2"))
+        whenever(storageService.getData("scm-catalog", SCMCatalogEntry::class.java)).thenReturn(
+                mapOf(
+                        "scm::config::project/repo1" to entry("project/repo1", lastActivity = lastActivity),
+                        "scm::config::project/repo2" to entry("project/repo2", lastActivity = lastActivity)
+                )
+        )
+        catalog.collectSCMCatalog { println(it) }
+        verify(storageService, never()).store(
+                eq("scm-catalog"),
+                eq("scm::config::project/repo1"),
+                any()
+        )
+        verify(storageService, times(1)).store(
+                eq("scm-catalog"),
+                eq("scm::config::project/repo2"),
+                argThat<SCMCatalogEntry> {
+                    repository == "project/repo2" && this.lastActivity == lastActivity.plusDays(1)
+                }
+        )
+        verify(storageService, times(0)).delete(eq("scm-catalog"), any())
+    }
+
     @Test
     fun `Getting entries`() {
         val catalog = SCMCatalogImpl(storageService, emptyList(), applicationLogService)
@@ -153,20 +188,20 @@ class SCMCatalogImplTest {
         assertNull(catalog.getCatalogEntry("key2"))
     }
 
-    private fun entry(name: String, scm: String = "scm") = SCMCatalogEntry(
+    private fun entry(name: String, scm: String = "scm", lastActivity: LocalDateTime = Time.now()) = SCMCatalogEntry(
             scm,
             "config",
             name,
             "https://scm/$name",
-            Time.now(),
+            lastActivity,
             Time.now()
     )
 
-    private fun source(name: String) = SCMCatalogSource(
+    private fun source(name: String, lastActivity: LocalDateTime = Time.now()) = SCMCatalogSource(
             "config",
             name,
             "https://scm/$name",
-            Time.now()
+            lastActivity
     )
 
 }
\ No newline at end of file
@@ -28,6 +28,11 @@ class MockSCMCatalogProvider : SCMCatalogProvider {
 
     override fun matches(entry: SCMCatalogEntry, project: Project): Boolean = mappings[entry.key] == project.id()
 
+    override fun getMatchKey(entry: SCMCatalogEntry): String? = entry.key
+
+    override fun getMatchKey(project: Project): String? =
+            mappings.entries.find { it.value == project.id() }?.key
+
     /**
      * Clears all data
      */
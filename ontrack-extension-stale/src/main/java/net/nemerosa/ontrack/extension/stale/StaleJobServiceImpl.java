@@ -10,6 +10,7 @@ import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 @Component
@@ -114,8 +115,16 @@ public class StaleJobServiceImpl implements StaleJobService {
                 // Going on with the scan of the project
                 runListener.message("Scanning %s project for stale branches", project.getName());
                 trace(project, "Scanning project for stale branches");
-                structureService.getBranchesForProject(project.getId()).forEach(
-                        branch -> detectAndManageStaleBranch(branch, disablingTime, deletionTime.orElse(null), promotionsToKeep)
+                // Last builds & promotions of all branches at once
+                structureService.getBranchStatusViews(project.getId(), false).forEach(
+                        view -> detectAndManageStaleBranch(
+                                view.getBranch(),
+                                view::getPromotions,
+                                () -> Optional.ofNullable(view.getLatestBuild()),
+                                disablingTime,
+                                deletionTime.orElse(null),
+                                promotionsToKeep
+                        )
                 );
             }
         });
@@ -123,6 +132,25 @@ public class StaleJobServiceImpl implements StaleJobService {
 
     @Override
     public void detectAndManageStaleBranch(Branch branch, LocalDateTime disablingTime, LocalDateTime deletionTime, List<String> promotionsToKeep) {
+        detectAndManageStaleBranch(
+                branch,
+                () -> structureService.getBranchStatusView(branch).getPromotions(),
+                () -> structureService.getLastBuild(branch.getId()),
+                disablingTime,
+                deletionTime,
+                promotionsToKeep
+        );
+    }
+
+    /**
+     * Applies the given retention times to the branch, given its last promotions and its last build.
+     */
+    protected void detectAndManageStaleBranch(Branch branch,
+                                              Supplier<List<PromotionView>> lastPromotionsSupplier,
+                                              Supplier<Optional<Build>> lastBuildSupplier,
+                                              LocalDateTime disablingTime,
+                                              LocalDateTime deletionTime,
+                                              List<String> promotionsToKeep) {
         trace(branch.getProject(), "[%s] Scanning branch for staleness", branch.getName());
         // Templates are excluded
         if (branch.getType() == BranchType.TEMPLATE_DEFINITION) {
@@ -137,7 +165,7 @@ public class StaleJobServiceImpl implements StaleJobService {
             promotionsToProtect = Collections.emptySet();
         }
         // Gets the last promotions for this branch
-        List<PromotionView> lastPromotions = structureService.getBranchStatusView(branch).getPromotions();
+        List<PromotionView> lastPromotions = lastPromotionsSupplier.get();
         boolean isProtected = lastPromotions.stream()
                 .anyMatch(promotionView -> promotionView.getPromotionRun() != null
                         && promotionsToProtect.contains(promotionView.getPromotionLevel().getName()));
@@ -148,7 +176,7 @@ public class StaleJobServiceImpl implements StaleJobService {
         // Last date
         LocalDateTime lastTime;
         // Last build on this branch
-        Optional<Build> oBuild = structureService.getLastBuild(branch.getId());
+        Optional<Build> oBuild = lastBuildSupplier.get();
         if (!oBuild.isPresent()) {
             trace(branch.getProject(), "[%s] No available build - taking branch's creation time", branch.getName());
             // Takes the branch creation time from the branch itself
@@ -176,6 +176,26 @@ class StaleBranchesJobTest {
         verify(structureService).saveBranch(branch.withDisabled(true))
     }
 
+    @Test
+    void 'Scanning a project using the status of all its branches at once'() {
+        // Stale property
+        when(propertyService.getProperty(project, StalePropertyType)).thenReturn(
+                Property.of(propertyType, new StaleProperty(5, 5, []))
+        )
+        // Last build for disabling
+        def build = Build.of(branch, nd('1', ''), Signature.of(now.minusDays(6), 'test'))
+        when(structureService.getBranchStatusViews(project.id, false)).thenReturn([
+                new BranchStatusView(branch, [], build, [])
+        ])
+
+        staleJobService.detectAndManageStaleBranches(mock(JobRunListener), project)
+
+        verify(structureService, never()).getBranchStatusView(any(Branch))
+        verify(structureService, never()).getLastBuild(any(ID))
+        verify(structureService, never()).deleteBranch(any(ID))
+        verify(structureService).saveBranch(branch.withDisabled(true))
+    }
+
     protected void configureBranchForPromotion() {
         def production = PromotionLevel.of(branch, nd('PRODUCTION', ''))
         when(structureService.getBranchStatusView(branch)).thenReturn(
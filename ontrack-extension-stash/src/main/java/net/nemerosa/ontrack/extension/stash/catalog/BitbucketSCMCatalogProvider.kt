@@ -55,4 +55,15 @@ class BitbucketSCMCatalogProvider(
                 property.configuration.name == entry.config &&
                 "${property.project}/${property.repository}" == entry.repository
     }
+
+    override fun getMatchKey(entry: SCMCatalogEntry): String? = "${entry.config}::${entry.repository}"
+
+    override fun getMatchKey(project: Project): String? {
+        val property: StashProjectConfigurationProperty? = propertyService.getProperty(project, StashProjectConfigurationPropertyType::class.java).value
+        return if (property != null) {
+            "${property.configuration.name}::${property.project}/${property.repository}"
+        } else {
+            null
+        }
+    }
 }
\ No newline at end of file
@@ -17,4 +17,14 @@ public class SubversionConfProperties {
      */
     boolean buildSyncDisabled;
 
+    /**
+     * Number of revisions written and committed together during the indexation
+     */
+    int indexationBatchSize = 200;
+
+    /**
+     * Number of threads used to get the merge information during the indexation
+     */
+    int indexationMergeThreads = 4;
+
 }
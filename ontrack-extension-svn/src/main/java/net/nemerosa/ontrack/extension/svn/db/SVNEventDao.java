@@ -3,6 +3,7 @@ package net.nemerosa.ontrack.extension.svn.db;
 import net.nemerosa.ontrack.extension.svn.model.SVNLocation;
 
 import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 
 public interface SVNEventDao {
@@ -11,6 +12,18 @@ public interface SVNEventDao {
 
     void createStopEvent(int repositoryId, long revision, String path);
 
+    /**
+     * Creates several copy events at once.
+     */
+    void createCopyEvents(List<TCopyEvent> events);
+
+    /**
+     * Creates several stop events at once.
+     *
+     * @param paths Stopped paths, indexed by revision
+     */
+    void createStopEvents(int repositoryId, Map<Long, List<String>> paths);
+
     TCopyEvent getLastCopyEvent(int repositoryId, String path, long revision);
 
     SVNLocation getFirstCopyAfter(int repositoryId, SVNLocation location);
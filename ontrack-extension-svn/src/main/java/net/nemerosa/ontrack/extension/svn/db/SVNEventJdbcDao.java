@@ -3,6 +3,7 @@ package net.nemerosa.ontrack.extension.svn.db;
 import net.nemerosa.ontrack.extension.svn.model.SVNLocation;
 import net.nemerosa.ontrack.repository.support.AbstractJdbcRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
@@ -10,11 +11,15 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 
 @Repository
 public class SVNEventJdbcDao extends AbstractJdbcRepository implements SVNEventDao {
 
+    private static final String COPY_EVENT_INSERT = "INSERT INTO EXT_SVN_COPY (REPOSITORY, REVISION, COPYFROMPATH, COPYFROMREVISION, COPYTOPATH) VALUES (:repository, :revision, :copyFromPath, :copyFromRevision, :copyToPath)";
+    private static final String STOP_EVENT_INSERT = "INSERT INTO EXT_SVN_STOP (REPOSITORY, REVISION, PATH) VALUES (:repository, :revision, :path)";
+
     @Autowired
     public SVNEventJdbcDao(DataSource dataSource) {
         super(dataSource);
@@ -23,22 +28,52 @@ public class SVNEventJdbcDao extends AbstractJdbcRepository implements SVNEventD
     @Override
     public void createCopyEvent(int repositoryId, long revision, String copyFromPath, long copyFromRevision, String copyToPath) {
         getNamedParameterJdbcTemplate().update(
-                "INSERT INTO EXT_SVN_COPY (REPOSITORY, REVISION, COPYFROMPATH, COPYFROMREVISION, COPYTOPATH) VALUES (:repository, :revision, :copyFromPath, :copyFromRevision, :copyToPath)",
-                params("revision", revision)
-                        .addValue("repository", repositoryId)
-                        .addValue("copyFromPath", copyFromPath)
-                        .addValue("copyFromRevision", copyFromRevision)
-                        .addValue("copyToPath", copyToPath)
+                COPY_EVENT_INSERT,
+                copyEventParams(new TCopyEvent(repositoryId, revision, copyFromPath, copyFromRevision, copyToPath))
         );
     }
 
     @Override
     public void createStopEvent(int repositoryId, long revision, String path) {
         getNamedParameterJdbcTemplate().update(
-                "INSERT INTO EXT_SVN_STOP (REPOSITORY, REVISION, PATH) VALUES (:repository, :revision, :path)",
-                params("revision", revision)
-                        .addValue("repository", repositoryId)
-                        .addValue("path", path));
+                STOP_EVENT_INSERT,
+                stopEventParams(repositoryId, revision, path));
+    }
+
+    @Override
+    public void createCopyEvents(List<TCopyEvent> events) {
+        if (!events.isEmpty()) {
+            getNamedParameterJdbcTemplate().batchUpdate(
+                    COPY_EVENT_INSERT,
+                    events.stream().map(this::copyEventParams).toArray(MapSqlParameterSource[]::new)
+            );
+        }
+    }
+
+    @Override
+    public void createStopEvents(int repositoryId, Map<Long, List<String>> paths) {
+        MapSqlParameterSource[] params = paths.entrySet().stream()
+                .flatMap(entry -> entry.getValue().stream()
+                        .map(path -> stopEventParams(repositoryId, entry.getKey(), path))
+                )
+                .toArray(MapSqlParameterSource[]::new);
+        if (params.length > 0) {
+            getNamedParameterJdbcTemplate().batchUpdate(STOP_EVENT_INSERT, params);
+        }
+    }
+
+    private MapSqlParameterSource copyEventParams(TCopyEvent event) {
+        return params("revision", event.getRevision())
+                .addValue("repository", event.getRepository())
+                .addValue("copyFromPath", event.getCopyFromPath())
+                .addValue("copyFromRevision", event.getCopyFromRevision())
+                .addValue("copyToPath", event.getCopyToPath());
+    }
+
+    private MapSqlParameterSource stopEventParams(int repositoryId, long revision, String path) {
+        return params("revision", revision)
+                .addValue("repository", repositoryId)
+                .addValue("path", path);
     }
 
     @Override
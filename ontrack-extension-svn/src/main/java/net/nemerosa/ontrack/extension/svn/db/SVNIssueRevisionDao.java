@@ -2,6 +2,7 @@ package net.nemerosa.ontrack.extension.svn.db;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalLong;
 
@@ -9,6 +10,13 @@ public interface SVNIssueRevisionDao {
 
     void link(int repositoryId, long revision, String issueKey);
 
+    /**
+     * Links several revisions and issues at once.
+     *
+     * @param issueKeys Issue keys, indexed by revision
+     */
+    void linkAll(int repositoryId, Map<Long, ? extends Collection<String>> issueKeys);
+
     List<String> findIssuesByRevision(int repositoryId, long revision);
 
     Optional<String> findIssueByKey(int repositoryId, String issueKey);
@@ -5,11 +5,13 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalLong;
 
@@ -17,6 +19,7 @@ import java.util.OptionalLong;
 public class SVNIssueRevisionJdbcDao extends AbstractJdbcRepository implements SVNIssueRevisionDao {
 
     private static final int ISSUE_KEY_MAX_LENGTH = 20;
+    private static final String LINK_INSERT = "INSERT INTO EXT_SVN_REVISION_ISSUE (REPOSITORY, REVISION, ISSUE) VALUES (:repository, :revision, :key)";
     private final Logger logger = LoggerFactory.getLogger(SVNIssueRevisionDao.class);
 
     @Autowired
@@ -26,14 +29,35 @@ public class SVNIssueRevisionJdbcDao extends AbstractJdbcRepository implements S
 
     @Override
     public void link(int repositoryId, long revision, String key) {
+        if (isValidKey(revision, key)) {
+            getNamedParameterJdbcTemplate().update(
+                    LINK_INSERT,
+                    params("revision", revision).addValue("key", key).addValue("repository", repositoryId));
+        }
+    }
+
+    @Override
+    public void linkAll(int repositoryId, Map<Long, ? extends Collection<String>> issueKeys) {
+        MapSqlParameterSource[] params = issueKeys.entrySet().stream()
+                .flatMap(entry -> entry.getValue().stream()
+                        .filter(key -> isValidKey(entry.getKey(), key))
+                        .map(key -> params("revision", entry.getKey()).addValue("key", key).addValue("repository", repositoryId))
+                )
+                .toArray(MapSqlParameterSource[]::new);
+        if (params.length > 0) {
+            getNamedParameterJdbcTemplate().batchUpdate(LINK_INSERT, params);
+        }
+    }
+
+    private boolean isValidKey(long revision, String key) {
         if (StringUtils.isBlank(key)) {
             logger.warn("Cannot insert a null or blank key (revision {})", revision);
+            return false;
         } else if (key.length() > ISSUE_KEY_MAX_LENGTH) {
             logger.warn("Cannot insert a key longer than {} characters: {} for revision {}", ISSUE_KEY_MAX_LENGTH, key, revision);
+            return false;
         } else {
-            getNamedParameterJdbcTemplate().update(
-                    "INSERT INTO EXT_SVN_REVISION_ISSUE (REPOSITORY, REVISION, ISSUE) VALUES (:repository, :revision, :key)",
-                    params("revision", revision).addValue("key", key).addValue("repository", repositoryId));
+            return true;
         }
     }
 
@@ -2,6 +2,7 @@ package net.nemerosa.ontrack.extension.svn.db;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface SVNRevisionDao {
@@ -10,8 +11,20 @@ public interface SVNRevisionDao {
 
     void addRevision(int repositoryId, long revision, String author, LocalDateTime dateTime, String message, String branch);
 
+    /**
+     * Adds or replaces several revisions at once.
+     */
+    void addRevisions(int repositoryId, List<TRevision> revisions);
+
     void addMergedRevisions(int repositoryId, long revision, List<Long> mergedRevisions);
 
+    /**
+     * Adds the merged revisions of several revisions at once.
+     *
+     * @param mergedRevisions Merged revisions, indexed by the revision they are merged into
+     */
+    void addMergedRevisions(int repositoryId, Map<Long, List<Long>> mergedRevisions);
+
     TRevision getLastRevision(int repositoryId);
 
     TRevision get(int repositoryId, long revision);
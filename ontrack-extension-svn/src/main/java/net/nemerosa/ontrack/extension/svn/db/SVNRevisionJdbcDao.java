@@ -13,9 +13,12 @@ import javax.sql.DataSource;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Repository
 public class SVNRevisionJdbcDao extends AbstractJdbcRepository implements SVNRevisionDao {
@@ -38,30 +41,61 @@ public class SVNRevisionJdbcDao extends AbstractJdbcRepository implements SVNRev
 
     @Override
     public void addRevision(int repositoryId, long revision, String author, LocalDateTime dateTime, String message, String branch) {
-        NamedParameterJdbcTemplate t = getNamedParameterJdbcTemplate();
-        // Getting rid of the revision
-        MapSqlParameterSource params = params("revision", revision).addValue("repositoryId", repositoryId);
-        t.update("DELETE FROM EXT_SVN_REVISION WHERE REPOSITORY =:repositoryId AND REVISION = :revision", params);
-        // Creates the revision record
-        t.update("INSERT INTO EXT_SVN_REVISION (REPOSITORY, REVISION, AUTHOR, CREATION, MESSAGE, BRANCH) " +
-                        "VALUES (:repositoryId, :revision, :author, :creation, :message, :branch)",
-                params
-                        .addValue("author", author)
-                        .addValue("creation", dateTimeForDB(dateTime))
-                        .addValue("message", Objects.toString(StringUtils.abbreviate(message, MESSAGE_LENGTH), ""))
-                        .addValue("branch", branch)
+        addRevisions(
+                repositoryId,
+                Collections.singletonList(
+                        new TRevision(repositoryId, revision, author, dateTime, message, branch)
+                )
         );
     }
 
+    @Override
+    public void addRevisions(int repositoryId, List<TRevision> revisions) {
+        if (!revisions.isEmpty()) {
+            NamedParameterJdbcTemplate t = getNamedParameterJdbcTemplate();
+            // Getting rid of the revisions
+            t.update(
+                    "DELETE FROM EXT_SVN_REVISION WHERE REPOSITORY =:repositoryId AND REVISION IN (:revisions)",
+                    params("repositoryId", repositoryId)
+                            .addValue("revisions", revisions.stream().map(TRevision::getRevision).collect(Collectors.toList()))
+            );
+            // Creates the revision records
+            t.batchUpdate(
+                    "INSERT INTO EXT_SVN_REVISION (REPOSITORY, REVISION, AUTHOR, CREATION, MESSAGE, BRANCH) " +
+                            "VALUES (:repositoryId, :revision, :author, :creation, :message, :branch)",
+                    revisions.stream()
+                            .map(r -> params("repositoryId", repositoryId)
+                                    .addValue("revision", r.getRevision())
+                                    .addValue("author", r.getAuthor())
+                                    .addValue("creation", dateTimeForDB(r.getCreation()))
+                                    .addValue("message", Objects.toString(StringUtils.abbreviate(r.getMessage(), MESSAGE_LENGTH), ""))
+                                    .addValue("branch", r.getBranch())
+                            )
+                            .toArray(MapSqlParameterSource[]::new)
+            );
+        }
+    }
+
     @Override
     public void addMergedRevisions(int repositoryId, long revision, List<Long> mergedRevisions) {
-        NamedParameterJdbcTemplate t = getNamedParameterJdbcTemplate();
-        for (long mergedRevision : mergedRevisions) {
-            t.update("INSERT INTO EXT_SVN_MERGE_REVISION (REPOSITORY, REVISION, TARGET) " +
+        addMergedRevisions(repositoryId, Collections.singletonMap(revision, mergedRevisions));
+    }
+
+    @Override
+    public void addMergedRevisions(int repositoryId, Map<Long, List<Long>> mergedRevisions) {
+        MapSqlParameterSource[] params = mergedRevisions.entrySet().stream()
+                .flatMap(entry -> entry.getValue().stream()
+                        .map(mergedRevision -> params("mergedRevision", mergedRevision)
+                                .addValue("repository", repositoryId)
+                                .addValue("revision", entry.getKey())
+                        )
+                )
+                .toArray(MapSqlParameterSource[]::new);
+        if (params.length > 0) {
+            getNamedParameterJdbcTemplate().batchUpdate(
+                    "INSERT INTO EXT_SVN_MERGE_REVISION (REPOSITORY, REVISION, TARGET) " +
                             "VALUES (:repository, :mergedRevision, :revision)",
-                    params("mergedRevision", mergedRevision)
-                            .addValue("repository", repositoryId)
-                            .addValue("revision", revision)
+                    params
             );
         }
     }
@@ -5,6 +5,7 @@ import net.nemerosa.ontrack.extension.issues.IssueServiceExtension;
 import net.nemerosa.ontrack.extension.issues.IssueServiceRegistry;
 import net.nemerosa.ontrack.extension.issues.model.ConfiguredIssueService;
 import net.nemerosa.ontrack.extension.issues.model.IssueServiceConfiguration;
+import net.nemerosa.ontrack.extension.svn.SubversionConfProperties;
 import net.nemerosa.ontrack.extension.svn.client.SVNClient;
 import net.nemerosa.ontrack.extension.svn.db.*;
 import net.nemerosa.ontrack.extension.svn.model.LastRevisionInfo;
@@ -20,6 +21,7 @@ import net.nemerosa.ontrack.model.support.StartupService;
 import net.nemerosa.ontrack.tx.Transaction;
 import net.nemerosa.ontrack.tx.TransactionService;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,6 +36,10 @@ import org.tmatesoft.svn.core.wc.SVNRevision;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -52,6 +58,7 @@ public class IndexationServiceImpl implements IndexationService, StartupService,
     private final TransactionService transactionService;
     private final ApplicationContext applicationContext;
     private final JobScheduler jobScheduler;
+    private final SubversionConfProperties subversionConfProperties;
 
     @Autowired
     public IndexationServiceImpl(
@@ -65,7 +72,8 @@ public class IndexationServiceImpl implements IndexationService, StartupService,
             SecurityService securityService,
             TransactionService transactionService,
             ApplicationContext applicationContext,
-            JobScheduler jobScheduler) {
+            JobScheduler jobScheduler,
+            SubversionConfProperties subversionConfProperties) {
         this.applicationContext = applicationContext;
         this.issueRevisionDao = issueRevisionDao;
         this.jobScheduler = jobScheduler;
@@ -78,6 +86,7 @@ public class IndexationServiceImpl implements IndexationService, StartupService,
         this.svnClient = svnClient;
         this.securityService = securityService;
         this.transactionService = transactionService;
+        this.subversionConfProperties = subversionConfProperties;
     }
 
     /**
@@ -268,68 +277,153 @@ public class IndexationServiceImpl implements IndexationService, StartupService,
         unscheduleSvnIndexation(configuration);
     }
 
+    /**
+     * Collects the log entries and indexes them by batch.
+     */
     private class IndexationHandler implements ISVNLogEntryHandler {
 
         private final SVNRepository repository;
         private final Consumer<Long> revisionListener;
+        private final ExecutorService mergeExecutor;
+        private final List<SVNLogEntry> batch = new ArrayList<>();
 
-        private IndexationHandler(SVNRepository repository, Consumer<Long> revisionListener) {
+        private IndexationHandler(SVNRepository repository, Consumer<Long> revisionListener, ExecutorService mergeExecutor) {
             this.repository = repository;
             this.revisionListener = revisionListener;
+            this.mergeExecutor = mergeExecutor;
         }
 
         @Override
         public void handleLogEntry(final SVNLogEntry logEntry) throws SVNException {
-            // Transaction
-            transactionTemplate.execute(new TransactionCallbackWithoutResult() {
-
-                @Override
-                protected void doInTransactionWithoutResult(TransactionStatus transactionStatus) {
-                    try {
-                        revisionListener.accept(logEntry.getRevision());
-                        indexInTransaction(repository, logEntry);
-                    } catch (Exception ex) {
-                        throw new SVNIndexationException(logEntry.getRevision(), logEntry.getMessage(), ex);
+            revisionListener.accept(logEntry.getRevision());
+            batch.add(logEntry);
+            if (batch.size() >= subversionConfProperties.getIndexationBatchSize()) {
+                flush();
+            }
+        }
+
+        /**
+         * Indexes the pending log entries
+         */
+        public void flush() {
+            if (!batch.isEmpty()) {
+                indexBatch(repository, new ArrayList<>(batch), mergeExecutor);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Indexes a batch of log entries, all of them being committed together, so that the
+     * indexation can always resume from the last indexed revision.
+     */
+    private void indexBatch(SVNRepository repository, List<SVNLogEntry> logEntries, ExecutorService mergeExecutor) {
+        SVNLogEntry first = logEntries.get(0);
+        logger.info("[svn-indexation] Repository={}, Indexing revisions {}-{}",
+                repository.getId(),
+                first.getRevision(),
+                logEntries.get(logEntries.size() - 1).getRevision());
+        // Branch for each revision
+        Map<Long, String> branches = new HashMap<>();
+        logEntries.forEach(logEntry -> branches.put(logEntry.getRevision(), getBranchForRevision(repository, logEntry)));
+        // Merge relationships (remote calls, outside of the transaction)
+        Map<Long, List<Long>> mergedRevisions = getMergedRevisions(repository, logEntries, branches, mergeExecutor);
+        // Transaction
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus transactionStatus) {
+                try {
+                    indexInTransaction(repository, logEntries, branches, mergedRevisions);
+                } catch (Exception ex) {
+                    throw new SVNIndexationException(first.getRevision(), first.getMessage(), ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the merged revisions for a batch of log entries, in parallel, each thread using its own SVN session.
+     *
+     * @return Unique merged revisions, indexed by revision
+     */
+    private Map<Long, List<Long>> getMergedRevisions(SVNRepository repository, List<SVNLogEntry> logEntries, Map<Long, String> branches, ExecutorService mergeExecutor) {
+        int threads = Math.max(1, subversionConfProperties.getIndexationMergeThreads());
+        int chunkSize = (logEntries.size() + threads - 1) / threads;
+        List<CompletableFuture<Map<Long, List<Long>>>> futures = new ArrayList<>();
+        for (int index = 0; index < logEntries.size(); index += chunkSize) {
+            List<SVNLogEntry> chunk = logEntries.subList(index, Math.min(index + chunkSize, logEntries.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                Map<Long, List<Long>> chunkMergedRevisions = new HashMap<>();
+                try (Transaction ignored = transactionService.start()) {
+                    for (SVNLogEntry logEntry : chunk) {
+                        long revision = logEntry.getRevision();
+                        try {
+                            List<Long> mergedRevisions = svnClient.getMergedRevisions(repository, SVNUtils.toURL(repository.getConfiguration().getUrl(), branches.get(revision)), revision);
+                            // Unique revisions
+                            chunkMergedRevisions.put(revision, mergedRevisions.stream().distinct().collect(Collectors.toList()));
+                        } catch (Exception ex) {
+                            throw new SVNIndexationException(revision, logEntry.getMessage(), ex);
+                        }
                     }
                 }
-            });
+                return chunkMergedRevisions;
+            }, mergeExecutor));
+        }
+        Map<Long, List<Long>> mergedRevisions = new HashMap<>();
+        try {
+            futures.forEach(future -> mergedRevisions.putAll(future.join()));
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            } else {
+                throw ex;
+            }
         }
+        return mergedRevisions;
     }
 
     /**
      * This method is executed within a transaction
      */
-    private void indexInTransaction(SVNRepository repository, SVNLogEntry logEntry) throws SVNException {
-        // Log values
-        long revision = logEntry.getRevision();
-        String author = logEntry.getAuthor();
-        String message = logEntry.getMessage();
-        Date date = logEntry.getDate();
-        // Sanitizes the possible null values
-        author = Objects.toString(author, "");
-        message = Objects.toString(message, "");
-        // Date to date time
-        LocalDateTime dateTime = Time.from(date, Time.now());
-        // Branch for the revision
-        String branch = getBranchForRevision(repository, logEntry);
-        // Logging
-        logger.info(String.format("Indexing revision %d", revision));
-        // Inserting or updating the revision
-        revisionDao.addRevision(repository.getId(), revision, author, dateTime, message, branch);
-        // Merge relationships (using a nested SVN client)
-        try (Transaction ignored = transactionService.start(true)) {
-            List<Long> mergedRevisions = svnClient.getMergedRevisions(repository, SVNUtils.toURL(repository.getConfiguration().getUrl(), branch), revision);
-            // Unique revisions
-            List<Long> uniqueMergedRevisions = mergedRevisions.stream().distinct().collect(Collectors.toList());
-            revisionDao.addMergedRevisions(repository.getId(), revision, uniqueMergedRevisions);
+    private void indexInTransaction(SVNRepository repository, List<SVNLogEntry> logEntries, Map<Long, String> branches, Map<Long, List<Long>> mergedRevisions) {
+        List<TRevision> revisions = new ArrayList<>();
+        List<TCopyEvent> copyEvents = new ArrayList<>();
+        Map<Long, List<String>> stopEvents = new HashMap<>();
+        Map<Long, Set<String>> issues = new HashMap<>();
+        for (SVNLogEntry logEntry : logEntries) {
+            // Log values
+            long revision = logEntry.getRevision();
+            String author = logEntry.getAuthor();
+            String message = logEntry.getMessage();
+            Date date = logEntry.getDate();
+            // Sanitizes the possible null values
+            author = Objects.toString(author, "");
+            message = Objects.toString(message, "");
+            // Date to date time
+            LocalDateTime dateTime = Time.from(date, Time.now());
+            // Logging
+            logger.debug(String.format("Indexing revision %d", revision));
+            // Revision
+            revisions.add(new TRevision(repository.getId(), revision, author, dateTime, message, branches.get(revision)));
+            // Subversion events
+            copyEvents.addAll(getSVNCopyEvents(repository, logEntry));
+            stopEvents.put(revision, getSVNStopEvents(repository, logEntry));
+            // Issues
+            issues.put(revision, getIssues(repository, logEntry));
         }
+        // Inserting or updating the revisions
+        revisionDao.addRevisions(repository.getId(), revisions);
+        // Merge relationships
+        revisionDao.addMergedRevisions(repository.getId(), mergedRevisions);
         // Subversion events
-        indexSVNEvents(repository, logEntry);
+        eventDao.createCopyEvents(copyEvents);
+        eventDao.createStopEvents(repository.getId(), stopEvents);
         // Indexes the issues
-        indexIssues(repository, logEntry);
+        issueRevisionDao.linkAll(repository.getId(), issues);
     }
 
-    private void indexIssues(SVNRepository repository, SVNLogEntry logEntry) {
+    private Set<String> getIssues(SVNRepository repository, SVNLogEntry logEntry) {
         // Is the repository associated with any issue service?
         ConfiguredIssueService configuredIssueService = repository.getConfiguredIssueService();
         if (configuredIssueService != null) {
@@ -338,34 +432,22 @@ public class IndexationServiceImpl implements IndexationService, StartupService,
             // Revision information to scan
             long revision = logEntry.getRevision();
             String message = logEntry.getMessage();
-            // Cache for issues
-            Set<String> revisionIssues = new HashSet<>();
-            // Gets all issues from the message
-            Set<String> issues = issueServiceExtension.extractIssueKeysFromMessage(
-                    issueServiceConfiguration,
-                    message
+            // Gets all issues from the message (unique keys)
+            Set<String> issues = new LinkedHashSet<>(
+                    issueServiceExtension.extractIssueKeysFromMessage(
+                            issueServiceConfiguration,
+                            message
+                    )
             );
-            // For each issue in the message
-            issues.stream()
-                    // Checks that the issue has not already been associated with this revision
-                    .filter(issueKey -> !revisionIssues.contains(issueKey))
-                    // Indexes this issue
-                    .forEach(issueKey -> {
-                        revisionIssues.add(issueKey);
-                        logger.info(String.format("     Indexing revision %d <-> %s", revision, issueKey));
-                        // Indexes this issue
-                        issueRevisionDao.link(repository.getId(), revision, issueKey);
-                    });
+            issues.forEach(issueKey -> logger.debug(String.format("     Indexing revision %d <-> %s", revision, issueKey)));
+            return issues;
+        } else {
+            return Collections.emptySet();
         }
     }
 
-    private void indexSVNEvents(SVNRepository repository, SVNLogEntry logEntry) {
-        indexSVNCopyEvents(repository, logEntry);
-        indexSVNStopEvents(repository, logEntry);
-    }
-
-    private void indexSVNStopEvents(SVNRepository repository, SVNLogEntry logEntry) {
-        long revision = logEntry.getRevision();
+    private List<String> getSVNStopEvents(SVNRepository repository, SVNLogEntry logEntry) {
+        List<String> paths = new ArrayList<>();
         // Looking for copy tags
         @SuppressWarnings("unchecked")
         Map<String, SVNLogEntryPath> changedPaths = logEntry.getChangedPaths();
@@ -375,12 +457,14 @@ public class IndexationServiceImpl implements IndexationService, StartupService,
             if (logEntryPath.getType() == SVNLogEntryPath.TYPE_DELETED && svnClient.isTagOrBranch(repository, path)) {
                 logger.debug(String.format("\tSTOP %s", path));
                 // Adds the stop event
-                eventDao.createStopEvent(repository.getId(), revision, path);
+                paths.add(path);
             }
         }
+        return paths;
     }
 
-    private void indexSVNCopyEvents(SVNRepository repository, SVNLogEntry logEntry) {
+    private List<TCopyEvent> getSVNCopyEvents(SVNRepository repository, SVNLogEntry logEntry) {
+        List<TCopyEvent> events = new ArrayList<>();
         long revision = logEntry.getRevision();
         // Looking for copy tags
         @SuppressWarnings("unchecked")
@@ -400,10 +484,11 @@ public class IndexationServiceImpl implements IndexationService, StartupService,
                     long copyFromRevision = logEntryPath.getCopyRevision();
                     logger.debug(String.format("\tCOPY %s@%d --> %s", copyFromPath, copyFromRevision, copyToPath));
                     // Adds a copy event
-                    eventDao.createCopyEvent(repository.getId(), revision, copyFromPath, copyFromRevision, copyToPath);
+                    events.add(new TCopyEvent(repository.getId(), revision, copyFromPath, copyFromRevision, copyToPath));
                 }
             }
         }
+        return events;
     }
 
     private String getBranchForRevision(SVNRepository repository, SVNLogEntry logEntry) {
@@ -477,16 +562,30 @@ public class IndexationServiceImpl implements IndexationService, StartupService,
             // SVN range
             SVNRevision fromRevision = SVNRevision.create(from);
             SVNRevision toRevision = SVNRevision.create(to);
-            // Calls the indexer, including merge revisions
-            IndexationHandler handler = new IndexationHandler(repository, revision -> runListener.message(
-                    "Indexation on %s is running (%d to %d - at %d - %d%%)",
-                    repository.getConfiguration().getName(),
-                    min,
-                    max,
-                    revision,
-                    Math.round(100.0 * (revision - min + 1) / (max - min + 1))
-            ));
-            svnClient.log(repository, url, SVNRevision.HEAD, fromRevision, toRevision, true, true, 0, false, handler);
+            // Threads to get the merge information
+            ExecutorService mergeExecutor = Executors.newFixedThreadPool(
+                    Math.max(1, subversionConfProperties.getIndexationMergeThreads()),
+                    new BasicThreadFactory.Builder()
+                            .daemon(true)
+                            .namingPattern("svn-indexation-" + repository.getId() + "-%s")
+                            .build()
+            );
+            try {
+                // Calls the indexer, including merge revisions
+                IndexationHandler handler = new IndexationHandler(repository, revision -> runListener.message(
+                        "Indexation on %s is running (%d to %d - at %d - %d%%)",
+                        repository.getConfiguration().getName(),
+                        min,
+                        max,
+                        revision,
+                        Math.round(100.0 * (revision - min + 1) / (max - min + 1))
+                ), mergeExecutor);
+                svnClient.log(repository, url, SVNRevision.HEAD, fromRevision, toRevision, true, true, 0, false, handler);
+                // Remaining revisions
+                handler.flush();
+            } finally {
+                mergeExecutor.shutdownNow();
+            }
         }
     }
 }
@@ -0,0 +1,119 @@
+package net.nemerosa.ontrack.extension.svn.db
+
+import net.nemerosa.ontrack.common.Time
+import net.nemerosa.ontrack.it.AbstractServiceTestSupport
+import org.junit.Before
+import org.junit.Test
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate
+
+import javax.sql.DataSource
+
+/**
+ * Batch inserts of the SVN indexation.
+ */
+class SVNBatchInsertIT extends AbstractServiceTestSupport {
+
+    @Autowired
+    private SVNRepositoryDao repositoryDao
+
+    @Autowired
+    private SVNRevisionDao revisionDao
+
+    @Autowired
+    private SVNEventDao eventDao
+
+    @Autowired
+    private SVNIssueRevisionDao issueRevisionDao
+
+    @Autowired
+    private DataSource dataSource
+
+    private int repositoryId
+
+    @Before
+    void init() {
+        repositoryId = repositoryDao.getOrCreateByName(uid('S'))
+    }
+
+    @Test
+    void 'Revisions added at once'() {
+        addRevisions(1..3)
+        // Replacing an existing revision and adding a new one
+        revisionDao.addRevisions(repositoryId, [
+                revision(2, 'Message 2 updated'),
+                revision(4, 'Message 4'),
+        ])
+        assert revisionDao.getLast(repositoryId) == 4
+        assert revisionDao.get(repositoryId, 1).message == 'Message 1'
+        assert revisionDao.get(repositoryId, 2).message == 'Message 2 updated'
+        assert revisionDao.get(repositoryId, 3).message == 'Message 3'
+        assert revisionDao.get(repositoryId, 4).message == 'Message 4'
+        assert revisionDao.get(repositoryId, 4).branch == '/project/trunk'
+    }
+
+    @Test
+    void 'No revision added'() {
+        revisionDao.addRevisions(repositoryId, [])
+        assert revisionDao.getLast(repositoryId) == 0
+    }
+
+    @Test
+    void 'Merged revisions added at once'() {
+        addRevisions(10..12)
+        revisionDao.addMergedRevisions(repositoryId, [
+                (10L): [1L, 2L],
+                (11L): [2L, 3L],
+                (12L): [],
+        ])
+        assert revisionDao.getMergesForRevision(repositoryId, 1) == [10L]
+        assert revisionDao.getMergesForRevision(repositoryId, 2) == [10L, 11L]
+        assert revisionDao.getMergesForRevision(repositoryId, 3) == [11L]
+        assert revisionDao.getMergesForRevision(repositoryId, 12) == []
+    }
+
+    @Test
+    void 'Copy and stop events created at once'() {
+        addRevisions(5..10)
+        eventDao.createCopyEvents([
+                new TCopyEvent(repositoryId, 5, '/project/trunk', 4, '/project/branches/1.0'),
+                new TCopyEvent(repositoryId, 8, '/project/trunk', 7, '/project/branches/2.0'),
+        ])
+        eventDao.createStopEvents(repositoryId, [
+                (9L) : ['/project/branches/1.0', '/project/branches/2.0'],
+                (10L): [],
+        ])
+        def copy = eventDao.getLastCopyEvent(repositoryId, '/project/branches/2.0', 10)
+        assert copy.revision == 8
+        assert copy.copyFromPath == '/project/trunk'
+        assert copy.copyFromRevision == 7
+        assert eventDao.findCopies(repositoryId, '/project/trunk', '/project/branches/', { true }).collect { it.copyToPath } ==
+                ['/project/branches/1.0', '/project/branches/2.0']
+        assert new NamedParameterJdbcTemplate(dataSource).queryForList(
+                'SELECT PATH FROM EXT_SVN_STOP WHERE REPOSITORY = :repository AND REVISION = 9 ORDER BY PATH',
+                [repository: repositoryId],
+                String
+        ) == ['/project/branches/1.0', '/project/branches/2.0']
+    }
+
+    @Test
+    void 'Issues linked at once'() {
+        addRevisions(1..2)
+        issueRevisionDao.linkAll(repositoryId, [
+                (1L): ['ISS-1', 'ISS-2'],
+                (2L): ['ISS-2', ''],
+        ])
+        assert issueRevisionDao.findIssuesByRevision(repositoryId, 1).sort() == ['ISS-1', 'ISS-2']
+        assert issueRevisionDao.findIssuesByRevision(repositoryId, 2) == ['ISS-2']
+        assert issueRevisionDao.findRevisionsByIssue(repositoryId, 'ISS-2').sort() == [1L, 2L]
+    }
+
+    private void addRevisions(IntRange revisions) {
+        revisionDao.addRevisions(repositoryId, revisions.collect { revision(it, "Message $it") })
+    }
+
+    private TRevision revision(long revision, String message) {
+        new TRevision(repositoryId, revision, 'user', Time.now(), message, '/project/trunk')
+    }
+
+}
@@ -1,5 +1,6 @@
 package net.nemerosa.ontrack.extension.svn.service
 
+import net.nemerosa.ontrack.extension.svn.SubversionConfProperties
 import net.nemerosa.ontrack.extension.svn.db.SVNRepository
 import net.nemerosa.ontrack.extension.svn.db.SVNRepositoryDao
 import net.nemerosa.ontrack.extension.svn.db.SVNRevisionDao
@@ -28,14 +29,49 @@ class IndexationServiceIT extends AbstractServiceTestSupport {
     @Autowired
     private SVNRevisionDao revisionDao
 
+    @Autowired
+    private SubversionConfProperties subversionConfProperties
+
     @Test
     @IfProfileValue(name = "svn", value = "true")
     void 'Indexation of merge info'() {
+        indexationOfMergeInfo('IndexationServiceIT')
+    }
+
+    @Test
+    @IfProfileValue(name = "svn", value = "true")
+    void 'Indexation of merge info by batches'() {
+        int batchSize = subversionConfProperties.indexationBatchSize
+        int mergeThreads = subversionConfProperties.indexationMergeThreads
+        // 12 revisions indexed by batches of 5, the merge information of each batch being read by 2 threads
+        subversionConfProperties.indexationBatchSize = 5
+        subversionConfProperties.indexationMergeThreads = 2
+        try {
+            int repositoryId = indexationOfMergeInfo('IndexationServiceBatchIT')
+            // All the revisions have been indexed
+            assert revisionDao.getLast(repositoryId) == 12
+            (1..12).each {
+                assert revisionDao.get(repositoryId, it) != null
+            }
+        } finally {
+            subversionConfProperties.indexationBatchSize = batchSize
+            subversionConfProperties.indexationMergeThreads = mergeThreads
+        }
+    }
+
+    /**
+     * Indexes a SVN project with a branch merged into the trunk, and checks the merge information.
+     *
+     * @return ID of the indexed repository
+     */
+    private int indexationOfMergeInfo(String repoName) {
+
+        int repositoryId = 0
 
         /**
          * Preparation of a SVN project with branch merged into the trunk
          */
-        SVNTestRepo.withSvnRepo('IndexationServiceIT') { SVNTestRepo repo ->
+        SVNTestRepo.withSvnRepo(repoName) { SVNTestRepo repo ->
 
             // Few commits on the trunk
             repo.mkdir 'IndexationOfMergeInfo/trunk', 'Trunk'
@@ -53,7 +89,7 @@ class IndexationServiceIT extends AbstractServiceTestSupport {
              */
 
             def configuration = SVNTestUtils.repository(repo.url.toString()).configuration
-            def repositoryId = repositoryDao.getOrCreateByName(configuration.name)
+            repositoryId = repositoryDao.getOrCreateByName(configuration.name)
             def repository = SVNRepository.of(repositoryId, configuration, null)
 
             /**
@@ -80,6 +116,7 @@ class IndexationServiceIT extends AbstractServiceTestSupport {
             }
         }
 
+        return repositoryId
     }
 
 }
@@ -109,12 +109,24 @@ interface GitRepositoryClient {
      */
     fun forEachCommit(code: (GitCommit) -> Unit)
 
+    /**
+     * Loops through the commits of a repository which are not reachable from some previous tips.
+     *
+     * The commits are read one by one while walking the history, without being collected first.
+     *
+     * @param since Commits from which the history has already been processed. Commits which can
+     * no longer be found in the repository are ignored.
+     * @param code Code to run for each new commit
+     * @return Current tips of the repository, to use as [since] for the next walk
+     */
+    fun forEachCommitSince(since: Collection<String>, code: (GitCommit) -> Unit): Set<String>
+
     /**
      * Gets the earliest commit that contains the commit.
      *
      *
-     * Uses the `git tag --contains` command to get all tags that contains the given
-     * `gitCommitId`.
+     * Gets all tags that contain the given `gitCommitId`, like the `git tag --contains` command,
+     * using the index of the tags computed at each synchronisation when up to date.
      *
      *
      * **Note**: returned tags are *not* ordered.
@@ -2,13 +2,20 @@ package net.nemerosa.ontrack.git.model.plot
 
 import java.util.*
 
-class GPlot {
+/**
+ * @param minWidth Minimal width of the plot, used when its items are not available
+ * @param minHeight Minimal height of the plot, used when its items are not available
+ */
+class GPlot(
+        private val minWidth: Int = 0,
+        private val minHeight: Int = 0
+) {
 
     private val items = ArrayList<GItem>()
 
     val width: Int
         get() {
-            var width = 0
+            var width = minWidth
             for (item in items) {
                 width = Math.max(width, item.maxX)
             }
@@ -17,7 +24,7 @@ class GPlot {
 
     val height: Int
         get() {
-            var height = 0
+            var height = minHeight
             for (item in items) {
                 height = Math.max(height, item.maxY)
             }
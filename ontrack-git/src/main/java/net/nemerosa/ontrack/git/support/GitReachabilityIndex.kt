@@ -0,0 +1,251 @@
+package net.nemerosa.ontrack.git.support
+
+import org.eclipse.jgit.errors.IncorrectObjectTypeException
+import org.eclipse.jgit.lib.AnyObjectId
+import org.eclipse.jgit.lib.Constants
+import org.eclipse.jgit.lib.ObjectId
+import org.eclipse.jgit.lib.Repository
+import org.eclipse.jgit.revwalk.RevCommit
+import org.eclipse.jgit.revwalk.RevWalk
+import org.slf4j.LoggerFactory
+import java.io.*
+import java.util.*
+import java.util.concurrent.locks.ReentrantReadWriteLock
+
+/**
+ * Persistent index of the references (branches or tags) containing each commit.
+ *
+ * Each indexed commit gets a position, and each reference is associated with the bitmap of the positions
+ * of the commits reachable from its tip. Getting the references containing a commit is then only a
+ * matter of checking one bit per reference.
+ *
+ * The index is updated incrementally: when the tip of a reference moves forward, only the new commits
+ * are walked. When a reference is rewritten, its bitmap is computed again.
+ *
+ * @param file File where the index is stored
+ */
+class GitReachabilityIndex(
+        private val file: File
+) {
+
+    private val logger = LoggerFactory.getLogger(GitReachabilityIndex::class.java)
+
+    private val lock = ReentrantReadWriteLock()
+
+    /**
+     * List of indexed commits, the index in the list being their position.
+     */
+    private val commits = ArrayList<ObjectId>()
+
+    /**
+     * Position of each indexed commit
+     */
+    private val positions = HashMap<AnyObjectId, Int>()
+
+    /**
+     * Indexed branches
+     */
+    private val branches = TreeMap<String, IndexedBranch>()
+
+    @Volatile
+    private var loaded = false
+
+    /**
+     * Gets the list of references containing a commit.
+     *
+     * @param commit Commit to look for
+     * @param tips Current tips of the references, indexed by name
+     * @return Sorted list of references or `null` if the index is not available or not up to date
+     * with the given tips. Since all the commits reachable from the tips are indexed, a commit which
+     * is not indexed is not contained by any reference.
+     */
+    fun getRefsForCommit(commit: AnyObjectId, tips: Map<String, ObjectId>): List<String>? {
+        ensureLoaded()
+        val readLock = lock.readLock()
+        // Not waiting for the index to be updated
+        if (!readLock.tryLock()) {
+            return null
+        }
+        try {
+            if (!loaded || tips.size != branches.size || tips.any { (name, tip) -> branches[name]?.tip != tip }) {
+                return null
+            }
+            val position = positions[commit] ?: return emptyList()
+            return branches.filterValues { it.commits.get(position) }.keys.toList()
+        } finally {
+            readLock.unlock()
+        }
+    }
+
+    /**
+     * Updates the index with the current tips of the references and saves it.
+     *
+     * @param repository Repository to walk
+     * @param tips Current tips of the references, indexed by name
+     */
+    fun update(repository: Repository, tips: Map<String, ObjectId>) {
+        val writeLock = lock.writeLock()
+        writeLock.lock()
+        try {
+            ensureLoaded()
+            // Removes the references which are gone
+            val changed = branches.keys.retainAll(tips.keys)
+            // Updates the references which have moved
+            val moved = tips.filter { (name, tip) -> branches[name]?.tip != tip }
+            if (moved.isNotEmpty()) {
+                RevWalk(repository).use { walk ->
+                    // Only the structure of the graph is needed
+                    walk.isRetainBody = false
+                    moved.forEach { (name, tip) ->
+                        updateBranch(walk, name, tip)
+                    }
+                }
+            }
+            if (changed || moved.isNotEmpty()) {
+                try {
+                    save()
+                } catch (ex: IOException) {
+                    logger.warn("[git] Cannot save the reachability index at $file", ex)
+                }
+            }
+        } finally {
+            writeLock.unlock()
+        }
+    }
+
+    /**
+     * Loads the index from its file if not done yet, without waiting for an update to complete.
+     */
+    private fun ensureLoaded() {
+        if (!loaded) {
+            val writeLock = lock.writeLock()
+            if (writeLock.tryLock()) {
+                try {
+                    if (!loaded) {
+                        load()
+                        loaded = true
+                    }
+                } finally {
+                    writeLock.unlock()
+                }
+            }
+        }
+    }
+
+    private fun updateBranch(walk: RevWalk, name: String, tip: ObjectId) {
+        val tipCommit = try {
+            walk.parseCommit(tip)
+        } catch (ex: IncorrectObjectTypeException) {
+            // Tag on a tree or a blob, containing no commit
+            branches[name] = IndexedBranch(tip.copy(), BitSet())
+            return
+        }
+        val existing = branches[name]
+        val bits = if (existing != null && isFastForward(walk, existing.tip, tip)) {
+            existing.commits
+        } else {
+            // New or rewritten reference
+            BitSet()
+        }
+        // Walks the commits not indexed yet for this reference
+        val stack = ArrayDeque<RevCommit>()
+        stack.push(tipCommit)
+        while (stack.isNotEmpty()) {
+            val commit = stack.pop()
+            val position = getOrCreatePosition(commit)
+            if (!bits.get(position)) {
+                bits.set(position)
+                commit.parents.forEach { parent ->
+                    stack.push(walk.parseCommit(parent))
+                }
+            }
+        }
+        branches[name] = IndexedBranch(tip.copy(), bits)
+    }
+
+    private fun isFastForward(walk: RevWalk, from: ObjectId, to: ObjectId): Boolean =
+            try {
+                walk.reset()
+                walk.isMergedInto(walk.parseCommit(from), walk.parseCommit(to))
+            } catch (ex: IOException) {
+                // Old tip not available any longer
+                false
+            } finally {
+                walk.reset()
+            }
+
+    private fun getOrCreatePosition(commit: AnyObjectId): Int =
+            positions[commit] ?: run {
+                val id = commit.copy()
+                val position = commits.size
+                commits += id
+                positions[id] = position
+                position
+            }
+
+    private fun load() {
+        if (file.exists()) {
+            try {
+                DataInputStream(BufferedInputStream(FileInputStream(file))).use { input ->
+                    if (input.readInt() != VERSION) {
+                        logger.info("[git] Reachability index at $file has an older version and will be rebuilt.")
+                        return
+                    }
+                    val raw = ByteArray(Constants.OBJECT_ID_LENGTH)
+                    repeat(input.readInt()) {
+                        input.readFully(raw)
+                        getOrCreatePosition(ObjectId.fromRaw(raw))
+                    }
+                    repeat(input.readInt()) {
+                        val name = input.readUTF()
+                        input.readFully(raw)
+                        val tip = ObjectId.fromRaw(raw)
+                        val words = LongArray(input.readInt()) { input.readLong() }
+                        branches[name] = IndexedBranch(tip, BitSet.valueOf(words))
+                    }
+                }
+            } catch (ex: IOException) {
+                logger.warn("[git] Cannot read reachability index at $file. It will be rebuilt.", ex)
+                commits.clear()
+                positions.clear()
+                branches.clear()
+            }
+        }
+    }
+
+    private fun save() {
+        file.parentFile.mkdirs()
+        val tmp = File(file.parentFile, "${file.name}.tmp")
+        DataOutputStream(BufferedOutputStream(FileOutputStream(tmp))).use { output ->
+            output.writeInt(VERSION)
+            val raw = ByteArray(Constants.OBJECT_ID_LENGTH)
+            output.writeInt(commits.size)
+            commits.forEach { commit ->
+                commit.copyRawTo(raw, 0)
+                output.write(raw)
+            }
+            output.writeInt(branches.size)
+            branches.forEach { (name, branch) ->
+                output.writeUTF(name)
+                branch.tip.copyRawTo(raw, 0)
+                output.write(raw)
+                val words = branch.commits.toLongArray()
+                output.writeInt(words.size)
+                words.forEach { output.writeLong(it) }
+            }
+        }
+        if (file.exists() && !file.delete() || !tmp.renameTo(file)) {
+            throw IOException("Cannot write the reachability index at $file")
+        }
+    }
+
+    private class IndexedBranch(
+            val tip: ObjectId,
+            val commits: BitSet
+    )
+
+    companion object {
+        private const val VERSION = 1
+    }
+
+}
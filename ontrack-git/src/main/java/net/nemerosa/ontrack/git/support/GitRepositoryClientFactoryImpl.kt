@@ -10,9 +10,15 @@ import java.io.File
 import java.io.IOException
 import java.util.concurrent.locks.ReentrantLock
 
-class GitRepositoryClientFactoryImpl(
+/**
+ * @param root Directory of the repositories
+ * @param cacheManager Cache for the clients
+ * @param sharedObjectStore If set, the repositories get their objects from this store
+ */
+class GitRepositoryClientFactoryImpl @JvmOverloads constructor(
         private val root: File,
-        private val cacheManager: CacheManager
+        private val cacheManager: CacheManager,
+        private val sharedObjectStore: GitSharedObjectStore? = null
 ) : GitRepositoryClientFactory {
 
     companion object {
@@ -56,7 +62,7 @@ class GitRepositoryClientFactoryImpl(
         }
 
         // Creates the client
-        return GitRepositoryClientImpl(repositoryDir, repository)
+        return GitRepositoryClientImpl(repositoryDir, repository, sharedObjectStore)
     }
 
 }
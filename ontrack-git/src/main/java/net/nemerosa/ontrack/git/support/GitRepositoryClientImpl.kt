@@ -26,9 +26,12 @@ import org.eclipse.jgit.revwalk.RevWalk
 import org.eclipse.jgit.revwalk.filter.MessageRevFilter
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder
 import org.eclipse.jgit.transport.CredentialsProvider
+import org.eclipse.jgit.transport.RefSpec
+import org.eclipse.jgit.transport.TagOpt
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider
 import org.eclipse.jgit.treewalk.AbstractTreeIterator
 import org.eclipse.jgit.treewalk.CanonicalTreeParser
+import org.eclipse.jgit.treewalk.TreeWalk
 import org.slf4j.LoggerFactory
 import java.io.ByteArrayOutputStream
 import java.io.File
@@ -42,13 +45,24 @@ import java.util.stream.Stream
 
 class GitRepositoryClientImpl(
         private val repositoryDir: File,
-        private val repository: GitRepository
+        private val repository: GitRepository,
+        private val sharedObjectStore: GitSharedObjectStore? = null
 ) : GitRepositoryClient {
 
     private val logger = LoggerFactory.getLogger(GitRepositoryClient::class.java)
     private val git: Git
     private val credentialsProvider: CredentialsProvider?
     private val sync = ReentrantLock()
+    private val reachabilityIndex = GitReachabilityIndex(File(repositoryDir, ".git/ontrack-reachability.idx"))
+    private val tagReachabilityIndex = GitReachabilityIndex(File(repositoryDir, ".git/ontrack-tag-reachability.idx"))
+
+    /**
+     * Content of the last downloaded files, indexed by commit and path
+     */
+    private val downloads = object : LinkedHashMap<DownloadKey, String?>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<DownloadKey, String?>): Boolean =
+                size > DOWNLOAD_CACHE_SIZE
+    }
 
     private val isClonedOrCloning: Boolean
         get() = File(repositoryDir, ".git").exists()
@@ -107,14 +121,40 @@ class GitRepositoryClientImpl(
             GitBranchesInfo.empty()
         }
 
+    /**
+     * Tips of the remote branches, indexed by branch name
+     */
+    private val remoteBranchTips: Map<String, ObjectId>
+        get() = git.repository.refDatabase.getRefs(REMOTE_BRANCH_PREFIX)
+                .filter { (name, ref) -> name != "HEAD" && ref.objectId != null }
+                .mapValues { (_, ref) -> ref.objectId }
+
+    /**
+     * Commits the tags point to, indexed by tag name
+     */
+    private val tagTips: Map<String, ObjectId>
+        get() = git.repository.refDatabase.getRefs(Constants.R_TAGS)
+                .mapValues { (_, ref) -> git.repository.peel(ref) }
+                .filterValues { ref -> ref.objectId != null }
+                .mapValues { (_, ref) -> ref.peeledObjectId ?: ref.objectId }
+
     override fun getBranchesForCommit(commit: String): List<String> {
         try {
+            // Uses the index if up to date
+            val commitId = git.repository.resolve(commit)
+            if (commitId != null) {
+                val indexed = reachabilityIndex.getRefsForCommit(commitId, remoteBranchTips)
+                if (indexed != null) {
+                    return indexed
+                }
+            }
+            // Walking all the branches
             val list = git.branchList()
                     .setContains(commit)
                     .setListMode(ListBranchCommand.ListMode.REMOTE)
                     .call()
             return list.asSequence().map {
-                StringUtils.removeStart(it.name, "refs/remotes/origin/")
+                StringUtils.removeStart(it.name, REMOTE_BRANCH_PREFIX)
             }.map {
                 StringUtils.removeStart(it, "refs/heads/")
             }.filter {
@@ -187,6 +227,8 @@ class GitRepositoryClientImpl(
                     // Clone
                     cloneRemote(logger)
                 }
+                // Branches and tags containing the commits
+                indexRefs(logger)
             } finally {
                 sync.unlock()
             }
@@ -199,27 +241,92 @@ class GitRepositoryClientImpl(
     private fun fetch(logger: Consumer<String>) {
         logger.accept(format("[git] Pulling %s", repository.remote))
         try {
-            git.fetch()
-                    .setCredentialsProvider(credentialsProvider)
-                    .call()
+            if (sharedObjectStore != null) {
+                ensureAlternates(sharedObjectStore)
+                sharedObjectStore.fetch(repository.remote, credentialsProvider, logger)
+                fetchFromSharedObjectStore(sharedObjectStore)
+            } else {
+                git.fetch()
+                        .setCredentialsProvider(credentialsProvider)
+                        .call()
+            }
         } catch (e: GitAPIException) {
             throw GitRepositoryAPIException(repository.remote, e)
+        } catch (e: IOException) {
+            throw GitRepositoryIOException(repository.remote, e)
         }
 
         logger.accept(format("[git] Pulling done for %s", repository.remote))
     }
 
+    /**
+     * Makes sure the objects of the shared store are used as alternates.
+     */
+    private fun ensureAlternates(store: GitSharedObjectStore) {
+        val alternates = File(repositoryDir, ".git/objects/info/alternates")
+        val objects = store.objectsDir.absolutePath
+        if (!alternates.exists() || objects !in alternates.readLines()) {
+            FileUtils.forceMkdirParent(alternates)
+            alternates.appendText("$objects\n")
+        }
+    }
+
+    /**
+     * Gets the references mirrored in the shared store. The objects are not copied, they
+     * are available through the alternates.
+     */
+    private fun fetchFromSharedObjectStore(store: GitSharedObjectStore) {
+        val prefix = store.getMirrorPrefix(repository.remote)
+        git.fetch()
+                .setRemote(store.dir.absolutePath)
+                .setRefSpecs(listOf(
+                        RefSpec("+${prefix}heads/*:$REMOTE_BRANCH_PREFIX*"),
+                        RefSpec("+${prefix}tags/*:${Constants.R_TAGS}*")
+                ))
+                .setTagOpt(TagOpt.NO_TAGS)
+                .setRemoveDeletedRefs(true)
+                .call()
+    }
+
+    private fun indexRefs(logger: Consumer<String>) {
+        logger.accept(format("[git] Indexing the branches and tags of %s", repository.remote))
+        try {
+            reachabilityIndex.update(git.repository, remoteBranchTips)
+            tagReachabilityIndex.update(git.repository, tagTips)
+        } catch (e: IOException) {
+            // Not blocking, the branches and tags will be walked on demand
+            this.logger.warn(format("[git] Cannot index the branches and tags of %s", repository.remote), e)
+        }
+        logger.accept(format("[git] Indexing done for %s", repository.remote))
+    }
+
     @Synchronized
     private fun cloneRemote(logger: Consumer<String>) {
         logger.accept(format("[git] Cloning %s", repository.remote))
         try {
-            CloneCommand()
-                    .setCredentialsProvider(credentialsProvider)
-                    .setDirectory(repositoryDir)
-                    .setURI(repository.remote)
-                    .call()
+            if (sharedObjectStore != null) {
+                // Empty repository using the shared objects
+                git.repository.create()
+                ensureAlternates(sharedObjectStore)
+                // Same remote configuration as for a clone
+                val config = git.repository.config
+                config.setString("remote", "origin", "url", repository.remote)
+                config.setString("remote", "origin", "fetch", "+refs/heads/*:$REMOTE_BRANCH_PREFIX*")
+                config.save()
+                // Gets the references
+                sharedObjectStore.fetch(repository.remote, credentialsProvider, logger)
+                fetchFromSharedObjectStore(sharedObjectStore)
+            } else {
+                CloneCommand()
+                        .setCredentialsProvider(credentialsProvider)
+                        .setDirectory(repositoryDir)
+                        .setURI(repository.remote)
+                        .call()
+            }
         } catch (e: GitAPIException) {
             throw GitRepositoryAPIException(repository.remote, e)
+        } catch (e: IOException) {
+            throw GitRepositoryIOException(repository.remote, e)
         }
 
         // Check
@@ -298,6 +405,32 @@ class GitRepositoryClientImpl(
         }
     }
 
+    override fun forEachCommitSince(since: Collection<String>, code: (GitCommit) -> Unit): Set<String> {
+        try {
+            val gitRepository = git.repository
+            RevWalk(gitRepository).use { walk ->
+                // Commits pointed by all the references
+                val tips = gitRepository.refDatabase.getRefs(RefDatabase.ALL).values
+                        .mapNotNull { ref -> ref.objectId }
+                        .mapNotNull { id -> walk.peel(walk.parseAny(id)) as? RevCommit }
+                tips.forEach { walk.markStart(it) }
+                // Excluding the history which has already been processed
+                since.forEach { id ->
+                    val commit = ObjectId.fromString(id)
+                    if (gitRepository.hasObject(commit)) {
+                        walk.markUninteresting(walk.parseCommit(commit))
+                    }
+                }
+                // Streaming the new commits
+                walk.forEach { code(toCommit(it)) }
+                // OK
+                return tips.map { it.name }.toSet()
+            }
+        } catch (e: IOException) {
+            throw GitRepositoryIOException(repository.remote, e)
+        }
+    }
+
     override fun log(from: String, to: String): Stream<GitCommit> {
         try {
             val gitRepository = git.repository
@@ -416,17 +549,39 @@ class GitRepositoryClientImpl(
         }
     }
 
-    /**
-     * {@inheritDoc}
-     *
-     *
-     * **Note**: the JGit library does not support the `git-describe` command yet, hence
-     * the use of the command line.
-     *
-     * @see net.nemerosa.ontrack.git.support.GitClientSupport.tagContains
-     */
     override fun getTagsWhichContainCommit(gitCommitId: String): Collection<String> {
-        return GitClientSupport.tagContains(repositoryDir, gitCommitId)
+        try {
+            val commitId = git.repository.resolve(gitCommitId) ?: return emptyList()
+            val tips = tagTips
+            // Uses the index if up to date
+            val indexed = tagReachabilityIndex.getRefsForCommit(commitId, tips)
+            if (indexed != null) {
+                return indexed
+            }
+            // Walking once from all the tags, down to the commit
+            RevWalk(git.repository).use { walk ->
+                walk.isRetainBody = false
+                val commit = walk.parseCommit(commitId)
+                val tagCommits = tips.mapNotNull { (name, tip) ->
+                    (walk.parseAny(tip) as? RevCommit)?.let { name to it }
+                }
+                tagCommits.forEach { (_, tagCommit) -> walk.markStart(tagCommit) }
+                // The ancestors of the commit cannot contain it
+                commit.parents.forEach { walk.markUninteresting(walk.parseCommit(it)) }
+                // Parents first, so that the commit is propagated to its descendants
+                walk.sort(RevSort.TOPO)
+                walk.sort(RevSort.REVERSE, true)
+                val contains = walk.newFlag("contains")
+                walk.forEach { current ->
+                    if (current == commit || current.parents.any { it.has(contains) }) {
+                        current.add(contains)
+                    }
+                }
+                return tagCommits.filter { (_, tagCommit) -> tagCommit.has(contains) }.map { it.first }.sorted()
+            }
+        } catch (e: IOException) {
+            throw GitRepositoryIOException(repository.remote, e)
+        }
     }
 
     override fun unifiedDiff(from: String, to: String, pathFilter: Predicate<String>): String {
@@ -463,12 +618,43 @@ class GitRepositoryClientImpl(
     }
 
     override fun download(branch: String, path: String): String? {
-        // Sync first
-        sync(Consumer { logger.debug(it) })
-        // Git show
-        return GitClientSupport.showPath(repositoryDir, getBranchRef(branch), path)
+        // Clones the repository if not done yet, updates are left to the synchronisation jobs
+        if (!isClonedOrCloning) {
+            sync(Consumer { logger.debug(it) })
+        }
+        try {
+            val commitId = git.repository.resolve(getBranchRef(branch)) ?: return null
+            val key = DownloadKey(commitId.copy(), path)
+            synchronized(downloads) {
+                if (downloads.containsKey(key)) {
+                    return downloads[key]
+                }
+            }
+            val content = readPath(commitId, path)
+            synchronized(downloads) {
+                downloads[key] = content
+            }
+            return content
+        } catch (e: IOException) {
+            throw GitRepositoryIOException(repository.remote, e)
+        }
     }
 
+    /**
+     * Reads the content of a file at a given commit
+     */
+    private fun readPath(commitId: ObjectId, path: String): String? =
+            git.repository.newObjectReader().use { reader ->
+                val tree = RevWalk(reader).use { walk -> walk.parseCommit(commitId).tree }
+                TreeWalk.forPath(reader, path, tree)?.use { treeWalk ->
+                    if (treeWalk.getFileMode(0).objectType == Constants.OBJ_BLOB) {
+                        String(reader.open(treeWalk.getObjectId(0), Constants.OBJ_BLOB).bytes, Charsets.UTF_8)
+                    } else {
+                        null
+                    }
+                }
+            }
+
     override fun reset() {
         try {
             FileUtils.forceDelete(repositoryDir)
@@ -638,4 +824,14 @@ class GitRepositoryClientImpl(
 
         return GitRange(commitFrom, commitTo)
     }
+
+    private data class DownloadKey(
+            val commit: ObjectId,
+            val path: String
+    )
+
+    companion object {
+        private const val REMOTE_BRANCH_PREFIX = "refs/remotes/origin/"
+        private const val DOWNLOAD_CACHE_SIZE = 100
+    }
 }
@@ -0,0 +1,156 @@
+package net.nemerosa.ontrack.git.support
+
+import net.nemerosa.ontrack.git.exceptions.GitRepositoryAPIException
+import net.nemerosa.ontrack.git.exceptions.GitRepositoryIOException
+import net.nemerosa.ontrack.git.exceptions.GitRepositoryInitException
+import org.eclipse.jgit.api.Git
+import org.eclipse.jgit.api.errors.GitAPIException
+import org.eclipse.jgit.lib.Constants
+import org.eclipse.jgit.lib.ObjectId
+import org.eclipse.jgit.lib.Repository
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder
+import org.eclipse.jgit.transport.CredentialsProvider
+import org.eclipse.jgit.transport.RefSpec
+import org.eclipse.jgit.transport.TagOpt
+import java.io.File
+import java.io.IOException
+import java.lang.String.format
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Semaphore
+import java.util.function.Consumer
+import kotlin.math.max
+
+/**
+ * Bare repository whose objects are shared by all the Git repository clients.
+ *
+ * The branches and tags of each remote are mirrored under `refs/mirrors/<hash>/`, so the
+ * objects common to several remotes (like the forks of the same upstream) are downloaded and
+ * stored only once. The clients use the objects of this store as alternates and fetch their
+ * references from it.
+ *
+ * @property dir Directory of the bare repository
+ * @param maxConcurrentFetches Maximum number of remotes being fetched at the same time
+ */
+class GitSharedObjectStore(
+        val dir: File,
+        maxConcurrentFetches: Int
+) {
+
+    private val fetchPermits = Semaphore(max(1, maxConcurrentFetches))
+
+    /**
+     * Fetches being run, indexed by remote
+     */
+    private val fetches = ConcurrentHashMap<String, CompletableFuture<Boolean>>()
+
+    private val repository: Repository by lazy {
+        try {
+            FileRepositoryBuilder()
+                    .setGitDir(dir)
+                    .setBare()
+                    .build()
+                    .apply {
+                        if (!objectDatabase.exists()) {
+                            create(true)
+                        }
+                    }
+        } catch (e: IOException) {
+            throw GitRepositoryInitException(e)
+        }
+    }
+
+    /**
+     * Directory of the shared objects, to use as an alternate
+     */
+    val objectsDir: File get() = File(dir, "objects")
+
+    /**
+     * Prefix of the references mirroring a remote.
+     *
+     * The SHA-1 of the remote URL is used, so that each remote gets its own valid namespace,
+     * whatever the characters of its URL.
+     */
+    fun getMirrorPrefix(remote: String): String =
+            "refs/mirrors/${ObjectId.fromRaw(Constants.newMessageDigest().digest(remote.toByteArray(Charsets.UTF_8))).name}/"
+
+    /**
+     * Fetches the branches and tags of a remote into the store.
+     *
+     * If a fetch of the same remote is already running, waits for its completion instead
+     * of fetching again. The fetch is skipped when none of the references of the remote
+     * has changed since the last fetch.
+     *
+     * @param remote Remote to fetch
+     * @param credentialsProvider Credentials for the remote, if any
+     * @param logger Used to log messages during the fetch
+     * @return `true` if some references have been fetched
+     */
+    fun fetch(remote: String, credentialsProvider: CredentialsProvider?, logger: Consumer<String>): Boolean {
+        val future = CompletableFuture<Boolean>()
+        val running = fetches.putIfAbsent(remote, future)
+        if (running != null) {
+            logger.accept(format("[git] Waiting for the running fetch of %s", remote))
+            return join(running)
+        }
+        try {
+            future.complete(doFetch(remote, credentialsProvider, logger))
+        } catch (any: Exception) {
+            future.completeExceptionally(any)
+        } finally {
+            fetches.remove(remote, future)
+        }
+        return join(future)
+    }
+
+    private fun join(future: CompletableFuture<Boolean>): Boolean =
+            try {
+                future.get()
+            } catch (e: ExecutionException) {
+                throw e.cause ?: e
+            }
+
+    private fun doFetch(remote: String, credentialsProvider: CredentialsProvider?, logger: Consumer<String>): Boolean {
+        fetchPermits.acquire()
+        try {
+            val prefix = getMirrorPrefix(remote)
+            // Cheap check of the remote references
+            val remoteRefs = Git.lsRemoteRepository()
+                    .setRemote(remote)
+                    .setHeads(true)
+                    .setTags(true)
+                    .setCredentialsProvider(credentialsProvider)
+                    .callAsMap()
+            val mirrorRefs = repository.refDatabase.getRefs(prefix)
+            val unchanged = remoteRefs.size == mirrorRefs.size && remoteRefs.all { (name, ref) ->
+                mirrorRefs[name.removePrefix("refs/")]?.objectId == ref.objectId
+            }
+            return if (unchanged) {
+                logger.accept(format("[git] No change in %s", remote))
+                false
+            } else {
+                logger.accept(format("[git] Fetching %s into the shared store", remote))
+                Git(repository).fetch()
+                        .setRemote(remote)
+                        .setRefSpecs(listOf(
+                                RefSpec("+refs/heads/*:${prefix}heads/*"),
+                                RefSpec("+refs/tags/*:${prefix}tags/*")
+                        ))
+                        .setTagOpt(TagOpt.NO_TAGS)
+                        .setRemoveDeletedRefs(true)
+                        .setCredentialsProvider(credentialsProvider)
+                        .call()
+                logger.accept(format("[git] Fetching done for %s", remote))
+                true
+            }
+        } catch (e: GitAPIException) {
+            throw GitRepositoryAPIException(remote, e)
+        } catch (e: IOException) {
+            throw GitRepositoryIOException(remote, e)
+        } finally {
+            fetchPermits.release()
+        }
+    }
+
+}
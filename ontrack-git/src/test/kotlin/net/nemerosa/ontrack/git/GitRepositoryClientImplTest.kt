@@ -1,12 +1,17 @@
 package net.nemerosa.ontrack.git
 
 import net.nemerosa.ontrack.common.Time
+import net.nemerosa.ontrack.git.support.GitReachabilityIndex
 import net.nemerosa.ontrack.git.support.GitRepo
+import org.eclipse.jgit.api.Git
+import org.eclipse.jgit.lib.ObjectId
 import org.junit.Test
+import java.io.File
 import java.util.function.Consumer
 import java.util.stream.Collectors
 import kotlin.test.assertEquals
 import kotlin.test.assertNotNull
+import kotlin.test.assertNull
 
 class GitRepositoryClientImplTest {
 
@@ -90,6 +95,60 @@ class GitRepositoryClientImplTest {
         }
     }
 
+    /**
+     * ```
+     *     * C6 (master)
+     *     * C5
+     *     | * C4 (2.1)
+     *     |/
+     *     * C3
+     *     * C2
+     *     * C1
+     * ```
+     */
+    @Test
+    fun `Iterating over new commits only`() {
+        GitRepo.prepare {
+            gitInit()
+            commit(1)
+            commit(2)
+            commit(3)
+        } and { client, repo ->
+            // First walk, all commits
+            val first = mutableListOf<String>()
+            val tips = client.forEachCommitSince(emptyList()) { commit ->
+                first.add(commit.fullMessage.trim())
+            }
+            assertEquals((1..3).map { "Commit $it" }.toSet(), first.toSet())
+            // New commits
+            repo.apply {
+                git("checkout", "-b", "2.1")
+                commit(4)
+                git("checkout", "master")
+                commit(5)
+                commit(6)
+            }
+            // Second walk, only the new commits
+            val second = mutableListOf<String>()
+            val newTips = client.forEachCommitSince(tips) { commit ->
+                second.add(commit.fullMessage.trim())
+            }
+            assertEquals((4..6).map { "Commit $it" }.toSet(), second.toSet())
+            // Nothing new
+            val third = mutableListOf<String>()
+            client.forEachCommitSince(newTips) { commit ->
+                third.add(commit.fullMessage.trim())
+            }
+            assertEquals(emptyList<String>(), third)
+            // Unknown tips are ignored
+            val all = mutableListOf<String>()
+            client.forEachCommitSince(listOf("0123456789012345678901234567890123456789")) { commit ->
+                all.add(commit.fullMessage.trim())
+            }
+            assertEquals(6, all.size)
+        }
+    }
+
     /**
      * ```
      *     *   C5 (master)
@@ -217,6 +276,140 @@ class GitRepositoryClientImplTest {
         }
     }
 
+    /**
+     * <pre>
+     *     * C5 (2.0)
+     *     | * C4 (master)
+     *     | | * C3 (2.1)
+     *     | |/
+     *     |/|
+     *     * | C2
+     *     |/
+     *     * C1
+     * </pre>
+     */
+    @Test
+    fun `List of branches for a commit using the index`() {
+        GitRepo.prepare {
+            gitInit()
+            commit(1)
+            git("checkout", "-b", "2.0")
+            commit(2)
+            git("checkout", "-b", "2.1")
+            commit(3)
+            git("checkout", "master")
+            commit(4)
+        } withClone { clone, cloneRepo, origin ->
+            // First sync (clone & full indexation)
+            clone.sync(Consumer { println(it) })
+            clone.getBranchesForCommit(cloneRepo.commitLookup("Commit 3")).apply {
+                assertEquals(listOf("2.1"), this)
+            }
+            clone.getBranchesForCommit(cloneRepo.commitLookup("Commit 2")).apply {
+                assertEquals(listOf("2.0", "2.1"), this)
+            }
+            clone.getBranchesForCommit(cloneRepo.commitLookup("Commit 1")).apply {
+                assertEquals(listOf("2.0", "2.1", "master"), this)
+            }
+            // Moves the 2.0 branch forward
+            origin.apply {
+                git("checkout", "2.0")
+                commit(5)
+            }
+            // Second sync (fetch & incremental indexation)
+            clone.sync(Consumer { println(it) })
+            clone.getBranchesForCommit(cloneRepo.commitLookup("Commit 5")).apply {
+                assertEquals(listOf("2.0"), this)
+            }
+            clone.getBranchesForCommit(cloneRepo.commitLookup("Commit 2")).apply {
+                assertEquals(listOf("2.0", "2.1"), this)
+            }
+            clone.getBranchesForCommit(cloneRepo.commitLookup("Commit 4")).apply {
+                assertEquals(listOf("master"), this)
+            }
+        }
+    }
+
+    /**
+     * Checks the content of the index itself, as saved by the synchronisation.
+     *
+     * <pre>
+     *     * C4 (master)
+     *     | * C3 (2.1, rewritten as C6 on top of C2)
+     *     | * C2 (2.0)
+     *     |/
+     *     * C1
+     * </pre>
+     */
+    @Test
+    fun `Branch index up to date after sync, including after a rewritten branch`() {
+        GitRepo.prepare {
+            gitInit()
+            commit(1)
+            git("checkout", "-b", "2.0")
+            commit(2)
+            git("checkout", "-b", "2.1")
+            commit(3)
+            git("checkout", "master")
+            commit(4)
+        } withClone { clone, cloneRepo, origin ->
+            val c1 = origin.commitLookup("Commit 1", false)
+            val c2 = origin.commitLookup("Commit 2", false)
+            val c3 = origin.commitLookup("Commit 3", false)
+            // First sync (clone & full indexation)
+            clone.sync(Consumer { println(it) })
+            index(cloneRepo).apply {
+                assertEquals(listOf("2.0", "2.1", "master"), getRefsForCommit(ObjectId.fromString(c1), tips(cloneRepo)))
+                assertEquals(listOf("2.0", "2.1"), getRefsForCommit(ObjectId.fromString(c2), tips(cloneRepo)))
+                assertEquals(listOf("2.1"), getRefsForCommit(ObjectId.fromString(c3), tips(cloneRepo)))
+            }
+            // Rewrites the 2.1 branch
+            val c6 = origin.run {
+                git("checkout", "2.1")
+                git("reset", "--hard", c2)
+                commit(6)
+            }
+            // Second sync (fetch & indexation of the rewritten branch)
+            clone.sync(Consumer { println(it) })
+            index(cloneRepo).apply {
+                assertEquals(listOf("2.1"), getRefsForCommit(ObjectId.fromString(c6), tips(cloneRepo)))
+                assertEquals(listOf("2.0", "2.1"), getRefsForCommit(ObjectId.fromString(c2), tips(cloneRepo)))
+                // C3 is still indexed, but not contained by any branch any longer
+                assertEquals(emptyList<String>(), getRefsForCommit(ObjectId.fromString(c3), tips(cloneRepo)))
+            }
+        }
+    }
+
+    /**
+     * Index as saved on disk by the synchronisation
+     */
+    private fun index(repo: GitRepo) = GitReachabilityIndex(File(repo.dir, ".git/ontrack-reachability.idx"))
+
+    /**
+     * Tag index as saved on disk by the synchronisation
+     */
+    private fun tagIndex(repo: GitRepo) = GitReachabilityIndex(File(repo.dir, ".git/ontrack-tag-reachability.idx"))
+
+    /**
+     * Commits of the tags of a clone
+     */
+    private fun tagTips(repo: GitRepo): Map<String, ObjectId> =
+            Git.open(repo.dir).use { git ->
+                git.repository.refDatabase.getRefs("refs/tags/")
+                        .mapValues { (_, ref) -> git.repository.peel(ref) }
+                        .mapValues { (_, ref) -> ref.peeledObjectId ?: ref.objectId }
+            }
+
+    /**
+     * Tips of the remote branches of a clone
+     */
+    private fun tips(repo: GitRepo): Map<String, ObjectId> =
+            Git.open(repo.dir).use { git ->
+                git.repository.refDatabase.getRefs("refs/remotes/origin/")
+                        .filter { (name, ref) -> name != "HEAD" && ref.objectId != null }
+                        .mapValues { (_, ref) -> ref.objectId }
+            }
+
     /**
      * <pre>
      *     *   C4 (master)
@@ -418,6 +611,83 @@ class GitRepositoryClientImplTest {
         }
     }
 
+    @Test
+    fun `Tag containing a commit after a new tag`() {
+        GitRepo.prepare {
+            gitInit()
+            commit(1)
+            commit(2)
+            tag("v2")
+        } withClone { clone, cloneRepo, origin ->
+            clone.sync(Consumer { println(it) })
+            assertEquals(listOf("v2"), clone.getTagsWhichContainCommit(cloneRepo.commitLookup("Commit 1")))
+            // New tag on the origin
+            origin.apply {
+                commit(3)
+                tag("v3")
+            }
+            // Tags are indexed again
+            clone.sync(Consumer { println(it) })
+            assertEquals(listOf("v2", "v3"), clone.getTagsWhichContainCommit(cloneRepo.commitLookup("Commit 1")))
+            assertEquals(listOf("v3"), clone.getTagsWhichContainCommit(cloneRepo.commitLookup("Commit 3")))
+        }
+    }
+
+    @Test
+    fun `No tag containing an untagged commit among several tags`() {
+        GitRepo.prepare {
+            gitInit()
+            commit(1)
+            tag("v1")
+            commit(2)
+            tag("v2")
+            git("checkout", "-b", "2.x")
+            commit(3)
+            tag("v3")
+            git("checkout", "master")
+            commit(4)
+        } withClone { clone, cloneRepo, origin ->
+            val c1 = origin.commitLookup("Commit 1", false)
+            val c2 = origin.commitLookup("Commit 2", false)
+            val c4 = origin.commitLookup("Commit 4", false)
+            clone.sync(Consumer { println(it) })
+            // Answered by the index, without walking the tags
+            assertEquals(emptyList<String>(), tagIndex(cloneRepo).getRefsForCommit(ObjectId.fromString(c4), tagTips(cloneRepo)))
+            assertEquals(emptyList(), clone.getTagsWhichContainCommit(c4))
+            assertEquals(listOf("v2", "v3"), clone.getTagsWhichContainCommit(c2))
+            // No index on the origin, walking the tags
+            origin.client.apply {
+                assertEquals(emptyList(), getTagsWhichContainCommit(c4))
+                assertEquals(listOf("v2", "v3"), getTagsWhichContainCommit(c2))
+                assertEquals(listOf("v1", "v2", "v3"), getTagsWhichContainCommit(c1))
+            }
+        }
+    }
+
+    @Test
+    fun `Downloading a file`() {
+        GitRepo.prepare {
+            gitInit()
+            file("folder/file", "Content 1")
+            git("commit", "-m", "Commit 1")
+        } withClone { clone, _, origin ->
+            clone.sync(Consumer { println(it) })
+            assertEquals("Content 1", clone.download("master", "folder/file"))
+            assertNull(clone.download("master", "folder/missing"))
+            assertNull(clone.download("master", "folder"))
+            // Changing the file
+            origin.apply {
+                file("folder/file", "Content 2")
+                git("commit", "-m", "Commit 2")
+            }
+            // Not synchronised yet
+            assertEquals("Content 1", clone.download("master", "folder/file"))
+            // Synchronised
+            clone.sync(Consumer { println(it) })
+            assertEquals("Content 2", clone.download("master", "folder/file"))
+        }
+    }
+
     @Test
     fun `Log between tags`() {
         GitRepo.prepare {
@@ -0,0 +1,169 @@
+package net.nemerosa.ontrack.git
+
+import net.nemerosa.ontrack.git.support.GitRepo
+import net.nemerosa.ontrack.git.support.GitRepositoryClientImpl
+import net.nemerosa.ontrack.git.support.GitSharedObjectStore
+import org.apache.commons.io.FileUtils
+import org.eclipse.jgit.lib.Repository
+import org.junit.Test
+import java.io.File
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Consumer
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+class GitSharedObjectStoreTest {
+
+    @Test
+    fun `Cloning and fetching through the shared store`() {
+        GitRepo.prepare {
+            gitInit()
+            commit(1)
+            commit(2)
+        } and { _, origin ->
+            val storeDir = createTempDir("ontrack-git-objects")
+            val wd = createTempDir("ontrack-git")
+            try {
+                val store = GitSharedObjectStore(storeDir, 2)
+                val remote = origin.dir.absolutePath
+                val client = GitRepositoryClientImpl(
+                        wd,
+                        GitRepository("file", "test", remote, "", ""),
+                        store
+                )
+                // Clone
+                client.sync(Consumer { println(it) })
+                assertTrue(
+                        store.objectsDir.absolutePath in File(wd, ".git/objects/info/alternates").readLines(),
+                        "Shared objects are used as alternates"
+                )
+                assertEquals(setOf("Commit 1", "Commit 2"), messages(client))
+                // No change on the remote
+                assertFalse(store.fetch(remote, null, Consumer { println(it) }), "No fetch when nothing has changed")
+                // New commit
+                origin.commit(3)
+                client.sync(Consumer { println(it) })
+                assertEquals(setOf("Commit 1", "Commit 2", "Commit 3"), messages(client))
+                assertFalse(store.fetch(remote, null, Consumer { println(it) }), "No fetch when nothing has changed")
+            } finally {
+                FileUtils.deleteDirectory(wd)
+                FileUtils.deleteDirectory(storeDir)
+            }
+        }
+    }
+
+    @Test
+    fun `Distinct and valid namespaces for the remotes`() {
+        val store = GitSharedObjectStore(File("unused"), 1)
+        val remotes = listOf(
+                "https://github.com/nemerosa/a_b.git",
+                "https://github.com/nemerosa/a/b.git",
+                "ssh://git@host:7999/~user/repo name?x=*^"
+        )
+        val prefixes = remotes.map { store.getMirrorPrefix(it) }
+        assertEquals(remotes.size, prefixes.toSet().size, "One namespace per remote")
+        prefixes.forEach { prefix ->
+            assertTrue(Repository.isValidRefName("${prefix}heads/master"), "Valid reference name for $prefix")
+        }
+        assertEquals(prefixes[0], store.getMirrorPrefix(remotes[0]), "Stable namespace")
+    }
+
+    @Test
+    fun `Concurrent fetches of the same remote are coalesced`() {
+        GitRepo.prepare {
+            gitInit()
+            commit(1)
+        } and { _, origin ->
+            val storeDir = createTempDir("ontrack-git-objects")
+            val executor = Executors.newFixedThreadPool(2)
+            try {
+                val store = GitSharedObjectStore(storeDir, 2)
+                val remote = origin.dir.absolutePath
+                val waiting = CountDownLatch(1)
+                val fetches = AtomicInteger()
+                // The fetching thread is blocked until the other one waits for it
+                val logger = Consumer<String> { message ->
+                    println(message)
+                    if (message.startsWith("[git] Fetching $remote")) {
+                        fetches.incrementAndGet()
+                        waiting.await(10, TimeUnit.SECONDS)
+                    } else if (message.startsWith("[git] Waiting for the running fetch")) {
+                        waiting.countDown()
+                    }
+                }
+                val first = executor.submit<Boolean> { store.fetch(remote, null, logger) }
+                val second = executor.submit<Boolean> { store.fetch(remote, null, logger) }
+                assertTrue(first.get(10, TimeUnit.SECONDS))
+                assertTrue(second.get(10, TimeUnit.SECONDS))
+                assertEquals(0, waiting.count, "One fetch waiting for the other one")
+                assertEquals(1, fetches.get(), "Remote fetched only once")
+            } finally {
+                executor.shutdownNow()
+                FileUtils.deleteDirectory(storeDir)
+            }
+        }
+    }
+
+    @Test
+    fun `Number of concurrent fetches is bounded`() {
+        GitRepo.prepare {
+            gitInit()
+            commit(1)
+        } and { _, first ->
+            GitRepo.prepare {
+                gitInit()
+                commit(2)
+            } and { _, second ->
+                val storeDir = createTempDir("ontrack-git-objects")
+                val executor = Executors.newFixedThreadPool(2)
+                try {
+                    // Only one fetch at a time
+                    val store = GitSharedObjectStore(storeDir, 1)
+                    val firstFetching = CountDownLatch(1)
+                    val firstReleased = CountDownLatch(1)
+                    val secondFetching = CountDownLatch(1)
+                    val firstFetch = executor.submit<Boolean> {
+                        store.fetch(first.dir.absolutePath, null, Consumer { message ->
+                            println(message)
+                            if (message.startsWith("[git] Fetching ${first.dir.absolutePath}")) {
+                                firstFetching.countDown()
+                                firstReleased.await(10, TimeUnit.SECONDS)
+                            }
+                        })
+                    }
+                    assertTrue(firstFetching.await(10, TimeUnit.SECONDS))
+                    val secondFetch = executor.submit<Boolean> {
+                        store.fetch(second.dir.absolutePath, null, Consumer { message ->
+                            println(message)
+                            if (message.startsWith("[git] Fetching ${second.dir.absolutePath}")) {
+                                secondFetching.countDown()
+                            }
+                        })
+                    }
+                    // The second remote waits for the first fetch to complete
+                    assertFalse(secondFetching.await(1, TimeUnit.SECONDS), "Second fetch waiting for a permit")
+                    firstReleased.countDown()
+                    assertTrue(firstFetch.get(10, TimeUnit.SECONDS))
+                    assertTrue(secondFetch.get(10, TimeUnit.SECONDS))
+                    assertEquals(0, secondFetching.count, "Second remote fetched once the permit is released")
+                } finally {
+                    executor.shutdownNow()
+                    FileUtils.deleteDirectory(storeDir)
+                }
+            }
+        }
+    }
+
+    private fun messages(client: GitRepositoryClient): Set<String> {
+        val messages = mutableSetOf<String>()
+        client.forEachCommit { commit ->
+            messages.add(commit.fullMessage.trim())
+        }
+        return messages
+    }
+
+}
@@ -16,6 +16,7 @@ import org.springframework.context.annotation.*;
 import org.springframework.core.convert.converter.ConverterRegistry;
 import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.AbstractTransactionalJUnit4SpringContextTests;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.transaction.annotation.Transactional;
@@ -31,6 +32,10 @@ import static net.nemerosa.ontrack.test.TestUtils.uid;
         },
         webEnvironment = SpringBootTest.WebEnvironment.NONE
 )
+@TestPropertySource(properties = {
+        // Test transactions are never committed, so events must be dispatched inline
+        "ontrack.config.events.async=false"
+})
 public abstract class AbstractITTestSupport extends AbstractTransactionalJUnit4SpringContextTests {
 
     @Configuration
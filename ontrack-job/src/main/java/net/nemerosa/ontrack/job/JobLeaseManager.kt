@@ -0,0 +1,30 @@
+package net.nemerosa.ontrack.job
+
+/**
+ * Makes sure that a given job runs on only one node when several
+ * schedulers share the same jobs.
+ */
+interface JobLeaseManager {
+
+    /**
+     * Is the scheduler running in a cluster? If so, the state of the jobs
+     * (like their pause status) must be read from the shared storage.
+     */
+    val isClustered: Boolean
+
+    /**
+     * Acquires, or renews, the lease on a job for the current node.
+     *
+     * @param key Key of the job
+     * @return `true` if the current node owns the job and can run it
+     */
+    fun acquire(key: JobKey): Boolean
+
+    /**
+     * Releases the lease on a job, if owned by the current node.
+     *
+     * @param key Key of the job
+     */
+    fun release(key: JobKey)
+
+}
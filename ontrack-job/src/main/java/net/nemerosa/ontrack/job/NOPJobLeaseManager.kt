@@ -0,0 +1,16 @@
+package net.nemerosa.ontrack.job
+
+/**
+ * Lease manager for a scheduler running alone: all the jobs are
+ * always owned by the current node.
+ */
+object NOPJobLeaseManager : JobLeaseManager {
+
+    override val isClustered: Boolean = false
+
+    override fun acquire(key: JobKey): Boolean = true
+
+    override fun release(key: JobKey) {
+    }
+
+}
@@ -10,6 +10,7 @@ import java.time.temporal.ChronoUnit
 import java.util.*
 import java.util.concurrent.*
 import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
 import java.util.concurrent.atomic.AtomicLong
 import java.util.concurrent.atomic.AtomicReference
 import java.util.function.BiFunction
@@ -17,6 +18,7 @@ import kotlin.math.abs
 
 /**
  * @property meterRegistry If set, the scheduler will register job metrics
+ * @property jobLeaseManager Used to make sure a job runs on only one node when several schedulers share the same jobs
  */
 class DefaultJobScheduler
 @JvmOverloads
@@ -28,7 +30,8 @@ constructor(
         private val jobPoolProvider: BiFunction<ExecutorService, Job, ExecutorService>,
         private val scattering: Boolean,
         private val scatteringRatio: Double,
-        private val meterRegistry: MeterRegistry? = null
+        private val meterRegistry: MeterRegistry? = null,
+        private val jobLeaseManager: JobLeaseManager = NOPJobLeaseManager
 ) : JobScheduler {
 
     private val logger = LoggerFactory.getLogger(JobScheduler::class.java)
@@ -46,7 +49,8 @@ constructor(
             initiallyPaused: Boolean,
             scattering: Boolean,
             scatteringRatio: Double,
-            meterRegistry: MeterRegistry? = null
+            meterRegistry: MeterRegistry? = null,
+            jobLeaseManager: JobLeaseManager = NOPJobLeaseManager
     ) : this(
             jobDecorator,
             schedulerPool,
@@ -55,7 +59,8 @@ constructor(
             BiFunction { executorService, _ -> executorService },
             scattering,
             scatteringRatio,
-            meterRegistry
+            meterRegistry,
+            jobLeaseManager
     )
 
     private fun MeterRegistry.statusGauge(
@@ -134,6 +139,7 @@ constructor(
         return if (existingService != null) {
             logger.debug("[scheduler][job]{} Stopping running job", key)
             existingService.cancel(forceStop)
+            existingService.release()
             true
         } else {
             false
@@ -251,6 +257,9 @@ constructor(
         private val lastErrorCount = AtomicLong()
         private val lastError = AtomicReference<String>(null)
 
+        private val unscheduled = AtomicBoolean(false)
+        private val runningTasks = AtomicInteger()
+
         init {
             // Paused at startup
             if (pausedAtStartup) {
@@ -399,6 +408,10 @@ constructor(
 
         override fun run() {
             if (!schedulerPaused.get()) {
+                if (jobLeaseManager.isClustered) {
+                    // The pause status may have been changed by another node
+                    paused.set(jobListener.isPausedAtStartup(job.key))
+                }
                 doRun(false)
             }
         }
@@ -415,14 +428,35 @@ constructor(
                 } else if (currentExecution.get() != null) {
                     logger.debug("[job][run]{} Not allowed to run now because already running", job.key)
                     return Optional.empty()
+                } else if (!force && !jobLeaseManager.acquire(job.key)) {
+                    logger.debug("[job][run]{} Not allowed to run now because owned by another node", job.key)
+                    return Optional.empty()
                 } else {
                     // Task to run
                     val taskRun = run
                     // Gets the executor for this job
                     val executor = getExecutorService(job)
+                    // Time spent waiting for a thread
+                    val submitted = System.nanoTime()
+                    val queuedTask = Runnable {
+                        meterRegistry?.timer("ontrack_job_queue_wait_ms", "job-category", job.key.type.category.key)
+                                ?.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS)
+                        runningTasks.incrementAndGet()
+                        try {
+                            // Not running a job which has been unscheduled while waiting for a thread
+                            if (!unscheduled.get()) {
+                                taskRun.run()
+                            }
+                        } finally {
+                            // Lease kept by an unscheduled job until its last run is over
+                            if (runningTasks.decrementAndGet() == 0 && unscheduled.get()) {
+                                jobLeaseManager.release(job.key)
+                            }
+                        }
+                    }
                     // Scheduling
                     logger.debug("[job][run]{} Job task submitted asynchronously", job.key)
-                    val execution = CompletableFuture.runAsync(taskRun, executor)
+                    val execution = CompletableFuture.runAsync(queuedTask, executor)
                     currentExecution.set(execution)
                     return Optional.of(execution)
                 }
@@ -441,6 +475,18 @@ constructor(
             } == null
         }
 
+        /**
+         * Releases the lease on the job once it has been unscheduled. If the job is still running
+         * (even after having been stopped), the lease is kept until the run is over, so that
+         * no other node can start the job in the meantime.
+         */
+        fun release() {
+            unscheduled.set(true)
+            if (runningTasks.get() == 0) {
+                jobLeaseManager.release(job.key)
+            }
+        }
+
         fun cancel(forceStop: Boolean): Boolean {
             logger.debug("[job]{} Cancelling job (forcing = {})", job.key, forceStop)
             if (forceStop) {
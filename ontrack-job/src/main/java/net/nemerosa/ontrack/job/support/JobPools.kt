@@ -0,0 +1,103 @@
+package net.nemerosa.ontrack.job.support
+
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.Tag
+import net.nemerosa.ontrack.job.Job
+import org.apache.commons.lang3.concurrent.BasicThreadFactory
+import org.slf4j.LoggerFactory
+import java.util.concurrent.*
+import java.util.function.BiFunction
+
+/**
+ * Definition of a pool of threads dedicated to some jobs.
+ *
+ * @property key Key of the job category (like `git`) or of the job type, prefixed by its category
+ * (like `git.git-build-sync`) to run in this pool
+ * @property concurrency Maximum number of jobs of this pool running at the same time
+ * @property virtual Using virtual threads (only available when running on Java 21+, platform
+ * threads being used otherwise)
+ */
+class JobPoolDefinition(
+        val key: String,
+        val concurrency: Int,
+        val virtual: Boolean = false
+)
+
+/**
+ * Provides a dedicated executor for the jobs whose type or category has been assigned a pool,
+ * so that a burst of long jobs in one category does not prevent the other jobs from running.
+ *
+ * The jobs of a given pool are queued and run in submission order, with at most
+ * [JobPoolDefinition.concurrency] jobs running at the same time. The jobs which are not
+ * assigned to any pool are run by the default executor.
+ */
+class JobPools(
+        definitions: List<JobPoolDefinition>,
+        meterRegistry: MeterRegistry? = null
+) : BiFunction<ExecutorService, Job, ExecutorService>, AutoCloseable {
+
+    private val logger = LoggerFactory.getLogger(JobPools::class.java)
+
+    private val pools: Map<String, ThreadPoolExecutor> = definitions.associate { definition ->
+        logger.info("[job][pool] Pool {} with concurrency = {}, virtual = {}", definition.key, definition.concurrency, definition.virtual)
+        val executor = ThreadPoolExecutor(
+                definition.concurrency,
+                definition.concurrency,
+                0L,
+                TimeUnit.MILLISECONDS,
+                LinkedBlockingQueue(),
+                threadFactory(definition)
+        )
+        meterRegistry?.gauge(
+                "ontrack_job_pool_queued",
+                listOf(Tag.of("job-pool", definition.key)),
+                executor
+        ) { it.queue.size.toDouble() }
+        definition.key to executor
+    }
+
+    /**
+     * Gets the executor for a job, the pool of its type taking precedence over the pool of its category.
+     */
+    override fun apply(defaultExecutor: ExecutorService, job: Job): ExecutorService {
+        val type = job.key.type
+        return pools["${type.category.key}.${type.key}"]
+                ?: pools[type.category.key]
+                ?: defaultExecutor
+    }
+
+    override fun close() {
+        pools.values.forEach { it.shutdownNow() }
+    }
+
+    private fun threadFactory(definition: JobPoolDefinition): ThreadFactory {
+        val prefix = "job-${definition.key}-"
+        if (definition.virtual) {
+            val factory = virtualThreadFactory(prefix)
+            if (factory != null) {
+                return factory
+            } else {
+                logger.warn("[job][pool] Virtual threads are not available, platform threads are used for pool {}", definition.key)
+            }
+        }
+        return BasicThreadFactory.Builder()
+                .daemon(true)
+                .namingPattern("$prefix%s")
+                .build()
+    }
+
+    /**
+     * Gets a factory of virtual threads if the JVM supports them. Accessed by reflection
+     * since the code is compiled for older versions of Java.
+     */
+    private fun virtualThreadFactory(prefix: String): ThreadFactory? =
+            try {
+                val builderClass = Class.forName("java.lang.Thread\$Builder")
+                var builder = Thread::class.java.getMethod("ofVirtual").invoke(null)
+                builder = builderClass.getMethod("name", String::class.java, Long::class.javaPrimitiveType).invoke(builder, prefix, 1L)
+                builderClass.getMethod("factory").invoke(builder) as ThreadFactory
+            } catch (_: ReflectiveOperationException) {
+                null
+            }
+
+}
@@ -41,7 +41,10 @@ abstract class AbstractJobTest {
         JobSchedulerContext(jobScheduler).code()
     }
 
-    private fun createJobScheduler(initiallyPaused: Boolean): JobScheduler {
+    protected fun createJobScheduler(
+            initiallyPaused: Boolean = false,
+            jobLeaseManager: JobLeaseManager = NOPJobLeaseManager
+    ): JobScheduler {
         return DefaultJobScheduler(
                 NOPJobDecorator.INSTANCE,
                 schedulerPool,
@@ -49,7 +52,9 @@ abstract class AbstractJobTest {
                 initiallyPaused,
                 BiFunction { _, _ -> jobPool },
                 false,
-                1.0
+                1.0,
+                null,
+                jobLeaseManager
         )
     }
 
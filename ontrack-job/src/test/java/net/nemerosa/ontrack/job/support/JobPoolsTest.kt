@@ -0,0 +1,69 @@
+package net.nemerosa.ontrack.job.support
+
+import net.nemerosa.ontrack.job.JobCategory
+import org.junit.After
+import org.junit.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.assertEquals
+import kotlin.test.assertNotSame
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
+
+class JobPoolsTest {
+
+    private val defaultExecutor = Executors.newSingleThreadExecutor()
+
+    private val slow = JobCategory.of("slow")
+    private val other = JobCategory.of("other")
+
+    private val pools = JobPools(
+            listOf(
+                    JobPoolDefinition("slow", 2),
+                    JobPoolDefinition("slow.fetch", 1, virtual = true)
+            )
+    )
+
+    @After
+    fun cleanup() {
+        pools.close()
+        defaultExecutor.shutdownNow()
+    }
+
+    @Test
+    fun `Jobs without pool use the default executor`() {
+        assertSame(defaultExecutor, pools.apply(defaultExecutor, ConfigurableJob(category = other)))
+    }
+
+    @Test
+    fun `Pool of the type takes precedence over the pool of the category`() {
+        val categoryPool = pools.apply(defaultExecutor, ConfigurableJob(category = slow, type = "sync"))
+        val typePool = pools.apply(defaultExecutor, ConfigurableJob(category = slow, type = "fetch"))
+        assertNotSame(defaultExecutor, categoryPool)
+        assertNotSame(defaultExecutor, typePool)
+        assertNotSame(categoryPool, typePool)
+        assertSame(categoryPool, pools.apply(defaultExecutor, ConfigurableJob(name = "other", category = slow, type = "sync")))
+    }
+
+    @Test
+    fun `Concurrency of a pool is limited`() {
+        val executor = pools.apply(defaultExecutor, ConfigurableJob(category = slow, type = "sync"))
+        val count = 6
+        val running = AtomicInteger()
+        val maxRunning = AtomicInteger()
+        val done = CountDownLatch(count)
+        repeat(count) {
+            executor.execute {
+                maxRunning.accumulateAndGet(running.incrementAndGet()) { a, b -> maxOf(a, b) }
+                Thread.sleep(50)
+                running.decrementAndGet()
+                done.countDown()
+            }
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS), "All jobs have run")
+        assertEquals(2, maxRunning.get())
+    }
+
+}
@@ -543,5 +543,60 @@ class JobSchedulingTest : AbstractJobTest() {
         }
     }
 
+    @Test
+    fun `Job leased by only one node at a time`() {
+        val leases = mutableMapOf<JobKey, String>()
+        val schedulerA = createJobScheduler(jobLeaseManager = TestJobLeaseManager("A", leases))
+        val schedulerB = createJobScheduler(jobLeaseManager = TestJobLeaseManager("B", leases))
+        // Same job on both nodes
+        val job = ConfigurableJob()
+        schedulerA.schedule(job, Schedule.EVERY_SECOND)
+        schedulerB.schedule(job, Schedule.EVERY_SECOND)
+        // The job runs only once per period
+        tick_seconds(3)
+        assertEquals(4, job.count)
+        assertEquals("A", leases[job.key])
+        // Node A stops, node B takes over
+        schedulerA.unschedule(job.key)
+        tick_seconds(2)
+        assertEquals(6, job.count)
+        assertEquals("B", leases[job.key])
+    }
+
+    @Test
+    fun `Lease kept until the end of the run when unscheduling a running job`() {
+        val leases = mutableMapOf<JobKey, String>()
+        val scheduler = createJobScheduler(jobLeaseManager = TestJobLeaseManager("A", leases))
+        val key = Fixtures.TEST_CATEGORY.getType("test").getKey("running")
+        var leaseDuringRun: String? = null
+        val job = object : Job {
+            override fun getKey(): JobKey = key
+            override fun getDescription(): String = "Unscheduled while running"
+            override fun isDisabled(): Boolean = false
+            override fun getTask() = JobRun {
+                // Unscheduled while running
+                scheduler.unschedule(key)
+                leaseDuringRun = leases[key]
+            }
+        }
+        scheduler.schedule(job, Schedule.EVERY_SECOND)
+        tick_seconds(1)
+        assertEquals("A", leaseDuringRun, "Lease kept while running")
+        assertNull(leases[key], "Lease released after the run")
+    }
+
+    private class TestJobLeaseManager(
+            private val node: String,
+            private val leases: MutableMap<JobKey, String>
+    ) : JobLeaseManager {
+
+        override val isClustered: Boolean = false
+
+        override fun acquire(key: JobKey): Boolean = leases.getOrPut(key) { node } == node
+
+        override fun release(key: JobKey) {
+            leases.remove(key, node)
+        }
+    }
 
-}
\ No newline at end of file
+}
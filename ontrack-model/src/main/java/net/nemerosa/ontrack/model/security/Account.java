@@ -1,9 +1,6 @@
 package net.nemerosa.ontrack.model.security;
 
-import lombok.AccessLevel;
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.Getter;
+import lombok.*;
 import net.nemerosa.ontrack.model.structure.Entity;
 import net.nemerosa.ontrack.model.structure.ID;
 import org.apache.commons.lang3.StringUtils;
@@ -15,7 +12,6 @@ import java.util.List;
 import java.util.Optional;
 
 @Data
-@AllArgsConstructor(access = AccessLevel.PROTECTED)
 public class Account implements Entity, Serializable {
 
     public static Account of(String name, String fullName, String email, SecurityRole role, AuthenticationSource authenticationSource) {
@@ -43,17 +39,64 @@ public class Account implements Entity, Serializable {
     private Authorisations authorisations;
     @Getter(AccessLevel.PRIVATE)
     private final boolean locked;
+    /**
+     * Functions granted to this account, computed once locked
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient volatile GrantedFunctions grantedFunctions;
+
+    protected Account(ID id, String name, String fullName, String email, AuthenticationSource authenticationSource, SecurityRole role, List<AccountGroup> accountGroups, Authorisations authorisations, boolean locked) {
+        this.id = id;
+        this.name = name;
+        this.fullName = fullName;
+        this.email = email;
+        this.authenticationSource = authenticationSource;
+        this.role = role;
+        this.accountGroups = accountGroups;
+        this.authorisations = authorisations;
+        this.locked = locked;
+    }
 
     public boolean isGranted(Class<? extends GlobalFunction> fn) {
-        return (SecurityRole.ADMINISTRATOR == role)
-                || accountGroups.stream().anyMatch(group -> group.isGranted(fn))
-                || authorisations.isGranted(fn);
+        if (SecurityRole.ADMINISTRATOR == role) {
+            return true;
+        } else if (locked) {
+            return getGrantedFunctions().isGranted(fn);
+        } else {
+            return accountGroups.stream().anyMatch(group -> group.isGranted(fn))
+                    || authorisations.isGranted(fn);
+        }
     }
 
     public boolean isGranted(int projectId, Class<? extends ProjectFunction> fn) {
-        return SecurityRole.ADMINISTRATOR == role
-                || accountGroups.stream().anyMatch(group -> group.isGranted(projectId, fn))
-                || authorisations.isGranted(projectId, fn);
+        if (SecurityRole.ADMINISTRATOR == role) {
+            return true;
+        } else if (locked) {
+            return getGrantedFunctions().isGranted(projectId, fn);
+        } else {
+            return accountGroups.stream().anyMatch(group -> group.isGranted(projectId, fn))
+                    || authorisations.isGranted(projectId, fn);
+        }
+    }
+
+    /**
+     * Once locked, the authorisations of the account cannot change any longer and the
+     * granted functions can be computed once for all.
+     */
+    private GrantedFunctions getGrantedFunctions() {
+        GrantedFunctions granted = grantedFunctions;
+        if (granted == null) {
+            granted = new GrantedFunctions();
+            authorisations.collect(granted);
+            for (AccountGroup accountGroup : accountGroups) {
+                accountGroup.collect(granted);
+            }
+            grantedFunctions = granted;
+        }
+        return granted;
     }
 
     public Account withId(ID id) {
@@ -35,6 +35,13 @@ public class AccountGroup implements Entity, Serializable {
         return authorisations.isGranted(projectId, fn);
     }
 
+    /**
+     * Adds the granted functions to the bit sets of an account
+     */
+    void collect(GrantedFunctions granted) {
+        authorisations.collect(granted);
+    }
+
     private void checkLock() {
         if (locked) {
             throw new IllegalStateException("Account is locked");
@@ -33,6 +33,17 @@ public class Authorisations implements Serializable {
                 || projectRoleAssociations.stream().anyMatch(pa -> pa.getProjectId() == projectId && pa.isGranted(fn));
     }
 
+    /**
+     * Adds the granted functions to the bit sets of an account
+     */
+    void collect(GrantedFunctions granted) {
+        if (globalRole != null) {
+            granted.addGlobalFunctions(globalRole.getGlobalFunctions());
+            granted.addAllProjectsFunctions(globalRole.getProjectFunctions());
+        }
+        projectRoleAssociations.forEach(pa -> granted.addProjectFunctions(pa.getProjectId(), pa.getProjectRole().getFunctions()));
+    }
+
     public Authorisations withGlobalRole(Optional<GlobalRole> globalRole) {
         this.globalRole = globalRole.orElse(null);
         return this;
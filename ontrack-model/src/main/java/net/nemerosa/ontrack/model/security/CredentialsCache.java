@@ -0,0 +1,38 @@
+package net.nemerosa.ontrack.model.security;
+
+import org.springframework.security.core.Authentication;
+
+import java.util.function.Function;
+
+/**
+ * Short-lived cache of the verified credentials, so that clients authenticating on each call
+ * (like with HTTP basic authentication) do not pay for the password check or the remote
+ * authentication every time.
+ */
+public interface CredentialsCache {
+
+    /**
+     * Authenticates a request, using the result of a previous authentication if the same
+     * credentials have been verified recently.
+     *
+     * @param source         Identifier of the authentication provider
+     * @param authentication Authentication request
+     * @param authenticator  Actual authentication, used when the credentials are not cached
+     * @return Authentication result
+     */
+    Authentication authenticate(String source, Authentication authentication, Function<Authentication, Authentication> authenticator);
+
+    /**
+     * Forgets the credentials of a user
+     *
+     * @param source   Identifier of the authentication provider
+     * @param username User name
+     */
+    void evict(String source, String username);
+
+    /**
+     * Forgets all the credentials
+     */
+    void clear();
+
+}
@@ -0,0 +1,70 @@
+package net.nemerosa.ontrack.model.security;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Functions granted to a locked account, as bit sets indexed by function, globally and per project.
+ *
+ * A project function being granted when any of its subtypes is granted, the bits of all the supertypes
+ * of a granted project function are set.
+ */
+class GrantedFunctions {
+
+    private static final Map<Class<?>, Integer> INDEXES = new ConcurrentHashMap<>();
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
+    private final BitSet globalFunctions = new BitSet();
+    private final BitSet allProjectsFunctions = new BitSet();
+    private final Map<Integer, BitSet> projectFunctions = new HashMap<>();
+
+    void addGlobalFunctions(Collection<Class<? extends GlobalFunction>> functions) {
+        functions.forEach(fn -> globalFunctions.set(index(fn)));
+    }
+
+    void addAllProjectsFunctions(Collection<Class<? extends ProjectFunction>> functions) {
+        functions.forEach(fn -> setWithSupertypes(allProjectsFunctions, fn));
+    }
+
+    void addProjectFunctions(int projectId, Collection<Class<? extends ProjectFunction>> functions) {
+        BitSet bits = projectFunctions.computeIfAbsent(projectId, ignored -> new BitSet());
+        functions.forEach(fn -> setWithSupertypes(bits, fn));
+    }
+
+    boolean isGranted(Class<? extends GlobalFunction> fn) {
+        Integer index = INDEXES.get(fn);
+        return index != null && globalFunctions.get(index);
+    }
+
+    boolean isGranted(int projectId, Class<? extends ProjectFunction> fn) {
+        // Functions never indexed cannot have been granted
+        Integer index = INDEXES.get(fn);
+        if (index == null) {
+            return false;
+        } else if (allProjectsFunctions.get(index)) {
+            return true;
+        } else {
+            BitSet bits = projectFunctions.get(projectId);
+            return bits != null && bits.get(index);
+        }
+    }
+
+    private static void setWithSupertypes(BitSet bits, Class<?> type) {
+        if (type != null && ProjectFunction.class.isAssignableFrom(type)) {
+            bits.set(index(type));
+            setWithSupertypes(bits, type.getSuperclass());
+            for (Class<?> supertype : type.getInterfaces()) {
+                setWithSupertypes(bits, supertype);
+            }
+        }
+    }
+
+    private static int index(Class<?> fn) {
+        return INDEXES.computeIfAbsent(fn, ignored -> COUNT.getAndIncrement());
+    }
+
+}
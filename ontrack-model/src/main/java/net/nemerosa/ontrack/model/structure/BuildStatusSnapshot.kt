@@ -0,0 +1,28 @@
+package net.nemerosa.ontrack.model.structure
+
+/**
+ * Status of the validations and promotions of a build at a given time.
+ *
+ * @property build Build this snapshot is about
+ * @property validations Status of the last validation run, indexed by validation stamp ID
+ * @property promotions IDs of the promotion levels granted to the build
+ */
+class BuildStatusSnapshot(
+        val build: Build,
+        val validations: Map<Int, ValidationRunStatusID>,
+        val promotions: Set<Int>
+) {
+
+    /**
+     * Checks if the last run of the given validation stamp is passed.
+     */
+    fun isPassed(validationStamp: ValidationStamp): Boolean =
+            validations[validationStamp.id()]?.id == ValidationRunStatusID.PASSED
+
+    /**
+     * Checks if the given promotion level is granted.
+     */
+    fun isPromoted(promotionLevel: PromotionLevel): Boolean =
+            promotionLevel.id() in promotions
+
+}
@@ -1,6 +1,7 @@
 package net.nemerosa.ontrack.model.structure;
 
 import java.util.List;
+import java.util.Map;
 
 public interface DecorationService {
 
@@ -12,4 +13,12 @@ public interface DecorationService {
      */
     List<Decoration<?>> getDecorations(ProjectEntity entity);
 
+    /**
+     * Gets the decorations for several entities at once.
+     *
+     * @param entities Entities to decorate
+     * @return List of decorations, indexed by entity
+     */
+    Map<ProjectEntity, List<Decoration<?>>> getDecorations(List<? extends ProjectEntity> entities);
+
 }
@@ -38,6 +38,15 @@ interface PropertyService {
      */
     fun getProperties(entity: ProjectEntity): List<Property<*>>
 
+    /**
+     * List of property values for several entities and for the current user, using one
+     * load per property type instead of one per entity and property type.
+     *
+     * @param entities Entities to get the properties for
+     * @return List of properties for each entity
+     */
+    fun getPropertiesForEntities(entities: List<ProjectEntity>): Map<ProjectEntity, List<Property<*>>>
+
     /**
      * Gets the edition form for a given property for an entity. The content of the form may be filled or not,
      * according to the fact if the property is actually set for this entity or not. If the property is not
@@ -62,6 +71,15 @@ interface PropertyService {
      */
     fun <T> getProperty(entity: ProjectEntity, propertyTypeName: String): Property<T>
 
+    /**
+     * Same than [getProperty] but for several entities at once.
+     *
+     * @param entities         Entities to get the property for
+     * @param propertyTypeName Fully qualified name of the property to get the property for
+     * @return Property for each entity
+     */
+    fun <T> getPropertyForEntities(entities: List<ProjectEntity>, propertyTypeName: String): Map<ProjectEntity, Property<T>>
+
     /**
      * Same than [.getProperty] but using the class of
      * the property type.
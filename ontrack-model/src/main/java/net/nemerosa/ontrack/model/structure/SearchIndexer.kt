@@ -58,6 +58,22 @@ interface SearchIndexer<T : SearchItem> {
      */
     fun indexAll(processor: (T) -> Unit)
 
+    /**
+     * Called once all the items given to the processor of [indexAll] have been successfully
+     * indexed. Indexers keeping track of what they have already indexed must record it here.
+     *
+     * By default, does nothing.
+     */
+    fun indexDone() {}
+
+    /**
+     * Called when the index has been emptied, before any re-indexation. Indexers
+     * keeping track of what they have already indexed must forget it.
+     *
+     * By default, does nothing.
+     */
+    fun indexReset() {}
+
     /**
      * Search result type
      */
@@ -15,4 +15,23 @@ interface SearchItem {
      */
     val fields: Map<String, Any?>
 
-}
\ No newline at end of file
+    /**
+     * ID of the project this item belongs to, used to restrict the search results to
+     * the projects the current user can see.
+     *
+     * Items without any project are visible by everybody.
+     */
+    val projectId: Int? get() = null
+
+}
+
+/**
+ * Name of the field storing the [project ID][SearchItem.projectId] of the items in the search indexes.
+ */
+const val SEARCH_PROJECT_ID_FIELD = "ownerProjectId"
+
+/**
+ * Fields of an item as stored in the search indexes, including the ID of its project.
+ */
+val SearchItem.indexedFields: Map<String, Any?>
+    get() = projectId?.let { fields + (SEARCH_PROJECT_ID_FIELD to it) } ?: fields
\ No newline at end of file
@@ -14,6 +14,13 @@ interface StructureService {
 
     val projectList: List<Project>
 
+    /**
+     * IDs of the projects the current user can see.
+     *
+     * @return `null` if all the projects can be seen
+     */
+    val viewableProjectIds: Set<Int>?
+
     // Projects
 
     fun newProject(project: Project): Project
@@ -52,6 +59,16 @@ interface StructureService {
 
     fun getBranchStatusViews(projectId: ID): List<BranchStatusView>
 
+    /**
+     * Gets the status of all the branches of a project, loading their last build and
+     * last promotions at once.
+     *
+     * @param projectId ID of the project
+     * @param withDecorations `false` if the decorations of the branches are not needed
+     * @return Status of each branch
+     */
+    fun getBranchStatusViews(projectId: ID, withDecorations: Boolean): List<BranchStatusView>
+
     fun getBranchStatusView(branch: Branch): BranchStatusView
 
     fun saveBranch(branch: Branch)
@@ -94,6 +111,11 @@ interface StructureService {
      */
     fun getBuildView(build: Build, withDecorations: Boolean): BuildView
 
+    /**
+     * Gets the aggregated views of several builds, computing their decorations at once.
+     */
+    fun getBuildViews(builds: List<Build>, withDecorations: Boolean): List<BuildView>
+
     fun getLastBuildForBranch(branch: Branch): Build?
 
     /**
@@ -131,6 +153,15 @@ interface StructureService {
      */
     fun getBuildsUsedBy(build: Build, offset: Int, size: Int, filter: (Build) -> Boolean = { true }): PaginatedList<Build>
 
+    /**
+     * Gets the builds used by each of the given builds, in one call. Only the builds which
+     * are visible by the current user are returned.
+     *
+     * @param builds Source builds
+     * @return Builds used by each source build, indexed by the ID of the source build
+     */
+    fun getBuildsUsedBy(builds: List<Build>): Map<ID, List<Build>>
+
     /**
      * Gets the builds which use the given one.
      *
@@ -245,6 +276,22 @@ interface StructureService {
 
     fun getLastPromotionRunsForBuild(buildId: ID): List<PromotionRun>
 
+    /**
+     * Gets all the promotion runs for a list of builds, in one call.
+     *
+     * @param builds Builds to get the promotion runs for
+     * @return Promotion runs, the most recent first, indexed by build ID
+     */
+    fun getPromotionRunsForBuilds(builds: List<Build>): Map<ID, List<PromotionRun>>
+
+    /**
+     * Gets the last promotion run per promotion level for a list of builds, in one call.
+     *
+     * @param builds Builds to get the promotion runs for
+     * @return Last promotion runs, ordered by promotion level, indexed by build ID
+     */
+    fun getLastPromotionRunsForBuilds(builds: List<Build>): Map<ID, List<PromotionRun>>
+
     // TODO Replace by PromotionRun?
     fun getLastPromotionRunForBuildAndPromotionLevel(build: Build, promotionLevel: PromotionLevel): Optional<PromotionRun>
 
@@ -328,6 +375,31 @@ interface StructureService {
     @Deprecated("Use {@link #getValidationRunsForBuild(ID, int, int)} instead.")
     fun getValidationRunsForBuild(buildId: ID): List<ValidationRun>
 
+    /**
+     * Gets all the validation runs for a list of builds, in one call.
+     *
+     * @param builds Builds to get the validation runs for
+     * @return Validation runs, ordered by creation, indexed by build ID
+     */
+    fun getValidationRunsForBuilds(builds: List<Build>): Map<ID, List<ValidationRun>>
+
+    /**
+     * Gets the last validation run per validation stamp for a list of builds, in one call.
+     *
+     * @param builds Builds to get the validation runs for
+     * @return Last validation runs, ordered by validation stamp, indexed by build ID
+     */
+    fun getLastValidationRunsForBuilds(builds: List<Build>): Map<ID, List<ValidationRun>>
+
+    /**
+     * Gets the status of the last validation run for each validation stamp and the granted
+     * promotions of a build, in one call.
+     *
+     * @param build Build to get the status for
+     * @return Snapshot of the status of the build
+     */
+    fun getBuildStatusSnapshot(build: Build): BuildStatusSnapshot
+
     /**
      * Gets the list of validation runs for a build.
      *
@@ -383,6 +455,15 @@ interface StructureService {
 
     fun getValidationRunsForValidationStamp(validationStampId: ID, offset: Int, count: Int): List<ValidationRun>
 
+    /**
+     * Gets the last statuses of the last validation runs for a list of validation stamps, in one call.
+     *
+     * @param validationStamps Validation stamps to get the statuses for
+     * @param count            Maximum number of runs per validation stamp
+     * @return Last statuses of the runs, from the most recent build, indexed by validation stamp ID
+     */
+    fun getLastValidationRunStatusesForValidationStamps(validationStamps: List<ValidationStamp>, count: Int): Map<ID, List<ValidationRunStatusID>>
+
     /**
      * Gets the list of validation runs for a given validation stamp and a list of statuses.
      * @param validationStamp   Validation stamp
@@ -435,6 +516,13 @@ interface StructureService {
      */
     fun restoreValidationRunDataMetrics(logger: (String) -> Unit = {})
 
+    /**
+     * Computes again the last validation run and status for all the builds and validation stamps.
+     *
+     * @return Number of build and validation stamp pairs having a validation run
+     */
+    fun rebuildBuildValidationStates(): Int
+
     /**
      * Gets the parent validation run for a given validation run status ID
      *
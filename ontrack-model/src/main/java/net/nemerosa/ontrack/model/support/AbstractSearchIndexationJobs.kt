@@ -0,0 +1,76 @@
+package net.nemerosa.ontrack.model.support
+
+import net.nemerosa.ontrack.job.*
+import net.nemerosa.ontrack.model.structure.SearchIndexService
+import net.nemerosa.ontrack.model.structure.SearchIndexer
+import net.nemerosa.ontrack.model.structure.SearchItem
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+/**
+ * One job per type of search, indexing through the given search index service,
+ * plus one job to launch all the indexations at once.
+ *
+ * @param searchIndexers List of all indexers
+ * @param searchIndexService Service used to store the indexes
+ * @param jobScheduler Scheduler used to launch all the indexations
+ * @param jobCategory Category of the indexation jobs
+ */
+abstract class AbstractSearchIndexationJobs(
+        private val searchIndexers: List<SearchIndexer<*>>,
+        private val searchIndexService: SearchIndexService,
+        private val jobScheduler: JobScheduler,
+        jobCategory: JobCategory
+) : JobProvider {
+
+    private val indexationJobType = jobCategory.getType("indexation").withName("Search indexation")
+
+    private val indexationAllJobKey = indexationJobType.getKey("all")
+
+    override fun getStartingJobs(): Collection<JobRegistration> =
+            searchIndexers.filter { indexer ->
+                !indexer.isIndexationDisabled
+            }.map { indexer ->
+                createIndexationJobRegistration(indexer)
+            } + createGlobalIndexationJob()
+
+    private fun createGlobalIndexationJob() = JobRegistration(
+            schedule = Schedule.NONE,
+            job = object : Job {
+                override fun isDisabled(): Boolean = false
+
+                override fun getKey(): JobKey = indexationAllJobKey
+
+                override fun getDescription(): String = "All re-indexations"
+
+                override fun getTask() = JobRun { listener ->
+                    listener.message("Launching all indexations")
+                    val jobs = searchIndexers.filter { indexer ->
+                        !indexer.isIndexationDisabled
+                    }.mapNotNull { indexer ->
+                        jobScheduler.fireImmediately(indexationJobType.getKey(indexer.indexerId)).orElse(null)
+                    }
+                    // Waits for all jobs to complete
+                    CompletableFuture.allOf(*jobs.toTypedArray()).get(1, TimeUnit.HOURS)
+                }
+            }
+    )
+
+    private fun <T : SearchItem> createIndexationJobRegistration(indexer: SearchIndexer<T>) = JobRegistration(
+            job = object : Job {
+                override fun isDisabled(): Boolean = false
+
+                override fun getKey(): JobKey =
+                        indexationJobType.getKey(indexer.indexerId)
+
+                override fun getDescription(): String = indexer.indexerName
+
+                override fun getTask() = JobRun { listener ->
+                    listener.message("Launching indexation for ${indexer.indexerName}")
+                    searchIndexService.index(indexer)
+                }
+            },
+            schedule = indexer.indexerSchedule
+    )
+
+}
@@ -0,0 +1,23 @@
+package net.nemerosa.ontrack.model.support
+
+import org.springframework.boot.context.properties.ConfigurationProperties
+import org.springframework.stereotype.Component
+
+@Component
+@ConfigurationProperties(prefix = "ontrack.config.cache")
+class CacheConfigProperties {
+    /**
+     * Caffeine specifications
+     */
+    var specs = mutableMapOf<String, String>()
+    /**
+     * Running in a cluster, where the evictions of the caches must be shared
+     * with the other nodes.
+     */
+    var clustered = false
+    /**
+     * Name of the PostgreSQL channel used to share the evictions of the caches
+     * between the nodes. All the nodes of a cluster must use the same channel.
+     */
+    var channel = "ontrack_cache_invalidation"
+}
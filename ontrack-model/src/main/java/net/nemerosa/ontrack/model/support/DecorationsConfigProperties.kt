@@ -0,0 +1,25 @@
+package net.nemerosa.ontrack.model.support
+
+import java.time.Duration
+import javax.validation.constraints.Min
+
+/**
+ * Configuration properties for the computation of the decorations.
+ */
+class DecorationsConfigProperties {
+    /**
+     * Maximum time to wait for the decorations of a remote decorator. When this time is
+     * exceeded, the decorations are left out, and they are kept in cache once available.
+     */
+    var remoteTimeBudget: Duration = Duration.ofSeconds(2)
+    /**
+     * Number of threads used to compute the decorations of the remote decorators.
+     */
+    @Min(1)
+    var remoteThreads = 4
+    /**
+     * Maximum number of decorated entities kept in cache, for all decorators.
+     */
+    @Min(0)
+    var cacheSize = 10000L
+}
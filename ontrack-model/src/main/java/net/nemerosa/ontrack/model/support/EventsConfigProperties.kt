@@ -0,0 +1,28 @@
+package net.nemerosa.ontrack.model.support
+
+import javax.validation.constraints.Min
+
+/**
+ * Configuration properties for the dispatching of events to the listeners.
+ */
+class EventsConfigProperties {
+    /**
+     * Dispatching the events asynchronously, after the transaction which created them
+     * has been committed. When `false`, the listeners are called inline, in the
+     * transaction of the caller (used mostly for testing).
+     */
+    var async = true
+    /**
+     * Maximum number of events waiting to be processed by each worker of a listener. When
+     * this size is reached, the posting of new events waits for some room to be made
+     * in the queue.
+     */
+    @Min(1)
+    var queueSize = 1000
+    /**
+     * Number of workers per listener. Events for a given branch are always processed
+     * in order by the same worker.
+     */
+    @Min(1)
+    var workers = 1
+}
@@ -5,7 +5,8 @@ import javax.validation.constraints.Min
 
 class JobConfigProperties {
     /**
-     * Core pool size for the threads used to run the jobs.
+     * Core pool size for the threads used to run the jobs which are not
+     * assigned to a dedicated pool.
      */
     @Min(1)
     var poolSize = 10
@@ -28,4 +29,38 @@ class JobConfigProperties {
     @Min(1)
     @Max(1)
     var scatteringRatio = 1.0
-}
\ No newline at end of file
+    /**
+     * Running in a cluster, where each job must run on only one node at a time.
+     * The ownership of the jobs is shared through leases stored in the database.
+     */
+    var clustered = false
+    /**
+     * Duration of the leases on the jobs, in seconds, when running in a cluster. If a node
+     * does not renew its leases during this period, its jobs are taken over by the other nodes.
+     */
+    @Min(3)
+    var leaseDuration = 60
+    /**
+     * Dedicated pools, indexed by job category key (like `git`) or by job type key
+     * prefixed by its category (like `git.git-build-sync`). A pool defined for a type
+     * takes precedence over the pool of its category.
+     */
+    var pools: MutableMap<String, JobPoolProperties> = mutableMapOf(
+            "git" to JobPoolProperties()
+    )
+}
+
+/**
+ * Configuration of a pool of threads dedicated to some jobs.
+ */
+class JobPoolProperties {
+    /**
+     * Maximum number of jobs of this pool running at the same time
+     */
+    @Min(1)
+    var concurrency = 4
+    /**
+     * Using virtual threads for I/O bound jobs (only when running on Java 21+)
+     */
+    var virtual = false
+}
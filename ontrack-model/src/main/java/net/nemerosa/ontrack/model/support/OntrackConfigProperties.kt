@@ -53,21 +53,37 @@ class OntrackConfigProperties {
      */
     var jobLabelProviderEnabled = false
 
+    /**
+     * Events configuration
+     */
+    @Valid
+    var events = EventsConfigProperties()
+
     /**
      * Search configuration
      */
     var search = SearchConfigProperties()
 
+    /**
+     * Decorations configuration
+     */
+    @Valid
+    var decorations = DecorationsConfigProperties()
+
     @PostConstruct
     fun log() {
         if (!configurationTest) {
             logger.warn("[config] Tests of external configurations are disabled")
         }
+        logger.info("[events] Async = ${events.async}")
+        logger.info("[events] Queue size = ${events.queueSize}")
+        logger.info("[events] Workers = ${events.workers}")
         logger.info("[search] Engine = ${search.engine}")
         logger.info("[search] Index immediate refresh = ${search.index.immediate}")
         logger.info("[search] Index batch size = ${search.index.batch}")
         logger.info("[search] Index batch logging = ${search.index.logging}")
         logger.info("[search] Index batch tracing = ${search.index.tracing}")
+        logger.info("[decorations] Remote time budget = ${decorations.remoteTimeBudget}")
     }
 
     companion object {
@@ -10,6 +10,11 @@ class SearchConfigProperties {
          * Engine property
          */
         const val ENGINE_PROPERTY = "engine"
+
+        /**
+         * Value of the engine property to use the database as THE search engine
+         */
+        const val SEARCH_ENGINE_POSTGRESQL = "postgresql"
     }
 
     /**
@@ -34,6 +39,14 @@ class SearchConfigProperties {
          * Note that this can be overridden by the individual search indexers.
          */
         var batch = 1000
+        /**
+         * Maximum number of bulk requests being sent concurrently when re-indexing a whole collection.
+         */
+        var bulkConcurrency = 2
+        /**
+         * Maximum size (in MB) of a bulk request when re-indexing a whole collection.
+         */
+        var bulkSize = 5
         /**
          * Logging mode for batch indexing (only actual actions are shown)
          */
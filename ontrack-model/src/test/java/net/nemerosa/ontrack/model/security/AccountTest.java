@@ -40,6 +40,52 @@ public class AccountTest {
         assertFalse(account.isGranted(2, ProjectView.class));
     }
 
+    @Test
+    public void project_functions_granted_on_all_projects_for_locked_account() {
+        Account account = baseAccount().withGlobalRole(
+                Optional.of(
+                        new GlobalRole(
+                                "test", "Test", "",
+                                Collections.emptySet(),
+                                Collections.singleton(ProjectEdit.class)
+                        )
+                )
+        ).lock();
+        assertTrue(account.isGranted(1, ProjectEdit.class));
+        assertTrue(account.isGranted(2, ProjectView.class));
+        assertFalse(account.isGranted(1, ProjectDelete.class));
+        assertFalse(account.isGranted(GlobalSettings.class));
+    }
+
+    @Test
+    public void functions_granted_through_groups_for_locked_account() {
+        AccountGroup group = AccountGroup.of("group", "Group")
+                .withGlobalRole(
+                        Optional.of(
+                                new GlobalRole(
+                                        "test", "Test", "",
+                                        Collections.singleton(GlobalSettings.class),
+                                        Collections.emptySet()
+                                )
+                        )
+                )
+                .withProjectRole(
+                        new ProjectRoleAssociation(
+                                2,
+                                new ProjectRole("test", "Test", "", Collections.singleton(ProjectEdit.class))
+                        )
+                )
+                .lock();
+        Account account = account(ProjectView.class).withGroup(group).lock();
+        assertTrue(account.isGranted(GlobalSettings.class));
+        assertFalse(account.isGranted(ProjectCreation.class));
+        assertTrue(account.isGranted(1, ProjectView.class));
+        assertFalse(account.isGranted(1, ProjectEdit.class));
+        assertTrue(account.isGranted(2, ProjectEdit.class));
+        assertTrue(account.isGranted(2, ProjectView.class));
+        assertFalse(account.isGranted(3, ProjectView.class));
+    }
+
     @Test
     public void serializable_account() {
         Account account = account(ProjectView.class);
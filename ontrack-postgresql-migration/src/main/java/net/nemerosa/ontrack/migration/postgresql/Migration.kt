@@ -176,6 +176,10 @@ class Migration(
         // Subversion
         // Subversion tables do not need to be migrated - they will be filled on demand
 
+        // BUILD_VALIDATION_STATE
+        // Filled by the database migration before the validation runs were copied
+        rebuildBuildValidationStates()
+
         // Update of sequences
         updateSequences()
 
@@ -379,6 +383,27 @@ class Migration(
         })
     }
 
+    private fun rebuildBuildValidationStates() {
+        logger.info("Rebuilding the validation states of the builds...")
+        tx {
+            postgresql.update("DELETE FROM BUILD_VALIDATION_STATE", emptyMap<String, Any>())
+            val count = postgresql.update(
+                    """INSERT INTO BUILD_VALIDATION_STATE (BUILDID, VALIDATIONSTAMPID, VALIDATIONRUNID, VALIDATIONRUNSTATUSID)
+                    SELECT VR.BUILDID, VR.VALIDATIONSTAMPID, VR.ID, (
+                      SELECT VST.VALIDATIONRUNSTATUSID FROM VALIDATION_RUN_STATUSES VST
+                      WHERE VST.VALIDATIONRUNID = VR.ID
+                      ORDER BY VST.CREATION DESC, VST.ID DESC
+                      LIMIT 1
+                    )
+                    FROM VALIDATION_RUNS VR
+                    WHERE VR.ID IN (SELECT MAX(ID) FROM VALIDATION_RUNS GROUP BY BUILDID, VALIDATIONSTAMPID)
+                    """,
+                    emptyMap<String, Any>()
+            )
+            logger.info("BUILD_VALIDATION_STATE count = {}...", count)
+        }
+    }
+
     private fun cleanup() {
         logger.info("Cleanup of target database...")
         val tables = arrayOf("ACCOUNTS", "ACCOUNT_GROUPS", "CONFIGURATIONS", "EXT_SVN_REPOSITORY", "PREDEFINED_PROMOTION_LEVELS", "PREDEFINED_VALIDATION_STAMPS", "PROJECTS", "EVENTS", "SETTINGS", "STORAGE", "VALIDATION_STAMP_FILTERS")
@@ -10,9 +10,11 @@ dependencies {
     implementation(project(":ontrack-repository-support"))
     implementation("org.springframework:spring-context")
     implementation("org.springframework.boot:spring-boot-actuator")
+    implementation("org.springframework.boot:spring-boot-autoconfigure")
     implementation("org.slf4j:slf4j-api")
     implementation("org.flywaydb:flyway-core")
     implementation("org.apache.commons:commons-lang3")
+    implementation("org.postgresql:postgresql")
 
     testImplementation(project(":ontrack-it-utils"))
     testRuntimeOnly(project(":ontrack-service"))
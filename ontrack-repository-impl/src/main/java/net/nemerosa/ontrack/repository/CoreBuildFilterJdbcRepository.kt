@@ -1,6 +1,7 @@
 package net.nemerosa.ontrack.repository
 
 import net.nemerosa.ontrack.model.exceptions.BuildNotFoundException
+import net.nemerosa.ontrack.model.exceptions.PropertyTypeNotFoundException
 import net.nemerosa.ontrack.model.structure.*
 import net.nemerosa.ontrack.model.support.OntrackConfigProperties
 import net.nemerosa.ontrack.repository.support.AbstractJdbcRepository
@@ -9,7 +10,10 @@ import org.apache.commons.lang3.StringUtils.isNotBlank
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource
 import org.springframework.stereotype.Repository
 import java.lang.String.format
+import java.sql.ResultSet
 import java.util.*
+import java.util.regex.Pattern
+import java.util.regex.PatternSyntaxException
 import javax.sql.DataSource
 import kotlin.math.max
 import kotlin.math.min
@@ -17,8 +21,8 @@ import kotlin.math.min
 @Repository
 class CoreBuildFilterJdbcRepository(
         dataSource: DataSource,
-        private val structureRepository: StructureRepository,
-        private val ontrackConfigProperties: OntrackConfigProperties
+        private val ontrackConfigProperties: OntrackConfigProperties,
+        private val structureRepository: StructureRepository
 ) : AbstractJdbcRepository(dataSource), CoreBuildFilterRepository {
 
     /**
@@ -56,10 +60,7 @@ class CoreBuildFilterJdbcRepository(
         val sincePromotionLevel = data.sincePromotionLevel
         if (isNotBlank(sincePromotionLevel)) {
             // Gets the promotion level ID
-            val promotionLevelId = structureRepository
-                    .getPromotionLevelByName(branch, sincePromotionLevel)
-                    .map { it.id() }
-                    .orElse(-1)
+            val promotionLevelId = getPromotionLevelId(branch, sincePromotionLevel)
             // Gets the last build having this promotion level
             val id = findLastBuildWithPromotionLevel(promotionLevelId)
             if (id != null) {
@@ -109,14 +110,8 @@ class CoreBuildFilterJdbcRepository(
         // withValidationStamp
         val withValidationStamp = data.withValidationStamp
         if (isNotBlank(withValidationStamp)) {
-            tables.append(
-                    "  LEFT JOIN (" +
-                            " SELECT R.BUILDID,  R.VALIDATIONSTAMPID, VRS.VALIDATIONRUNSTATUSID " +
-                            " FROM VALIDATION_RUNS R" +
-                            " INNER JOIN VALIDATION_RUN_STATUSES VRS ON VRS.ID = (SELECT ID FROM VALIDATION_RUN_STATUSES WHERE VALIDATIONRUNID = R.ID ORDER BY ID DESC LIMIT 1)" +
-                            " AND R.ID = (SELECT MAX(ID) FROM VALIDATION_RUNS WHERE BUILDID = R.BUILDID AND VALIDATIONSTAMPID = R.VALIDATIONSTAMPID)" +
-                            " ) S ON S.BUILDID = B.ID"
-            )
+            // Last run and status per validation stamp
+            tables.append(" LEFT JOIN BUILD_VALIDATION_STATE S ON S.BUILDID = B.ID")
             // Gets the validation stamp ID
             val validationStampId = getValidationStampId(branch, withValidationStamp)!!
             criteria.append(" AND (S.VALIDATIONSTAMPID = :validationStampId")
@@ -252,17 +247,24 @@ class CoreBuildFilterJdbcRepository(
         params.addValue("count", min(data.count, ontrackConfigProperties.buildFilterCountMax))
 
         // Running the query
-        return loadBuilds(sql, params)
+        return loadBuilds(branch, sql, params)
     }
 
-    private fun loadBuilds(sql: String, params: MapSqlParameterSource): List<Build> {
-        return namedParameterJdbcTemplate!!
-                .queryForList(
-                        sql,
-                        params,
-                        Int::class.java
-                )
-                .map { id -> structureRepository.getBuild(ID.of(id)) }
+    /**
+     * Loads the builds of a branch whose IDs are returned by the given query, in one query.
+     *
+     * @param branch Branch the builds belong to
+     * @param sql Query returning the IDs of the builds
+     * @param params Parameters of the query
+     * @return Builds, the most recent first
+     */
+    private fun loadBuilds(branch: Branch, sql: String, params: MapSqlParameterSource): List<Build> {
+        return namedParameterJdbcTemplate!!.query(
+                "SELECT * FROM BUILDS WHERE ID IN ($sql) ORDER BY ID DESC",
+                params
+        ) { rs, _ ->
+            StructureJdbcRepository.toBuild(rs) { branch }
+        }
     }
 
     override fun nameFilter(branch: Branch, fromBuild: String?, toBuild: String?, withPromotionLevel: String?, count: Int): List<Build> {
@@ -307,7 +309,7 @@ class CoreBuildFilterJdbcRepository(
         params.addValue("count", min(count, ontrackConfigProperties.buildFilterCountMax))
 
         // Running the query
-        return loadBuilds(sql.toString(), params)
+        return loadBuilds(branch, sql.toString(), params)
     }
 
     override fun lastBuild(branch: Branch, sinceBuild: String?, withPromotionLevel: String?): Optional<Build> {
@@ -342,7 +344,7 @@ class CoreBuildFilterJdbcRepository(
         sql.append(" LIMIT 1")
 
         // Running the query
-        return loadBuilds(sql.toString(), params)
+        return loadBuilds(branch, sql.toString(), params)
                 .stream()
                 .findFirst()
     }
@@ -358,15 +360,13 @@ class CoreBuildFilterJdbcRepository(
         try {
 
             // From build
-            fromId = structureRepository.getBuildByName(branch.project.name, branch.name, from)
-                    .orElseThrow { BuildNotFoundException(branch.project.name, branch.name, from) }
-                    .id()
+            fromId = getBuildId(branch, from)
+                    ?: throw BuildNotFoundException(branch.project.name, branch.name, from)
 
             // To build
             if (isNotBlank(to)) {
-                toId = structureRepository.getBuildByName(branch.project.name, branch.name, to)
-                        .orElseThrow { BuildNotFoundException(branch.project.name, branch.name, to) }
-                        .id()
+                toId = getBuildId(branch, to)
+                        ?: throw BuildNotFoundException(branch.project.name, branch.name, to)
             }
 
         } catch (ex: BuildNotFoundException) {
@@ -393,7 +393,232 @@ class CoreBuildFilterJdbcRepository(
         sql.append(" ORDER BY ID DESC")
 
         // Query
-        return loadBuilds(sql.toString(), params)
+        return loadBuilds(branch, sql.toString(), params)
+    }
+
+    override fun projectSearch(
+            project: Project,
+            form: BuildSearchForm,
+            propertyTypeAccessor: (String) -> PropertyType<*>,
+            residualFilter: (Build, BuildSearchForm) -> Boolean
+    ): List<Build> {
+        // Query root
+        val sql = StringBuilder("SELECT B.* FROM BUILDS B INNER JOIN BRANCHES R ON R.ID = B.BRANCHID WHERE R.PROJECTID = :project")
+        // Parameters
+        val params = params("project", project.id())
+        // Criteria which cannot be run in SQL
+        var residual = BuildSearchForm().withMaximumCount(form.maximumCount)
+        var hasResidual = false
+
+        // Branch name
+        val branchName = form.branchName
+        if (isNotBlank(branchName)) {
+            if (!isValidRegex(branchName)) {
+                return emptyList()
+            }
+            val regex = toSqlRegex(branchName)
+            if (regex != null) {
+                sql.append(" AND R.NAME ~ :branchName")
+                params.addValue("branchName", regex)
+            } else {
+                residual = residual.withBranchName(branchName)
+                hasResidual = true
+            }
+        }
+
+        // Build name
+        val buildName = form.buildName
+        if (isNotBlank(buildName)) {
+            if (form.isBuildExactMatch) {
+                sql.append(" AND B.NAME = :buildName")
+                params.addValue("buildName", buildName)
+            } else {
+                if (!isValidRegex(buildName)) {
+                    return emptyList()
+                }
+                val regex = toSqlRegex(buildName)
+                if (regex != null) {
+                    sql.append(" AND B.NAME ~ :buildName")
+                    params.addValue("buildName", regex)
+                } else {
+                    residual = residual.withBuildName(buildName)
+                    hasResidual = true
+                }
+            }
+        }
+
+        // Promotion name
+        val promotionName = form.promotionName
+        if (isNotBlank(promotionName)) {
+            sql.append(" AND EXISTS (" +
+                    "SELECT PR.ID FROM PROMOTION_RUNS PR" +
+                    " INNER JOIN PROMOTION_LEVELS PL ON PL.ID = PR.PROMOTIONLEVELID" +
+                    " WHERE PR.BUILDID = B.ID AND PL.NAME = :promotionName)")
+            params.addValue("promotionName", promotionName)
+        }
+
+        // Validation stamp name, with a last status being passed
+        val validationStampName = form.validationStampName
+        if (isNotBlank(validationStampName)) {
+            sql.append(" AND EXISTS (" +
+                    "SELECT S.BUILDID FROM BUILD_VALIDATION_STATE S" +
+                    " INNER JOIN VALIDATION_STAMPS VS ON VS.ID = S.VALIDATIONSTAMPID" +
+                    " WHERE S.BUILDID = B.ID AND VS.NAME = :validationStampName" +
+                    " AND S.VALIDATIONRUNSTATUSID = :validationStampStatus)")
+            params.addValue("validationStampName", validationStampName)
+            params.addValue("validationStampStatus", ValidationRunStatusID.PASSED)
+        }
+
+        // Property & property value
+        val property = form.property
+        if (isNotBlank(property)) {
+            val tables = StringBuilder("SELECT pp.ID FROM PROPERTIES pp")
+            val criteria = StringBuilder(" WHERE pp.BUILD = B.ID AND pp.TYPE = :property")
+            params.addValue("property", property)
+            val propertyValue = form.propertyValue
+            if (isNotBlank(propertyValue)) {
+                // Gets the property type
+                val propertyType = try {
+                    propertyTypeAccessor(property)
+                } catch (ex: PropertyTypeNotFoundException) {
+                    return emptyList()
+                }
+                // Gets the search arguments
+                val searchArguments = propertyType.getSearchArguments(propertyValue)
+                // If defined use them
+                if (searchArguments != null && searchArguments.isDefined) {
+                    PropertyJdbcRepository.prepareQueryForPropertyValue(
+                            searchArguments,
+                            tables,
+                            criteria,
+                            params
+                    )
+                } else {
+                    // Matching the value on each build
+                    residual = residual.withProperty(property).withPropertyValue(propertyValue)
+                    hasResidual = true
+                }
+            }
+            sql.append(" AND EXISTS ($tables $criteria)")
+        }
+
+        // Linked from
+        val linkedFrom = form.linkedFrom
+        if (isNotBlank(linkedFrom)) {
+            sql.append(" AND EXISTS (" +
+                    "SELECT BLFROM.BUILDID FROM BUILD_LINKS BLFROM" +
+                    " INNER JOIN BUILDS BDFROM ON BDFROM.ID = BLFROM.BUILDID" +
+                    " INNER JOIN BRANCHES BRFROM ON BRFROM.ID = BDFROM.BRANCHID" +
+                    " INNER JOIN PROJECTS PJFROM ON PJFROM.ID = BRFROM.PROJECTID" +
+                    " WHERE BLFROM.TARGETBUILDID = B.ID AND BDFROM.NAME LIKE :buildFrom AND PJFROM.NAME = :fromProject)")
+            params.addValue("fromProject", StringUtils.substringBefore(linkedFrom, ":"))
+            params.addValue("buildFrom", expandBuildPattern(StringUtils.substringAfter(linkedFrom, ":")))
+        }
+
+        // Linked to
+        val linkedTo = form.linkedTo
+        if (isNotBlank(linkedTo)) {
+            sql.append(" AND EXISTS (" +
+                    "SELECT BLTO.TARGETBUILDID FROM BUILD_LINKS BLTO" +
+                    " INNER JOIN BUILDS BDTO ON BDTO.ID = BLTO.TARGETBUILDID" +
+                    " INNER JOIN BRANCHES BRTO ON BRTO.ID = BDTO.BRANCHID" +
+                    " INNER JOIN PROJECTS PJTO ON PJTO.ID = BRTO.PROJECTID" +
+                    " WHERE BLTO.BUILDID = B.ID AND BDTO.NAME LIKE :buildTo AND PJTO.NAME = :toProject)")
+            params.addValue("toProject", StringUtils.substringBefore(linkedTo, ":"))
+            params.addValue("buildTo", expandBuildPattern(StringUtils.substringAfter(linkedTo, ":")))
+        }
+
+        // Ordering
+        sql.append(" ORDER BY B.ID DESC")
+
+        // Branches of the builds, loaded once
+        val branches = mutableMapOf<Int, Branch>()
+        val toBuild = { rs: ResultSet ->
+            StructureJdbcRepository.toBuild(rs) { branchId ->
+                branches.getOrPut(branchId.get()) { structureRepository.getBranch(branchId) }
+            }
+        }
+
+        return if (hasResidual) {
+            // Checks the residual criteria on each build, until enough builds are collected
+            val builds = mutableListOf<Build>()
+            namedParameterJdbcTemplate!!.execute(sql.toString(), params) { ps ->
+                val rs = ps.executeQuery()
+                while (builds.size < form.maximumCount && rs.next()) {
+                    val build = toBuild(rs)
+                    if (residualFilter(build, residual)) {
+                        builds.add(build)
+                    }
+                }
+            }
+            builds
+        } else {
+            // Limit
+            sql.append(" LIMIT :count")
+            params.addValue("count", form.maximumCount)
+            namedParameterJdbcTemplate!!.query(sql.toString(), params) { rs, _ -> toBuild(rs) }
+        }
+    }
+
+    private fun expandBuildPattern(buildPattern: String): String =
+            if (StringUtils.isBlank(buildPattern)) {
+                "%"
+            } else {
+                StringUtils.replace(buildPattern, "*", "%")
+            }
+
+    private fun isValidRegex(regex: String): Boolean =
+            try {
+                Pattern.compile(regex)
+                true
+            } catch (ex: PatternSyntaxException) {
+                false
+            }
+
+    /**
+     * Converts a Java regular expression into a PostgreSQL one, matching the whole value.
+     *
+     * Only the constructs having the same meaning in both syntaxes are converted.
+     *
+     * @param regex Java regular expression
+     * @return PostgreSQL regular expression or `null` if it cannot be converted
+     */
+    private fun toSqlRegex(regex: String): String? {
+        var inClass = false
+        var i = 0
+        while (i < regex.length) {
+            val c = regex[i]
+            when {
+                c == '\\' -> {
+                    val next = regex.getOrNull(i + 1) ?: return null
+                    // Escaped punctuation & common classes only
+                    if (next.isLetterOrDigit() && next !in "dDsSwWtnrf") {
+                        return null
+                    }
+                    // Negated classes are not allowed inside brackets by PostgreSQL
+                    if (inClass && next in "DSW") {
+                        return null
+                    }
+                    i++
+                }
+                inClass -> when {
+                    c == '[' || (c == '&' && regex.getOrNull(i + 1) == '&') -> return null
+                    c == ']' -> inClass = false
+                }
+                c == '[' -> {
+                    inClass = true
+                    // Leading negation or closing bracket belong to the class
+                    if (regex.getOrNull(i + 1) == '^') i++
+                    if (regex.getOrNull(i + 1) == ']') i++
+                }
+                // Non capturing groups and lookaheads only
+                c == '(' && regex.getOrNull(i + 1) == '?' && regex.getOrNull(i + 2) !in listOf(':', '=', '!') -> return null
+                // Possessive quantifiers
+                c in "*+?}" && regex.getOrNull(i + 1) == '+' -> return null
+            }
+            i++
+        }
+        return "^(?:$regex)$"
     }
 
     private fun findLastBuildWithPropertyValue(branch: Branch, propertyTypeName: String, propertyValue: String?, propertyTypeAccessor: (String) -> PropertyType<*>): Int? {
@@ -440,28 +665,45 @@ class CoreBuildFilterJdbcRepository(
         )
     }
 
+    private fun getBuildId(branch: Branch, buildName: String?): Int? {
+        return getFirstItem(
+                "SELECT ID FROM BUILDS WHERE BRANCHID = :branchId AND NAME = :name",
+                params("branchId", branch.id()).addValue("name", buildName),
+                Int::class.java
+        )
+    }
+
+    private fun getPromotionLevelId(branch: Branch, promotionLevelName: String): Int {
+        return getFirstItem(
+                "SELECT ID FROM PROMOTION_LEVELS WHERE BRANCHID = :branchId AND NAME = :name",
+                params("branchId", branch.id()).addValue("name", promotionLevelName),
+                Int::class.java
+        ) ?: -1
+    }
+
     private fun getValidationStampId(branch: Branch, validationStampName: String): Int? {
-        return structureRepository
-                .getValidationStampByName(branch, validationStampName)
-                .map { it.id() }
-                .orElse(-1)
+        return getFirstItem(
+                "SELECT ID FROM VALIDATION_STAMPS WHERE BRANCHID = :branchId AND NAME = :name",
+                params("branchId", branch.id()).addValue("name", validationStampName),
+                Int::class.java
+        ) ?: -1
     }
 
     private fun findLastBuildWithValidationStamp(validationStampId: Int, status: String?): Int? {
+        // Last run and status per validation stamp
         val sql = StringBuilder(
-                "SELECT VR.BUILDID FROM VALIDATION_RUN_STATUSES VRS\n" +
-                        "INNER JOIN VALIDATION_RUNS VR ON VR.ID = VRS.VALIDATIONRUNID\n" +
-                        "WHERE VR.VALIDATIONSTAMPID = :validationStampId\n"
+                "SELECT BUILDID FROM BUILD_VALIDATION_STATE\n" +
+                        "WHERE VALIDATIONSTAMPID = :validationStampId\n"
         )
         // Parameters
         val params = params("validationStampId", validationStampId)
         // Status criteria
         if (isNotBlank(status)) {
-            sql.append("AND VRS.VALIDATIONRUNSTATUSID = :status\n")
+            sql.append("AND VALIDATIONRUNSTATUSID = :status\n")
             params.addValue("status", status)
         }
         // Order & limit
-        sql.append("ORDER BY VR.BUILDID DESC LIMIT 1\n")
+        sql.append("ORDER BY BUILDID DESC LIMIT 1\n")
         // Build ID
         return getFirstItem(
                 sql.toString(),
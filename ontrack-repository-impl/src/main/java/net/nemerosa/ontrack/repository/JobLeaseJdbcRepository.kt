@@ -0,0 +1,45 @@
+package net.nemerosa.ontrack.repository
+
+import net.nemerosa.ontrack.repository.support.AbstractJdbcRepository
+import org.springframework.stereotype.Repository
+import javax.sql.DataSource
+
+@Repository
+class JobLeaseJdbcRepository(
+        dataSource: DataSource
+) : AbstractJdbcRepository(dataSource), JobLeaseRepository {
+
+    override fun acquire(key: String, node: String, duration: Int): Boolean {
+        return namedParameterJdbcTemplate!!.update(
+                """
+                    INSERT INTO JOB_LEASES (JOBKEY, NODE, EXPIRES)
+                    VALUES (:key, :node, CURRENT_TIMESTAMP + :duration * INTERVAL '1 second')
+                    ON CONFLICT (JOBKEY) DO UPDATE
+                    SET NODE = EXCLUDED.NODE, EXPIRES = EXCLUDED.EXPIRES
+                    WHERE JOB_LEASES.NODE = EXCLUDED.NODE OR JOB_LEASES.EXPIRES < CURRENT_TIMESTAMP
+                """,
+                params("key", key).addValue("node", node).addValue("duration", duration)
+        ) > 0
+    }
+
+    override fun renew(node: String, duration: Int) {
+        namedParameterJdbcTemplate!!.update(
+                "UPDATE JOB_LEASES SET EXPIRES = CURRENT_TIMESTAMP + :duration * INTERVAL '1 second' WHERE NODE = :node",
+                params("node", node).addValue("duration", duration)
+        )
+    }
+
+    override fun release(key: String, node: String) {
+        namedParameterJdbcTemplate!!.update(
+                "DELETE FROM JOB_LEASES WHERE JOBKEY = :key AND NODE = :node",
+                params("key", key).addValue("node", node)
+        )
+    }
+
+    override fun releaseAll(node: String) {
+        namedParameterJdbcTemplate!!.update(
+                "DELETE FROM JOB_LEASES WHERE NODE = :node",
+                params("node", node)
+        )
+    }
+}
@@ -0,0 +1,132 @@
+package net.nemerosa.ontrack.repository
+
+import net.nemerosa.ontrack.model.support.CacheConfigProperties
+import net.nemerosa.ontrack.repository.support.AbstractJdbcRepository
+import org.postgresql.PGConnection
+import org.slf4j.LoggerFactory
+import org.springframework.beans.factory.DisposableBean
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties
+import org.springframework.stereotype.Component
+import java.sql.DriverManager
+import java.util.*
+import java.util.concurrent.TimeUnit
+import javax.sql.DataSource
+
+/**
+ * Cache invalidation bus based on the PostgreSQL `LISTEN` and `NOTIFY` commands.
+ *
+ * Notifications are sent using the connection of the current transaction, so that they are
+ * delivered to the other nodes only once this transaction has been committed. Listening
+ * is done by a dedicated thread, using its own connection outside of the pool, so that
+ * it does not take a connection from the request handling.
+ */
+@Component
+class PostgreSQLCacheInvalidationBus(
+        dataSource: DataSource,
+        private val dataSourceProperties: DataSourceProperties,
+        private val cacheConfigProperties: CacheConfigProperties
+) : AbstractJdbcRepository(dataSource), CacheInvalidationBus, DisposableBean {
+
+    private val logger = LoggerFactory.getLogger(CacheInvalidationBus::class.java)
+
+    /**
+     * ID of this node, used to ignore its own notifications
+     */
+    private val node = UUID.randomUUID().toString()
+
+    @Volatile
+    private var running = false
+
+    private var thread: Thread? = null
+
+    override fun evict(cache: String, key: String) {
+        notify(listOf(node, cache, key))
+    }
+
+    override fun clear(cache: String) {
+        notify(listOf(node, cache))
+    }
+
+    private fun notify(tokens: List<String>) {
+        namedParameterJdbcTemplate!!.queryForList(
+                "SELECT pg_notify(:channel, :payload)",
+                params("channel", cacheConfigProperties.channel).addValue("payload", tokens.joinToString(SEPARATOR))
+        )
+    }
+
+    @Synchronized
+    override fun listen(listener: CacheInvalidationListener) {
+        if (thread == null) {
+            running = true
+            thread = Thread({ listenLoop(listener) }, "cache-invalidation").apply {
+                isDaemon = true
+                start()
+            }
+        }
+    }
+
+    private fun listenLoop(listener: CacheInvalidationListener) {
+        val channel = cacheConfigProperties.channel
+        var connected = false
+        while (running) {
+            try {
+                DriverManager.getConnection(
+                        dataSourceProperties.determineUrl(),
+                        dataSourceProperties.determineUsername(),
+                        dataSourceProperties.determinePassword()
+                ).use { connection ->
+                    connection.createStatement().use { it.execute("LISTEN $channel") }
+                    val pgConnection = connection.unwrap(PGConnection::class.java)
+                    logger.info("[cache] Listening to invalidations on {}", channel)
+                    // Invalidations may have been missed while not connected
+                    if (connected) {
+                        listener.clear(null)
+                    }
+                    connected = true
+                    while (running) {
+                        // The driver receives the notifications only when exchanging with the server
+                        connection.createStatement().use { it.execute("SELECT 1") }
+                        pgConnection.notifications?.forEach { notification ->
+                            onNotification(listener, notification.parameter)
+                        }
+                        TimeUnit.MILLISECONDS.sleep(POLLING_MS)
+                    }
+                }
+            } catch (_: InterruptedException) {
+                return
+            } catch (ex: Exception) {
+                if (running) {
+                    logger.error("[cache] Error while listening to invalidations, retrying later", ex)
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(RETRY_MS)
+                    } catch (_: InterruptedException) {
+                        return
+                    }
+                }
+            }
+        }
+    }
+
+    private fun onNotification(listener: CacheInvalidationListener, payload: String) {
+        val tokens = payload.split(SEPARATOR, limit = 3)
+        if (tokens.size >= 2 && tokens[0] != node) {
+            val cache = tokens[1]
+            if (tokens.size == 3) {
+                listener.evict(cache, tokens[2])
+            } else {
+                listener.clear(cache)
+            }
+        }
+    }
+
+    override fun destroy() {
+        running = false
+        thread?.interrupt()
+    }
+
+    companion object {
+        private const val SEPARATOR = "\t"
+        private const val POLLING_MS = 1000L
+        private const val RETRY_MS = 5000L
+    }
+}
@@ -47,6 +47,17 @@ class PropertyJdbcRepository(
         ) { rs, rowNum -> toProperty(rs) }
     }
 
+    override fun loadProperties(typeName: String, entityType: ProjectEntityType, entityIds: Collection<ID>): Map<ID, TProperty> {
+        return if (entityIds.isEmpty()) {
+            emptyMap()
+        } else {
+            namedParameterJdbcTemplate!!.query(
+                    "SELECT * FROM PROPERTIES WHERE TYPE = :type AND ${entityType.name} IN (:entityIds)",
+                    params("type", typeName).addValue("entityIds", entityIds.map { it.value }.distinct())
+            ) { rs, _ -> toProperty(rs) }.associateBy { it.entityId }
+        }
+    }
+
     @CacheEvict(cacheNames = ["properties"], key = "#typeName + #entityType.name() + #entityId.value")
     override fun saveProperty(typeName: String, entityType: ProjectEntityType, entityId: ID, data: JsonNode) {
         val params = params("type", typeName).addValue("entityId", entityId.value)
@@ -0,0 +1,248 @@
+package net.nemerosa.ontrack.repository
+
+import com.fasterxml.jackson.databind.JsonNode
+import net.nemerosa.ontrack.model.search.*
+import net.nemerosa.ontrack.repository.support.AbstractJdbcRepository
+import org.slf4j.LoggerFactory
+import org.springframework.dao.DataAccessException
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource
+import org.springframework.stereotype.Repository
+import javax.sql.DataSource
+
+@Repository
+class SearchIndexJdbcRepository(
+        dataSource: DataSource
+) : AbstractJdbcRepository(dataSource), SearchIndexRepository {
+
+    companion object {
+        /**
+         * Text search configuration, independent from any language
+         */
+        private const val TS_CONFIG = "simple"
+
+        /**
+         * Lexemes are limited in size in PostgreSQL
+         */
+        private const val MAX_KEYWORD_LENGTH = 500
+
+        /**
+         * Partial matches on keywords are only looked for from this length, trigram indexes
+         * being of no use below
+         */
+        private const val MIN_PARTIAL_LENGTH = 3
+    }
+
+    private val logger = LoggerFactory.getLogger(SearchIndexRepository::class.java)
+
+    /**
+     * Is the `pg_trgm` extension available? Checked on first use if not enabled explicitly.
+     */
+    @Volatile
+    private var trigrams: Boolean? = null
+
+    override fun enablePartialMatching(): Boolean {
+        val enabled = try {
+            if (!hasTrigrams()) {
+                jdbcTemplate!!.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm")
+            }
+            jdbcTemplate!!.execute("CREATE INDEX IF NOT EXISTS SEARCH_INDEX_IX_KEYWORDS ON SEARCH_INDEX USING gin (KEYWORDS gin_trgm_ops)")
+            true
+        } catch (ex: DataAccessException) {
+            logger.debug("[search] Cannot enable the pg_trgm extension", ex)
+            false
+        }
+        trigrams = hasTrigrams()
+        return enabled
+    }
+
+    private fun hasTrigrams(): Boolean =
+            jdbcTemplate!!.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM PG_EXTENSION WHERE EXTNAME = 'pg_trgm')",
+                    Boolean::class.javaObjectType
+            ) ?: false
+
+    private fun isPartialMatchingScored(): Boolean =
+            trigrams ?: hasTrigrams().apply { trigrams = this }
+
+    override fun findExistingIds(index: String, ids: Collection<String>): Set<String> =
+            if (ids.isEmpty()) {
+                emptySet()
+            } else {
+                namedParameterJdbcTemplate!!.queryForList(
+                        "SELECT ID FROM SEARCH_INDEX WHERE INDEXNAME = :index AND ID IN (:ids)",
+                        params("index", index).addValue("ids", ids),
+                        String::class.java
+                ).toSet()
+            }
+
+    override fun save(index: String, records: Collection<SearchIndexRecord>, update: Boolean): Int {
+        if (records.isEmpty()) {
+            return 0
+        }
+        val conflict = if (update) {
+            """
+                DO UPDATE SET FIELDS = EXCLUDED.FIELDS, KEYWORDS = EXCLUDED.KEYWORDS, DOCUMENT = EXCLUDED.DOCUMENT, PROJECT_ID = EXCLUDED.PROJECT_ID
+                WHERE SEARCH_INDEX.FIELDS IS DISTINCT FROM EXCLUDED.FIELDS
+                OR SEARCH_INDEX.DOCUMENT IS DISTINCT FROM EXCLUDED.DOCUMENT
+                OR SEARCH_INDEX.PROJECT_ID IS DISTINCT FROM EXCLUDED.PROJECT_ID
+            """
+        } else {
+            "DO NOTHING"
+        }
+        val counts = namedParameterJdbcTemplate!!.batchUpdate(
+                """
+                    INSERT INTO SEARCH_INDEX (INDEXNAME, ID, PROJECT_ID, FIELDS, KEYWORDS, DOCUMENT)
+                    VALUES (:index, :id, :projectId, CAST(:fields AS JSONB), :keywords,
+                        CAST(:lexemes AS TSVECTOR)
+                        || setweight(to_tsvector('$TS_CONFIG', :textA), 'A')
+                        || setweight(to_tsvector('$TS_CONFIG', :textB), 'B')
+                        || setweight(to_tsvector('$TS_CONFIG', :textC), 'C')
+                        || setweight(to_tsvector('$TS_CONFIG', :textD), 'D'))
+                    ON CONFLICT (INDEXNAME, ID) $conflict
+                """,
+                records.map { record -> recordParams(index, record) }.toTypedArray()
+        )
+        return counts.count { it > 0 }
+    }
+
+    private fun recordParams(index: String, record: SearchIndexRecord): MapSqlParameterSource {
+        val keywords = record.keywords
+                .filter { it.value.isNotBlank() }
+                .map { SearchIndexTerm(it.value.toLowerCase().take(MAX_KEYWORD_LENGTH), it.weight) }
+        val params = params("index", index)
+                .addValue("id", record.id)
+                .addValue("projectId", record.projectId)
+                .addValue("fields", writeJson(record.fields))
+                .addValue("keywords", keywords.joinToString("\n") { it.value })
+                .addValue("lexemes", keywords.joinToString(" ") { "${quote(it.value)}:1${it.weight}" })
+        SearchIndexWeight.values().forEach { weight ->
+            params.addValue(
+                    "text$weight",
+                    record.texts.filter { it.weight == weight }.joinToString("\n") { it.value }
+            )
+        }
+        return params
+    }
+
+    override fun delete(index: String, id: String) {
+        namedParameterJdbcTemplate!!.update(
+                "DELETE FROM SEARCH_INDEX WHERE INDEXNAME = :index AND ID = :id",
+                params("index", index).addValue("id", id)
+        )
+    }
+
+    override fun deleteAll(index: String) {
+        namedParameterJdbcTemplate!!.update(
+                "DELETE FROM SEARCH_INDEX WHERE INDEXNAME = :index",
+                params("index", index)
+        )
+    }
+
+    override fun search(indexes: Collection<String>, token: String, projectIds: Collection<Int>?, offset: Int, size: Int): SearchIndexHits {
+        val term = token.trim().toLowerCase()
+        if (indexes.isEmpty() || term.isEmpty()) {
+            return SearchIndexHits(emptyList(), 0)
+        }
+        // Words of the text and exact keyword
+        val query = "plainto_tsquery('$TS_CONFIG', :token) || CAST(:exact AS TSQUERY)"
+        // Partial match on the keywords, using the trigram index
+        val pattern = if (term.length >= MIN_PARTIAL_LENGTH) {
+            "%${escapeLike(term)}%"
+        } else {
+            null
+        }
+        // Similarity of the partial match, when the trigrams are available
+        // (`word_similarity` would be more accurate, but is not available before PostgreSQL 9.6)
+        val similarity = if (isPartialMatchingScored()) {
+            "similarity(:term, KEYWORDS)"
+        } else {
+            "0"
+        }
+        // Restriction on projects
+        val projectCriteria = when {
+            projectIds == null -> ""
+            projectIds.isEmpty() -> "AND PROJECT_ID IS NULL"
+            else -> "AND (PROJECT_ID IS NULL OR PROJECT_ID IN (:projectIds))"
+        }
+        var total = 0
+        val hits = namedParameterJdbcTemplate!!.query(
+                """
+                    SELECT INDEXNAME, ID, FIELDS,
+                        ts_rank(DOCUMENT, Q.QUERY)
+                        + CASE WHEN KEYWORDS LIKE :pattern THEN $similarity ELSE 0 END AS SCORE,
+                        COUNT(*) OVER () AS TOTAL
+                    FROM SEARCH_INDEX, (SELECT $query AS QUERY) Q
+                    WHERE INDEXNAME IN (:indexes)
+                    AND (DOCUMENT @@ Q.QUERY OR KEYWORDS LIKE :pattern)
+                    $projectCriteria
+                    ORDER BY SCORE DESC, INDEXNAME, ID
+                    OFFSET :offset LIMIT :size
+                """,
+                params("indexes", indexes)
+                        .addValue("token", token)
+                        .addValue("exact", quote(term))
+                        .addValue("term", term)
+                        .addValue("pattern", pattern)
+                        .addValue("projectIds", projectIds)
+                        .addValue("offset", offset)
+                        .addValue("size", size)
+        ) { rs, _ ->
+            total = rs.getInt("TOTAL")
+            SearchIndexHit(
+                    index = rs.getString("INDEXNAME"),
+                    id = rs.getString("ID"),
+                    score = rs.getDouble("SCORE"),
+                    fields = readJson(rs, "FIELDS")
+            )
+        }
+        return SearchIndexHits(hits, total)
+    }
+
+    override fun query(index: String, query: SearchQuery, offset: Int, size: Int): List<JsonNode> {
+        val params = params("index", index)
+                .addValue("offset", offset)
+                .addValue("size", size)
+        val criteria = criteria(query, params)
+        return namedParameterJdbcTemplate!!.query(
+                """
+                    SELECT FIELDS FROM SEARCH_INDEX
+                    WHERE INDEXNAME = :index AND ($criteria)
+                    ORDER BY ID
+                    OFFSET :offset LIMIT :size
+                """,
+                params
+        ) { rs, _ ->
+            readJson(rs, "FIELDS")
+        }
+    }
+
+    private fun criteria(query: SearchQuery, params: MapSqlParameterSource): String =
+            when (query) {
+                is SearchOrQuery -> "(${criteria(query.left, params)}) OR (${criteria(query.right, params)})"
+                is SearchEqQuery -> comparison(query.field, "=", query.operand, params)
+                is SearchGtQuery -> comparison(query.field, ">", query.operand, params)
+                is SearchLtQuery -> comparison(query.field, "<", query.operand, params)
+            }
+
+    private fun comparison(field: String, operator: String, operand: Any, params: MapSqlParameterSource): String {
+        val n = params.values.size
+        params.addValue("field$n", field)
+        return if (operand is Number) {
+            params.addValue("operand$n", operand)
+            "CAST(FIELDS ->> :field$n AS NUMERIC) $operator :operand$n"
+        } else {
+            params.addValue("operand$n", operand.toString())
+            "FIELDS ->> :field$n $operator :operand$n"
+        }
+    }
+
+    /**
+     * Quotes a value as a single lexeme, for a `TSVECTOR` or a `TSQUERY`.
+     */
+    private fun quote(value: String) =
+            "'" + value.replace("\\", "\\\\").replace("'", "''") + "'"
+
+    private fun escapeLike(value: String) =
+            value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_")
+
+}
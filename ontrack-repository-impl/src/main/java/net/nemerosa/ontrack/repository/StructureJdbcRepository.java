@@ -12,13 +12,21 @@ import org.jetbrains.annotations.Nullable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -28,19 +36,42 @@ import java.util.stream.Collectors;
 @Repository
 public class StructureJdbcRepository extends AbstractJdbcRepository implements StructureRepository {
 
-    private final BranchTemplateRepository branchTemplateRepository;
+    /**
+     * Maximum number of validation runs whose statuses and run orders are loaded together.
+     */
+    private static final int VALIDATION_RUN_BATCH_SIZE = 500;
+
+    /**
+     * Selection of the branches (aliased as <code>B</code>) together with their template type,
+     * so that no additional query is needed per branch.
+     */
+    private static final String BRANCH_SELECT = "SELECT B.*, " +
+            "BTD.BRANCHID IS NOT NULL AS TEMPLATEDEFINITION, " +
+            "BTI.BRANCHID IS NOT NULL AS TEMPLATEINSTANCE " +
+            "FROM BRANCHES B " +
+            "LEFT JOIN BRANCH_TEMPLATE_DEFINITIONS BTD ON BTD.BRANCHID = B.ID " +
+            "LEFT JOIN BRANCH_TEMPLATE_INSTANCES BTI ON BTI.BRANCHID = B.ID ";
+
+    /**
+     * Last status of a validation run (aliased as <code>VR</code>)
+     */
+    private static final String LAST_VALIDATION_RUN_STATUS = "(" +
+            "SELECT VST.VALIDATIONRUNSTATUSID FROM VALIDATION_RUN_STATUSES VST " +
+            "WHERE VST.VALIDATIONRUNID = VR.ID " +
+            "ORDER BY VST.CREATION DESC, VST.ID DESC " +
+            "LIMIT 1" +
+            ")";
+
     private final ValidationDataTypeService validationDataTypeService;
     private final ValidationDataTypeConfigRepository validationDataTypeConfigRepository;
 
     @Autowired
     public StructureJdbcRepository(
             DataSource dataSource,
-            BranchTemplateRepository branchTemplateRepository,
             ValidationDataTypeService validationDataTypeService,
             ValidationDataTypeConfigRepository validationDataTypeConfigRepository
     ) {
         super(dataSource);
-        this.branchTemplateRepository = branchTemplateRepository;
         this.validationDataTypeService = validationDataTypeService;
         this.validationDataTypeConfigRepository = validationDataTypeConfigRepository;
     }
@@ -129,7 +160,7 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
     @Override
     public Branch findBranchByID(ID branchId) {
         return getFirstItem(
-                "SELECT * FROM BRANCHES WHERE ID = :id",
+                BRANCH_SELECT + "WHERE B.ID = :id",
                 params("id", branchId.getValue()),
                 (rs, rowNum) -> toBranch(rs, this::getProject)
         );
@@ -150,7 +181,7 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
     public Optional<Branch> getBranchByName(String project, String branch) {
         return getProjectByName(project)
                 .map(p -> getFirstItem(
-                        "SELECT * FROM BRANCHES WHERE PROJECTID = :project AND NAME = :name",
+                        BRANCH_SELECT + "WHERE B.PROJECTID = :project AND B.NAME = :name",
                         params("name", branch).addValue("project", p.id()),
                         (rs, rowNum) -> toBranch(rs, id -> p)
                 ));
@@ -160,7 +191,7 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
     public List<Branch> getBranchesForProject(ID projectId) {
         Project project = getProject(projectId);
         return getNamedParameterJdbcTemplate().query(
-                "SELECT * FROM BRANCHES WHERE PROJECTID = :projectId ORDER BY ID DESC",
+                BRANCH_SELECT + "WHERE B.PROJECTID = :projectId ORDER BY B.ID DESC",
                 params("projectId", projectId.getValue()),
                 (rs, rowNum) -> toBranch(rs, id -> project)
         );
@@ -267,6 +298,28 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
         );
     }
 
+    @Override
+    public Map<ID, Build> getLastBuildsForBranches(List<Branch> branches) {
+        Map<ID, Build> result = new HashMap<>();
+        if (branches.isEmpty()) {
+            return result;
+        }
+        Map<ID, Branch> branchIndex = index(branches);
+        getNamedParameterJdbcTemplate().query(
+                "SELECT B.* FROM BRANCHES R " +
+                        "INNER JOIN LATERAL (" +
+                        "SELECT * FROM BUILDS WHERE BRANCHID = R.ID ORDER BY ID DESC LIMIT 1" +
+                        ") B ON TRUE " +
+                        "WHERE R.ID IN (:branchIds)",
+                params("branchIds", ids(branches)),
+                (RowCallbackHandler) rs -> {
+                    Build build = toBuild(rs, branchIndex::get);
+                    result.put(build.getBranch().getId(), build);
+                }
+        );
+        return result;
+    }
+
     @Override
     public Ack deleteBuild(ID buildId) {
         return Ack.one(
@@ -342,6 +395,26 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
         );
     }
 
+    @Override
+    public Map<ID, List<Build>> getBuildsUsedByBuilds(List<Build> builds) {
+        Map<ID, List<Build>> result = new HashMap<>();
+        if (builds.isEmpty()) {
+            return result;
+        }
+        Map<ID, Branch> branches = new HashMap<>();
+        getNamedParameterJdbcTemplate().query(
+                "SELECT BL.BUILDID AS SOURCEBUILDID, F.* FROM BUILDS F " +
+                        "INNER JOIN BUILD_LINKS BL ON BL.TARGETBUILDID = F.ID " +
+                        "WHERE BL.BUILDID IN (:buildIds) " +
+                        "ORDER BY F.ID DESC",
+                params("buildIds", ids(builds)),
+                (RowCallbackHandler) rs -> result
+                        .computeIfAbsent(id(rs, "sourceBuildId"), id -> new ArrayList<>())
+                        .add(toBuild(rs, branchId -> branches.computeIfAbsent(branchId, this::getBranch)))
+        );
+        return result;
+    }
+
     @Override
     public List<Build> searchBuildsLinkedTo(String projectName, String buildPattern) {
         return getNamedParameterJdbcTemplate().query(
@@ -414,15 +487,30 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
         );
     }
 
-    protected Build toBuild(ResultSet rs, Function<ID, Branch> branchSupplier) throws SQLException {
+    private static List<Integer> ids(List<? extends Entity> entities) {
+        return entities.stream().map(Entity::id).distinct().collect(Collectors.toList());
+    }
+
+    private static <T extends Entity> Map<ID, T> index(List<T> entities) {
+        return entities.stream().collect(Collectors.toMap(Entity::getId, Function.identity(), (a, b) -> a));
+    }
+
+    /**
+     * Maps a row of the <code>BUILDS</code> table.
+     *
+     * @param rs             Row of the <code>BUILDS</code> table
+     * @param branchSupplier Gets the branch of the build from its ID
+     * @return Build
+     */
+    public static Build toBuild(ResultSet rs, Function<ID, Branch> branchSupplier) throws SQLException {
         return Build.of(
-                branchSupplier.apply(id(rs, "branchId")),
+                branchSupplier.apply(ID.of(rs.getInt("branchId"))),
                 new NameDescription(
                         rs.getString("name"),
                         rs.getString("description")
                 ),
                 readSignature(rs)
-        ).withId(id(rs));
+        ).withId(ID.of(rs.getInt("id")));
     }
 
     @Override
@@ -731,6 +819,49 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public Map<ID, List<PromotionRun>> getPromotionRunsForBuilds(List<Build> builds) {
+        return loadPromotionRunsForBuilds(
+                "SELECT * FROM PROMOTION_RUNS WHERE BUILDID IN (:buildIds) ORDER BY CREATION DESC, ID DESC",
+                builds
+        );
+    }
+
+    @Override
+    public Map<ID, List<PromotionRun>> getLastPromotionRunsForBuilds(List<Build> builds) {
+        return loadPromotionRunsForBuilds(
+                "SELECT PR.* FROM (" +
+                        "SELECT DISTINCT ON (BUILDID, PROMOTIONLEVELID) * FROM PROMOTION_RUNS " +
+                        "WHERE BUILDID IN (:buildIds) " +
+                        "ORDER BY BUILDID, PROMOTIONLEVELID, CREATION DESC, ID DESC" +
+                        ") PR " +
+                        "INNER JOIN PROMOTION_LEVELS PL ON PL.ID = PR.PROMOTIONLEVELID " +
+                        "ORDER BY PL.ORDERNB",
+                builds
+        );
+    }
+
+    private Map<ID, List<PromotionRun>> loadPromotionRunsForBuilds(String sql, List<Build> builds) {
+        Map<ID, List<PromotionRun>> result = new HashMap<>();
+        if (builds.isEmpty()) {
+            return result;
+        }
+        Map<ID, Build> buildIndex = index(builds);
+        Map<ID, PromotionLevel> promotionLevels = new HashMap<>();
+        getNamedParameterJdbcTemplate().query(
+                sql,
+                params("buildIds", ids(builds)),
+                (RowCallbackHandler) rs -> result
+                        .computeIfAbsent(id(rs, "buildId"), id -> new ArrayList<>())
+                        .add(toPromotionRun(
+                                rs,
+                                buildIndex::get,
+                                promotionLevelId -> promotionLevels.computeIfAbsent(promotionLevelId, this::getPromotionLevel)
+                        ))
+        );
+        return result;
+    }
+
     @Override
     public PromotionRun getLastPromotionRunForPromotionLevel(PromotionLevel promotionLevel) {
         return getFirstItem(
@@ -746,6 +877,55 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
         );
     }
 
+    @Override
+    public Map<ID, List<PromotionView>> getPromotionViewsForBranches(List<Branch> branches) {
+        Map<ID, List<PromotionView>> result = new HashMap<>();
+        if (branches.isEmpty()) {
+            return result;
+        }
+        Map<ID, Branch> branchIndex = index(branches);
+        getNamedParameterJdbcTemplate().query(
+                "SELECT PL.*, " +
+                        "PR.ID AS RUN_ID, PR.BUILDID AS RUN_BUILDID, PR.CREATION AS RUN_CREATION, " +
+                        "PR.CREATOR AS RUN_CREATOR, PR.DESCRIPTION AS RUN_DESCRIPTION, " +
+                        "B.NAME AS BUILD_NAME, B.DESCRIPTION AS BUILD_DESCRIPTION, " +
+                        "B.CREATION AS BUILD_CREATION, B.CREATOR AS BUILD_CREATOR " +
+                        "FROM PROMOTION_LEVELS PL " +
+                        "LEFT JOIN LATERAL (" +
+                        "SELECT * FROM PROMOTION_RUNS WHERE PROMOTIONLEVELID = PL.ID ORDER BY BUILDID DESC, ID DESC LIMIT 1" +
+                        ") PR ON TRUE " +
+                        "LEFT JOIN BUILDS B ON B.ID = PR.BUILDID " +
+                        "WHERE PL.BRANCHID IN (:branchIds) " +
+                        "ORDER BY PL.BRANCHID, PL.ORDERNB",
+                params("branchIds", ids(branches)),
+                (RowCallbackHandler) rs -> {
+                    PromotionLevel promotionLevel = toPromotionLevel(rs, branchIndex::get);
+                    // Last promotion run, if any
+                    PromotionRun promotionRun = null;
+                    int runId = rs.getInt("run_id");
+                    if (!rs.wasNull()) {
+                        Build build = Build.of(
+                                promotionLevel.getBranch(),
+                                new NameDescription(
+                                        rs.getString("build_name"),
+                                        rs.getString("build_description")
+                                ),
+                                readSignature(rs, "build_creation", "build_creator")
+                        ).withId(id(rs, "run_buildid"));
+                        promotionRun = PromotionRun.of(
+                                build,
+                                promotionLevel,
+                                readSignature(rs, "run_creation", "run_creator"),
+                                rs.getString("run_description")
+                        ).withId(ID.of(runId));
+                    }
+                    result.computeIfAbsent(promotionLevel.getBranch().getId(), id -> new ArrayList<>())
+                            .add(new PromotionView(promotionLevel, promotionRun));
+                }
+        );
+        return result;
+    }
+
     @Override
     public Optional<PromotionRun> getLastPromotionRun(Build build, PromotionLevel promotionLevel) {
         return Optional.ofNullable(
@@ -993,25 +1173,29 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
     public void forEachValidationRun(Function<String, ValidationRunStatusID> validationRunStatusService, Consumer<ValidationRun> processing) {
         getProjectList().forEach((project) ->
                 getBranchesForProject(project.getId()).forEach((branch) ->
-                        getValidationStampListForBranch(branch.getId()).forEach((validationStamp ->
+                        getValidationStampListForBranch(branch.getId()).forEach(validationStamp -> {
+                                        // Runs are hydrated by chunks
+                                        List<ValidationRunRow> buffer = new ArrayList<>();
                                         getNamedParameterJdbcTemplate().query(
                                                 "SELECT VR.*, VDR.DATA_TYPE_ID, VDR.DATA " +
                                                         "FROM VALIDATION_RUNS VR " +
                                                         "LEFT JOIN VALIDATION_RUN_DATA VDR ON VDR.VALIDATION_RUN = VR.ID " +
                                                         "WHERE VR.VALIDATIONSTAMPID = :stampId",
                                                 params("stampId", validationStamp.id()),
-                                                (rs) -> {
-                                                    ValidationRun validationRun = toValidationRun(
-                                                            rs,
-                                                            this::getBuild,
-                                                            (id) -> validationStamp,
-                                                            validationRunStatusService
-                                                    );
-                                                    processing.accept(validationRun);
-                                                })
-                                )
-                        )
-                )
+                                                rs -> {
+                                                    buffer.add(toValidationRunRow(rs));
+                                                    if (buffer.size() >= VALIDATION_RUN_BATCH_SIZE) {
+                                                        toValidationRuns(buffer, this::getBuild, id -> validationStamp, validationRunStatusService).forEach(processing);
+                                                        buffer.clear();
+                                                    }
+                                                }
+                                        );
+                                        // Remaining runs for this validation stamp
+                                        toValidationRuns(buffer, this::getBuild, id -> validationStamp, validationRunStatusService).forEach(processing);
+                                        buffer.clear();
+                                    }
+                            )
+                    )
         );
     }
 
@@ -1039,6 +1223,9 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
         validationRun.getValidationRunStatuses()
                 .forEach(validationRunStatus -> newValidationRunStatus(id, validationRunStatus));
 
+        // Last run for this build & validation stamp
+        refreshBuildValidationState(id);
+
         // Reloads the run
         return getValidationRun(ID.of(id), validationRunStatusService);
     }
@@ -1056,42 +1243,36 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
     @Nullable
     @Override
     public ValidationRun findValidationRunByID(ID validationRunId, Function<String, ValidationRunStatusID> validationRunStatusService) {
-        return getFirstItem(
+        return loadValidationRuns(
                 "SELECT VR.*, VDR.DATA_TYPE_ID, VDR.DATA " +
                         "FROM VALIDATION_RUNS VR " +
                         "LEFT JOIN VALIDATION_RUN_DATA VDR ON VDR.VALIDATION_RUN = VR.ID " +
                         "WHERE VR.ID = :id",
                 params("id", validationRunId.getValue()),
-                (rs, rowNum) -> toValidationRun(
-                        rs,
-                        this::getBuild,
-                        this::getValidationStamp,
-                        validationRunStatusService
-                )
-        );
+                this::getBuild,
+                this::getValidationStamp,
+                validationRunStatusService
+        ).stream().findFirst().orElse(null);
     }
 
     @Override
     public List<ValidationRun> getValidationRunsForBuild(Build build, Function<String, ValidationRunStatusID> validationRunStatusService) {
-        return getNamedParameterJdbcTemplate().query(
+        return loadValidationRuns(
                 "SELECT VR.*, VDR.DATA_TYPE_ID, VDR.DATA " +
                         "FROM VALIDATION_RUNS VR " +
                         "LEFT JOIN VALIDATION_RUN_DATA VDR ON VDR.VALIDATION_RUN = VR.ID " +
                         "WHERE VR.BUILDID = :buildId " +
                         "ORDER BY VR.ID",
                 params("buildId", build.id()),
-                (rs, rowNum) -> toValidationRun(
-                        rs,
-                        id -> build,
-                        this::getValidationStamp,
-                        validationRunStatusService
-                )
+                id -> build,
+                this::getValidationStamp,
+                validationRunStatusService
         );
     }
 
     @Override
     public List<ValidationRun> getValidationRunsForBuild(Build build, int offset, int count, Function<String, ValidationRunStatusID> validationRunStatusService) {
-        return getNamedParameterJdbcTemplate().query(
+        return loadValidationRuns(
                 "SELECT VR.*, VDR.DATA_TYPE_ID, VDR.DATA " +
                         "FROM VALIDATION_RUNS VR " +
                         "LEFT JOIN VALIDATION_RUN_DATA VDR ON VDR.VALIDATION_RUN = VR.ID " +
@@ -1101,12 +1282,9 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
                 params("buildId", build.id())
                         .addValue("offset", offset)
                         .addValue("limit", count),
-                (rs, rowNum) -> toValidationRun(
-                        rs,
-                        id -> build,
-                        this::getValidationStamp,
-                        validationRunStatusService
-                )
+                id -> build,
+                this::getValidationStamp,
+                validationRunStatusService
         );
     }
 
@@ -1119,9 +1297,80 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
         );
     }
 
+    @Override
+    public Map<ID, List<ValidationRun>> getValidationRunsForBuilds(List<Build> builds, Function<String, ValidationRunStatusID> validationRunStatusService) {
+        if (builds.isEmpty()) {
+            return new HashMap<>();
+        }
+        Map<ID, Build> buildIndex = index(builds);
+        return loadValidationRuns(
+                "SELECT VR.*, VDR.DATA_TYPE_ID, VDR.DATA " +
+                        "FROM VALIDATION_RUNS VR " +
+                        "LEFT JOIN VALIDATION_RUN_DATA VDR ON VDR.VALIDATION_RUN = VR.ID " +
+                        "WHERE VR.BUILDID IN (:buildIds) " +
+                        "ORDER BY VR.ID",
+                params("buildIds", ids(builds)),
+                buildIndex::get,
+                this::getValidationStamp,
+                validationRunStatusService
+        ).stream().collect(Collectors.groupingBy(run -> run.getBuild().getId()));
+    }
+
+    @Override
+    public Map<ID, List<ValidationRun>> getLastValidationRunsForBuilds(List<Build> builds, Function<String, ValidationRunStatusID> validationRunStatusService) {
+        if (builds.isEmpty()) {
+            return new HashMap<>();
+        }
+        Map<ID, Build> buildIndex = index(builds);
+        return loadValidationRuns(
+                "SELECT VR.*, VDR.DATA_TYPE_ID, VDR.DATA " +
+                        "FROM VALIDATION_RUNS VR " +
+                        "LEFT JOIN VALIDATION_RUN_DATA VDR ON VDR.VALIDATION_RUN = VR.ID " +
+                        "INNER JOIN VALIDATION_STAMPS VS ON VS.ID = VR.VALIDATIONSTAMPID " +
+                        "WHERE VR.ID IN (" +
+                        "SELECT VALIDATIONRUNID FROM BUILD_VALIDATION_STATE WHERE BUILDID IN (:buildIds)" +
+                        ") " +
+                        "ORDER BY VS.ORDERNB",
+                params("buildIds", ids(builds)),
+                buildIndex::get,
+                this::getValidationStamp,
+                validationRunStatusService
+        ).stream().collect(Collectors.groupingBy(run -> run.getBuild().getId()));
+    }
+
+    @Override
+    public BuildStatusSnapshot getBuildStatusSnapshot(Build build, Function<String, ValidationRunStatusID> validationRunStatusService) {
+        Map<Integer, ValidationRunStatusID> validations = new HashMap<>();
+        Set<Integer> promotions = new HashSet<>();
+        getNamedParameterJdbcTemplate().query(
+                // Last status of the last run for each validation stamp
+                "SELECT 'V' AS KIND, S.VALIDATIONSTAMPID AS ENTITYID, S.VALIDATIONRUNSTATUSID AS STATUS " +
+                        "FROM BUILD_VALIDATION_STATE S " +
+                        "WHERE S.BUILDID = :buildId " +
+                        "UNION ALL " +
+                        // Granted promotions
+                        "SELECT DISTINCT 'P' AS KIND, PR.PROMOTIONLEVELID AS ENTITYID, NULL AS STATUS " +
+                        "FROM PROMOTION_RUNS PR " +
+                        "WHERE PR.BUILDID = :buildId",
+                params("buildId", build.id()),
+                (RowCallbackHandler) rs -> {
+                    int entityId = rs.getInt("ENTITYID");
+                    if ("P".equals(rs.getString("KIND"))) {
+                        promotions.add(entityId);
+                    } else {
+                        String status = rs.getString("STATUS");
+                        if (status != null) {
+                            validations.put(entityId, validationRunStatusService.apply(status));
+                        }
+                    }
+                }
+        );
+        return new BuildStatusSnapshot(build, validations, promotions);
+    }
+
     @Override
     public List<ValidationRun> getValidationRunsForBuildAndValidationStamp(Build build, ValidationStamp validationStamp, Function<String, ValidationRunStatusID> validationRunStatusService) {
-        return getNamedParameterJdbcTemplate().query(
+        return loadValidationRuns(
                 "SELECT VR.*, VDR.DATA_TYPE_ID, VDR.DATA " +
                         "FROM VALIDATION_RUNS VR " +
                         "LEFT JOIN VALIDATION_RUN_DATA VDR ON VDR.VALIDATION_RUN = VR.ID " +
@@ -1129,18 +1378,15 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
                         "AND VR.VALIDATIONSTAMPID = :validationStampId " +
                         "ORDER BY VR.ID DESC ",
                 params("buildId", build.id()).addValue("validationStampId", validationStamp.id()),
-                (rs, rowNum) -> toValidationRun(
-                        rs,
-                        id -> build,
-                        id -> validationStamp,
-                        validationRunStatusService
-                )
+                id -> build,
+                id -> validationStamp,
+                validationRunStatusService
         );
     }
 
     @Override
     public List<ValidationRun> getValidationRunsForBuildAndValidationStamp(Build build, ValidationStamp validationStamp, int offset, int count, Function<String, ValidationRunStatusID> validationRunStatusService) {
-        return getNamedParameterJdbcTemplate().query(
+        return loadValidationRuns(
                 "SELECT VR.*, VDR.DATA_TYPE_ID, VDR.DATA " +
                         "FROM VALIDATION_RUNS VR " +
                         "LEFT JOIN VALIDATION_RUN_DATA VDR ON VDR.VALIDATION_RUN = VR.ID " +
@@ -1151,18 +1397,15 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
                 params("buildId", build.id()).addValue("validationStampId", validationStamp.id())
                         .addValue("limit", count)
                         .addValue("offset", offset),
-                (rs, rowNum) -> toValidationRun(
-                        rs,
-                        id -> build,
-                        id -> validationStamp,
-                        validationRunStatusService
-                )
+                id -> build,
+                id -> validationStamp,
+                validationRunStatusService
         );
     }
 
     @Override
     public List<ValidationRun> getValidationRunsForBuildAndValidationStampAndStatus(Build build, ValidationStamp validationStamp, List<ValidationRunStatusID> statuses, int offset, int count, Function<String, ValidationRunStatusID> validationRunStatusService) {
-        return getNamedParameterJdbcTemplate().query(
+        return loadValidationRuns(
                 "SELECT VR.*, VDR.DATA_TYPE_ID, VDR.DATA " +
                         "FROM VALIDATION_RUNS VR " +
                         "LEFT JOIN VALIDATION_RUN_DATA VDR ON VDR.VALIDATION_RUN = VR.ID " +
@@ -1176,12 +1419,9 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
                         .addValue("statuses", statuses.stream().map(ValidationRunStatusID::getId).collect(Collectors.toList()))
                         .addValue("limit", count)
                         .addValue("offset", offset),
-                (rs, rowNum) -> toValidationRun(
-                        rs,
-                        id -> build,
-                        id -> validationStamp,
-                        validationRunStatusService
-                )
+                id -> build,
+                id -> validationStamp,
+                validationRunStatusService
         );
     }
 
@@ -1196,7 +1436,7 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
 
     @Override
     public List<ValidationRun> getValidationRunsForValidationStamp(ValidationStamp validationStamp, int offset, int count, Function<String, ValidationRunStatusID> validationRunStatusService) {
-        return getNamedParameterJdbcTemplate().query(
+        return loadValidationRuns(
                 "SELECT VR.*, VDR.DATA_TYPE_ID, VDR.DATA " +
                         "FROM VALIDATION_RUNS VR " +
                         "LEFT JOIN VALIDATION_RUN_DATA VDR ON VDR.VALIDATION_RUN = VR.ID " +
@@ -1206,18 +1446,44 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
                 params("validationStampId", validationStamp.id())
                         .addValue("limit", count)
                         .addValue("offset", offset),
-                (rs, rowNum) -> toValidationRun(
-                        rs,
-                        this::getBuild,
-                        id -> validationStamp,
-                        validationRunStatusService
-                )
+                this::getBuild,
+                id -> validationStamp,
+                validationRunStatusService
+        );
+    }
+
+    @Override
+    public Map<ID, List<ValidationRunStatusID>> getLastValidationRunStatusesForValidationStamps(List<ValidationStamp> validationStamps, int count, Function<String, ValidationRunStatusID> validationRunStatusService) {
+        Map<ID, List<ValidationRunStatusID>> result = new HashMap<>();
+        if (validationStamps.isEmpty()) {
+            return result;
+        }
+        getNamedParameterJdbcTemplate().query(
+                "SELECT VS.ID AS VALIDATIONSTAMPID, R.STATUS FROM VALIDATION_STAMPS VS " +
+                        "INNER JOIN LATERAL (" +
+                        "SELECT VR.BUILDID, VR.ID, " + LAST_VALIDATION_RUN_STATUS + " AS STATUS " +
+                        "FROM VALIDATION_RUNS VR " +
+                        "WHERE VR.VALIDATIONSTAMPID = VS.ID " +
+                        "ORDER BY VR.BUILDID DESC, VR.ID DESC " +
+                        "LIMIT :count" +
+                        ") R ON TRUE " +
+                        "WHERE VS.ID IN (:validationStampIds) " +
+                        "ORDER BY VS.ID, R.BUILDID DESC, R.ID DESC",
+                params("validationStampIds", ids(validationStamps)).addValue("count", count),
+                (RowCallbackHandler) rs -> {
+                    String status = rs.getString("STATUS");
+                    if (status != null) {
+                        result.computeIfAbsent(id(rs, "VALIDATIONSTAMPID"), id -> new ArrayList<>())
+                                .add(validationRunStatusService.apply(status));
+                    }
+                }
         );
+        return result;
     }
 
     @Override
     public List<ValidationRun> getValidationRunsForValidationStampAndStatus(ValidationStamp validationStamp, List<ValidationRunStatusID> statuses, int offset, int count, Function<String, ValidationRunStatusID> validationRunStatusService) {
-        return getNamedParameterJdbcTemplate().query(
+        return loadValidationRuns(
                 "SELECT VR.*, VDR.DATA_TYPE_ID, VDR.DATA " +
                         "FROM VALIDATION_RUNS VR " +
                         "LEFT JOIN VALIDATION_RUN_DATA VDR ON VDR.VALIDATION_RUN = VR.ID " +
@@ -1230,18 +1496,15 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
                         .addValue("statuses", statuses.stream().map(ValidationRunStatusID::getId).collect(Collectors.toList()))
                         .addValue("limit", count)
                         .addValue("offset", offset),
-                (rs, rowNum) -> toValidationRun(
-                        rs,
-                        this::getBuild,
-                        id -> validationStamp,
-                        validationRunStatusService
-                )
+                this::getBuild,
+                id -> validationStamp,
+                validationRunStatusService
         );
     }
 
     @Override
     public List<ValidationRun> getValidationRunsForStatus(Branch branch, List<ValidationRunStatusID> statuses, int offset, int count, Function<String, ValidationRunStatusID> validationRunStatusService) {
-        return getNamedParameterJdbcTemplate().query(
+        return loadValidationRuns(
                 "SELECT VR.*, VDR.DATA_TYPE_ID, VDR.DATA " +
                         "FROM VALIDATION_RUNS VR " +
                         "LEFT JOIN VALIDATION_RUN_DATA VDR ON VDR.VALIDATION_RUN = VR.ID " +
@@ -1255,12 +1518,9 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
                         .addValue("statuses", statuses.stream().map(ValidationRunStatusID::getId).collect(Collectors.toList()))
                         .addValue("limit", count)
                         .addValue("offset", offset),
-                (rs, rowNum) -> toValidationRun(
-                        rs,
-                        this::getBuild,
-                        this::getValidationStamp,
-                        validationRunStatusService
-                )
+                this::getBuild,
+                this::getValidationStamp,
+                validationRunStatusService
         );
     }
 
@@ -1277,10 +1537,44 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
     public ValidationRun newValidationRunStatus(ValidationRun validationRun, ValidationRunStatus runStatus) {
         // Saves the new status
         newValidationRunStatus(validationRun.id(), runStatus);
+        // Last status for this build & validation stamp
+        refreshBuildValidationState(validationRun.id());
         // OK
         return validationRun.add(runStatus);
     }
 
+    @Override
+    public int rebuildBuildValidationStates() {
+        getJdbcTemplate().update("DELETE FROM BUILD_VALIDATION_STATE");
+        return getJdbcTemplate().update(
+                "INSERT INTO BUILD_VALIDATION_STATE (BUILDID, VALIDATIONSTAMPID, VALIDATIONRUNID, VALIDATIONRUNSTATUSID) " +
+                        "SELECT VR.BUILDID, VR.VALIDATIONSTAMPID, VR.ID, " + LAST_VALIDATION_RUN_STATUS + " " +
+                        "FROM VALIDATION_RUNS VR " +
+                        "WHERE VR.ID IN (SELECT MAX(ID) FROM VALIDATION_RUNS GROUP BY BUILDID, VALIDATIONSTAMPID)"
+        );
+    }
+
+    /**
+     * Updates the last run and status for the build and validation stamp of a given run.
+     */
+    protected void refreshBuildValidationState(int validationRunId) {
+        getNamedParameterJdbcTemplate().update(
+                "INSERT INTO BUILD_VALIDATION_STATE (BUILDID, VALIDATIONSTAMPID, VALIDATIONRUNID, VALIDATIONRUNSTATUSID) " +
+                        "SELECT VR.BUILDID, VR.VALIDATIONSTAMPID, VR.ID, " + LAST_VALIDATION_RUN_STATUS + " " +
+                        "FROM VALIDATION_RUNS VR " +
+                        "WHERE VR.ID = (" +
+                        "SELECT MAX(R.ID) FROM VALIDATION_RUNS R " +
+                        "INNER JOIN VALIDATION_RUNS X ON X.BUILDID = R.BUILDID AND X.VALIDATIONSTAMPID = R.VALIDATIONSTAMPID " +
+                        "WHERE X.ID = :validationRunId" +
+                        ") " +
+                        "ON CONFLICT (BUILDID, VALIDATIONSTAMPID) DO UPDATE " +
+                        "SET VALIDATIONRUNID = EXCLUDED.VALIDATIONRUNID, VALIDATIONRUNSTATUSID = EXCLUDED.VALIDATIONRUNSTATUSID " +
+                        // A concurrent refresh for an older run must not overwrite a newer state
+                        "WHERE EXCLUDED.VALIDATIONRUNID >= BUILD_VALIDATION_STATE.VALIDATIONRUNID",
+                params("validationRunId", validationRunId)
+        );
+    }
+
     @NotNull
     @Override
     public ValidationRun getParentValidationRun(@NotNull ID validationRunStatusId, Function<String, ValidationRunStatusID> validationRunStatusService) {
@@ -1333,36 +1627,93 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
         );
     }
 
-    protected ValidationRun toValidationRun(ResultSet rs,
-                                            Function<ID, Build> buildSupplier,
-                                            Function<ID, ValidationStamp> validationStampSupplier,
-                                            Function<String, ValidationRunStatusID> validationRunStatusService) throws SQLException {
-        int id = rs.getInt("id");
-        // Statuses
-        List<ValidationRunStatus> statuses = getNamedParameterJdbcTemplate().query(
-                "SELECT * FROM VALIDATION_RUN_STATUSES WHERE VALIDATIONRUNID = :validationRunId ORDER BY CREATION DESC",
-                params("validationRunId", id),
-                (rs1, rowNum) -> toValidationRunStatus(rs1, validationRunStatusService)
-        );
-        // Build & validation stamp
-        ID buildId = id(rs, "buildId");
-        ID validationStampId = id(rs, "validationStampId");
-        // Run order
-        int runOrder = getNamedParameterJdbcTemplate().queryForObject(
-                "SELECT COUNT(*) FROM VALIDATION_RUNS WHERE BUILDID=:buildId AND VALIDATIONSTAMPID=:validationStampId AND ID <= :id",
-                params("id", id).addValue("buildId", buildId.getValue()).addValue("validationStampId", validationStampId.getValue()),
-                Integer.class
-        );
-        // Run itself
-        return ValidationRun.of(
-                buildSupplier.apply(buildId),
-                validationStampSupplier.apply(validationStampId),
-                runOrder,
-                statuses
-        )
-                .withId(ID.of(id))
-                .withData(readValidationRunData(rs))
-                ;
+    /**
+     * Loads a list of validation runs, using the given SQL to get the raw runs, and then loading
+     * their statuses and run orders in bulk.
+     *
+     * @param sql                        Query returning the <code>VALIDATION_RUNS</code> and <code>VALIDATION_RUN_DATA</code> columns
+     * @param criteria                   Parameters for the query
+     * @param buildSupplier              Gets a build from its ID
+     * @param validationStampSupplier    Gets a validation stamp from its ID
+     * @param validationRunStatusService Gets a validation run status from its ID
+     * @return List of validation runs, in the order returned by the query
+     */
+    protected List<ValidationRun> loadValidationRuns(String sql,
+                                                     MapSqlParameterSource criteria,
+                                                     Function<ID, Build> buildSupplier,
+                                                     Function<ID, ValidationStamp> validationStampSupplier,
+                                                     Function<String, ValidationRunStatusID> validationRunStatusService) {
+        List<ValidationRunRow> rows = getNamedParameterJdbcTemplate().query(
+                sql,
+                criteria,
+                (rs, rowNum) -> toValidationRunRow(rs)
+        );
+        return toValidationRuns(rows, buildSupplier, validationStampSupplier, validationRunStatusService);
+    }
+
+    protected ValidationRunRow toValidationRunRow(ResultSet rs) throws SQLException {
+        return new ValidationRunRow(
+                rs.getInt("id"),
+                id(rs, "buildId"),
+                id(rs, "validationStampId"),
+                readValidationRunData(rs)
+        );
+    }
+
+    /**
+     * Completes a list of raw validation runs with their statuses and their run orders. The statuses
+     * and the run orders are loaded using one query each per chunk of {@link #VALIDATION_RUN_BATCH_SIZE} runs.
+     */
+    protected List<ValidationRun> toValidationRuns(List<ValidationRunRow> rows,
+                                                   Function<ID, Build> buildSupplier,
+                                                   Function<ID, ValidationStamp> validationStampSupplier,
+                                                   Function<String, ValidationRunStatusID> validationRunStatusService) {
+        if (rows.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // Builds & validation stamps are loaded only once
+        Map<ID, Build> builds = new HashMap<>();
+        Map<ID, ValidationStamp> validationStamps = new HashMap<>();
+        // Loading by chunks
+        List<ValidationRun> runs = new ArrayList<>(rows.size());
+        for (int start = 0; start < rows.size(); start += VALIDATION_RUN_BATCH_SIZE) {
+            List<ValidationRunRow> chunk = rows.subList(start, Math.min(rows.size(), start + VALIDATION_RUN_BATCH_SIZE));
+            List<Integer> ids = chunk.stream().map(ValidationRunRow::getId).collect(Collectors.toList());
+            // Statuses of all the runs
+            Map<Integer, List<ValidationRunStatus>> statuses = new HashMap<>();
+            getNamedParameterJdbcTemplate().query(
+                    "SELECT * FROM VALIDATION_RUN_STATUSES WHERE VALIDATIONRUNID IN (:ids) ORDER BY CREATION DESC, ID DESC",
+                    params("ids", ids),
+                    (RowCallbackHandler) rs -> statuses
+                            .computeIfAbsent(rs.getInt("validationRunId"), id -> new ArrayList<>())
+                            .add(toValidationRunStatus(rs, validationRunStatusService))
+            );
+            // Run orders, computed over all the runs of the same build & validation stamp
+            Map<Integer, Integer> runOrders = new HashMap<>();
+            getNamedParameterJdbcTemplate().query(
+                    "SELECT ID, RUN_ORDER FROM (" +
+                            "SELECT ID, ROW_NUMBER() OVER (PARTITION BY BUILDID, VALIDATIONSTAMPID ORDER BY ID) AS RUN_ORDER " +
+                            "FROM VALIDATION_RUNS " +
+                            "WHERE (BUILDID, VALIDATIONSTAMPID) IN (SELECT BUILDID, VALIDATIONSTAMPID FROM VALIDATION_RUNS WHERE ID IN (:ids))" +
+                            ") AS RUNS WHERE ID IN (:ids)",
+                    params("ids", ids),
+                    (RowCallbackHandler) rs -> runOrders.put(rs.getInt("id"), rs.getInt("run_order"))
+            );
+            // Runs themselves
+            for (ValidationRunRow row : chunk) {
+                runs.add(
+                        ValidationRun.of(
+                                builds.computeIfAbsent(row.getBuildId(), buildSupplier),
+                                validationStamps.computeIfAbsent(row.getValidationStampId(), validationStampSupplier),
+                                runOrders.getOrDefault(row.getId(), 0),
+                                statuses.getOrDefault(row.getId(), Collections.emptyList())
+                        )
+                                .withId(ID.of(row.getId()))
+                                .withData(row.getData())
+                );
+            }
+        }
+        return runs;
     }
 
     protected PromotionLevel toPromotionLevel(ResultSet rs, Function<ID, Branch> branchSupplier) throws SQLException {
@@ -1414,6 +1765,9 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
         }
     }
 
+    /**
+     * Reads a branch from a row returned by a {@link #BRANCH_SELECT} query.
+     */
     protected Branch toBranch(ResultSet rs, Function<ID, Project> projectSupplier) throws SQLException {
         ID projectId = id(rs, "projectId");
         ID branchId = id(rs);
@@ -1426,14 +1780,14 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
         )
                 .withId(branchId)
                 .withSignature(readSignature(rs))
-                .withType(getBranchType(branchId))
+                .withType(toBranchType(rs))
                 .withDisabled(rs.getBoolean("disabled"));
     }
 
-    private BranchType getBranchType(ID branchId) {
-        if (branchTemplateRepository.isTemplateDefinition(branchId)) {
+    private BranchType toBranchType(ResultSet rs) throws SQLException {
+        if (rs.getBoolean("templateDefinition")) {
             return BranchType.TEMPLATE_DEFINITION;
-        } else if (branchTemplateRepository.isTemplateInstance(branchId)) {
+        } else if (rs.getBoolean("templateInstance")) {
             return BranchType.TEMPLATE_INSTANCE;
         } else {
             return BranchType.CLASSIC;
@@ -1450,4 +1804,38 @@ public class StructureJdbcRepository extends AbstractJdbcRepository implements S
                 .withDisabled(rs.getBoolean("disabled"));
     }
 
+    /**
+     * Validation run as read from the database, before its statuses and run order are loaded.
+     */
+    protected static class ValidationRunRow {
+
+        private final int id;
+        private final ID buildId;
+        private final ID validationStampId;
+        private final ValidationRunData<?> data;
+
+        ValidationRunRow(int id, ID buildId, ID validationStampId, ValidationRunData<?> data) {
+            this.id = id;
+            this.buildId = buildId;
+            this.validationStampId = validationStampId;
+            this.data = data;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public ID getBuildId() {
+            return buildId;
+        }
+
+        public ID getValidationStampId() {
+            return validationStampId;
+        }
+
+        public ValidationRunData<?> getData() {
+            return data;
+        }
+    }
+
 }
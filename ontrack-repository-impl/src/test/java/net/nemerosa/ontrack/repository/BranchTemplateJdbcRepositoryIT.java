@@ -7,7 +7,10 @@ import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -103,4 +106,29 @@ public class BranchTemplateJdbcRepositoryIT extends AbstractRepositoryTestSuppor
         );
     }
 
+    @Test
+    public void branch_types_in_branch_list() {
+        Project project = branch.getProject();
+        Branch template = structureRepository.newBranch(Branch.of(project, nameDescription()));
+        Branch instance = structureRepository.newBranch(Branch.of(project, nameDescription()));
+        repository.setTemplateDefinition(
+                template.getId(),
+                new TemplateDefinition(
+                        Collections.emptyList(),
+                        new ServiceConfiguration("fixedList", JsonUtils.stringArray("1.0")),
+                        TemplateSynchronisationAbsencePolicy.DELETE,
+                        10
+                )
+        );
+        repository.setTemplateInstance(instance.getId(), new TemplateInstance(template.getId(), Collections.emptyList()));
+        // Branch types in the list of branches
+        Map<ID, BranchType> types = structureRepository.getBranchesForProject(project.getId()).stream()
+                .collect(Collectors.toMap(Branch::getId, Branch::getType));
+        assertEquals(BranchType.CLASSIC, types.get(branch.getId()));
+        assertEquals(BranchType.TEMPLATE_DEFINITION, types.get(template.getId()));
+        assertEquals(BranchType.TEMPLATE_INSTANCE, types.get(instance.getId()));
+        // Branch type for a single branch
+        assertEquals(BranchType.TEMPLATE_INSTANCE, structureRepository.getBranch(instance.getId()).getType());
+    }
+
 }
@@ -0,0 +1,40 @@
+package net.nemerosa.ontrack.repository
+
+import net.nemerosa.ontrack.test.TestUtils.uid
+import org.junit.Test
+import org.springframework.beans.factory.annotation.Autowired
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+class JobLeaseJdbcRepositoryIT : AbstractRepositoryTestSupport() {
+
+    @Autowired
+    private lateinit var repository: JobLeaseRepository
+
+    @Test
+    fun `Lease owned by one node only`() {
+        val key = uid("J")
+        assertTrue(repository.acquire(key, "A", 60), "Lease acquired by A")
+        assertTrue(repository.acquire(key, "A", 60), "Lease renewed by A")
+        assertFalse(repository.acquire(key, "B", 60), "Lease not acquired by B")
+    }
+
+    @Test
+    fun `Lease taken over when expired`() {
+        val key = uid("J")
+        assertTrue(repository.acquire(key, "A", -1), "Lease acquired by A")
+        assertTrue(repository.acquire(key, "B", 60), "Expired lease acquired by B")
+        assertFalse(repository.acquire(key, "A", 60), "Lease not acquired by A")
+    }
+
+    @Test
+    fun `Lease available after release`() {
+        val key = uid("J")
+        assertTrue(repository.acquire(key, "A", 60), "Lease acquired by A")
+        repository.release(key, "B")
+        assertFalse(repository.acquire(key, "B", 60), "Lease not released by another node")
+        repository.releaseAll("A")
+        assertTrue(repository.acquire(key, "B", 60), "Lease acquired by B after release")
+    }
+
+}
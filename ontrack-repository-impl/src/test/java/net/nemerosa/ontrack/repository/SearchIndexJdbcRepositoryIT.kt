@@ -0,0 +1,119 @@
+package net.nemerosa.ontrack.repository
+
+import net.nemerosa.ontrack.model.search.SearchEqQuery
+import net.nemerosa.ontrack.model.search.SearchGtQuery
+import net.nemerosa.ontrack.model.search.SearchOrQuery
+import net.nemerosa.ontrack.test.TestUtils.uid
+import org.junit.Test
+import org.springframework.beans.factory.annotation.Autowired
+import javax.sql.DataSource
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+class SearchIndexJdbcRepositoryIT : AbstractRepositoryTestSupport() {
+
+    @Autowired
+    private lateinit var repository: SearchIndexRepository
+
+    @Autowired
+    private lateinit var dataSource: DataSource
+
+    private fun record(id: String, name: String, description: String, value: Int = 0, projectId: Int? = null) = SearchIndexRecord(
+            id = id,
+            fields = mapOf("name" to name, "description" to description, "value" to value),
+            keywords = listOf(SearchIndexTerm(name, SearchIndexWeight.A)),
+            texts = listOf(SearchIndexTerm(description, SearchIndexWeight.D)),
+            projectId = projectId
+    )
+
+    @Test
+    fun `Only changed records are written`() {
+        val index = uid("I")
+        assertEquals(2, repository.save(index, listOf(record("1", "one", "First"), record("2", "two", "Second"))))
+        assertEquals(1, repository.save(index, listOf(record("1", "one", "First"), record("2", "two", "Second record"))))
+        assertEquals(0, repository.save(index, listOf(record("2", "two", "Other")), update = false))
+        assertEquals(setOf("1", "2"), repository.findExistingIds(index, listOf("1", "2", "3")))
+    }
+
+    @Test
+    fun `Exact keyword ranked before text`() {
+        val index = uid("I")
+        repository.save(index, listOf(
+                record("1", "release-1.0", "Delivery of the alpha version"),
+                record("2", "alpha", "Version 1.0"),
+                record("3", "beta", "Not related")
+        ))
+        val hits = repository.search(listOf(index), "Alpha", null, 0, 10)
+        assertEquals(2, hits.total)
+        assertEquals(listOf("2", "1"), hits.hits.map { it.id })
+        assertEquals("alpha", hits.hits.first().fields.path("name").asText())
+    }
+
+    @Test
+    fun `Partial keyword match`() {
+        val index = uid("I")
+        repository.save(index, listOf(
+                record("1", "7a3b9c01d2", "Some commit"),
+                record("2", "f00dcafe00", "Other commit")
+        ))
+        val hits = repository.search(listOf(index), "7a3b9", null, 0, 10)
+        assertEquals(listOf("1"), hits.hits.map { it.id })
+    }
+
+    @Test
+    fun `Partial keyword match scored with the trigrams`() {
+        // Own instance, since the extension only exists in the transaction of the test
+        val trigramRepository = SearchIndexJdbcRepository(dataSource)
+        assertTrue(trigramRepository.enablePartialMatching(), "Trigrams are enabled")
+        val index = uid("I")
+        trigramRepository.save(index, listOf(
+                record("1", "7a3b9c01d2e4f5a6b7c8", "Some commit"),
+                record("2", "7a3b9c", "Other commit"),
+                record("3", "f00dcafe00", "Unrelated commit")
+        ))
+        val hits = trigramRepository.search(listOf(index), "7a3b9", null, 0, 10)
+        // Closest match first
+        assertEquals(listOf("2", "1"), hits.hits.map { it.id })
+        assertTrue(hits.hits.all { it.score > 0 }, "Partial matches are scored")
+    }
+
+    @Test
+    fun `Search restricted to indexes`() {
+        val index = uid("I")
+        val other = uid("O")
+        repository.save(index, listOf(record("1", "shared", "In index")))
+        repository.save(other, listOf(record("1", "shared", "In other index")))
+        assertEquals(1, repository.search(listOf(index), "shared", null, 0, 10).total)
+        assertEquals(2, repository.search(listOf(index, other), "shared", null, 0, 10).total)
+        repository.deleteAll(other)
+        assertEquals(1, repository.search(listOf(index, other), "shared", null, 0, 10).total)
+    }
+
+    @Test
+    fun `Search restricted to projects`() {
+        val index = uid("I")
+        repository.save(index, listOf(
+                record("1", "shared", "No project"),
+                record("2", "shared", "Project 1", projectId = 1),
+                record("3", "shared", "Project 2", projectId = 2)
+        ))
+        assertEquals(setOf("1", "2", "3"), repository.search(listOf(index), "shared", null, 0, 10).hits.map { it.id }.toSet())
+        assertEquals(setOf("1", "2"), repository.search(listOf(index), "shared", listOf(1), 0, 10).hits.map { it.id }.toSet())
+        assertEquals(setOf("1"), repository.search(listOf(index), "shared", emptyList(), 0, 10).hits.map { it.id }.toSet())
+    }
+
+    @Test
+    fun `Query on fields`() {
+        val index = uid("I")
+        repository.save(index, listOf(
+                record("1", "one", "First", 1),
+                record("2", "two", "Second", 2),
+                record("3", "three", "Third", 3)
+        ))
+        val results = repository.query(index, SearchOrQuery(SearchEqQuery("name", "one"), SearchGtQuery("value", 2)), 0, 10)
+        assertEquals(listOf("one", "three"), results.map { it.path("name").asText() })
+        repository.delete(index, "3")
+        assertTrue(repository.query(index, SearchGtQuery("value", 2), 0, 10).isEmpty())
+    }
+
+}
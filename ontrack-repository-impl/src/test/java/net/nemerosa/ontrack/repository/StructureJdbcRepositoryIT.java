@@ -4,6 +4,11 @@ import net.nemerosa.ontrack.model.structure.*;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 import static net.nemerosa.ontrack.test.TestUtils.uid;
 import static org.junit.Assert.*;
 
@@ -96,4 +101,47 @@ public class StructureJdbcRepositoryIT extends AbstractRepositoryTestSupport {
         assertTrue("Project must be disabled", p.isDisabled());
     }
 
+    @Test
+    public void validation_runs_with_statuses_and_run_orders() {
+        Function<String, ValidationRunStatusID> statuses = id -> ValidationRunStatusID.of(id, id, true, ValidationRunStatusID.PASSED.equals(id));
+        Branch branch = do_create_branch();
+        Build build = structureRepository.newBuild(Build.of(branch, nameDescription(), Signature.of("test")));
+        ValidationStamp vs1 = structureRepository.newValidationStamp(ValidationStamp.of(branch, nameDescription()));
+        ValidationStamp vs2 = structureRepository.newValidationStamp(ValidationStamp.of(branch, nameDescription()));
+        // Runs for both validation stamps, interleaved
+        ValidationRun r1 = do_create_validation_run(build, vs1, ValidationRunStatusID.STATUS_FAILED, statuses);
+        ValidationRun r2 = do_create_validation_run(build, vs2, ValidationRunStatusID.STATUS_PASSED, statuses);
+        ValidationRun r3 = do_create_validation_run(build, vs1, ValidationRunStatusID.STATUS_PASSED, statuses);
+        // Adds a status to the first run
+        structureRepository.newValidationRunStatus(r1, new ValidationRunStatus(ID.NONE, Signature.of("test"), ValidationRunStatusID.STATUS_INVESTIGATING, "Investigating"));
+        // Loads all the runs at once
+        List<ValidationRun> runs = structureRepository.getValidationRunsForBuild(build, statuses);
+        assertEquals(
+                Arrays.asList(r1.getId(), r2.getId(), r3.getId()),
+                runs.stream().map(ValidationRun::getId).collect(Collectors.toList())
+        );
+        assertEquals(
+                Arrays.asList(1, 1, 2),
+                runs.stream().map(ValidationRun::getRunOrder).collect(Collectors.toList())
+        );
+        assertEquals(
+                Arrays.asList(ValidationRunStatusID.INVESTIGATING, ValidationRunStatusID.FAILED),
+                runs.get(0).getValidationRunStatuses().stream().map(s -> s.getStatusID().getId()).collect(Collectors.toList())
+        );
+        assertEquals(ValidationRunStatusID.PASSED, runs.get(1).getLastStatus().getStatusID().getId());
+        assertEquals(ValidationRunStatusID.PASSED, runs.get(2).getLastStatus().getStatusID().getId());
+        // Paginated runs keep their run order
+        List<ValidationRun> page = structureRepository.getValidationRunsForValidationStamp(vs1, 0, 1, statuses);
+        assertEquals(1, page.size());
+        assertEquals(r3.getId(), page.get(0).getId());
+        assertEquals(2, page.get(0).getRunOrder());
+    }
+
+    private ValidationRun do_create_validation_run(Build build, ValidationStamp validationStamp, ValidationRunStatusID statusID, Function<String, ValidationRunStatusID> statuses) {
+        return structureRepository.newValidationRun(
+                ValidationRun.of(build, validationStamp, 0, Signature.of("test"), statusID, ""),
+                statuses
+        );
+    }
+
 }
@@ -104,11 +104,11 @@ public abstract class AbstractJdbcRepository extends NamedParameterJdbcDaoSuppor
         return Time.fromStorage(value);
     }
 
-    protected Signature readSignature(ResultSet rs) throws SQLException {
+    protected static Signature readSignature(ResultSet rs) throws SQLException {
         return readSignature(rs, "creation", "creator");
     }
 
-    protected Signature readSignature(ResultSet rs, String creationColumn, String creatorColumn) throws SQLException {
+    protected static Signature readSignature(ResultSet rs, String creationColumn, String creatorColumn) throws SQLException {
         return Signature.of(
                 dateTimeFromDB(rs.getString(creationColumn)),
                 rs.getString(creatorColumn)
@@ -0,0 +1,53 @@
+package net.nemerosa.ontrack.repository
+
+/**
+ * Broadcasts the invalidations of the local caches to the other nodes of a cluster.
+ */
+interface CacheInvalidationBus {
+
+    /**
+     * Notifies the other nodes that an entry of a cache must be evicted.
+     *
+     * @param cache Name of the cache
+     * @param key Key of the entry to evict
+     */
+    fun evict(cache: String, key: String)
+
+    /**
+     * Notifies the other nodes that a cache must be cleared.
+     *
+     * @param cache Name of the cache
+     */
+    fun clear(cache: String)
+
+    /**
+     * Starts listening to the invalidations sent by the other nodes.
+     *
+     * @param listener Applies the invalidations to the local caches
+     */
+    fun listen(listener: CacheInvalidationListener)
+
+}
+
+/**
+ * Applies the invalidations received from the other nodes.
+ */
+interface CacheInvalidationListener {
+
+    /**
+     * Evicts an entry of a local cache.
+     *
+     * @param cache Name of the cache
+     * @param key Key of the entry to evict
+     */
+    fun evict(cache: String, key: String)
+
+    /**
+     * Clears a local cache.
+     *
+     * @param cache Name of the cache, or `null` when all the caches must be cleared because
+     * some invalidations may have been missed
+     */
+    fun clear(cache: String?)
+
+}
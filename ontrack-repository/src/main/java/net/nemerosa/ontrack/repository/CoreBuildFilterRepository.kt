@@ -2,6 +2,8 @@ package net.nemerosa.ontrack.repository
 
 import net.nemerosa.ontrack.model.structure.Branch
 import net.nemerosa.ontrack.model.structure.Build
+import net.nemerosa.ontrack.model.structure.BuildSearchForm
+import net.nemerosa.ontrack.model.structure.Project
 import net.nemerosa.ontrack.model.structure.PropertyType
 import net.nemerosa.ontrack.model.structure.StandardBuildFilterData
 import java.util.Optional
@@ -20,4 +22,24 @@ interface CoreBuildFilterRepository {
 
     fun between(branch: Branch, from: String?, to: String?): List<Build>
 
+    /**
+     * Search of builds in a project, the most recent first.
+     *
+     * The criteria of the [form] are run in one query. The ones which cannot be expressed
+     * in SQL are returned in a residual form, checked by [residualFilter] on each build
+     * returned by the query.
+     *
+     * @param project Project to look into
+     * @param form Search criteria
+     * @param propertyTypeAccessor Access to the property types, by name
+     * @param residualFilter Check of the criteria which could not be translated
+     * @return List of builds, limited to [BuildSearchForm.maximumCount]
+     */
+    fun projectSearch(
+            project: Project,
+            form: BuildSearchForm,
+            propertyTypeAccessor: (String) -> PropertyType<*>,
+            residualFilter: (Build, BuildSearchForm) -> Boolean
+    ): List<Build>
+
 }
@@ -0,0 +1,45 @@
+package net.nemerosa.ontrack.repository
+
+/**
+ * Storage of the leases on the jobs, shared between all the nodes of a cluster.
+ *
+ * All the expiration times are computed using the clock of the database, so
+ * that the nodes do not need to be synchronized.
+ */
+interface JobLeaseRepository {
+
+    /**
+     * Acquires or renews a lease for a node. This succeeds only if the lease is
+     * not owned by another node, or if this other lease has expired.
+     *
+     * @param key Key of the job
+     * @param node ID of the node
+     * @param duration Duration of the lease, in seconds
+     * @return `true` if the node owns the lease
+     */
+    fun acquire(key: String, node: String, duration: Int): Boolean
+
+    /**
+     * Renews all the leases owned by a node.
+     *
+     * @param node ID of the node
+     * @param duration Duration of the leases, in seconds
+     */
+    fun renew(node: String, duration: Int)
+
+    /**
+     * Releases a lease if owned by the node.
+     *
+     * @param key Key of the job
+     * @param node ID of the node
+     */
+    fun release(key: String, node: String)
+
+    /**
+     * Releases all the leases owned by a node.
+     *
+     * @param node ID of the node
+     */
+    fun releaseAll(node: String)
+
+}
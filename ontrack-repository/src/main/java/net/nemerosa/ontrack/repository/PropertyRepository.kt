@@ -18,6 +18,16 @@ interface PropertyRepository {
 
     fun loadProperty(typeName: String, entityType: ProjectEntityType, entityId: ID): TProperty?
 
+    /**
+     * Loads a property for several entities of the same type, using one query.
+     *
+     * @param typeName   Fully qualified name of the property type
+     * @param entityType Type of the entities
+     * @param entityIds  IDs of the entities
+     * @return Properties indexed by entity ID. Entities without any value for this property are not returned.
+     */
+    fun loadProperties(typeName: String, entityType: ProjectEntityType, entityIds: Collection<ID>): Map<ID, TProperty>
+
     fun saveProperty(typeName: String, entityType: ProjectEntityType, entityId: ID, data: JsonNode)
 
     fun deleteProperty(typeName: String, entityType: ProjectEntityType, entityId: ID): Ack
@@ -0,0 +1,134 @@
+package net.nemerosa.ontrack.repository
+
+import com.fasterxml.jackson.databind.JsonNode
+import net.nemerosa.ontrack.model.search.SearchQuery
+
+/**
+ * Storage of the search indexes in the database, using full text search.
+ */
+interface SearchIndexRepository {
+
+    /**
+     * Gets the IDs which are already indexed among a list of IDs.
+     *
+     * @param index Name of the index
+     * @param ids IDs to look for
+     * @return Subset of the [ids] which are present in the index
+     */
+    fun findExistingIds(index: String, ids: Collection<String>): Set<String>
+
+    /**
+     * Inserts or updates some records in an index. Records whose fields have not changed
+     * are not written again.
+     *
+     * @param index Name of the index
+     * @param records Records to save
+     * @param update `false` to leave the existing records as they are
+     * @return Number of records actually written
+     */
+    fun save(index: String, records: Collection<SearchIndexRecord>, update: Boolean = true): Int
+
+    /**
+     * Deletes a record from an index
+     */
+    fun delete(index: String, id: String)
+
+    /**
+     * Removes all the records of an index
+     */
+    fun deleteAll(index: String)
+
+    /**
+     * Indexes the keywords for partial matches, using the trigrams of the `pg_trgm` extension.
+     * Creating this extension needs privileges which the Ontrack database user may not have.
+     * Without it, partial matches are still found, but without index and without similarity score.
+     *
+     * @return `true` if the partial matches are indexed
+     */
+    fun enablePartialMatching(): Boolean
+
+    /**
+     * Full text search among some indexes.
+     *
+     * @param indexes Names of the indexes to look into
+     * @param token Text to look for
+     * @param projectIds If not `null`, restricts the hits to the records having no project or one of these projects
+     * @param offset Offset of the first hit to return
+     * @param size Maximum number of hits to return
+     * @return Page of hits, sorted by decreasing score
+     */
+    fun search(indexes: Collection<String>, token: String, projectIds: Collection<Int>?, offset: Int, size: Int): SearchIndexHits
+
+    /**
+     * Looks for records using the values of their fields.
+     *
+     * @param index Name of the index
+     * @param query Query on the fields
+     * @param offset Offset of the first record to return
+     * @param size Maximum number of records to return
+     * @return Fields of the records
+     */
+    fun query(index: String, query: SearchQuery, offset: Int, size: Int): List<JsonNode>
+
+}
+
+/**
+ * Relative weight of a term in the ranking of the search results.
+ */
+enum class SearchIndexWeight {
+    A, B, C, D
+}
+
+/**
+ * Term to index.
+ *
+ * @property value Value to index
+ * @property weight Weight of this term
+ */
+class SearchIndexTerm(
+        val value: String,
+        val weight: SearchIndexWeight
+)
+
+/**
+ * Record to store into an index.
+ *
+ * @property id ID of the record in its index
+ * @property fields Fields of the record, returned as such by the searches
+ * @property keywords Terms to match exactly or partially
+ * @property texts Terms to analyze as words
+ * @property projectId ID of the project the record belongs to, if any
+ */
+class SearchIndexRecord(
+        val id: String,
+        val fields: Map<String, Any?>,
+        val keywords: List<SearchIndexTerm>,
+        val texts: List<SearchIndexTerm>,
+        val projectId: Int? = null
+)
+
+/**
+ * Search hit
+ *
+ * @property index Name of the index
+ * @property id ID of the record in its index
+ * @property score Score of the hit
+ * @property fields Fields of the record
+ */
+class SearchIndexHit(
+        val index: String,
+        val id: String,
+        val score: Double,
+        val fields: JsonNode
+)
+
+/**
+ * Page of search hits
+ *
+ * @property hits Hits in this page
+ * @property total Total number of hits
+ */
+class SearchIndexHits(
+        val hits: List<SearchIndexHit>,
+        val total: Int
+)
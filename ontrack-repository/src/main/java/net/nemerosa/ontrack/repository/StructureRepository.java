@@ -7,6 +7,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -109,6 +110,14 @@ public interface StructureRepository {
 
     Build getLastBuildForBranch(Branch branch);
 
+    /**
+     * Gets the last build of each of the given branches, using one query.
+     *
+     * @param branches Branches to get the last build for
+     * @return Last builds, indexed by branch ID. Branches without any build are not indexed.
+     */
+    Map<ID, Build> getLastBuildsForBranches(List<Branch> branches);
+
     Ack deleteBuild(ID buildId);
 
     /**
@@ -144,6 +153,14 @@ public interface StructureRepository {
     @Deprecated
     List<Build> getBuildLinksTo(ID buildId);
 
+    /**
+     * Gets the builds used by each of the given builds, using one query.
+     *
+     * @param builds Source builds
+     * @return Builds used by each source build, indexed by the ID of the source build
+     */
+    Map<ID, List<Build>> getBuildsUsedByBuilds(List<Build> builds);
+
     List<Build> searchBuildsLinkedTo(String projectName, String buildPattern);
 
     boolean isLinkedFrom(ID id, String project, String buildPattern);
@@ -205,8 +222,32 @@ public interface StructureRepository {
 
     List<PromotionRun> getLastPromotionRunsForBuild(Build build);
 
+    /**
+     * Gets all the promotion runs for a list of builds, using one query.
+     *
+     * @param builds Builds to get the promotion runs for
+     * @return Promotion runs, the most recent first, indexed by build ID
+     */
+    Map<ID, List<PromotionRun>> getPromotionRunsForBuilds(List<Build> builds);
+
+    /**
+     * Gets the last promotion run per promotion level for a list of builds, using one query.
+     *
+     * @param builds Builds to get the promotion runs for
+     * @return Last promotion runs, ordered by promotion level, indexed by build ID
+     */
+    Map<ID, List<PromotionRun>> getLastPromotionRunsForBuilds(List<Build> builds);
+
     PromotionRun getLastPromotionRunForPromotionLevel(PromotionLevel promotionLevel);
 
+    /**
+     * Gets the promotion levels of the given branches with their last promotion run, using one query.
+     *
+     * @param branches Branches to get the promotion levels for
+     * @return Promotion levels and their last run, ordered by promotion level, indexed by branch ID
+     */
+    Map<ID, List<PromotionView>> getPromotionViewsForBranches(List<Branch> branches);
+
     Optional<PromotionRun> getLastPromotionRun(Build build, PromotionLevel promotionLevel);
 
     List<PromotionRun> getPromotionRunsForBuildAndPromotionLevel(Build build, PromotionLevel promotionLevel);
@@ -302,6 +343,34 @@ public interface StructureRepository {
      */
     int getValidationRunsCountForBuild(Build build);
 
+    /**
+     * Gets all the validation runs for a list of builds.
+     *
+     * @param builds                     Builds to get the validation runs for
+     * @param validationRunStatusService Run status mapping function (provided by caller)
+     * @return Validation runs, ordered by creation, indexed by build ID
+     */
+    Map<ID, List<ValidationRun>> getValidationRunsForBuilds(List<Build> builds, Function<String, ValidationRunStatusID> validationRunStatusService);
+
+    /**
+     * Gets the last validation run per validation stamp for a list of builds.
+     *
+     * @param builds                     Builds to get the validation runs for
+     * @param validationRunStatusService Run status mapping function (provided by caller)
+     * @return Last validation runs, ordered by validation stamp, indexed by build ID
+     */
+    Map<ID, List<ValidationRun>> getLastValidationRunsForBuilds(List<Build> builds, Function<String, ValidationRunStatusID> validationRunStatusService);
+
+    /**
+     * Gets the status of the last validation run for each validation stamp and the granted
+     * promotions of a build, using one query.
+     *
+     * @param build                      Build to get the status for
+     * @param validationRunStatusService Run status mapping function (provided by caller)
+     * @return Snapshot of the status of the build
+     */
+    BuildStatusSnapshot getBuildStatusSnapshot(Build build, Function<String, ValidationRunStatusID> validationRunStatusService);
+
     @Deprecated
     List<ValidationRun> getValidationRunsForBuildAndValidationStamp(Build build, ValidationStamp validationStamp, Function<String, ValidationRunStatusID> validationRunStatusService);
 
@@ -311,6 +380,16 @@ public interface StructureRepository {
 
     List<ValidationRun> getValidationRunsForValidationStamp(ValidationStamp validationStamp, int offset, int count, Function<String, ValidationRunStatusID> validationRunStatusService);
 
+    /**
+     * Gets the last statuses of the last validation runs for a list of validation stamps.
+     *
+     * @param validationStamps           Validation stamps to get the statuses for
+     * @param count                      Maximum number of runs per validation stamp
+     * @param validationRunStatusService Run status mapping function (provided by caller)
+     * @return Last statuses of the runs, from the most recent build, indexed by validation stamp ID
+     */
+    Map<ID, List<ValidationRunStatusID>> getLastValidationRunStatusesForValidationStamps(List<ValidationStamp> validationStamps, int count, Function<String, ValidationRunStatusID> validationRunStatusService);
+
     List<ValidationRun> getValidationRunsForValidationStampAndStatus(ValidationStamp validationStamp, List<ValidationRunStatusID> statuses, int offset, int count, Function<String, ValidationRunStatusID> validationRunStatusService);
 
     List<ValidationRun> getValidationRunsForStatus(Branch branch, List<ValidationRunStatusID> statuses, int offset, int count, Function<String, ValidationRunStatusID> validationRunStatusService);
@@ -334,6 +413,16 @@ public interface StructureRepository {
 
     ValidationRun newValidationRunStatus(ValidationRun validationRun, ValidationRunStatus runStatus);
 
+    /**
+     * Computes again the last validation run and its status for all the builds and validation stamps.
+     * <p>
+     * This state is maintained when runs and statuses are created, this is only needed
+     * to recover from inconsistencies.
+     *
+     * @return Number of build and validation stamp pairs having a validation run
+     */
+    int rebuildBuildValidationStates();
+
 
     /**
      * Gets the parent validation run for a given validation run status ID
@@ -0,0 +1,36 @@
+package net.nemerosa.ontrack.service
+
+import net.nemerosa.ontrack.job.*
+import net.nemerosa.ontrack.model.structure.StructureService
+import net.nemerosa.ontrack.model.support.JobProvider
+import net.nemerosa.ontrack.model.support.RestorationJobs
+import org.springframework.stereotype.Component
+
+/**
+ * Job to compute again the last validation run and status of all the builds.
+ */
+@Component
+class BuildValidationStateRestorationJob(
+        private val structureService: StructureService
+) : JobProvider, Job {
+
+    override fun getStartingJobs(): Collection<JobRegistration> = listOf(
+            JobRegistration(
+                    this,
+                    Schedule.NONE // Manually only
+            )
+    )
+
+    override fun isDisabled(): Boolean = false
+
+    override fun getKey(): JobKey =
+            RestorationJobs.RESTORATION_JOB_TYPE.getKey("build-validation-state-restoration")
+
+    override fun getDescription(): String = "Restoration of the validation state of the builds"
+
+    override fun getTask() = JobRun { listener ->
+        val count = structureService.rebuildBuildValidationStates()
+        listener.message("Validation state restored for $count builds and validation stamps")
+    }
+
+}
@@ -1,8 +1,15 @@
 package net.nemerosa.ontrack.service
 
 import com.github.benmanes.caffeine.cache.Caffeine
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics
 import net.nemerosa.ontrack.common.Caches
 import net.nemerosa.ontrack.extension.api.CacheConfigExtension
+import net.nemerosa.ontrack.model.support.CacheConfigProperties
+import net.nemerosa.ontrack.repository.CacheInvalidationBus
+import net.nemerosa.ontrack.repository.CacheInvalidationListener
+import org.slf4j.LoggerFactory
+import org.springframework.cache.Cache
 import org.springframework.cache.CacheManager
 import org.springframework.cache.annotation.EnableCaching
 import org.springframework.cache.caffeine.CaffeineCache
@@ -15,36 +22,113 @@ import java.util.concurrent.TimeUnit
 @EnableCaching
 class CacheConfig(
         private val cacheConfigProperties: CacheConfigProperties,
-        private val cacheConfigExtensions: List<CacheConfigExtension>
+        private val cacheConfigExtensions: List<CacheConfigExtension>,
+        private val cacheInvalidationBus: CacheInvalidationBus,
+        private val meterRegistry: MeterRegistry
 ) {
+
+    private val logger = LoggerFactory.getLogger(CacheConfig::class.java)
+
     @Bean
     fun cacheManager(): CacheManager {
         val manager = SimpleCacheManager()
 
-        manager.setCaches(
-                // Built in caches
-                listOf(
-                        // Cache for settings
-                        CaffeineCache(
-                                Caches.SETTINGS,
-                                Caffeine.newBuilder()
-                                        .maximumSize(1)
-                                        .expireAfterWrite(10, TimeUnit.HOURS)
-                                        .build()
-                        )
-                ) + cacheConfigExtensions.flatMap {
-                    it.caches.map { (name, spec) -> toCache(name, spec) }
+        // Local caches
+        val caches: List<CaffeineCache> = listOf(
+                // Cache for settings
+                CaffeineCache(
+                        Caches.SETTINGS,
+                        Caffeine.newBuilder()
+                                .maximumSize(1)
+                                .expireAfterWrite(10, TimeUnit.HOURS)
+                                .recordStats()
+                                .build()
+                ),
+                // Cache for the resolved ACL of the accounts
+                toCache(Caches.ACCOUNT_ACL, "maximumSize=1000,expireAfterWrite=10m"),
+                // Cache for the verified credentials
+                toCache(Caches.CREDENTIALS, "maximumSize=1000,expireAfterWrite=1m")
+        ) + cacheConfigExtensions.flatMap {
+            it.caches.map { (name, spec) -> toCache(name, spec) }
+        }
+
+        // Metrics
+        caches.forEach { cache ->
+            CaffeineCacheMetrics.monitor(meterRegistry, cache.nativeCache, cache.name)
+        }
+
+        // Sharing the invalidations with the other nodes
+        if (cacheConfigProperties.clustered) {
+            logger.info("[cache] Sharing cache invalidations with the other nodes")
+            val localCaches = caches.associateBy { it.name }
+            cacheInvalidationBus.listen(object : CacheInvalidationListener {
+                override fun evict(cache: String, key: String) {
+                    localCaches[cache]?.let {
+                        it.evict(key)
+                        invalidationCounter(it, "remote").increment()
+                    }
+                }
+
+                override fun clear(cache: String?) {
+                    if (cache != null) {
+                        localCaches[cache]?.let {
+                            it.clear()
+                            invalidationCounter(it, "remote").increment()
+                        }
+                    } else {
+                        localCaches.values.forEach {
+                            it.clear()
+                            invalidationCounter(it, "remote").increment()
+                        }
+                    }
                 }
-        )
+            })
+            manager.setCaches(caches.map { ClusteredCache(it) })
+        } else {
+            manager.setCaches(caches)
+        }
 
         return manager
     }
 
-    private fun toCache(name: String, defaultSpec: String) = CaffeineCache(
-            name,
-            Caffeine.from(
-                    cacheConfigProperties.specs[name] ?: defaultSpec
-            ).build()
-    )
+    private fun toCache(name: String, defaultSpec: String): CaffeineCache {
+        val spec = cacheConfigProperties.specs[name] ?: defaultSpec
+        val builder = Caffeine.from(spec)
+        // Statistics are always needed for the metrics
+        if (spec.split(",").none { it.trim() == "recordStats" }) {
+            builder.recordStats()
+        }
+        return CaffeineCache(name, builder.build())
+    }
+
+    private fun invalidationCounter(cache: Cache, source: String) =
+            meterRegistry.counter("ontrack_cache_invalidations", "cache", cache.name, "source", source)
+
+    /**
+     * Local cache whose evictions are broadcast to the other nodes.
+     *
+     * Keys which are not strings cannot be sent as such, and the whole
+     * cache is cleared on the other nodes instead.
+     */
+    private inner class ClusteredCache(
+            private val delegate: Cache
+    ) : Cache by delegate {
+
+        override fun evict(key: Any) {
+            delegate.evict(key)
+            invalidationCounter(delegate, "local").increment()
+            if (key is String) {
+                cacheInvalidationBus.evict(delegate.name, key)
+            } else {
+                cacheInvalidationBus.clear(delegate.name)
+            }
+        }
+
+        override fun clear() {
+            delegate.clear()
+            invalidationCounter(delegate, "local").increment()
+            cacheInvalidationBus.clear(delegate.name)
+        }
+    }
 
-}
\ No newline at end of file
+}
@@ -1,51 +1,291 @@
 package net.nemerosa.ontrack.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.Data;
 import net.nemerosa.ontrack.common.BaseException;
 import net.nemerosa.ontrack.extension.api.DecorationExtension;
 import net.nemerosa.ontrack.extension.api.ExtensionManager;
+import net.nemerosa.ontrack.model.events.Event;
+import net.nemerosa.ontrack.model.events.EventListener;
 import net.nemerosa.ontrack.model.security.SecurityService;
 import net.nemerosa.ontrack.model.structure.Decoration;
 import net.nemerosa.ontrack.model.structure.DecorationService;
 import net.nemerosa.ontrack.model.structure.Decorator;
 import net.nemerosa.ontrack.model.structure.ProjectEntity;
+import net.nemerosa.ontrack.model.structure.ProjectEntityType;
+import net.nemerosa.ontrack.model.support.DecorationsConfigProperties;
+import net.nemerosa.ontrack.model.support.OntrackConfigProperties;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 @Service
 @Transactional
-public class DecorationServiceImpl implements DecorationService {
+public class DecorationServiceImpl implements DecorationService, EventListener {
+
+    private final Logger logger = LoggerFactory.getLogger(DecorationService.class);
 
     private final ExtensionManager extensionManager;
     private final SecurityService securityService;
+    private final DecorationsConfigProperties properties;
+
+    /**
+     * Decorations of the decorators having a cache duration
+     */
+    private final Cache<DecorationKey, CachedDecorations> cache;
+
+    /**
+     * Decorations being computed, with the token of their computation. An event removes the token,
+     * so that decorations computed before the event are not cached.
+     */
+    private final ConcurrentMap<DecorationKey, Object> loadings = new ConcurrentHashMap<>();
+
+    /**
+     * Computing the decorations of the remote decorators
+     */
+    private final ThreadPoolExecutor executor;
 
     @Autowired
-    public DecorationServiceImpl(ExtensionManager extensionManager, SecurityService securityService) {
+    public DecorationServiceImpl(ExtensionManager extensionManager, SecurityService securityService, OntrackConfigProperties ontrackConfigProperties) {
         this.extensionManager = extensionManager;
         this.securityService = securityService;
+        this.properties = ontrackConfigProperties.getDecorations();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheSize())
+                .expireAfter(new Expiry<DecorationKey, CachedDecorations>() {
+                    @Override
+                    public long expireAfterCreate(DecorationKey key, CachedDecorations value, long currentTime) {
+                        return value.getDuration().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(DecorationKey key, CachedDecorations value, long currentTime, long currentDuration) {
+                        return value.getDuration().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(DecorationKey key, CachedDecorations value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.executor = new ThreadPoolExecutor(
+                properties.getRemoteThreads(),
+                properties.getRemoteThreads(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(100),
+                new BasicThreadFactory.Builder()
+                        .daemon(true)
+                        .namingPattern("decorations-%s")
+                        .build()
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
     }
 
     @Override
     public List<Decoration<?>> getDecorations(ProjectEntity entity) {
-        // Downloading a decoration with the current security context
-        Function<Decorator, Stream<Decoration<?>>> securedDecoratorFunction = securityService.runner(
-                decorator -> getDecorations(entity, decorator).stream()
+        return getDecorations(Collections.singletonList(entity)).get(entity);
+    }
+
+    @Override
+    public Map<ProjectEntity, List<Decoration<?>>> getDecorations(List<? extends ProjectEntity> entities) {
+        Map<ProjectEntity, List<Decoration<?>>> result = new LinkedHashMap<>();
+        for (ProjectEntity entity : entities) {
+            result.put(entity, new ArrayList<>());
+        }
+        if (entities.isEmpty()) {
+            return result;
+        }
+        Collection<DecorationExtension> decorators = extensionManager.getExtensions(DecorationExtension.class);
+        // Remote decorators are started first, in the background, with the current security context
+        long deadline = System.nanoTime() + properties.getRemoteTimeBudget().toNanos();
+        Map<DecorationExtension<?>, Future<Map<ProjectEntity, List<Decoration<?>>>>> remotes = new HashMap<>();
+        for (DecorationExtension<?> decorator : decorators) {
+            List<ProjectEntity> scoped = getEntitiesInScope(entities, decorator);
+            if (!scoped.isEmpty() && decorator.isRemote()) {
+                remotes.put(decorator, submit(decorator, scoped));
+            }
+        }
+        // Decorations, in the order of the decorators
+        for (DecorationExtension<?> decorator : decorators) {
+            List<ProjectEntity> scoped = getEntitiesInScope(entities, decorator);
+            if (!scoped.isEmpty()) {
+                Future<Map<ProjectEntity, List<Decoration<?>>>> remote = remotes.get(decorator);
+                Map<ProjectEntity, List<Decoration<?>>> decorations = remote != null ?
+                        await(decorator, remote, deadline) :
+                        getCachedDecorations(scoped, decorator);
+                decorations.forEach((entity, list) -> {
+                    List<Decoration<?>> target = result.get(entity);
+                    if (target != null) {
+                        target.addAll(list);
+                    }
+                });
+            }
+        }
+        // OK
+        return result;
+    }
+
+    /**
+     * Removes from the cache the decorations of the entities of the event.
+     */
+    @Override
+    public void onEvent(Event event) {
+        Collection<ProjectEntity> entities = event.getEntities().values();
+        if (!entities.isEmpty()) {
+            // Only the keys of the entities, without going through the whole cache
+            List<DecorationKey> keys = new ArrayList<>();
+            for (DecorationExtension<?> decorator : extensionManager.getExtensions(DecorationExtension.class)) {
+                if (isCached(decorator)) {
+                    for (ProjectEntity entity : entities) {
+                        keys.add(new DecorationKey(decorator, entity));
+                    }
+                }
+            }
+            // Computations in progress first, so that they don't cache their decorations afterwards
+            keys.forEach(loadings::remove);
+            cache.invalidateAll(keys);
+        }
+    }
+
+    private List<ProjectEntity> getEntitiesInScope(List<? extends ProjectEntity> entities, DecorationExtension<?> decorator) {
+        List<ProjectEntity> scoped = new ArrayList<>();
+        for (ProjectEntity entity : entities) {
+            if (decorator.getScope().contains(entity.getProjectEntityType())) {
+                scoped.add(entity);
+            }
+        }
+        return scoped;
+    }
+
+    private Future<Map<ProjectEntity, List<Decoration<?>>>> submit(DecorationExtension<?> decorator, List<ProjectEntity> entities) {
+        Supplier<Map<ProjectEntity, List<Decoration<?>>>> task = securityService.runner(
+                () -> getCachedDecorations(entities, decorator)
         );
+        try {
+            return executor.submit(task::get);
+        } catch (RejectedExecutionException ex) {
+            logger.warn("[decorations] Too many remote decorations being computed, skipping {}", decorator.getClass().getName());
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+    }
+
+    /**
+     * Waits for the decorations of a remote decorator, until the deadline is reached.
+     */
+    private Map<ProjectEntity, List<Decoration<?>>> await(DecorationExtension<?> decorator, Future<Map<ProjectEntity, List<Decoration<?>>>> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            logger.debug("[decorations] Decorations not available in time for {}", decorator.getClass().getName());
+            // Decorations not cached are not needed any longer
+            if (!isCached(decorator)) {
+                future.cancel(true);
+            }
+            return Collections.emptyMap();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyMap();
+        } catch (ExecutionException ex) {
+            logger.error("[decorations] Cannot get decorations for {}", decorator.getClass().getName(), ex.getCause());
+            return Collections.emptyMap();
+        }
+    }
+
+    private boolean isCached(DecorationExtension<?> decorator) {
+        Duration duration = decorator.getCacheDuration();
+        return duration != null && !duration.isZero() && !duration.isNegative();
+    }
+
+    /**
+     * Gets the decorations for some entities, using the cache if the decorator has a cache duration.
+     */
+    protected Map<ProjectEntity, List<Decoration<?>>> getCachedDecorations(List<ProjectEntity> entities, DecorationExtension<?> decorator) {
+        if (!isCached(decorator)) {
+            return getDecorations(entities, decorator);
+        }
+        // Cached decorations first, keeping the order of the entities
+        Map<ProjectEntity, List<Decoration<?>>> result = new LinkedHashMap<>();
+        List<ProjectEntity> missing = new ArrayList<>();
+        for (ProjectEntity entity : entities) {
+            CachedDecorations cached = cache.getIfPresent(new DecorationKey(decorator, entity));
+            if (cached != null) {
+                result.put(entity, cached.getDecorations());
+            } else {
+                result.put(entity, Collections.emptyList());
+                missing.add(entity);
+            }
+        }
+        // Computing the missing ones
+        if (!missing.isEmpty()) {
+            Map<DecorationKey, Object> tokens = new HashMap<>();
+            for (ProjectEntity entity : missing) {
+                Object token = new Object();
+                DecorationKey key = new DecorationKey(decorator, entity);
+                loadings.put(key, token);
+                tokens.put(key, token);
+            }
+            try {
+                getDecorations(missing, decorator).forEach((entity, decorations) -> {
+                    result.put(entity, decorations);
+                    // Errors are not cached
+                    if (decorations.stream().allMatch(decoration -> decoration.getError() == null)) {
+                        DecorationKey key = new DecorationKey(decorator, entity);
+                        Object token = tokens.get(key);
+                        // Cached only if no event has been received since the start of the computation,
+                        // an event arriving meanwhile waiting for the decorations to be cached
+                        loadings.computeIfPresent(key, (k, current) -> {
+                            if (current == token) {
+                                cache.put(key, new CachedDecorations(decorations, decorator.getCacheDuration()));
+                            }
+                            return current;
+                        });
+                    }
+                });
+            } finally {
+                tokens.forEach(loadings::remove);
+            }
+        }
         // OK
-        return extensionManager.getExtensions(DecorationExtension.class)
-                .stream()
-                        // ... and filters per entity
-                .filter(decorator -> decorator.getScope().contains(entity.getProjectEntityType()))
-                        // ... and gets the decoration
-                .flatMap(securedDecoratorFunction)
-                        // OK
-                .collect(Collectors.toList());
+        return result;
+    }
+
+    /**
+     * Gets the decorations for some entities at once. In case of problem, the entities
+     * are decorated one by one, so that only the failing ones get an "error" decoration.
+     */
+    protected <T> Map<ProjectEntity, List<Decoration<?>>> getDecorations(List<ProjectEntity> entities, DecorationExtension<T> decorator) {
+        Map<ProjectEntity, List<Decoration<?>>> result = new LinkedHashMap<>();
+        try {
+            decorator.getDecorations(entities).forEach((entity, decorations) ->
+                    result.put(entity, new ArrayList<>(decorations))
+            );
+        } catch (Exception ex) {
+            for (ProjectEntity entity : entities) {
+                List<Decoration<?>> decorations = new ArrayList<>();
+                for (Decoration<?> decoration : getDecorations(entity, decorator)) {
+                    decorations.add(decoration);
+                }
+                result.put(entity, decorations);
+            }
+        }
+        return result;
     }
 
     /**
@@ -71,4 +311,29 @@ public class DecorationServiceImpl implements DecorationService {
             return "Problem while getting decoration";
         }
     }
+
+    /**
+     * Key of the decorations of an entity by a decorator.
+     */
+    @Data
+    private static class DecorationKey {
+
+        private final String decorator;
+        private final ProjectEntityType entityType;
+        private final int entityId;
+
+        DecorationKey(Decorator<?> decorator, ProjectEntity entity) {
+            this.decorator = decorator.getClass().getName();
+            this.entityType = entity.getProjectEntityType();
+            this.entityId = entity.id();
+        }
+    }
+
+    @Data
+    private static class CachedDecorations {
+
+        private final List<Decoration<?>> decorations;
+        private final Duration duration;
+
+    }
 }
@@ -62,6 +62,55 @@ class PropertyServiceImpl(
                 .map { prop -> prop.editable(prop.type.canEdit(entity, securityService)) }
     }
 
+    override fun getPropertiesForEntities(entities: List<ProjectEntity>): Map<ProjectEntity, List<Property<*>>> {
+        val result = entities.associateWith { mutableListOf<Property<*>>() }
+        propertyTypes.forEach { type ->
+            // Entities supporting this type of property and for which it can be seen
+            val candidates = entities.filter { entity ->
+                type.supportedEntityTypes.contains(entity.projectEntityType) && type.canView(entity, securityService)
+            }
+            // Loads them from the store
+            getProperties(type, candidates).forEach { (entity, property) ->
+                result.getValue(entity) += property.editable(type.canEdit(entity, securityService))
+            }
+        }
+        return result
+    }
+
+    override fun <T> getPropertyForEntities(entities: List<ProjectEntity>, propertyTypeName: String): Map<ProjectEntity, Property<T>> {
+        // Gets the property using its fully qualified type name
+        val propertyType: PropertyType<T> = getPropertyTypeByName(propertyTypeName)
+        // Checks
+        entities.forEach { entity ->
+            if (!propertyType.supportedEntityTypes.contains(entity.projectEntityType)) {
+                throw PropertyUnsupportedEntityTypeException(propertyTypeName, entity.projectEntityType)
+            }
+            if (!propertyType.canView(entity, securityService)) {
+                throw AccessDeniedException("Property is not opened for viewing.")
+            }
+        }
+        // Access
+        return getProperties(propertyType, entities)
+    }
+
+    /**
+     * Loads a property for a list of entities, using one query per type of entity.
+     */
+    private fun <T> getProperties(type: PropertyType<T>, entities: List<ProjectEntity>): Map<ProjectEntity, Property<T>> =
+            entities.groupBy { it.projectEntityType }
+                    .flatMap { (entityType, typedEntities) ->
+                        val stored = propertyRepository.loadProperties(
+                                type.javaClass.name,
+                                entityType,
+                                typedEntities.map { it.id }
+                        )
+                        typedEntities.map { entity ->
+                            val t = stored[entity.id]
+                            entity to (if (t != null) Property.of(type, type.fromStorage(t.json)) else Property.empty(type))
+                        }
+                    }
+                    .toMap()
+
     override fun <T> getProperty(entity: ProjectEntity, propertyTypeName: String): Property<T> {
         // Gets the property using its fully qualified type name
         val propertyType: PropertyType<T> = getPropertyTypeByName(propertyTypeName)
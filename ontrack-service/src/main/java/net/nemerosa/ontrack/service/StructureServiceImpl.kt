@@ -22,6 +22,7 @@ import net.nemerosa.ontrack.model.structure.*
 import net.nemerosa.ontrack.model.structure.Entity.isEntityDefined
 import net.nemerosa.ontrack.model.structure.Entity.isEntityNew
 import net.nemerosa.ontrack.model.support.PropertyServiceHelper
+import net.nemerosa.ontrack.repository.CoreBuildFilterRepository
 import net.nemerosa.ontrack.repository.StatsRepository
 import net.nemerosa.ontrack.repository.StructureRepository
 import net.nemerosa.ontrack.service.ImageHelper.checkImage
@@ -53,20 +54,26 @@ class StructureServiceImpl(
         private val decorationService: DecorationService,
         private val promotionRunCheckService: PromotionRunCheckService,
         private val statsRepository: StatsRepository,
-        private val buildLinkListenerService: BuildLinkListenerService
+        private val buildLinkListenerService: BuildLinkListenerService,
+        private val coreBuildFilterRepository: CoreBuildFilterRepository
 ) : StructureService {
 
     private val logger = LoggerFactory.getLogger(StructureService::class.java)
 
     override val projectStatusViews: List<ProjectStatusView>
-        get() = projectList
-                .map { project ->
-                    ProjectStatusView(
-                            project,
-                            decorationService.getDecorations(project),
-                            getBranchStatusViews(project.id)
-                    )
-                }
+        get() {
+            val projects = projectList
+            // Decorations for all projects
+            val decorations = decorationService.getDecorations(projects)
+            // Views
+            return projects.map { project ->
+                ProjectStatusView(
+                        project,
+                        decorations[project] ?: emptyList(),
+                        getBranchStatusViews(project.id)
+                )
+            }
+        }
 
     override val projectList: List<Project>
         get() {
@@ -81,6 +88,21 @@ class StructureServiceImpl(
             }
         }
 
+    override val viewableProjectIds: Set<Int>?
+        get() {
+            val securitySettings = securityService.securitySettings
+            return if (securitySettings.isGrantProjectViewToAll || securityService.isGlobalFunctionGranted(ProjectList::class.java)) {
+                null
+            } else if (securityService.isLogged) {
+                structureRepository.projectList
+                        .map { it.id() }
+                        .filter { id -> securityService.isProjectFunctionGranted(id, ProjectView::class.java) }
+                        .toSet()
+            } else {
+                emptySet()
+            }
+        }
+
     override fun newProject(project: Project): Project {
         isEntityNew(project, "Project must be defined")
         securityService.checkGlobalFunction(ProjectCreation::class.java)
@@ -158,9 +180,25 @@ class StructureServiceImpl(
         return newBranch
     }
 
-    override fun getBranchStatusViews(projectId: ID): List<BranchStatusView> {
-        return getBranchesForProject(projectId)
-                .map { this.getBranchStatusView(it) }
+    override fun getBranchStatusViews(projectId: ID): List<BranchStatusView> =
+            getBranchStatusViews(projectId, true)
+
+    override fun getBranchStatusViews(projectId: ID, withDecorations: Boolean): List<BranchStatusView> {
+        val branches = getBranchesForProject(projectId)
+        // Last builds & promotions for all branches
+        val lastBuilds = structureRepository.getLastBuildsForBranches(branches)
+        val promotionViews = structureRepository.getPromotionViewsForBranches(branches)
+        // Decorations for all branches
+        val decorations = if (withDecorations) decorationService.getDecorations(branches) else emptyMap()
+        // Views
+        return branches.map { branch ->
+            BranchStatusView(
+                    branch,
+                    decorations[branch] ?: emptyList(),
+                    lastBuilds[branch.id],
+                    promotionViews[branch.id] ?: emptyList()
+            )
+        }
     }
 
     override fun getBranchStatusView(branch: Branch): BranchStatusView {
@@ -383,68 +421,68 @@ class StructureServiceImpl(
     override fun buildSearch(projectId: ID, form: BuildSearchForm): List<Build> {
         // Gets the project
         val project = getProject(projectId)
-        // Collects the builds for this project
-        val builds = ArrayList<Build>()
-        // Filter for the builds
-        val buildPredicate = Predicate<Build> { build ->
-            // Build view
-            val buildViewSupplier = CachedSupplier.of { getBuildView(build, false) }
-            // Branch name
-            var accept: Boolean
-            accept = !StringUtils.isNotBlank(form.branchName) || Utils.safeRegexMatch(form.branchName, build.getBranch().getName())
-            // Build name
-            if (accept && StringUtils.isNotBlank(form.buildName)) {
-                if (form.isBuildExactMatch) {
-                    accept = StringUtils.equals(form.buildName, build.getName())
-                } else {
-                    accept = Utils.safeRegexMatch(form.buildName, build.getName())
-                }
-            }
-            // Promotion name
-            if (accept && StringUtils.isNotBlank(form.promotionName)) {
-                val buildView = buildViewSupplier.get()
-                accept = buildView.promotionRuns.stream()
-                        .anyMatch { run -> form.promotionName == run.promotionLevel.name }
-            }
-            // Validation stamp name
-            if (accept && StringUtils.isNotBlank(form.validationStampName)) {
-                val buildView = buildViewSupplier.get()
-                accept = buildView.validationStampRunViews.stream()
-                        .anyMatch { validationStampRunView -> validationStampRunView.hasValidationStamp(form.validationStampName, ValidationRunStatusID.PASSED) }
-            }
-            // Property & property value
-            if (accept && StringUtils.isNotBlank(form.property)) {
-                accept = PropertyServiceHelper.hasProperty(
-                        propertyService,
-                        build,
-                        form.property,
-                        form.propertyValue)
-            }
-            // Linked from
-            val linkedFrom = form.linkedFrom
-            if (accept && isNotBlank(linkedFrom)) {
-                val projectName = StringUtils.substringBefore(linkedFrom, ":")
-                val buildPattern = StringUtils.substringAfter(linkedFrom, ":")
-                accept = isLinkedFrom(build, projectName, buildPattern)
-            }
-            // Linked to
-            val linkedTo = form.linkedTo
-            if (accept && isNotBlank(linkedTo)) {
-                val projectName = StringUtils.substringBefore(linkedTo, ":")
-                val buildPattern = StringUtils.substringAfter(linkedTo, ":")
-                accept = isLinkedTo(build, projectName, buildPattern)
-            }
-            // Accepting the build into the list?
-            if (accept) {
-                builds.add(build)
+        // Runs the search as one query, the criteria which cannot be translated
+        // being checked on each build
+        return coreBuildFilterRepository.projectSearch(
+                project,
+                form,
+                { type -> propertyService.getPropertyTypeByName<Any>(type) }
+        ) { build, residual -> isBuildMatching(build, residual) }
+    }
+
+    /**
+     * Checks a build against search criteria.
+     */
+    private fun isBuildMatching(build: Build, form: BuildSearchForm): Boolean {
+        // Build view
+        val buildViewSupplier = CachedSupplier.of { getBuildView(build, false) }
+        // Branch name
+        var accept: Boolean
+        accept = !StringUtils.isNotBlank(form.branchName) || Utils.safeRegexMatch(form.branchName, build.getBranch().getName())
+        // Build name
+        if (accept && StringUtils.isNotBlank(form.buildName)) {
+            if (form.isBuildExactMatch) {
+                accept = StringUtils.equals(form.buildName, build.getName())
+            } else {
+                accept = Utils.safeRegexMatch(form.buildName, build.getName())
             }
-            // Maximum count reached?
-            builds.size < form.maximumCount
         }
-        // Query
-        structureRepository.builds(project, buildPredicate)
+        // Promotion name
+        if (accept && StringUtils.isNotBlank(form.promotionName)) {
+            val buildView = buildViewSupplier.get()
+            accept = buildView.promotionRuns.stream()
+                    .anyMatch { run -> form.promotionName == run.promotionLevel.name }
+        }
+        // Validation stamp name
+        if (accept && StringUtils.isNotBlank(form.validationStampName)) {
+            val buildView = buildViewSupplier.get()
+            accept = buildView.validationStampRunViews.stream()
+                    .anyMatch { validationStampRunView -> validationStampRunView.hasValidationStamp(form.validationStampName, ValidationRunStatusID.PASSED) }
+        }
+        // Property & property value
+        if (accept && StringUtils.isNotBlank(form.property)) {
+            accept = PropertyServiceHelper.hasProperty(
+                    propertyService,
+                    build,
+                    form.property,
+                    form.propertyValue)
+        }
+        // Linked from
+        val linkedFrom = form.linkedFrom
+        if (accept && isNotBlank(linkedFrom)) {
+            val projectName = StringUtils.substringBefore(linkedFrom, ":")
+            val buildPattern = StringUtils.substringAfter(linkedFrom, ":")
+            accept = isLinkedFrom(build, projectName, buildPattern)
+        }
+        // Linked to
+        val linkedTo = form.linkedTo
+        if (accept && isNotBlank(linkedTo)) {
+            val projectName = StringUtils.substringBefore(linkedTo, ":")
+            val buildPattern = StringUtils.substringAfter(linkedTo, ":")
+            accept = isLinkedTo(build, projectName, buildPattern)
+        }
         // OK
-        return builds
+        return accept
     }
 
     override fun addBuildLink(fromBuild: Build, toBuild: Build) {
@@ -467,6 +505,14 @@ class StructureServiceImpl(
                 .filter { b -> securityService.isProjectFunctionGranted(b, ProjectView::class.java) }
     }
 
+    override fun getBuildsUsedBy(builds: List<Build>): Map<ID, List<Build>> {
+        checkProjectView(builds)
+        return structureRepository.getBuildsUsedByBuilds(builds)
+                .mapValues { (_, links) ->
+                    links.filter { b -> securityService.isProjectFunctionGranted(b, ProjectView::class.java) }
+                }
+    }
+
     override fun getBuildsUsedBy(build: Build, offset: Int, size: Int, filter: (Build) -> Boolean): PaginatedList<Build> {
         securityService.checkProjectFunction(build, ProjectView::class.java)
         // Gets the complete list, filtered by ACL
@@ -554,8 +600,13 @@ class StructureServiceImpl(
     override fun getValidationStampRunViewsForBuild(build: Build): List<ValidationStampRunView> {
         // Gets all validation stamps
         val stamps = getValidationStampListForBranch(build.branch.id)
-        // Gets all runs for this build
-        val runs = getValidationRunsForBuild(build.id)
+        // Gets all runs for this build, only if the build has been validated
+        val validated = getBuildStatusSnapshot(build).validations.isNotEmpty()
+        val runs = if (validated) {
+            structureRepository.getValidationRunsForBuild(build) { validationRunStatusService.getValidationRunStatus(it) }
+        } else {
+            emptyList()
+        }
         // Gets the validation stamp run views
         return stamps.map { stamp -> getValidationStampRunView(runs, stamp) }
     }
@@ -820,6 +871,25 @@ class StructureServiceImpl(
         return structureRepository.getLastPromotionRunsForBuild(build)
     }
 
+    override fun getPromotionRunsForBuilds(builds: List<Build>): Map<ID, List<PromotionRun>> {
+        checkProjectView(builds)
+        return structureRepository.getPromotionRunsForBuilds(builds)
+    }
+
+    override fun getLastPromotionRunsForBuilds(builds: List<Build>): Map<ID, List<PromotionRun>> {
+        checkProjectView(builds)
+        return structureRepository.getLastPromotionRunsForBuilds(builds)
+    }
+
+    /**
+     * Checks that the current user can view the projects of all the given entities.
+     */
+    private fun checkProjectView(entities: List<ProjectEntity>) {
+        entities.map { it.projectId() }.distinct().forEach {
+            securityService.checkProjectFunction(it, ProjectView::class.java)
+        }
+    }
+
     override fun getLastPromotionRunForBuildAndPromotionLevel(build: Build, promotionLevel: PromotionLevel): Optional<PromotionRun> {
         securityService.checkProjectFunction(build, ProjectView::class.java)
         return structureRepository.getLastPromotionRun(build, promotionLevel)
@@ -935,6 +1005,20 @@ class StructureServiceImpl(
         return view
     }
 
+    override fun getBuildViews(builds: List<Build>, withDecorations: Boolean): List<BuildView> {
+        // Decorations for all builds
+        val decorations = if (withDecorations) decorationService.getDecorations(builds) else emptyMap()
+        // Views
+        return builds.map { build ->
+            val view = getBuildView(build, false)
+            if (withDecorations) {
+                view.withDecorations(decorations[build] ?: emptyList())
+            } else {
+                view
+            }
+        }
+    }
+
     override fun getValidationStampImage(validationStampId: ID): Document {
         // Checks access
         getValidationStamp(validationStampId)
@@ -1233,6 +1317,13 @@ class StructureServiceImpl(
         this.logger.info("Restored $total validation run data metrics.")
     }
 
+    override fun rebuildBuildValidationStates(): Int {
+        securityService.checkGlobalFunction(ApplicationManagement::class.java)
+        val count = structureRepository.rebuildBuildValidationStates()
+        logger.info("Rebuilt the validation state of $count builds and validation stamps.")
+        return count
+    }
+
     override fun getValidationRun(validationRunId: ID): ValidationRun {
         val validationRun = structureRepository.getValidationRun(validationRunId) { validationRunStatusService.getValidationRunStatus(it) }
         securityService.checkProjectFunction(validationRun.build.branch.project.id(), ProjectView::class.java)
@@ -1264,6 +1355,21 @@ class StructureServiceImpl(
         return structureRepository.getValidationRunsCountForBuild(build)
     }
 
+    override fun getValidationRunsForBuilds(builds: List<Build>): Map<ID, List<ValidationRun>> {
+        checkProjectView(builds)
+        return structureRepository.getValidationRunsForBuilds(builds) { validationRunStatusService.getValidationRunStatus(it) }
+    }
+
+    override fun getLastValidationRunsForBuilds(builds: List<Build>): Map<ID, List<ValidationRun>> {
+        checkProjectView(builds)
+        return structureRepository.getLastValidationRunsForBuilds(builds) { validationRunStatusService.getValidationRunStatus(it) }
+    }
+
+    override fun getBuildStatusSnapshot(build: Build): BuildStatusSnapshot {
+        securityService.checkProjectFunction(build, ProjectView::class.java)
+        return structureRepository.getBuildStatusSnapshot(build) { validationRunStatusService.getValidationRunStatus(it) }
+    }
+
     override fun getValidationRunsForBuildAndValidationStamp(buildId: ID, validationStampId: ID): List<ValidationRun> {
         val build = getBuild(buildId)
         val validationStamp = getValidationStamp(validationStampId)
@@ -1306,6 +1412,11 @@ class StructureServiceImpl(
         return getValidationRunsForValidationStamp(validationStamp, offset, count)
     }
 
+    override fun getLastValidationRunStatusesForValidationStamps(validationStamps: List<ValidationStamp>, count: Int): Map<ID, List<ValidationRunStatusID>> {
+        checkProjectView(validationStamps)
+        return structureRepository.getLastValidationRunStatusesForValidationStamps(validationStamps, count) { validationRunStatusService.getValidationRunStatus(it) }
+    }
+
     override fun getValidationRunsForValidationStampAndStatus(validationStamp: ValidationStamp, statuses: List<ValidationRunStatusID>, offset: Int, count: Int): List<ValidationRun> {
         securityService.checkProjectFunction(validationStamp.branch.project.id(), ProjectView::class.java)
         return structureRepository.getValidationRunsForValidationStampAndStatus(
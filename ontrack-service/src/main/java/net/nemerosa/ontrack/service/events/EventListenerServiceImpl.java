@@ -1,28 +1,212 @@
 package net.nemerosa.ontrack.service.events;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import net.nemerosa.ontrack.model.events.Event;
 import net.nemerosa.ontrack.model.events.EventListener;
 import net.nemerosa.ontrack.model.events.EventListenerService;
+import net.nemerosa.ontrack.model.security.SecurityService;
+import net.nemerosa.ontrack.model.structure.NameDescription;
+import net.nemerosa.ontrack.model.structure.ProjectEntity;
+import net.nemerosa.ontrack.model.structure.ProjectEntityType;
+import net.nemerosa.ontrack.model.support.ApplicationLogEntry;
+import net.nemerosa.ontrack.model.support.ApplicationLogService;
+import net.nemerosa.ontrack.model.support.EventsConfigProperties;
+import net.nemerosa.ontrack.model.support.OntrackConfigProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Dispatches the events to the {@link EventListener} instances.
+ * <p>
+ * When the {@linkplain EventsConfigProperties#getAsync() asynchronous mode} is enabled, the events
+ * are dispatched only once the current transaction has been committed. Each listener has
+ * its own bounded queues and workers, and the events of a given branch are always processed
+ * in order by the same worker. When a queue is full, the caller waits for some room to be made.
+ */
 @Service
-public class EventListenerServiceImpl implements EventListenerService {
+public class EventListenerServiceImpl implements EventListenerService, SmartInitializingSingleton, DisposableBean {
+
+    private final Logger logger = LoggerFactory.getLogger(EventListenerService.class);
 
     private final ApplicationContext context;
+    private final SecurityService securityService;
+    private final ApplicationLogService logService;
+    private final MeterRegistry meterRegistry;
+    private final EventsConfigProperties eventsConfigProperties;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile List<EventListenerDispatcher> dispatchers = Collections.emptyList();
 
     @Autowired
-    public EventListenerServiceImpl(ApplicationContext context) {
+    public EventListenerServiceImpl(ApplicationContext context, SecurityService securityService, ApplicationLogService logService, MeterRegistry meterRegistry, OntrackConfigProperties ontrackConfigProperties, PlatformTransactionManager transactionManager) {
         this.context = context;
+        this.securityService = securityService;
+        this.logService = logService;
+        this.meterRegistry = meterRegistry;
+        this.eventsConfigProperties = ontrackConfigProperties.getEvents();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Resolves the listeners once all the beans have been created, since most of the
+     * listeners depend on services which are themselves posting events.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<String, EventListener> listeners = context.getBeansOfType(EventListener.class);
+        List<EventListenerDispatcher> list = new ArrayList<>();
+        listeners.forEach((name, listener) -> list.add(new EventListenerDispatcher(name, listener)));
+        dispatchers = list;
+        logger.info("[events] {} listeners registered", list.size());
+    }
+
+    @Override
+    public void destroy() {
+        dispatchers.forEach(EventListenerDispatcher::shutdown);
     }
 
     @Override
     public void onEvent(Event event) {
-        Collection<EventListener> listeners = context.getBeansOfType(EventListener.class).values();
-        listeners.forEach(listener -> listener.onEvent(event));
+        if (!eventsConfigProperties.getAsync()) {
+            dispatchers.forEach(dispatcher -> dispatcher.listener.onEvent(event));
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Listeners must see the changes of the current transaction
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    dispatch(event);
+                }
+            });
+        } else {
+            dispatch(event);
+        }
+    }
+
+    private void dispatch(Event event) {
+        int partition = getPartitionKey(event);
+        dispatchers.forEach(dispatcher -> dispatcher.submit(event, partition));
+    }
+
+    /**
+     * Events of the same branch (or project if no branch is available) must be processed in
+     * order, so they are always sent to the same worker.
+     */
+    private int getPartitionKey(Event event) {
+        Map<ProjectEntityType, ProjectEntity> entities = event.getEntities();
+        ProjectEntity entity = entities.get(ProjectEntityType.BRANCH);
+        if (entity == null) {
+            entity = entities.get(ProjectEntityType.PROJECT);
+        }
+        return entity != null ? entity.id() : 0;
+    }
+
+    private class EventListenerDispatcher {
+
+        private final String name;
+        private final EventListener listener;
+        private final List<ThreadPoolExecutor> workers = new ArrayList<>();
+
+        private final Timer waitTimer;
+        private final Timer durationTimer;
+        private final Counter blockedCounter;
+        private final Counter errorCounter;
+
+        EventListenerDispatcher(String name, EventListener listener) {
+            this.name = name;
+            this.listener = listener;
+            for (int i = 0; i < eventsConfigProperties.getWorkers(); i++) {
+                workers.add(new ThreadPoolExecutor(
+                        1, 1,
+                        0L, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(eventsConfigProperties.getQueueSize()),
+                        new CustomizableThreadFactory(String.format("event-%s-%d-", name, i))
+                ));
+            }
+            Tags tags = Tags.of(Tag.of("listener", name));
+            meterRegistry.gauge("ontrack_event_listener_queue_size", tags, workers, list -> list.stream().mapToInt(worker -> worker.getQueue().size()).sum());
+            waitTimer = meterRegistry.timer("ontrack_event_listener_wait_ms", tags);
+            durationTimer = meterRegistry.timer("ontrack_event_listener_duration_ms", tags);
+            blockedCounter = meterRegistry.counter("ontrack_event_listener_blocked", tags);
+            errorCounter = meterRegistry.counter("ontrack_event_listener_errors", tags);
+        }
+
+        void submit(Event event, int partition) {
+            ThreadPoolExecutor worker = workers.get(Math.floorMod(partition, workers.size()));
+            long queued = System.currentTimeMillis();
+            // Runs with the credentials of the caller
+            Runnable task = securityService.runner(() -> {
+                waitTimer.record(System.currentTimeMillis() - queued, TimeUnit.MILLISECONDS);
+                durationTimer.record(() -> process(event));
+                return null;
+            })::get;
+            // Back pressure: waits for some room in the queue
+            if (!worker.getQueue().offer(task)) {
+                blockedCounter.increment();
+                try {
+                    worker.getQueue().put(task);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException(String.format("Interrupted while dispatching event to %s", name), ex);
+                }
+            }
+            // Makes sure the worker thread is started
+            worker.prestartCoreThread();
+        }
+
+        private void process(Event event) {
+            try {
+                transactionTemplate.execute(status -> {
+                    listener.onEvent(event);
+                    return null;
+                });
+            } catch (Exception ex) {
+                errorCounter.increment();
+                logService.log(
+                        ApplicationLogEntry.error(
+                                ex,
+                                NameDescription.nd("event-listener", "Event listener"),
+                                String.format("Error while processing event %s by %s", event.getEventType().getId(), name)
+                        ).withDetail("event.listener", name)
+                );
+            }
+        }
+
+        void shutdown() {
+            workers.forEach(ExecutorService::shutdown);
+            workers.forEach(worker -> {
+                try {
+                    if (!worker.awaitTermination(10, TimeUnit.SECONDS)) {
+                        logger.warn("[events] {} listener did not complete its pending events", name);
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
     }
 
 }
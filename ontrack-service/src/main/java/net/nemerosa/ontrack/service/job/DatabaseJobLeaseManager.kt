@@ -0,0 +1,71 @@
+package net.nemerosa.ontrack.service.job
+
+import net.nemerosa.ontrack.job.JobKey
+import net.nemerosa.ontrack.job.JobLeaseManager
+import net.nemerosa.ontrack.repository.JobLeaseRepository
+import org.apache.commons.lang3.concurrent.BasicThreadFactory
+import org.slf4j.LoggerFactory
+import org.springframework.beans.factory.DisposableBean
+import java.net.InetAddress
+import java.util.*
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Lease manager storing the leases in the database, shared by all the nodes of the cluster.
+ *
+ * The leases owned by this node are renewed regularly, and released when the node stops. When
+ * a node dies, its leases expire after [leaseDuration] seconds and the other nodes take over its jobs.
+ *
+ * @property leaseDuration Duration of a lease, in seconds
+ */
+class DatabaseJobLeaseManager(
+        private val jobLeaseRepository: JobLeaseRepository,
+        private val leaseDuration: Int
+) : JobLeaseManager, DisposableBean {
+
+    private val logger = LoggerFactory.getLogger(DatabaseJobLeaseManager::class.java)
+
+    /**
+     * Unique ID for this node
+     */
+    val node: String = "${InetAddress.getLocalHost().hostName}-${UUID.randomUUID()}"
+
+    private val heartbeat = Executors.newSingleThreadScheduledExecutor(
+            BasicThreadFactory.Builder()
+                    .daemon(true)
+                    .namingPattern("job-lease-%s")
+                    .build()
+    )
+
+    init {
+        logger.info("[job][lease] Node = {}, lease duration = {}s", node, leaseDuration)
+        val period = (leaseDuration / 3).toLong()
+        heartbeat.scheduleWithFixedDelay(
+                {
+                    try {
+                        jobLeaseRepository.renew(node, leaseDuration)
+                    } catch (ex: Exception) {
+                        logger.error("[job][lease] Cannot renew the leases", ex)
+                    }
+                },
+                period,
+                period,
+                TimeUnit.SECONDS
+        )
+    }
+
+    override val isClustered: Boolean = true
+
+    override fun acquire(key: JobKey): Boolean =
+            jobLeaseRepository.acquire(key.toString(), node, leaseDuration)
+
+    override fun release(key: JobKey) {
+        jobLeaseRepository.release(key.toString(), node)
+    }
+
+    override fun destroy() {
+        heartbeat.shutdownNow()
+        jobLeaseRepository.releaseAll(node)
+    }
+}
@@ -1,13 +1,18 @@
 package net.nemerosa.ontrack.service.job;
 
 import io.micrometer.core.instrument.MeterRegistry;
+import net.nemerosa.ontrack.job.JobLeaseManager;
 import net.nemerosa.ontrack.job.JobListener;
+import net.nemerosa.ontrack.job.NOPJobLeaseManager;
 import net.nemerosa.ontrack.job.JobScheduler;
 import net.nemerosa.ontrack.job.support.DefaultJobScheduler;
+import net.nemerosa.ontrack.job.support.JobPoolDefinition;
+import net.nemerosa.ontrack.job.support.JobPools;
 import net.nemerosa.ontrack.model.support.ApplicationLogService;
 import net.nemerosa.ontrack.model.support.JobConfigProperties;
 import net.nemerosa.ontrack.model.support.OntrackConfigProperties;
 import net.nemerosa.ontrack.model.support.SettingsRepository;
+import net.nemerosa.ontrack.repository.JobLeaseRepository;
 import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -15,6 +20,7 @@ import org.springframework.context.annotation.Configuration;
 
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
 
 @Configuration
 public class JobConfig {
@@ -29,13 +35,16 @@ public class JobConfig {
 
     private final SettingsRepository settingsRepository;
 
+    private final JobLeaseRepository jobLeaseRepository;
+
     @Autowired
-    public JobConfig(OntrackConfigProperties ontrackConfigProperties, DefaultJobDecorator jobDecorator, ApplicationLogService logService, MeterRegistry meterRegistry, SettingsRepository settingsRepository) {
+    public JobConfig(OntrackConfigProperties ontrackConfigProperties, DefaultJobDecorator jobDecorator, ApplicationLogService logService, MeterRegistry meterRegistry, SettingsRepository settingsRepository, JobLeaseRepository jobLeaseRepository) {
         this.ontrackConfigProperties = ontrackConfigProperties;
         this.jobDecorator = jobDecorator;
         this.logService = logService;
         this.meterRegistry = meterRegistry;
         this.settingsRepository = settingsRepository;
+        this.jobLeaseRepository = jobLeaseRepository;
     }
 
     @Bean
@@ -47,6 +56,19 @@ public class JobConfig {
         );
     }
 
+    @Bean
+    public JobLeaseManager jobLeaseManager() {
+        JobConfigProperties jobConfigProperties = ontrackConfigProperties.getJobs();
+        if (jobConfigProperties.getClustered()) {
+            return new DatabaseJobLeaseManager(
+                    jobLeaseRepository,
+                    jobConfigProperties.getLeaseDuration()
+            );
+        } else {
+            return NOPJobLeaseManager.INSTANCE;
+        }
+    }
+
     @Bean
     public ScheduledExecutorService jobExecutorService() {
         return Executors.newScheduledThreadPool(
@@ -58,6 +80,20 @@ public class JobConfig {
         );
     }
 
+    @Bean
+    public JobPools jobPools() {
+        return new JobPools(
+                ontrackConfigProperties.getJobs().getPools().entrySet().stream()
+                        .map(entry -> new JobPoolDefinition(
+                                entry.getKey(),
+                                entry.getValue().getConcurrency(),
+                                entry.getValue().getVirtual()
+                        ))
+                        .collect(Collectors.toList()),
+                meterRegistry
+        );
+    }
+
     @Bean
     public JobScheduler jobScheduler() {
         JobConfigProperties jobConfigProperties = ontrackConfigProperties.getJobs();
@@ -66,9 +102,11 @@ public class JobConfig {
                 jobExecutorService(),
                 jobListener(),
                 jobConfigProperties.getPausedAtStartup(),
+                jobPools(),
                 jobConfigProperties.getScattering(),
                 jobConfigProperties.getScatteringRatio(),
-                meterRegistry
+                meterRegistry,
+                jobLeaseManager()
         );
     }
 
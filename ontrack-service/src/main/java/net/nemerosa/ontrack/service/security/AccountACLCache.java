@@ -0,0 +1,92 @@
+package net.nemerosa.ontrack.service.security;
+
+import net.nemerosa.ontrack.common.Caches;
+import net.nemerosa.ontrack.model.security.Account;
+import net.nemerosa.ontrack.model.security.AuthenticatedAccount;
+import net.nemerosa.ontrack.model.security.CredentialsCache;
+import net.nemerosa.ontrack.model.structure.ID;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache of the accounts with their resolved ACL.
+ *
+ * The ACL version is incremented on any change of roles, groups or group mappings, so that
+ * an ACL resolved before a change is never cached after it.
+ */
+@Component
+public class AccountACLCache {
+
+    private final AtomicLong version = new AtomicLong();
+    private final Cache cache;
+    private final CredentialsCache credentialsCache;
+
+    @Autowired
+    public AccountACLCache(CacheManager cacheManager, CredentialsCache credentialsCache) {
+        this.cache = Objects.requireNonNull(cacheManager.getCache(Caches.ACCOUNT_ACL), "Account ACL cache must be defined");
+        this.credentialsCache = credentialsCache;
+    }
+
+    /**
+     * Gets the account with its ACL, resolving it only if not cached for the current ACL version.
+     */
+    public Account get(AuthenticatedAccount raw, Function<AuthenticatedAccount, Account> resolver) {
+        // Temporary accounts are not cached
+        if (!ID.isDefined(raw.getAccount().getId())) {
+            return resolver.apply(raw);
+        }
+        String key = String.valueOf(raw.getAccount().id());
+        long currentVersion = version.get();
+        VersionedAccount cached = cache.get(key, VersionedAccount.class);
+        if (cached != null && cached.version == currentVersion) {
+            return cached.account;
+        }
+        Account account = resolver.apply(raw);
+        if (version.get() == currentVersion) {
+            cache.put(key, new VersionedAccount(currentVersion, account));
+        }
+        return account;
+    }
+
+    /**
+     * Invalidates all the resolved ACL and credentials, again after the current transaction
+     * is committed so that no resolution can cache the data being changed.
+     */
+    public void invalidate() {
+        doInvalidate();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    doInvalidate();
+                }
+            });
+        }
+    }
+
+    private void doInvalidate() {
+        version.incrementAndGet();
+        cache.clear();
+        credentialsCache.clear();
+    }
+
+    private static class VersionedAccount {
+
+        private final long version;
+        private final Account account;
+
+        private VersionedAccount(long version, Account account) {
+            this.version = version;
+            this.account = account;
+        }
+    }
+
+}
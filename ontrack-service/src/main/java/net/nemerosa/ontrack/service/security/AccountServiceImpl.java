@@ -31,6 +31,7 @@ public class AccountServiceImpl implements AccountService {
     private final SecurityService securityService;
     private final AuthenticationSourceService authenticationSourceService;
     private final PasswordEncoder passwordEncoder;
+    private final AccountACLCache accountACLCache;
     private Collection<AccountGroupContributor> accountGroupContributors = Collections.emptyList();
 
     @Autowired
@@ -41,7 +42,8 @@ public class AccountServiceImpl implements AccountService {
             AccountGroupRepository accountGroupRepository,
             SecurityService securityService,
             AuthenticationSourceService authenticationSourceService,
-            PasswordEncoder passwordEncoder) {
+            PasswordEncoder passwordEncoder,
+            AccountACLCache accountACLCache) {
         this.roleRepository = roleRepository;
         this.rolesService = rolesService;
         this.accountRepository = accountRepository;
@@ -49,6 +51,7 @@ public class AccountServiceImpl implements AccountService {
         this.securityService = securityService;
         this.authenticationSourceService = authenticationSourceService;
         this.passwordEncoder = passwordEncoder;
+        this.accountACLCache = accountACLCache;
     }
 
     @Autowired(required = false)
@@ -58,6 +61,10 @@ public class AccountServiceImpl implements AccountService {
 
     @Override
     public Account withACL(AuthenticatedAccount raw) {
+        return accountACLCache.get(raw, this::resolveACL);
+    }
+
+    private Account resolveACL(AuthenticatedAccount raw) {
         return raw.getAccount()
                 // Global role
                 .withGlobalRole(
@@ -137,6 +144,8 @@ public class AccountServiceImpl implements AccountService {
         if (account.isDefaultAdmin() && !StringUtils.equals(account.getName(), input.getName())) {
             throw new AccountDefaultAdminCannotUpdateNameException();
         }
+        // ACL are changing
+        accountACLCache.invalidate();
         // Updates it
         account = account.update(input);
         // Saves it
@@ -159,6 +168,8 @@ public class AccountServiceImpl implements AccountService {
         if (getAccount(accountId).isDefaultAdmin()) {
             throw new AccountDefaultAdminCannotDeleteException();
         }
+        // ACL are changing
+        accountACLCache.invalidate();
         // Deletion
         return accountRepository.deleteAccount(accountId);
     }
@@ -187,6 +198,8 @@ public class AccountServiceImpl implements AccountService {
     @Override
     public AccountGroup updateGroup(ID groupId, NameDescription input) {
         securityService.checkGlobalFunction(AccountGroupManagement.class);
+        // ACL are changing
+        accountACLCache.invalidate();
         AccountGroup group = getAccountGroup(groupId).update(input);
         accountGroupRepository.update(group);
         return group;
@@ -195,6 +208,8 @@ public class AccountServiceImpl implements AccountService {
     @Override
     public Ack deleteGroup(ID groupId) {
         securityService.checkGlobalFunction(AccountGroupManagement.class);
+        // ACL are changing
+        accountACLCache.invalidate();
         return accountGroupRepository.delete(groupId);
     }
 
@@ -236,6 +251,8 @@ public class AccountServiceImpl implements AccountService {
 
     @Override
     public Ack saveGlobalPermission(PermissionTargetType type, int id, PermissionInput input) {
+        // ACL are changing
+        accountACLCache.invalidate();
         switch (type) {
             case ACCOUNT:
                 securityService.checkGlobalFunction(AccountManagement.class);
@@ -275,6 +292,8 @@ public class AccountServiceImpl implements AccountService {
 
     @Override
     public Ack deleteGlobalPermission(PermissionTargetType type, int id) {
+        // ACL are changing
+        accountACLCache.invalidate();
         switch (type) {
             case ACCOUNT:
                 securityService.checkGlobalFunction(AccountManagement.class);
@@ -316,6 +335,8 @@ public class AccountServiceImpl implements AccountService {
     @Override
     public Ack saveProjectPermission(ID projectId, PermissionTargetType type, int id, PermissionInput input) {
         securityService.checkProjectFunction(projectId.getValue(), ProjectAuthorisationMgt.class);
+        // ACL are changing
+        accountACLCache.invalidate();
         switch (type) {
             case ACCOUNT:
                 return roleRepository.saveProjectRoleForAccount(projectId.getValue(), id, input.getRole());
@@ -329,6 +350,8 @@ public class AccountServiceImpl implements AccountService {
     @Override
     public Ack deleteProjectPermission(ID projectId, PermissionTargetType type, int id) {
         securityService.checkProjectFunction(projectId.getValue(), ProjectAuthorisationMgt.class);
+        // ACL are changing
+        accountACLCache.invalidate();
         switch (type) {
             case ACCOUNT:
                 return roleRepository.deleteProjectRoleForAccount(projectId.getValue(), id);
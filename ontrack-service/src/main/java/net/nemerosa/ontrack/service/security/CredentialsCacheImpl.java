@@ -0,0 +1,103 @@
+package net.nemerosa.ontrack.service.security;
+
+import net.nemerosa.ontrack.common.Caches;
+import net.nemerosa.ontrack.model.security.CredentialsCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * The credentials are never stored as such, only a salted hash of them, the salt
+ * being generated at startup.
+ */
+@Service
+public class CredentialsCacheImpl implements CredentialsCache {
+
+    private final Cache cache;
+    private final byte[] salt = new byte[16];
+
+    @Autowired
+    public CredentialsCacheImpl(CacheManager cacheManager) {
+        this.cache = Objects.requireNonNull(cacheManager.getCache(Caches.CREDENTIALS), "Credentials cache must be defined");
+        new SecureRandom().nextBytes(salt);
+    }
+
+    @Override
+    public Authentication authenticate(String source, Authentication authentication, Function<Authentication, Authentication> authenticator) {
+        if (!(authentication instanceof UsernamePasswordAuthenticationToken) || authentication.getCredentials() == null) {
+            return authenticator.apply(authentication);
+        }
+        String key = key(source, authentication.getName());
+        byte[] hash = hash(source, authentication);
+        // Credentials already verified
+        CachedCredentials cached = cache.get(key, CachedCredentials.class);
+        if (cached != null && MessageDigest.isEqual(cached.hash, hash)) {
+            UsernamePasswordAuthenticationToken result = new UsernamePasswordAuthenticationToken(
+                    cached.principal,
+                    authentication.getCredentials(),
+                    cached.authorities
+            );
+            result.setDetails(authentication.getDetails());
+            return result;
+        }
+        // Actual authentication
+        Authentication result = authenticator.apply(authentication);
+        if (result != null && result.isAuthenticated() && result.getPrincipal() != null) {
+            cache.put(key, new CachedCredentials(hash, result.getPrincipal(), result.getAuthorities()));
+        }
+        return result;
+    }
+
+    @Override
+    public void evict(String source, String username) {
+        cache.evict(key(source, username));
+    }
+
+    @Override
+    public void clear() {
+        cache.clear();
+    }
+
+    private String key(String source, String username) {
+        return source + ":" + username;
+    }
+
+    private byte[] hash(String source, Authentication authentication) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            digest.update(key(source, authentication.getName()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(authentication.getCredentials().toString().getBytes(StandardCharsets.UTF_8));
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static class CachedCredentials {
+
+        private final byte[] hash;
+        private final Object principal;
+        private final Collection<? extends GrantedAuthority> authorities;
+
+        private CachedCredentials(byte[] hash, Object principal, Collection<? extends GrantedAuthority> authorities) {
+            this.hash = hash;
+            this.principal = principal;
+            this.authorities = authorities;
+        }
+    }
+
+}
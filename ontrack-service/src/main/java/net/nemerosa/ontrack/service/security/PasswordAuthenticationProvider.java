@@ -3,6 +3,7 @@ package net.nemerosa.ontrack.service.security;
 import net.nemerosa.ontrack.model.security.AccountService;
 import net.nemerosa.ontrack.model.security.AccountUserDetails;
 import net.nemerosa.ontrack.model.security.AuthenticatedAccount;
+import net.nemerosa.ontrack.model.security.CredentialsCache;
 import net.nemerosa.ontrack.model.security.UserSource;
 import net.nemerosa.ontrack.repository.AccountRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +11,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.authentication.dao.AbstractUserDetailsAuthenticationProvider;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -22,17 +24,29 @@ import java.util.Optional;
 @Qualifier("password")
 public class PasswordAuthenticationProvider extends AbstractUserDetailsAuthenticationProvider implements UserSource {
 
+    private static final String CREDENTIALS_SOURCE = "password";
+
     private final AccountService accountService;
     private final AccountRepository accountRepository;
     private final PasswordEncoder passwordEncoder;
     private final PasswordAuthenticationSourceProvider passwordAuthenticationSourceProvider;
+    private final CredentialsCache credentialsCache;
 
     @Autowired
-    public PasswordAuthenticationProvider(AccountService accountService, AccountRepository accountRepository, PasswordEncoder passwordEncoder, PasswordAuthenticationSourceProvider passwordAuthenticationSourceProvider) {
+    public PasswordAuthenticationProvider(AccountService accountService, AccountRepository accountRepository, PasswordEncoder passwordEncoder, PasswordAuthenticationSourceProvider passwordAuthenticationSourceProvider, CredentialsCache credentialsCache) {
         this.accountService = accountService;
         this.accountRepository = accountRepository;
         this.passwordEncoder = passwordEncoder;
         this.passwordAuthenticationSourceProvider = passwordAuthenticationSourceProvider;
+        this.credentialsCache = credentialsCache;
+    }
+
+    /**
+     * Checks the password only if it has not been verified recently.
+     */
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        return credentialsCache.authenticate(CREDENTIALS_SOURCE, authentication, super::authenticate);
     }
 
     @Override
@@ -56,10 +70,11 @@ public class PasswordAuthenticationProvider extends AbstractUserDetailsAuthentic
     }
 
     /**
-     * Nothing to do since there is no cache.
+     * Forgets the verified credentials.
      */
     @Override
     public void onLogout(String username) {
+        credentialsCache.evict(CREDENTIALS_SOURCE, username);
     }
 
     @Override
@@ -3,6 +3,7 @@ package net.nemerosa.ontrack.service.security;
 import net.nemerosa.ontrack.model.Ack;
 import net.nemerosa.ontrack.model.exceptions.UserOldPasswordException;
 import net.nemerosa.ontrack.model.security.Account;
+import net.nemerosa.ontrack.model.security.CredentialsCache;
 import net.nemerosa.ontrack.model.security.SecurityService;
 import net.nemerosa.ontrack.model.security.UserService;
 import net.nemerosa.ontrack.model.support.PasswordChange;
@@ -18,12 +19,14 @@ public class UserServiceImpl implements UserService {
     private final SecurityService securityService;
     private final AccountRepository accountRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CredentialsCache credentialsCache;
 
     @Autowired
-    public UserServiceImpl(SecurityService securityService, AccountRepository accountRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(SecurityService securityService, AccountRepository accountRepository, PasswordEncoder passwordEncoder, CredentialsCache credentialsCache) {
         this.securityService = securityService;
         this.accountRepository = accountRepository;
         this.passwordEncoder = passwordEncoder;
+        this.credentialsCache = credentialsCache;
     }
 
     @Override
@@ -44,6 +47,8 @@ public class UserServiceImpl implements UserService {
                     account.id(),
                     passwordEncoder.encode(input.getNewPassword())
             );
+            // The old password must not be accepted any longer
+            credentialsCache.clear();
             return Ack.OK;
         }
     }
@@ -0,0 +1,213 @@
+package net.nemerosa.ontrack.service
+
+import com.fasterxml.jackson.databind.JsonNode
+import net.nemerosa.ontrack.model.search.SearchQuery
+import net.nemerosa.ontrack.model.structure.*
+import net.nemerosa.ontrack.model.support.OntrackConfigProperties
+import net.nemerosa.ontrack.model.support.SearchConfigProperties
+import net.nemerosa.ontrack.repository.SearchIndexRecord
+import net.nemerosa.ontrack.repository.SearchIndexRepository
+import net.nemerosa.ontrack.repository.SearchIndexTerm
+import net.nemerosa.ontrack.repository.SearchIndexWeight
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
+import org.springframework.stereotype.Service
+import org.springframework.transaction.annotation.Transactional
+import java.util.concurrent.ConcurrentHashMap
+import javax.annotation.PostConstruct
+
+/**
+ * Search indexes stored in the database, using the full text search of PostgreSQL.
+ *
+ * The [mapping][SearchIndexer.indexMapping] of the indexers is used to know which fields
+ * must be matched as keywords or as text, and their boost to weight them in the ranking.
+ */
+@Service
+@Transactional
+@ConditionalOnProperty(
+        name = [OntrackConfigProperties.SEARCH_ENGINE_PROPERTY],
+        havingValue = SearchConfigProperties.SEARCH_ENGINE_POSTGRESQL
+)
+class PostgreSQLSearchIndexService(
+        private val searchIndexRepository: SearchIndexRepository,
+        private val ontrackConfigProperties: OntrackConfigProperties
+) : SearchIndexService {
+
+    private val logger: Logger = LoggerFactory.getLogger(PostgreSQLSearchIndexService::class.java)
+
+    /**
+     * Indexation of the fields, per index
+     */
+    private val fieldIndexations = ConcurrentHashMap<String, Map<String, FieldIndexation>>()
+
+    override val searchIndexesAvailable: Boolean = true
+
+    /**
+     * Indexes the partial matches on keywords if possible.
+     */
+    @PostConstruct
+    fun enablePartialMatching() {
+        if (!searchIndexRepository.enablePartialMatching()) {
+            logger.warn(
+                    "[postgresql] The pg_trgm extension cannot be created by the Ontrack database user. " +
+                            "Partial matches on keywords are not indexed and not scored. " +
+                            "As a prerequisite, run `CREATE EXTENSION pg_trgm;` on the Ontrack database as a superuser."
+            )
+        }
+    }
+
+    /**
+     * Nothing to create, all indexes share the same table.
+     */
+    override fun <T : SearchItem> initIndex(indexer: SearchIndexer<T>) {
+        logger.info("[postgresql][index][${indexer.indexName}] Init")
+    }
+
+    override fun <T : SearchItem> index(indexer: SearchIndexer<T>) {
+        val batchSize = indexer.indexBatch ?: ontrackConfigProperties.search.index.batch
+        logger.debug("Full indexation for ${indexer.indexName} with batch size = $batchSize")
+        val buffer = mutableListOf<T>()
+        var written = 0
+        indexer.indexAll { item ->
+            buffer.add(item)
+            if (buffer.size == batchSize) {
+                written += save(indexer, buffer, update = true)
+                buffer.clear()
+            }
+        }
+        // Remaining items
+        written += save(indexer, buffer, update = true)
+        logger.info("[postgresql][index][${indexer.indexName}] Indexation done, written=$written")
+        indexer.indexDone()
+    }
+
+    override fun <T : SearchItem> resetIndex(indexer: SearchIndexer<T>, reindex: Boolean): Boolean {
+        searchIndexRepository.deleteAll(indexer.indexName)
+        fieldIndexations.remove(indexer.indexName)
+        indexer.indexReset()
+        if (reindex) {
+            index(indexer)
+        }
+        return true
+    }
+
+    override fun <T : SearchItem> createSearchIndex(indexer: SearchIndexer<T>, item: T) {
+        logger.debug("Create index ${indexer.indexName}")
+        save(indexer, listOf(item), update = true)
+    }
+
+    override fun <T : SearchItem> updateSearchIndex(indexer: SearchIndexer<T>, item: T) {
+        logger.debug("Update index ${indexer.indexName}")
+        save(indexer, listOf(item), update = true)
+    }
+
+    override fun <T : SearchItem> deleteSearchIndex(indexer: SearchIndexer<T>, id: String) {
+        logger.debug("Delete index ${indexer.indexName}")
+        searchIndexRepository.delete(indexer.indexName, id)
+    }
+
+    override fun <T : SearchItem> batchSearchIndex(indexer: SearchIndexer<T>, items: Collection<T>, mode: BatchIndexMode): BatchIndexResults {
+        logger.debug("[search][batch-index] index=${indexer.indexName},items=${items.size},mode=$mode")
+        // Gets all the existing items at once
+        val existing = searchIndexRepository.findExistingIds(indexer.indexName, items.map { it.id })
+        val added = items.count { it.id !in existing }
+        // Writes the items
+        val written = save(indexer, items, update = mode == BatchIndexMode.UPDATE)
+        logger.info("[search][batch-index] index=${indexer.indexName},items=${items.size},mode=$mode,written=$written")
+        return when (mode) {
+            BatchIndexMode.KEEP -> BatchIndexResults(added = added, updated = 0, kept = existing.size, deleted = 0)
+            BatchIndexMode.UPDATE -> BatchIndexResults(added = added, updated = existing.size, kept = 0, deleted = 0)
+        }
+    }
+
+    override fun <T : SearchItem> query(indexer: SearchIndexer<T>, size: Int, query: SearchQuery, handler: (source: JsonNode) -> Unit) {
+        var next = true
+        var offset = 0
+        while (next) {
+            val page = searchIndexRepository.query(indexer.indexName, query, offset, size)
+            page.forEach(handler)
+            // Next page if page's count >= size
+            next = page.size >= size
+            offset += size
+        }
+    }
+
+    private fun <T : SearchItem> save(indexer: SearchIndexer<T>, items: Collection<T>, update: Boolean): Int =
+            if (items.isEmpty()) {
+                0
+            } else {
+                val indexations = fieldIndexations.computeIfAbsent(indexer.indexName) {
+                    fieldIndexations(indexer.indexMapping)
+                }
+                searchIndexRepository.save(
+                        indexer.indexName,
+                        items.map { toRecord(indexations, it) },
+                        update
+                )
+            }
+
+    private fun toRecord(indexations: Map<String, FieldIndexation>, item: SearchItem): SearchIndexRecord {
+        val keywords = mutableListOf<SearchIndexTerm>()
+        val texts = mutableListOf<SearchIndexTerm>()
+        item.fields.forEach { (name, value) ->
+            // Fields not mapped are indexed both as keywords and text
+            val indexation = indexations[name] ?: FieldIndexation.DEFAULT
+            val values = flatten(value)
+            indexation.keyword?.let { weight ->
+                values.mapTo(keywords) { SearchIndexTerm(it, weight) }
+            }
+            indexation.text?.let { weight ->
+                values.mapTo(texts) { SearchIndexTerm(it, weight) }
+            }
+        }
+        return SearchIndexRecord(
+                id = item.id,
+                fields = item.fields,
+                keywords = keywords,
+                texts = texts,
+                projectId = item.projectId
+        )
+    }
+
+    private fun flatten(value: Any?): List<String> =
+            when (value) {
+                null -> emptyList()
+                is Collection<*> -> value.flatMap { flatten(it) }
+                is Map<*, *> -> value.values.flatMap { flatten(it) }
+                else -> listOf(value.toString())
+            }
+
+    private fun fieldIndexations(mapping: SearchIndexMapping?): Map<String, FieldIndexation> =
+            mapping?.fields?.associate { field ->
+                val types = field.types.filter { it.index != false }
+                val keyword = types.filter { it.type == "keyword" || it.type == "long" }
+                val text = types.filter { it.type == "text" || it.type == "nested" }
+                field.name to FieldIndexation(
+                        keyword = keyword.firstOrNull()?.let { weight(it.scoreBoost) },
+                        text = text.firstOrNull()?.let { weight(it.scoreBoost) }
+                )
+            } ?: emptyMap()
+
+    /**
+     * Converts a boost into one of the four weights available in PostgreSQL.
+     */
+    private fun weight(boost: Double?): SearchIndexWeight =
+            when {
+                boost == null -> SearchIndexWeight.D
+                boost >= 4.0 -> SearchIndexWeight.A
+                boost >= 3.0 -> SearchIndexWeight.B
+                boost > 1.0 -> SearchIndexWeight.C
+                else -> SearchIndexWeight.D
+            }
+
+    private class FieldIndexation(
+            val keyword: SearchIndexWeight?,
+            val text: SearchIndexWeight?
+    ) {
+        companion object {
+            val DEFAULT = FieldIndexation(keyword = SearchIndexWeight.D, text = SearchIndexWeight.D)
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package net.nemerosa.ontrack.service
+
+import net.nemerosa.ontrack.job.JobCategory
+import net.nemerosa.ontrack.job.JobScheduler
+import net.nemerosa.ontrack.model.structure.SearchIndexService
+import net.nemerosa.ontrack.model.structure.SearchIndexer
+import net.nemerosa.ontrack.model.support.AbstractSearchIndexationJobs
+import net.nemerosa.ontrack.model.support.OntrackConfigProperties
+import net.nemerosa.ontrack.model.support.SearchConfigProperties
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
+import org.springframework.stereotype.Component
+
+/**
+ * One job per type of search, for the indexes stored in the database.
+ */
+@Component
+@ConditionalOnProperty(
+        name = [OntrackConfigProperties.SEARCH_ENGINE_PROPERTY],
+        havingValue = SearchConfigProperties.SEARCH_ENGINE_POSTGRESQL
+)
+class PostgreSQLSearchIndexationJobs(
+        searchIndexers: List<SearchIndexer<*>>,
+        searchIndexService: SearchIndexService,
+        jobScheduler: JobScheduler
+) : AbstractSearchIndexationJobs(
+        searchIndexers,
+        searchIndexService,
+        jobScheduler,
+        JobCategory.of("search").withName("Search")
+)
@@ -0,0 +1,81 @@
+package net.nemerosa.ontrack.service
+
+import net.nemerosa.ontrack.model.Ack
+import net.nemerosa.ontrack.model.structure.*
+import net.nemerosa.ontrack.model.support.OntrackConfigProperties
+import net.nemerosa.ontrack.model.support.SearchConfigProperties
+import net.nemerosa.ontrack.repository.SearchIndexHit
+import net.nemerosa.ontrack.repository.SearchIndexRepository
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
+import org.springframework.stereotype.Service
+import org.springframework.transaction.annotation.Transactional
+
+/**
+ * Search service based on the indexes stored in the database.
+ *
+ * @see PostgreSQLSearchIndexService
+ */
+@Service
+@Transactional(readOnly = true)
+@ConditionalOnProperty(
+        name = [OntrackConfigProperties.SEARCH_ENGINE_PROPERTY],
+        havingValue = SearchConfigProperties.SEARCH_ENGINE_POSTGRESQL
+)
+class PostgreSQLSearchServiceImpl(
+        private val searchIndexRepository: SearchIndexRepository,
+        private val searchIndexers: List<SearchIndexer<*>>,
+        private val searchIndexService: SearchIndexService,
+        private val structureService: StructureService
+) : SearchService {
+
+    val indexers: Map<String, SearchIndexer<*>> by lazy {
+        searchIndexers.associateBy { it.indexName }
+    }
+
+    val indexerByResultType: Map<String, SearchIndexer<*>> by lazy {
+        searchIndexers.associateBy { it.searchResultType.id }
+    }
+
+    override fun paginatedSearch(request: SearchRequest): SearchResults {
+        val indexNames = request.type
+                ?.let { type -> indexerByResultType[type] }
+                ?.let { indexer -> listOf(indexer.indexName) }
+                ?: indexers.keys
+        // Restricting the search to the projects the user can see
+        val hits = searchIndexRepository.search(
+                indexNames,
+                request.token,
+                structureService.viewableProjectIds,
+                request.offset,
+                request.size
+        )
+        return SearchResults(
+                items = hits.hits.mapNotNull { toResult(it) },
+                offset = request.offset,
+                total = hits.total,
+                message = null
+        )
+    }
+
+    override val searchResultTypes: List<SearchResultType>
+        get() =
+            indexers
+                    .map { (_, indexer) -> indexer.searchResultType }
+                    .sortedBy { it.name }
+
+    @Transactional
+    override fun indexReset(reindex: Boolean): Ack {
+        val ok = indexers.all { (_, indexer) ->
+            searchIndexService.resetIndex(indexer, reindex)
+        }
+        return Ack(ok)
+    }
+
+    override fun indexInit() {
+        indexers.forEach { (_, indexer) -> searchIndexService.initIndex(indexer) }
+    }
+
+    private fun toResult(hit: SearchIndexHit): SearchResult? =
+            indexers[hit.index]?.toSearchResult(hit.id, hit.score, hit.fields)
+
+}
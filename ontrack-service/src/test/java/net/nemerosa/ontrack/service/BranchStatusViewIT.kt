@@ -0,0 +1,66 @@
+package net.nemerosa.ontrack.service
+
+import net.nemerosa.ontrack.it.AbstractDSLTestSupport
+import org.junit.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNull
+import kotlin.test.assertTrue
+
+class BranchStatusViewIT : AbstractDSLTestSupport() {
+
+    @Test
+    fun `Branch status views loaded for all branches at once`() {
+        project {
+            val b1 = branch("1.0")
+            b1.apply {
+                val copper = promotionLevel("COPPER")
+                val bronze = promotionLevel("BRONZE")
+                build("1") {
+                    promote(copper)
+                    promote(bronze)
+                }
+                build("2") {
+                    promote(copper)
+                }
+                build("3")
+            }
+            val b2 = branch("2.0")
+            b2.promotionLevel("COPPER")
+            val b3 = branch("3.0")
+
+            val views = structureService.getBranchStatusViews(id)
+            assertEquals(3, views.size)
+
+            // Same content than the views loaded branch per branch
+            views.forEach { view ->
+                val single = structureService.getBranchStatusView(view.branch)
+                assertEquals(single.latestBuild?.id, view.latestBuild?.id)
+                assertEquals(
+                        single.promotions.map { it.promotionLevel.name to it.promotionRun?.build?.name },
+                        view.promotions.map { it.promotionLevel.name to it.promotionRun?.build?.name }
+                )
+            }
+
+            val v1 = views.first { it.branch.id == b1.id }
+            assertEquals("3", v1.latestBuild.name)
+            assertEquals(
+                    listOf("COPPER" to "2", "BRONZE" to "1"),
+                    v1.promotions.map { it.promotionLevel.name to it.promotionRun?.build?.name }
+            )
+            assertEquals("BRONZE", v1.lastPromotionView.promotionLevel.name)
+
+            val v2 = views.first { it.branch.id == b2.id }
+            assertNull(v2.latestBuild)
+            assertEquals(listOf("COPPER"), v2.promotions.map { it.promotionLevel.name })
+            assertNull(v2.lastPromotionView)
+
+            val v3 = views.first { it.branch.id == b3.id }
+            assertNull(v3.latestBuild)
+            assertTrue(v3.promotions.isEmpty())
+
+            // Without decorations
+            assertTrue(structureService.getBranchStatusViews(id, false).all { it.decorations.isEmpty() })
+        }
+    }
+
+}
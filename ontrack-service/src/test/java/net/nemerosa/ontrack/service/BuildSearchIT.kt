@@ -0,0 +1,140 @@
+package net.nemerosa.ontrack.service
+
+import net.nemerosa.ontrack.extension.api.support.TestProperty
+import net.nemerosa.ontrack.extension.api.support.TestPropertyType
+import net.nemerosa.ontrack.extension.api.support.TestSimpleProperty
+import net.nemerosa.ontrack.extension.api.support.TestSimplePropertyType
+import net.nemerosa.ontrack.it.AbstractDSLTestSupport
+import net.nemerosa.ontrack.model.structure.*
+import org.junit.Test
+import kotlin.test.assertEquals
+
+class BuildSearchIT : AbstractDSLTestSupport() {
+
+    @Test
+    fun `Search on branch and build names`() {
+        project {
+            val b1 = branch("release-1.0")
+            b1.build("1.0.0")
+            b1.build("1.0.1")
+            branch("release-2.0") {
+                build("2.0.0")
+            }
+            // Branch regex
+            assertEquals(
+                    listOf("1.0.1", "1.0.0"),
+                    search(BuildSearchForm().withBranchName("release-1\\..*")).map { it.name }
+            )
+            // Build regex, on several branches
+            assertEquals(
+                    listOf("2.0.0", "1.0.0"),
+                    search(BuildSearchForm().withBuildName("\\d\\.0\\.0")).map { it.name }
+            )
+            // Build regex which cannot be run in SQL
+            assertEquals(
+                    listOf("1.0.1"),
+                    search(BuildSearchForm().withBuildName("1\\.0\\.1++")).map { it.name }
+            )
+            // Negated class inside brackets, not supported by PostgreSQL
+            assertEquals(
+                    listOf("2.0.0", "1.0.0"),
+                    search(BuildSearchForm().withBuildName("[\\D12]\\.0\\.0")).map { it.name }
+            )
+            // Exact match
+            val builds = search(BuildSearchForm().withBuildName("1.0.0").withBuildExactMatch(true))
+            assertEquals(listOf("1.0.0"), builds.map { it.name })
+            assertEquals(b1.id, builds.first().branch.id)
+            // Limit
+            assertEquals(
+                    listOf("2.0.0", "1.0.1"),
+                    search(BuildSearchForm().withMaximumCount(2)).map { it.name }
+            )
+        }
+    }
+
+    @Test
+    fun `Search on promotions and validations`() {
+        project {
+            branch {
+                val pl = promotionLevel("COPPER")
+                val vs = validationStamp("VS")
+                build("1") {
+                    promote(pl)
+                    validate(vs)
+                }
+                build("2") {
+                    validate(vs, ValidationRunStatusID.STATUS_PASSED)
+                    validate(vs, ValidationRunStatusID.STATUS_FAILED)
+                }
+                build("3")
+            }
+            assertEquals(
+                    listOf("1"),
+                    search(BuildSearchForm().withPromotionName("COPPER")).map { it.name }
+            )
+            assertEquals(
+                    listOf("1"),
+                    search(BuildSearchForm().withValidationStampName("VS")).map { it.name }
+            )
+        }
+    }
+
+    @Test
+    fun `Search on properties`() {
+        project {
+            branch {
+                build("1") {
+                    setProperty(this, TestSimplePropertyType::class.java, TestSimpleProperty("abc"))
+                    setProperty(this, TestPropertyType::class.java, TestProperty.of("xyz"))
+                }
+                build("2") {
+                    setProperty(this, TestSimplePropertyType::class.java, TestSimpleProperty("def"))
+                }
+            }
+            // Presence of the property
+            assertEquals(
+                    listOf("2", "1"),
+                    search(BuildSearchForm().withProperty(TestSimplePropertyType::class.java.name)).map { it.name }
+            )
+            // Value searched in SQL
+            assertEquals(
+                    listOf("2"),
+                    search(BuildSearchForm().withProperty(TestSimplePropertyType::class.java.name).withPropertyValue("de")).map { it.name }
+            )
+            // Value checked on each build
+            assertEquals(
+                    listOf("1"),
+                    search(BuildSearchForm().withProperty(TestPropertyType::class.java.name).withPropertyValue("xy")).map { it.name }
+            )
+        }
+    }
+
+    @Test
+    fun `Search on links`() {
+        val target = project<Build> {
+            branch<Build> {
+                build("t")
+            }
+        }
+        project {
+            branch {
+                build("1") {
+                    linkTo(target)
+                }
+                build("2")
+            }
+            assertEquals(
+                    listOf("1"),
+                    search(BuildSearchForm().withLinkedTo("${target.project.name}:t*")).map { it.name }
+            )
+            assertEquals(
+                    listOf("t"),
+                    target.project.search(BuildSearchForm().withLinkedFrom("$name:1")).map { it.name }
+            )
+        }
+    }
+
+    private fun Project.search(form: BuildSearchForm): List<Build> =
+            asUserWithView(this).call { structureService.buildSearch(id, form) }
+
+}
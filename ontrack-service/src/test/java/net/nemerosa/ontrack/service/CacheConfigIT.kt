@@ -1,5 +1,6 @@
 package net.nemerosa.ontrack.service
 
+import io.micrometer.core.instrument.MeterRegistry
 import net.nemerosa.ontrack.extension.api.support.TestProperty
 import net.nemerosa.ontrack.extension.api.support.TestPropertyType
 import net.nemerosa.ontrack.it.AbstractServiceTestSupport
@@ -13,6 +14,9 @@ class CacheConfigIT : AbstractServiceTestSupport() {
     @Autowired
     private lateinit var propertyRepository: PropertyRepository
 
+    @Autowired
+    private lateinit var meterRegistry: MeterRegistry
+
     @Test
     fun `Properties are cached`() {
         val project = doCreateProject()
@@ -37,4 +41,32 @@ class CacheConfigIT : AbstractServiceTestSupport() {
         assertTrue(p === p2, "Cache enabled")
     }
 
-}
\ No newline at end of file
+    @Test
+    fun `Cache metrics`() {
+        val project = doCreateProject()
+        setProperty(
+                project,
+                TestPropertyType::class.java,
+                TestProperty.of("test")
+        )
+        val hits = cacheHits("properties")
+        // Gets the property twice
+        repeat(2) {
+            propertyRepository.loadProperty(
+                    TestPropertyType::class.java.name,
+                    project.projectEntityType,
+                    project.id
+            )
+        }
+        // Checks the hits have been counted
+        assertTrue(cacheHits("properties") > hits, "Cache hits are measured")
+    }
+
+    private fun cacheHits(cache: String): Double =
+            meterRegistry.get("cache.gets")
+                    .tag("cache", cache)
+                    .tag("result", "hit")
+                    .functionCounter()
+                    .count()
+
+}
@@ -3,13 +3,17 @@ package net.nemerosa.ontrack.service;
 import net.nemerosa.ontrack.common.BaseException;
 import net.nemerosa.ontrack.extension.api.DecorationExtension;
 import net.nemerosa.ontrack.extension.api.ExtensionManager;
+import net.nemerosa.ontrack.model.events.Event;
+import net.nemerosa.ontrack.model.events.SimpleEventType;
+import net.nemerosa.ontrack.model.extension.ExtensionFeature;
 import net.nemerosa.ontrack.model.security.SecurityService;
-import net.nemerosa.ontrack.model.structure.Decoration;
-import net.nemerosa.ontrack.model.structure.ProjectEntity;
+import net.nemerosa.ontrack.model.structure.*;
+import net.nemerosa.ontrack.model.support.OntrackConfigProperties;
 import org.junit.Test;
 
-import java.util.Collections;
-import java.util.List;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Supplier;
 
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
@@ -32,7 +36,7 @@ public class DecorationServiceImplTest {
 
         SecurityService securityService = mock(SecurityService.class);
 
-        DecorationServiceImpl service = new DecorationServiceImpl(extensionManager, securityService);
+        DecorationServiceImpl service = new DecorationServiceImpl(extensionManager, securityService, new OntrackConfigProperties());
 
         @SuppressWarnings("unchecked")
         List<? extends Decoration> decorations = service.getDecorations(projectEntity, decorator);
@@ -57,7 +61,7 @@ public class DecorationServiceImplTest {
 
         SecurityService securityService = mock(SecurityService.class);
 
-        DecorationServiceImpl service = new DecorationServiceImpl(extensionManager, securityService);
+        DecorationServiceImpl service = new DecorationServiceImpl(extensionManager, securityService, new OntrackConfigProperties());
 
         @SuppressWarnings("unchecked")
         List<? extends Decoration> decorations = service.getDecorations(projectEntity, decorator);
@@ -68,6 +72,178 @@ public class DecorationServiceImplTest {
         assertNull(decoration.getData());
     }
 
+    @Test
+    public void decorations_computed_at_once_for_several_entities() {
+        ProjectEntity e1 = entity(1);
+        ProjectEntity e2 = entity(2);
+        TestDecorationExtension decorator = new TestDecorationExtension(Duration.ZERO, false, 0);
+
+        Map<ProjectEntity, List<Decoration<?>>> decorations = service(decorator, new OntrackConfigProperties())
+                .getDecorations(Arrays.asList(e1, e2));
+
+        assertEquals(1, decorator.calls);
+        assertEquals("1", decorations.get(e1).get(0).getData());
+        assertEquals("2", decorations.get(e2).get(0).getData());
+    }
+
+    @Test
+    public void cached_decorations_until_event_on_the_entity() {
+        ProjectEntity e1 = entity(1);
+        ProjectEntity e2 = entity(2);
+        TestDecorationExtension decorator = new TestDecorationExtension(Duration.ofMinutes(1), false, 0);
+        DecorationServiceImpl service = service(decorator, new OntrackConfigProperties());
+
+        assertEquals("1", service.getDecorations(e1).get(0).getData());
+        assertEquals("1", service.getDecorations(e1).get(0).getData());
+        assertEquals("2", service.getDecorations(e2).get(0).getData());
+        assertEquals(2, decorator.calls);
+
+        // Event on the entity
+        service.onEvent(Event.of(SimpleEventType.of("test", "Test")).with(e1).get());
+        assertEquals("1", service.getDecorations(e1).get(0).getData());
+        assertEquals(3, decorator.calls);
+
+        // Other entities are still cached
+        assertEquals("2", service.getDecorations(e2).get(0).getData());
+        assertEquals(3, decorator.calls);
+    }
+
+    @Test
+    public void decorations_not_cached_when_an_event_arrives_during_their_computation() {
+        ProjectEntity e1 = entity(1);
+        TestDecorationExtension decorator = new TestDecorationExtension(Duration.ofMinutes(1), false, 0);
+        DecorationServiceImpl service = service(decorator, new OntrackConfigProperties());
+
+        // Event on the entity while its decorations are computed
+        decorator.onCompute = () -> service.onEvent(Event.of(SimpleEventType.of("test", "Test")).with(e1).get());
+        assertEquals("1", service.getDecorations(e1).get(0).getData());
+        decorator.onCompute = null;
+
+        // Computed again, and cached this time
+        assertEquals("1", service.getDecorations(e1).get(0).getData());
+        assertEquals("1", service.getDecorations(e1).get(0).getData());
+        assertEquals(2, decorator.calls);
+    }
+
+    @Test
+    public void not_cached_decorations() {
+        ProjectEntity e1 = entity(1);
+        TestDecorationExtension decorator = new TestDecorationExtension(Duration.ZERO, false, 0);
+        DecorationServiceImpl service = service(decorator, new OntrackConfigProperties());
+
+        service.getDecorations(e1);
+        service.getDecorations(e1);
+        assertEquals(2, decorator.calls);
+    }
+
+    @Test
+    public void remote_decorations_left_out_when_exceeding_the_time_budget() {
+        ProjectEntity e1 = entity(1);
+        TestDecorationExtension decorator = new TestDecorationExtension(Duration.ZERO, true, 5000);
+        OntrackConfigProperties properties = new OntrackConfigProperties();
+        properties.getDecorations().setRemoteTimeBudget(Duration.ofMillis(100));
+        DecorationServiceImpl service = service(decorator, properties);
+        try {
+            long start = System.currentTimeMillis();
+            List<Decoration<?>> decorations = service.getDecorations(e1);
+            assertTrue(decorations.isEmpty());
+            assertTrue(System.currentTimeMillis() - start < 2000);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void remote_decorations_within_the_time_budget() {
+        ProjectEntity e1 = entity(1);
+        TestDecorationExtension decorator = new TestDecorationExtension(Duration.ZERO, true, 0);
+        DecorationServiceImpl service = service(decorator, new OntrackConfigProperties());
+        try {
+            assertEquals("1", service.getDecorations(e1).get(0).getData());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private DecorationServiceImpl service(DecorationExtension<?> decorator, OntrackConfigProperties properties) {
+        ExtensionManager extensionManager = mock(ExtensionManager.class);
+        when(extensionManager.getExtensions(DecorationExtension.class)).thenReturn(
+                Collections.singletonList(decorator)
+        );
+        SecurityService securityService = mock(SecurityService.class);
+        when(securityService.runner(any(Supplier.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        return new DecorationServiceImpl(extensionManager, securityService, properties);
+    }
+
+    private ProjectEntity entity(int id) {
+        ProjectEntity entity = mock(ProjectEntity.class);
+        when(entity.getProjectEntityType()).thenReturn(ProjectEntityType.BUILD);
+        when(entity.getId()).thenReturn(ID.of(id));
+        when(entity.id()).thenReturn(id);
+        return entity;
+    }
+
+    private static class TestDecorationExtension implements DecorationExtension<String> {
+
+        private final Duration cacheDuration;
+        private final boolean remote;
+        private final long delay;
+        private int calls = 0;
+        private Runnable onCompute = null;
+
+        TestDecorationExtension(Duration cacheDuration, boolean remote, long delay) {
+            this.cacheDuration = cacheDuration;
+            this.remote = remote;
+            this.delay = delay;
+        }
+
+        @Override
+        public ExtensionFeature getFeature() {
+            return null;
+        }
+
+        @Override
+        public EnumSet<ProjectEntityType> getScope() {
+            return EnumSet.of(ProjectEntityType.BUILD);
+        }
+
+        @Override
+        public Duration getCacheDuration() {
+            return cacheDuration;
+        }
+
+        @Override
+        public boolean isRemote() {
+            return remote;
+        }
+
+        @Override
+        public Map<ProjectEntity, List<Decoration<String>>> getDecorations(List<? extends ProjectEntity> entities) {
+            calls++;
+            if (onCompute != null) {
+                onCompute.run();
+            }
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            Map<ProjectEntity, List<Decoration<String>>> result = new LinkedHashMap<>();
+            for (ProjectEntity entity : entities) {
+                result.put(entity, getDecorations(entity));
+            }
+            return result;
+        }
+
+        @Override
+        public List<Decoration<String>> getDecorations(ProjectEntity entity) {
+            return Collections.singletonList(Decoration.of(this, String.valueOf(entity.id())));
+        }
+    }
+
     public static class TestBaseException extends BaseException {
 
         public TestBaseException() {
@@ -8,6 +8,7 @@ import net.nemerosa.ontrack.model.security.SecurityService;
 import net.nemerosa.ontrack.model.settings.PredefinedPromotionLevelService;
 import net.nemerosa.ontrack.model.settings.PredefinedValidationStampService;
 import net.nemerosa.ontrack.model.structure.*;
+import net.nemerosa.ontrack.repository.CoreBuildFilterRepository;
 import net.nemerosa.ontrack.repository.StatsRepository;
 import net.nemerosa.ontrack.repository.StructureRepository;
 import org.junit.Before;
@@ -55,7 +56,8 @@ public class StructureServiceImplTest {
                 decorationService,
                 promotionRunCheckService,
                 statsRepository,
-                mock(BuildLinkListenerService.class)
+                mock(BuildLinkListenerService.class),
+                mock(CoreBuildFilterRepository.class)
         );
         // Model
         Project project = Project.of(nd("P", "Project")).withId(ID.of(1));
@@ -15,6 +15,7 @@ import kotlin.test.assertEquals
 import kotlin.test.assertFailsWith
 import kotlin.test.assertNotNull
 import kotlin.test.assertNull
+import kotlin.test.assertTrue
 
 class ValidationRunIT : AbstractDSLTestSupport() {
 
@@ -393,4 +394,66 @@ class ValidationRunIT : AbstractDSLTestSupport() {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    fun `Last validation run and status of a build`() {
+        project {
+            branch {
+                val vs1 = validationStamp("VS1")
+                val vs2 = validationStamp("VS2")
+                build("1.0.0") {
+                    fun snapshot() = asAdmin().call { structureService.getBuildStatusSnapshot(this) }
+                    // No validation yet
+                    assertTrue(snapshot().validations.isEmpty())
+                    // Validations
+                    validate(vs1, ValidationRunStatusID.STATUS_FAILED)
+                    val run = validate(vs2, ValidationRunStatusID.STATUS_FAILED)
+                    validate(vs1, ValidationRunStatusID.STATUS_PASSED)
+                    assertEquals(ValidationRunStatusID.PASSED, snapshot().validations[vs1.id()]?.id)
+                    assertEquals(ValidationRunStatusID.FAILED, snapshot().validations[vs2.id()]?.id)
+                    // Change of status on the last run
+                    run.validationStatus(ValidationRunStatusID.STATUS_DEFECTIVE, "Defective")
+                    assertEquals(ValidationRunStatusID.DEFECTIVE, snapshot().validations[vs2.id()]?.id)
+                    // Rebuilding the state
+                    val count = asAdmin().call { structureService.rebuildBuildValidationStates() }
+                    assertTrue(count >= 2)
+                    assertEquals(ValidationRunStatusID.PASSED, snapshot().validations[vs1.id()]?.id)
+                    assertEquals(ValidationRunStatusID.DEFECTIVE, snapshot().validations[vs2.id()]?.id)
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `Last run statuses for several validation stamps`() {
+        project {
+            branch {
+                val vs1 = validationStamp("VS1")
+                val vs2 = validationStamp("VS2")
+                val vs3 = validationStamp("VS3")
+                build("1") {
+                    validate(vs1, ValidationRunStatusID.STATUS_FAILED)
+                    validate(vs2, ValidationRunStatusID.STATUS_PASSED)
+                }
+                build("2") {
+                    validate(vs1, ValidationRunStatusID.STATUS_PASSED)
+                    validate(vs1, ValidationRunStatusID.STATUS_WARNING)
+                }
+                build("3") {
+                    validate(vs1, ValidationRunStatusID.STATUS_FAILED)
+                        .validationStatus(ValidationRunStatusID.STATUS_DEFECTIVE, "Defective")
+                }
+                val statuses = asUserWithView(this).call {
+                    structureService.getLastValidationRunStatusesForValidationStamps(listOf(vs1, vs2, vs3), 3)
+                }
+                // Last statuses of the last runs, most recent build first
+                assertEquals(
+                        listOf(ValidationRunStatusID.DEFECTIVE, ValidationRunStatusID.WARNING, ValidationRunStatusID.PASSED),
+                        statuses[vs1.id]?.map { it.id }
+                )
+                assertEquals(listOf(ValidationRunStatusID.PASSED), statuses[vs2.id]?.map { it.id })
+                assertNull(statuses[vs3.id])
+            }
+        }
+    }
+
+}
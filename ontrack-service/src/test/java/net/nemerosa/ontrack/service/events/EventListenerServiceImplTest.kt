@@ -0,0 +1,114 @@
+package net.nemerosa.ontrack.service.events
+
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.mock
+import com.nhaarman.mockitokotlin2.whenever
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import net.nemerosa.ontrack.model.events.Event
+import net.nemerosa.ontrack.model.events.EventFactory
+import net.nemerosa.ontrack.model.events.EventListener
+import net.nemerosa.ontrack.model.security.SecurityService
+import net.nemerosa.ontrack.model.structure.Branch
+import net.nemerosa.ontrack.model.structure.ID
+import net.nemerosa.ontrack.model.structure.NameDescription
+import net.nemerosa.ontrack.model.structure.Project
+import net.nemerosa.ontrack.model.structure.ProjectEntityType
+import net.nemerosa.ontrack.model.support.OntrackConfigProperties
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.springframework.context.ApplicationContext
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.function.Supplier
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+class EventListenerServiceImplTest {
+
+    private lateinit var service: EventListenerServiceImpl
+    private lateinit var configProperties: OntrackConfigProperties
+    private lateinit var meterRegistry: SimpleMeterRegistry
+    private lateinit var listener: RecordingEventListener
+
+    private val project = Project.of(NameDescription.nd("P", "Project")).withId(ID.of(1))
+    private val branches = (1..3).map { Branch.of(project, NameDescription.nd("B$it", "Branch")).withId(ID.of(it)) }
+
+    @Before
+    fun setup() {
+        val context = mock<ApplicationContext>()
+        listener = RecordingEventListener()
+        whenever(context.getBeansOfType(EventListener::class.java)).thenReturn(mapOf("recording" to listener))
+        val securityService = mock<SecurityService>()
+        whenever(securityService.runner(any<Supplier<Any>>())).thenAnswer { it.arguments[0] }
+        configProperties = OntrackConfigProperties()
+        meterRegistry = SimpleMeterRegistry()
+        service = EventListenerServiceImpl(
+                context,
+                securityService,
+                mock(),
+                meterRegistry,
+                configProperties,
+                mock()
+        )
+    }
+
+    @After
+    fun cleanup() {
+        service.destroy()
+    }
+
+    @Test
+    fun `Synchronous dispatch`() {
+        configProperties.events.async = false
+        service.afterSingletonsInstantiated()
+        val event = branchEvent(branches[0], 0)
+        service.onEvent(event)
+        assertEquals(listOf(event), listener.events[branches[0].id()])
+    }
+
+    @Test
+    fun `Asynchronous dispatch keeps the order of events per branch`() {
+        configProperties.events.workers = 2
+        configProperties.events.queueSize = 10
+        service.afterSingletonsInstantiated()
+        val count = 50
+        listener.latch = CountDownLatch(count * branches.size)
+        (0 until count).forEach { index ->
+            branches.forEach { branch ->
+                service.onEvent(branchEvent(branch, index))
+            }
+        }
+        assertTrue(listener.latch.await(10, TimeUnit.SECONDS), "All events have been processed")
+        branches.forEach { branch ->
+            assertEquals(
+                    (0 until count).map { it.toString() },
+                    listener.events[branch.id()]?.map { it.getValue("index") }
+            )
+        }
+        // Waits for the workers to complete before checking the metrics
+        service.destroy()
+        assertEquals(
+                (count * branches.size).toLong(),
+                meterRegistry.timer("ontrack_event_listener_duration_ms", "listener", "recording").count()
+        )
+    }
+
+    private fun branchEvent(branch: Branch, index: Int): Event =
+            Event.of(EventFactory.UPDATE_BRANCH).withBranch(branch).with("index", index.toString()).get()
+
+    private class RecordingEventListener : EventListener {
+
+        val events = ConcurrentHashMap<Int, MutableList<Event>>()
+        var latch = CountDownLatch(0)
+
+        override fun onEvent(event: Event) {
+            val branch: Branch = event.getEntity(ProjectEntityType.BRANCH)
+            events.computeIfAbsent(branch.id()) { CopyOnWriteArrayList() }.add(event)
+            latch.countDown()
+        }
+    }
+
+}
@@ -61,6 +61,27 @@ public class AccountServiceIT extends AbstractServiceTestSupport {
         assertFalse("As a normal user, must not have any project grant", account.isGranted(project, ValidationStampEdit.class));
     }
 
+    @Test
+    public void account_ACL_refreshed_after_role_change() throws Exception {
+        Account account = account();
+        int id = account.id();
+        // First resolution
+        Account resolved = accountService.withACL(AuthenticatedAccount.of(account));
+        assertFalse(resolved.isGranted(project, ValidationRunStatusChange.class));
+        // Same resolution as long as nothing changes
+        assertSame(resolved, accountService.withACL(AuthenticatedAccount.of(account)));
+        // Granting a role
+        asUser().with(project, ProjectAuthorisationMgt.class).call(() -> accountService.saveProjectPermission(
+                ID.of(project),
+                PermissionTargetType.ACCOUNT,
+                id,
+                new PermissionInput("PARTICIPANT")
+        ));
+        // New resolution
+        resolved = accountService.withACL(AuthenticatedAccount.of(account));
+        assertTrue(resolved.isGranted(project, ValidationRunStatusChange.class));
+    }
+
     @Test
     public void account_with_global_role_controller_on_group() throws Exception {
         // Account
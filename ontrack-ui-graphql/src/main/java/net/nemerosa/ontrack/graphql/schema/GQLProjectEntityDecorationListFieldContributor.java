@@ -3,7 +3,7 @@ package net.nemerosa.ontrack.graphql.schema;
 import graphql.schema.DataFetcher;
 import graphql.schema.GraphQLFieldDefinition;
 import net.nemerosa.ontrack.graphql.support.GraphqlUtils;
-import net.nemerosa.ontrack.model.structure.DecorationService;
+import net.nemerosa.ontrack.graphql.support.dataloader.DecorationsByEntityDataLoader;
 import net.nemerosa.ontrack.model.structure.ProjectEntity;
 import net.nemerosa.ontrack.model.structure.ProjectEntityType;
 import org.apache.commons.lang3.StringUtils;
@@ -22,13 +22,13 @@ import static graphql.schema.GraphQLFieldDefinition.newFieldDefinition;
 @Component
 public class GQLProjectEntityDecorationListFieldContributor implements GQLProjectEntityFieldContributor {
 
-    private final DecorationService decorationService;
     private final GQLTypeDecoration decoration;
+    private final DecorationsByEntityDataLoader decorationsByEntityDataLoader;
 
     @Autowired
-    public GQLProjectEntityDecorationListFieldContributor(DecorationService decorationService, GQLTypeDecoration decoration) {
-        this.decorationService = decorationService;
+    public GQLProjectEntityDecorationListFieldContributor(GQLTypeDecoration decoration, DecorationsByEntityDataLoader decorationsByEntityDataLoader) {
         this.decoration = decoration;
+        this.decorationsByEntityDataLoader = decorationsByEntityDataLoader;
     }
 
     @Override
@@ -56,8 +56,8 @@ public class GQLProjectEntityDecorationListFieldContributor implements GQLProjec
             if (projectEntityClass.isInstance(o)) {
                 // Filters
                 Optional<String> typeFilter = GraphqlUtils.getStringArgument(environment, "type");
-                // Gets the raw list
-                return decorationService.getDecorations((ProjectEntity) o).stream()
+                // Gets the raw list, batched with the other entities
+                return decorationsByEntityDataLoader.load(environment, (ProjectEntity) o).thenApply(decorations -> decorations.stream()
                         // Filter by type
                         .filter(property -> typeFilter
                                 .map(typeFilterName -> StringUtils.equals(
@@ -67,7 +67,8 @@ public class GQLProjectEntityDecorationListFieldContributor implements GQLProjec
                                 .orElse(true)
                         )
                         // OK
-                        .collect(Collectors.toList());
+                        .collect(Collectors.toList())
+                );
             } else {
                 return null;
             }
@@ -2,6 +2,7 @@ package net.nemerosa.ontrack.graphql.schema;
 
 import graphql.schema.DataFetcher;
 import graphql.schema.GraphQLFieldDefinition;
+import net.nemerosa.ontrack.graphql.support.dataloader.PropertyByEntityDataLoader;
 import net.nemerosa.ontrack.model.structure.ProjectEntity;
 import net.nemerosa.ontrack.model.structure.ProjectEntityType;
 import net.nemerosa.ontrack.model.structure.PropertyService;
@@ -20,11 +21,13 @@ public class GQLProjectEntityPropertyFieldContributor implements GQLProjectEntit
 
     private final PropertyService propertyService;
     private final GQLTypeProperty property;
+    private final PropertyByEntityDataLoader propertyByEntityDataLoader;
 
     @Autowired
-    public GQLProjectEntityPropertyFieldContributor(PropertyService propertyService, GQLTypeProperty property) {
+    public GQLProjectEntityPropertyFieldContributor(PropertyService propertyService, GQLTypeProperty property, PropertyByEntityDataLoader propertyByEntityDataLoader) {
         this.propertyService = propertyService;
         this.property = property;
+        this.propertyByEntityDataLoader = propertyByEntityDataLoader;
     }
 
     @Override
@@ -48,14 +51,18 @@ public class GQLProjectEntityPropertyFieldContributor implements GQLProjectEntit
         return StringUtils.substringBeforeLast(baseName, "Type");
     }
 
-    private <P> DataFetcher projectEntityPropertyDataFetcher(PropertyType<P> propertyType, Class<? extends ProjectEntity> projectEntityClass) {
+    private DataFetcher projectEntityPropertyDataFetcher(PropertyType<?> propertyType, Class<? extends ProjectEntity> projectEntityClass) {
         return environment -> {
             Object source = environment.getSource();
             if (projectEntityClass.isInstance(source)) {
                 ProjectEntity projectEntity = (ProjectEntity) source;
-                return propertyService.<P>getProperty(
-                        projectEntity,
-                        propertyType.getClass().getName()
+                // Batched with the same property of the other entities
+                return propertyByEntityDataLoader.load(
+                        environment,
+                        new PropertyByEntityDataLoader.Key(
+                                projectEntity,
+                                propertyType.getClass().getName()
+                        )
                 );
             } else {
                 return null;
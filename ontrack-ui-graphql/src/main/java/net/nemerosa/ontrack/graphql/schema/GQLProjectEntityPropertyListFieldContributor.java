@@ -3,9 +3,9 @@ package net.nemerosa.ontrack.graphql.schema;
 import graphql.schema.DataFetcher;
 import graphql.schema.GraphQLFieldDefinition;
 import net.nemerosa.ontrack.graphql.support.GraphqlUtils;
+import net.nemerosa.ontrack.graphql.support.dataloader.PropertiesByEntityDataLoader;
 import net.nemerosa.ontrack.model.structure.ProjectEntity;
 import net.nemerosa.ontrack.model.structure.ProjectEntityType;
-import net.nemerosa.ontrack.model.structure.PropertyService;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -23,13 +23,13 @@ import static graphql.schema.GraphQLFieldDefinition.newFieldDefinition;
 @Component
 public class GQLProjectEntityPropertyListFieldContributor implements GQLProjectEntityFieldContributor {
 
-    private final PropertyService propertyService;
     private final GQLTypeProperty property;
+    private final PropertiesByEntityDataLoader propertiesByEntityDataLoader;
 
     @Autowired
-    public GQLProjectEntityPropertyListFieldContributor(PropertyService propertyService, GQLTypeProperty property) {
-        this.propertyService = propertyService;
+    public GQLProjectEntityPropertyListFieldContributor(GQLTypeProperty property, PropertiesByEntityDataLoader propertiesByEntityDataLoader) {
         this.property = property;
+        this.propertiesByEntityDataLoader = propertiesByEntityDataLoader;
     }
 
     @Override
@@ -66,8 +66,8 @@ public class GQLProjectEntityPropertyListFieldContributor implements GQLProjectE
                 // Filters
                 Optional<String> typeFilter = GraphqlUtils.getStringArgument(environment, "type");
                 boolean hasValue = GraphqlUtils.getBooleanArgument(environment, "hasValue", false);
-                // Gets the raw list
-                return propertyService.getProperties((ProjectEntity) o).stream()
+                // Gets the raw list, batched with the other entities
+                return propertiesByEntityDataLoader.load(environment, (ProjectEntity) o).thenApply(properties -> properties.stream()
                         // Filter by type
                         .filter(property -> typeFilter
                                 .map(typeFilterName -> StringUtils.equals(
@@ -79,7 +79,8 @@ public class GQLProjectEntityPropertyListFieldContributor implements GQLProjectE
                         // Filter by value
                         .filter(property -> !hasValue || !property.isEmpty())
                         // OK
-                        .collect(Collectors.toList());
+                        .collect(Collectors.toList())
+                );
             } else {
                 return null;
             }
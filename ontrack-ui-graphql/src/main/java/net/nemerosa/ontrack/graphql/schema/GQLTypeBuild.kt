@@ -9,11 +9,13 @@ import net.nemerosa.ontrack.common.getOrNull
 import net.nemerosa.ontrack.graphql.support.GraphqlUtils
 import net.nemerosa.ontrack.graphql.support.GraphqlUtils.fetcher
 import net.nemerosa.ontrack.graphql.support.GraphqlUtils.stdList
+import net.nemerosa.ontrack.graphql.support.dataloader.*
 import net.nemerosa.ontrack.graphql.support.pagination.GQLPaginatedListFactory
 import net.nemerosa.ontrack.model.exceptions.ValidationStampNotFoundException
 import net.nemerosa.ontrack.model.structure.*
 import net.nemerosa.ontrack.model.support.FreeTextAnnotatorContributor
 import org.springframework.stereotype.Component
+import java.util.concurrent.CompletableFuture
 
 @Component
 class GQLTypeBuild(
@@ -24,6 +26,11 @@ class GQLTypeBuild(
         private val runInfo: GQLTypeRunInfo,
         private val runInfoService: RunInfoService,
         private val paginatedListFactory: GQLPaginatedListFactory,
+        private val promotionRunsByBuildDataLoader: PromotionRunsByBuildDataLoader,
+        private val lastPromotionRunsByBuildDataLoader: LastPromotionRunsByBuildDataLoader,
+        private val validationRunsByBuildDataLoader: ValidationRunsByBuildDataLoader,
+        private val lastValidationRunsByBuildDataLoader: LastValidationRunsByBuildDataLoader,
+        private val buildsUsedByBuildDataLoader: BuildsUsedByBuildDataLoader,
         creation: GQLTypeCreation,
         projectEntityFieldContributors: List<GQLProjectEntityFieldContributor>,
         freeTextAnnotatorContributors: List<FreeTextAnnotatorContributor>
@@ -87,6 +94,13 @@ class GQLTypeBuild(
                                                 .defaultValue(50)
                                                 .build()
                                 )
+                                .argument(
+                                        newArgument()
+                                                .name(ARG_LAST_PER_STAMP)
+                                                .description("Returns the last validation run per validation stamp")
+                                                .type(GraphQLBoolean)
+                                                .build()
+                                )
                                 .type(stdList(GraphQLTypeReference(GQLTypeValidationRun.VALIDATION_RUN)))
                                 .dataFetcher(buildValidationRunsFetcher())
                                 .build()
@@ -268,7 +282,7 @@ class GQLTypeBuild(
         return filter
     }
 
-    private fun buildValidationsFetcher(): DataFetcher<List<GQLTypeValidation.GQLTypeValidationData>> {
+    private fun buildValidationsFetcher(): DataFetcher<Any> {
         return fetcher(
                 Build::class.java
         ) { environment: DataFetchingEnvironment, build: Build ->
@@ -291,9 +305,19 @@ class GQLTypeBuild(
                     return@fetcher listOf<GQLTypeValidation.GQLTypeValidationData>()
                 }
             } else {
-                // Gets the validation runs for the build
-                return@fetcher structureService.getValidationStampListForBranch(build.branch.id)
-                        .map { validationStamp -> buildValidation(validationStamp, build) }
+                // Gets the validation runs for the build, batched with the other builds
+                val validationStamps = structureService.getValidationStampListForBranch(build.branch.id)
+                return@fetcher validationRunsByBuildDataLoader.load(environment, build).thenApply { runs ->
+                    val runsPerStamp = runs.orEmpty()
+                            .sortedByDescending { it.id() }
+                            .groupBy { it.validationStamp.id }
+                    validationStamps.map { validationStamp ->
+                        GQLTypeValidation.GQLTypeValidationData(
+                                validationStamp,
+                                runsPerStamp[validationStamp.id] ?: emptyList()
+                        )
+                    }
+                }
             }
         }
     }
@@ -311,38 +335,24 @@ class GQLTypeBuild(
         )
     }
 
-    private fun buildBeingUsedFetcher(): DataFetcher<List<Build>> {
+    private fun buildBeingUsedFetcher(): DataFetcher<CompletableFuture<List<Build>>> {
         return DataFetcher { environment ->
             val build: Build = environment.getSource()
-            val links = structureService.getBuildLinksFrom(build)
-            val projectName: String? = environment.getArgument("project")
-            val branchName: String? = environment.getArgument("branch")
-            if (branchName != null) {
-                if (projectName == null) {
-                    throw IllegalArgumentException("`project` is required")
-                } else {
-                    links.filter { link ->
-                        link.branch.project.name == projectName && link.branch.name == branchName
-                    }
-                }
-            } else if (projectName != null) {
-                links.filter { link ->
-                    link.branch.project.name == projectName
-                }
-            } else {
-                links
+            val filter = getFilter(environment)
+            buildsUsedByBuildDataLoader.load(environment, build).thenApply { links ->
+                links.orEmpty().filter(filter)
             }
         }
     }
 
-    private fun buildLinkedFetcher(): DataFetcher<List<Build>> {
+    private fun buildLinkedFetcher(): DataFetcher<Any> {
         return fetcher(
                 Build::class.java
         ) { environment, build ->
             val direction: String = GraphqlUtils.getStringArgument(environment, ARG_DIRECTION)
                     .orElse("TO")
             when (direction) {
-                "TO" -> getLinkedBuilds(structureService.getBuildLinksFrom(build), "to")
+                "TO" -> buildsUsedByBuildDataLoader.load(environment, build).thenApply { getLinkedBuilds(it.orEmpty(), "to") }
                 "FROM" -> getLinkedBuilds(structureService.getBuildLinksTo(build), "from")
                 "BOTH" -> getLinkedBuilds(structureService.getBuildLinksFrom(build), "to") +
                         getLinkedBuilds(structureService.getBuildLinksTo(build), "from")
@@ -355,7 +365,7 @@ class GQLTypeBuild(
             builds.map { LinkedBuild(it, direction) }
 
     private fun buildValidationRunsFetcher() =
-            DataFetcher<List<ValidationRun>> { environment ->
+            DataFetcher<Any> { environment ->
                 val build: Build = environment.getSource()
                 // Filter
                 val count = GraphqlUtils.getIntArgument(environment, ARG_COUNT).orElse(50)
@@ -390,14 +400,17 @@ class GQLTypeBuild(
                                 }
                     }
                 } else {
-                    // Gets all the validation runs (limited by count)
-                    return@DataFetcher structureService.getValidationRunsForBuild(build.id)
-                            .take(count)
+                    // Gets all the validation runs (limited by count), batched with the other builds
+                    val lastPerStamp = GraphqlUtils.getBooleanArgument(environment, ARG_LAST_PER_STAMP, false)
+                    val loader = if (lastPerStamp) lastValidationRunsByBuildDataLoader else validationRunsByBuildDataLoader
+                    return@DataFetcher loader.load(environment, build).thenApply { runs ->
+                        runs.orEmpty().take(count)
+                    }
                 }
             }
 
     private fun buildPromotionRunsFetcher() =
-            DataFetcher<List<PromotionRun>> { environment ->
+            DataFetcher<Any> { environment ->
                 val build: Build = environment.getSource()
                 // Last per promotion filter?
                 val lastPerLevel = GraphqlUtils.getBooleanArgument(environment, ARG_LAST_PER_LEVEL, false)
@@ -423,12 +436,9 @@ class GQLTypeBuild(
                         return@DataFetcher structureService.getPromotionRunsForBuildAndPromotionLevel(build, promotionLevel)
                     }
                 } else {
-                    // Gets all the promotion runs
-                    if (lastPerLevel) {
-                        return@DataFetcher structureService.getLastPromotionRunsForBuild(build.id)
-                    } else {
-                        return@DataFetcher structureService.getPromotionRunsForBuild(build.id)
-                    }
+                    // Gets all the promotion runs, batched with the other builds
+                    val loader = if (lastPerLevel) lastPromotionRunsByBuildDataLoader else promotionRunsByBuildDataLoader
+                    return@DataFetcher loader.load(environment, build).thenApply { it.orEmpty() }
                 }
             }
 
@@ -457,6 +467,10 @@ class GQLTypeBuild(
          * Last per level argument
          */
         const val ARG_LAST_PER_LEVEL = "lastPerLevel"
+        /**
+         * Last per validation stamp argument
+         */
+        const val ARG_LAST_PER_STAMP = "lastPerStamp"
         /**
          * Direction argument
          */
@@ -4,8 +4,10 @@ import graphql.ExecutionInput
 import graphql.ExecutionResult
 import graphql.GraphQL
 import graphql.execution.ExecutionStrategy
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation
 import graphql.schema.GraphQLSchema
 import net.nemerosa.ontrack.graphql.schema.GraphqlSchemaService
+import net.nemerosa.ontrack.graphql.support.dataloader.GQLDataLoaderRegistryFactory
 import net.nemerosa.ontrack.tx.TransactionService
 import org.springframework.beans.factory.annotation.Qualifier
 import org.springframework.stereotype.Service
@@ -20,13 +22,15 @@ class GraphQLServiceImpl(
         private val queryExecutionStrategy: ExecutionStrategy,
         @Qualifier("queryExecutionStrategy")
         private val mutationExecutionStrategy: ExecutionStrategy,
-        private val transactionService: TransactionService
+        private val transactionService: TransactionService,
+        private val dataLoaderRegistryFactory: GQLDataLoaderRegistryFactory
 ) : GraphQLService {
 
     private val graphQL: GraphQL by lazy {
         GraphQL.newGraphQL(graphqlSchemaService.schema)
                 .queryExecutionStrategy(queryExecutionStrategy)
                 .mutationExecutionStrategy(mutationExecutionStrategy)
+                .instrumentation(DataLoaderDispatcherInstrumentation())
                 .build()
     }
 
@@ -42,6 +46,7 @@ class GraphQLServiceImpl(
                             .query(query)
                             .operationName(operationName)
                             .variables(variables)
+                            .dataLoaderRegistry(dataLoaderRegistryFactory.createRegistry())
                             .build()
             )
         }
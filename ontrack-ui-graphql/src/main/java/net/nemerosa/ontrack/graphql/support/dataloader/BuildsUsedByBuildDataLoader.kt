@@ -0,0 +1,22 @@
+package net.nemerosa.ontrack.graphql.support.dataloader
+
+import net.nemerosa.ontrack.model.structure.Build
+import net.nemerosa.ontrack.model.structure.StructureService
+import org.springframework.stereotype.Component
+
+/**
+ * Loads the builds being used by builds, through build links.
+ */
+@Component
+class BuildsUsedByBuildDataLoader(
+        private val structureService: StructureService
+) : GQLDataLoader<Build, List<Build>> {
+
+    override val name: String = "buildsUsedByBuild"
+
+    override fun loadAll(keys: Set<Build>): Map<Build, List<Build>> {
+        val links = structureService.getBuildsUsedBy(keys.toList())
+        return keys.associateWith { build -> links[build.id] ?: emptyList() }
+    }
+
+}
@@ -0,0 +1,21 @@
+package net.nemerosa.ontrack.graphql.support.dataloader
+
+import net.nemerosa.ontrack.model.structure.Decoration
+import net.nemerosa.ontrack.model.structure.DecorationService
+import net.nemerosa.ontrack.model.structure.ProjectEntity
+import org.springframework.stereotype.Component
+
+/**
+ * Loads the decorations of entities.
+ */
+@Component
+class DecorationsByEntityDataLoader(
+        private val decorationService: DecorationService
+) : GQLDataLoader<ProjectEntity, List<Decoration<*>>> {
+
+    override val name: String = "decorationsByEntity"
+
+    override fun loadAll(keys: Set<ProjectEntity>): Map<ProjectEntity, List<Decoration<*>>> =
+            decorationService.getDecorations(keys.toList())
+
+}
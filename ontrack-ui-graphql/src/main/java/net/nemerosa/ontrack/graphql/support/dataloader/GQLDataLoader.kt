@@ -0,0 +1,48 @@
+package net.nemerosa.ontrack.graphql.support.dataloader
+
+import graphql.schema.DataFetchingEnvironment
+import org.dataloader.DataLoader
+import org.dataloader.MappedBatchLoader
+import java.util.concurrent.CompletableFuture
+
+/**
+ * Batch loader which is registered for each GraphQL execution (see [GQLDataLoaderRegistryFactory]), so
+ * that the values needed by the data fetchers are loaded for all the sources at once.
+ *
+ * @param K Type of key
+ * @param V Type of value
+ */
+interface GQLDataLoader<K, V> {
+
+    /**
+     * Name of the data loader in the registry
+     */
+    val name: String
+
+    /**
+     * Loads the values for a set of keys. Keys missing from the returned map are associated with `null`.
+     */
+    fun loadAll(keys: Set<K>): Map<K, V>
+
+    /**
+     * Creates the data loader to register for an execution.
+     */
+    fun createDataLoader(): DataLoader<K, V?> =
+            DataLoader.newMappedDataLoader(MappedBatchLoader<K, V?> { keys ->
+                CompletableFuture.completedFuture(loadAll(keys))
+            })
+
+    /**
+     * Loads a value from a data fetcher, using the data loader registered for the current execution. If no
+     * data loader has been registered, the value is loaded directly.
+     *
+     * @param environment Current data fetching environment
+     * @param key Key to load the value for
+     * @return Value being loaded
+     */
+    fun load(environment: DataFetchingEnvironment, key: K): CompletableFuture<V?> {
+        val dataLoader: DataLoader<K, V?>? = environment.getDataLoader(name)
+        return dataLoader?.load(key) ?: CompletableFuture.completedFuture(loadAll(setOf(key))[key])
+    }
+
+}
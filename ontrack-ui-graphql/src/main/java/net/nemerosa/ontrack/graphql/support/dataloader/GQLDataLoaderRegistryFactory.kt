@@ -0,0 +1,22 @@
+package net.nemerosa.ontrack.graphql.support.dataloader
+
+import org.dataloader.DataLoaderRegistry
+import org.springframework.stereotype.Component
+
+/**
+ * Creates a new registry of data loaders for each GraphQL execution.
+ */
+@Component
+class GQLDataLoaderRegistryFactory(
+        private val dataLoaders: List<GQLDataLoader<*, *>>
+) {
+
+    fun createRegistry(): DataLoaderRegistry {
+        val registry = DataLoaderRegistry()
+        dataLoaders.forEach { dataLoader ->
+            registry.register(dataLoader.name, dataLoader.createDataLoader())
+        }
+        return registry
+    }
+
+}
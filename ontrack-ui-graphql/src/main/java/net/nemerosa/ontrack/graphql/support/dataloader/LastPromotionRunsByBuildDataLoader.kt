@@ -0,0 +1,23 @@
+package net.nemerosa.ontrack.graphql.support.dataloader
+
+import net.nemerosa.ontrack.model.structure.Build
+import net.nemerosa.ontrack.model.structure.PromotionRun
+import net.nemerosa.ontrack.model.structure.StructureService
+import org.springframework.stereotype.Component
+
+/**
+ * Loads the last promotion run per promotion level of builds.
+ */
+@Component
+class LastPromotionRunsByBuildDataLoader(
+        private val structureService: StructureService
+) : GQLDataLoader<Build, List<PromotionRun>> {
+
+    override val name: String = "lastPromotionRunsByBuild"
+
+    override fun loadAll(keys: Set<Build>): Map<Build, List<PromotionRun>> {
+        val items = structureService.getLastPromotionRunsForBuilds(keys.toList())
+        return keys.associateWith { build -> items[build.id] ?: emptyList() }
+    }
+
+}
@@ -0,0 +1,23 @@
+package net.nemerosa.ontrack.graphql.support.dataloader
+
+import net.nemerosa.ontrack.model.structure.Build
+import net.nemerosa.ontrack.model.structure.ValidationRun
+import net.nemerosa.ontrack.model.structure.StructureService
+import org.springframework.stereotype.Component
+
+/**
+ * Loads the last validation run per validation stamp of builds.
+ */
+@Component
+class LastValidationRunsByBuildDataLoader(
+        private val structureService: StructureService
+) : GQLDataLoader<Build, List<ValidationRun>> {
+
+    override val name: String = "lastValidationRunsByBuild"
+
+    override fun loadAll(keys: Set<Build>): Map<Build, List<ValidationRun>> {
+        val items = structureService.getLastValidationRunsForBuilds(keys.toList())
+        return keys.associateWith { build -> items[build.id] ?: emptyList() }
+    }
+
+}
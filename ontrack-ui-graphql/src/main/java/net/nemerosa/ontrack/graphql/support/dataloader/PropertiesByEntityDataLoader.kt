@@ -0,0 +1,21 @@
+package net.nemerosa.ontrack.graphql.support.dataloader
+
+import net.nemerosa.ontrack.model.structure.ProjectEntity
+import net.nemerosa.ontrack.model.structure.Property
+import net.nemerosa.ontrack.model.structure.PropertyService
+import org.springframework.stereotype.Component
+
+/**
+ * Loads all the properties of entities.
+ */
+@Component
+class PropertiesByEntityDataLoader(
+        private val propertyService: PropertyService
+) : GQLDataLoader<ProjectEntity, List<Property<*>>> {
+
+    override val name: String = "propertiesByEntity"
+
+    override fun loadAll(keys: Set<ProjectEntity>): Map<ProjectEntity, List<Property<*>>> =
+            propertyService.getPropertiesForEntities(keys.toList())
+
+}
@@ -0,0 +1,42 @@
+package net.nemerosa.ontrack.graphql.support.dataloader
+
+import net.nemerosa.ontrack.model.structure.ProjectEntity
+import net.nemerosa.ontrack.model.structure.Property
+import net.nemerosa.ontrack.model.structure.PropertyService
+import org.springframework.stereotype.Component
+
+/**
+ * Loads one property of entities, using one load per property type.
+ */
+@Component
+class PropertyByEntityDataLoader(
+        private val propertyService: PropertyService
+) : GQLDataLoader<PropertyByEntityDataLoader.Key, Property<*>> {
+
+    override val name: String = "propertyByEntity"
+
+    override fun loadAll(keys: Set<Key>): Map<Key, Property<*>> =
+            keys.groupBy { it.propertyTypeName }
+                    .flatMap { (propertyTypeName, typeKeys) ->
+                        val properties = propertyService.getPropertyForEntities<Any>(
+                                typeKeys.map { it.entity },
+                                propertyTypeName
+                        )
+                        typeKeys.mapNotNull { key ->
+                            properties[key.entity]?.let { key to it }
+                        }
+                    }
+                    .toMap()
+
+    /**
+     * Identifies a property for an entity.
+     *
+     * @property entity Entity holding the property
+     * @property propertyTypeName Fully qualified name of the property type
+     */
+    data class Key(
+            val entity: ProjectEntity,
+            val propertyTypeName: String
+    )
+
+}
@@ -0,0 +1,23 @@
+package net.nemerosa.ontrack.graphql.support.dataloader
+
+import net.nemerosa.ontrack.model.structure.Build
+import net.nemerosa.ontrack.model.structure.ValidationRun
+import net.nemerosa.ontrack.model.structure.StructureService
+import org.springframework.stereotype.Component
+
+/**
+ * Loads all the validation runs of builds.
+ */
+@Component
+class ValidationRunsByBuildDataLoader(
+        private val structureService: StructureService
+) : GQLDataLoader<Build, List<ValidationRun>> {
+
+    override val name: String = "validationRunsByBuild"
+
+    override fun loadAll(keys: Set<Build>): Map<Build, List<ValidationRun>> {
+        val items = structureService.getValidationRunsForBuilds(keys.toList())
+        return keys.associateWith { build -> items[build.id] ?: emptyList() }
+    }
+
+}
@@ -2,9 +2,12 @@ package net.nemerosa.ontrack.graphql
 
 import graphql.ErrorType
 import graphql.ExceptionWhileDataFetching
+import graphql.ExecutionInput
 import graphql.ExecutionResult
 import graphql.GraphQL
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation
 import net.nemerosa.ontrack.graphql.schema.GraphqlSchemaService
+import net.nemerosa.ontrack.graphql.support.dataloader.GQLDataLoaderRegistryFactory
 import net.nemerosa.ontrack.it.AbstractServiceTestSupport
 import org.springframework.beans.factory.annotation.Autowired
 
@@ -15,8 +18,19 @@ abstract class AbstractQLITSupport extends AbstractServiceTestSupport {
     @Autowired
     private GraphqlSchemaService schemaService
 
+    @Autowired
+    private GQLDataLoaderRegistryFactory dataLoaderRegistryFactory
+
     def run(String query) {
-        def result = GraphQL.newGraphQL(schemaService.schema).build().execute(query)
+        def result = GraphQL.newGraphQL(schemaService.schema)
+                .instrumentation(new DataLoaderDispatcherInstrumentation())
+                .build()
+                .execute(
+                        ExecutionInput.newExecutionInput()
+                                .query(query)
+                                .dataLoaderRegistry(dataLoaderRegistryFactory.createRegistry())
+                                .build()
+                )
         def error = getException(result)
         if (error != null) {
             throw error
@@ -2,7 +2,9 @@ package net.nemerosa.ontrack.graphql
 
 import com.fasterxml.jackson.databind.JsonNode
 import graphql.GraphQL
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation
 import net.nemerosa.ontrack.graphql.schema.GraphqlSchemaService
+import net.nemerosa.ontrack.graphql.support.dataloader.GQLDataLoaderRegistryFactory
 import net.nemerosa.ontrack.graphql.support.exception
 import net.nemerosa.ontrack.it.AbstractDSLTestSupport
 import net.nemerosa.ontrack.json.JsonUtils
@@ -14,12 +16,16 @@ abstract class AbstractQLKTITSupport : AbstractDSLTestSupport() {
     @Autowired
     private lateinit var schemaService: GraphqlSchemaService
 
+    @Autowired
+    private lateinit var dataLoaderRegistryFactory: GQLDataLoaderRegistryFactory
+
     fun run(query: String, variables: Map<String, *> = emptyMap<String, Any>()): JsonNode {
         val result = GraphQL
                 .newGraphQL(schemaService.schema)
+                .instrumentation(DataLoaderDispatcherInstrumentation())
                 .build()
                 .execute {
-                    it.query(query).variables(variables)
+                    it.query(query).variables(variables).dataLoaderRegistry(dataLoaderRegistryFactory.createRegistry())
                 }
         val error = result.exception
         if (error != null) {
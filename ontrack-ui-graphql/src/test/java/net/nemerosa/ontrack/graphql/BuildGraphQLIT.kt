@@ -1,6 +1,7 @@
 package net.nemerosa.ontrack.graphql
 
 import net.nemerosa.ontrack.model.structure.Build
+import net.nemerosa.ontrack.model.structure.ValidationRunStatusID
 import org.junit.Test
 import kotlin.test.assertEquals
 import kotlin.test.assertNotNull
@@ -581,4 +582,55 @@ class BuildGraphQLIT : AbstractQLKTITSupport() {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    fun `Last validation runs per validation stamp for several builds`() {
+        project {
+            branch {
+                val vs1 = validationStamp(name = "VS1")
+                val vs2 = validationStamp(name = "VS2")
+                val builds = (1..3).map {
+                    build("$it").apply {
+                        validate(vs1, ValidationRunStatusID.STATUS_FAILED)
+                        validate(vs1)
+                        validate(vs2)
+                    }
+                }
+                // Gets the last validation runs of all the builds in one query
+                val data = asUserWithView {
+                    run("""{
+                        branches(id: $id) {
+                            builds {
+                                name
+                                validationRuns(lastPerStamp: true) {
+                                    validationStamp {
+                                        name
+                                    }
+                                    validationRunStatuses {
+                                        statusID {
+                                            id
+                                        }
+                                    }
+                                }
+                            }
+                        }
+                    }""")
+                }
+                // Checks the validation runs of each build
+                val buildNodes = data["branches"][0]["builds"]
+                assertEquals(builds.size, buildNodes.size())
+                buildNodes.forEach { buildNode ->
+                    val runs = buildNode["validationRuns"]
+                    assertEquals(
+                            listOf("VS1", "VS2"),
+                            runs.map { it["validationStamp"]["name"].asText() }
+                    )
+                    assertEquals(
+                            listOf("PASSED", "PASSED"),
+                            runs.map { it["validationRunStatuses"][0]["statusID"]["id"].asText() }
+                    )
+                }
+            }
+        }
+    }
+
+}
@@ -111,14 +111,16 @@ class BranchSearchItem(
         override val id: String,
         val name: String,
         val description: String,
-        val project: String
+        val project: String,
+        override val projectId: Int
 ) : SearchItem {
 
     constructor(branch: Branch) : this(
             id = branch.id.toString(),
             name = branch.name,
             description = branch.description ?: "",
-            project = branch.project.name
+            project = branch.project.name,
+            projectId = branch.project.id()
     )
 
     override val fields: Map<String, Any> = mapOf(
@@ -112,12 +112,14 @@ const val BUILD_SEARCH_RESULT_TYPE = "build"
 data class BuildSearchItem(
         override val id: String,
         val name: String,
-        val description: String
+        val description: String,
+        override val projectId: Int
 ) : SearchItem {
     constructor(build: Build) : this(
             id = build.id().toString(),
             name = build.name,
-            description = build.description ?: ""
+            description = build.description ?: "",
+            projectId = build.project.id()
     )
 
     override val fields: Map<String, Any?> = mapOf(
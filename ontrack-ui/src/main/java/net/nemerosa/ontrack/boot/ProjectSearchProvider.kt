@@ -4,6 +4,8 @@ import com.fasterxml.jackson.databind.JsonNode
 import net.nemerosa.ontrack.model.events.Event
 import net.nemerosa.ontrack.model.events.EventFactory
 import net.nemerosa.ontrack.model.events.EventListener
+import net.nemerosa.ontrack.model.security.ProjectView
+import net.nemerosa.ontrack.model.security.SecurityService
 import net.nemerosa.ontrack.model.structure.*
 import net.nemerosa.ontrack.ui.controller.URIBuilder
 import net.nemerosa.ontrack.ui.support.AbstractSearchProvider
@@ -33,7 +35,8 @@ const val PROJECT_SEARCH_RESULT_TYPE = "project"
 class ProjectSearchProvider(
         uriBuilder: URIBuilder,
         private val structureService: StructureService,
-        private val searchIndexService: SearchIndexService
+        private val searchIndexService: SearchIndexService,
+        private val securityService: SecurityService
 ) : AbstractSearchProvider(uriBuilder), SearchIndexer<ProjectSearchItem>, EventListener {
 
     override val searchResultType = SearchResultType(
@@ -82,17 +85,24 @@ class ProjectSearchProvider(
         }
     }
 
+    /**
+     * The project is not loaded, the indexed fields being enough to display it.
+     */
     override fun toSearchResult(id: String, score: Double, source: JsonNode): SearchResult? {
-        return structureService.findProjectByID(ID.of(id.toInt()))?.run {
+        val projectId = id.toInt()
+        return if (securityService.isProjectFunctionGranted(projectId, ProjectView::class.java)) {
+            val project = Project.of(
+                    NameDescription.nd(source.path("name").asText(), source.path("description").asText())
+            ).withId(ID.of(projectId))
             SearchResult(
-                    title = entityDisplayName,
-                    description = description ?: "",
-                    uri = uriBuilder.getEntityURI(this),
-                    page = uriBuilder.getEntityPage(this),
+                    title = project.entityDisplayName,
+                    description = project.description ?: "",
+                    uri = uriBuilder.getEntityURI(project),
+                    page = uriBuilder.getEntityPage(project),
                     accuracy = score,
                     type = searchResultType
             )
-        }
+        } else null
     }
 
     override fun onEvent(event: Event) {
@@ -132,4 +142,6 @@ class ProjectSearchItem(
             "description" to description
     )
 
+    override val projectId: Int get() = id.toInt()
+
 }
@@ -110,9 +110,7 @@ public class BuildController extends AbstractResourceController {
     @RequestMapping(value = "project/{projectId}/builds/search", method = RequestMethod.GET)
     public Resources<BuildView> buildSearch(@PathVariable ID projectId, @Valid BuildSearchForm form) {
         return Resources.of(
-                structureService.buildSearch(projectId, form).stream()
-                        .map(build -> structureService.getBuildView(build, true))
-                        .collect(Collectors.toList()),
+                structureService.getBuildViews(structureService.buildSearch(projectId, form), true),
                 uri(on(getClass()).buildSearch(projectId, form)))
                 .forView(BuildView.class)
                 ;
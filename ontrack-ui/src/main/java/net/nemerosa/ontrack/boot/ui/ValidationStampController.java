@@ -20,7 +20,10 @@ import org.springframework.web.multipart.MultipartFile;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static net.nemerosa.ontrack.boot.ui.UIUtils.setupDefaultImageCache;
@@ -64,11 +67,16 @@ public class ValidationStampController extends AbstractResourceController {
     @RequestMapping(value = "branches/{branchId}/validationStamps/view", method = RequestMethod.GET)
     @Transactional
     public Resources<ValidationStampView> getValidationStampViewListForBranch(@PathVariable ID branchId) {
-        return getValidationStampListForBranch(branchId)
+        Resources<ValidationStamp> validationStamps = getValidationStampListForBranch(branchId);
+        // Decorations for all the validation stamps at once
+        Map<ProjectEntity, List<Decoration<?>>> decorations = decorationService.getDecorations(
+                new ArrayList<>(validationStamps.getResources())
+        );
+        return validationStamps
                 .transform(validationStamp ->
                         ValidationStampView.of(
                                 validationStamp,
-                                decorationService.getDecorations(validationStamp)
+                                decorations.get(validationStamp)
                         )
                 );
     }
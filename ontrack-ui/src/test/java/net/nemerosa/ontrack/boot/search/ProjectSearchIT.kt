@@ -91,4 +91,32 @@ class ProjectSearchIT : AbstractSearchTestSupport() {
         }
     }
 
+    @Test
+    fun `Search pages are filled with the authorized projects only`() {
+        val prefix = uid("P")
+        // Creates projects
+        val projects = (0..5).map {
+            doCreateProject(NameDescription(prefix + it, "Project $prefix #$it"))
+        }
+        // Launching indexation for the projects
+        index(PROJECT_SEARCH_INDEX)
+        // Making sure to restrict access rights
+        withNoGrantViewToAll {
+            // Being authorised only for the last three projects
+            asUserWithView(projects[3], projects[4], projects[5]) {
+                val page = searchService.paginatedSearch(SearchRequest(
+                        token = prefix,
+                        type = PROJECT_SEARCH_RESULT_TYPE,
+                        size = 2
+                ))
+                // Full page & exact total
+                assertEquals(2, page.items.size)
+                assertEquals(3, page.total)
+                page.items.forEach { result ->
+                    assertTrue(result.title in (3..5).map { projects[it].entityDisplayName }, "Only authorized projects are returned")
+                }
+            }
+        }
+    }
+
 }
\ No newline at end of file